@@ -0,0 +1,138 @@
+/*
+ * Copyright [2017] [Indra Basak]
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.basaki.agent.benchmark;
+
+import com.basaki.agent.jaxrs.HelloWorldJaxrsService;
+import com.wily.introscope.agent.IAgent;
+import com.wily.introscope.agent.enterprise.EnterpriseAgent;
+import com.wily.introscope.agent.extension.IExtensionLocatorPolicy;
+import com.wily.introscope.agent.trace.FrontendTracer;
+import com.wily.introscope.agent.trace.ITracerFactory;
+import com.wily.introscope.agent.trace.InvocationData;
+import com.wily.introscope.agent.trace.ProbeIdentification;
+import com.wily.introscope.agent.trace.ProbeInformation;
+import com.wily.util.extension.IExtensionLocator;
+import com.wily.util.feedback.ApplicationFeedback;
+import com.wily.util.feedback.IModuleFeedbackChannel;
+import com.wily.util.heartbeat.IntervalHeartbeat;
+import com.wily.util.io.ExtendedFile;
+import com.wily.util.properties.AttributeListing;
+import com.wily.util.text.IStringLocalizer;
+import com.wily.util.text.StringLocalizerHandle;
+import com.wily.util.thread.DefaultThreadFactory;
+
+/**
+ * {@code FormatterFixtures} creates an agent and invocation data for the
+ * benchmarks the same way the name formatter unit tests do.
+ *
+ * @author Indra Basak
+ * @since 10/18/26
+ */
+public class FormatterFixtures {
+
+    public static final String FRONT_BOUNDARY = "Frontends|Apps|Indra";
+
+    private final IAgent agent;
+
+    public FormatterFixtures() {
+        ApplicationFeedback feedback =
+                new ApplicationFeedback("benchmarkApplication",
+                        "benchmarkModule");
+        IExtensionLocatorPolicy extensionLocatorPolicy =
+                new IExtensionLocatorPolicy() {
+
+                    @Override
+                    public IExtensionLocator createExtensionLocator(
+                            IModuleFeedbackChannel iModuleFeedbackChannel,
+                            IStringLocalizer iStringLocalizer,
+                            ExtendedFile extendedFile) {
+                        return null;
+                    }
+                };
+
+        IntervalHeartbeat heartbeat =
+                new IntervalHeartbeat("benchmark-heartbeat",
+                        new DefaultThreadFactory(false), feedback,
+                        StringLocalizerHandle.getStringLocalizer(), 20000);
+
+        agent = new EnterpriseAgent(feedback,
+                "com.basaki.agent.benchmark.FormatterFixtures",
+                extensionLocatorPolicy,
+                StringLocalizerHandle.getStringLocalizer(), heartbeat);
+    }
+
+    public IAgent getAgent() {
+        return agent;
+    }
+
+    /**
+     * Creates invocation data for a probed method of a REST service.
+     *
+     * @param obj        REST service instance
+     * @param methodName probed method name
+     * @param methodDesc probed method descriptor
+     * @param frontend   true if the invocation has a front end boundary
+     * @return invocation data
+     */
+    public InvocationData createInvocationData(Object obj, String methodName,
+            String methodDesc, boolean frontend) {
+        return createInvocationData(obj, methodName, methodDesc,
+                frontend ? FRONT_BOUNDARY : null);
+    }
+
+    /**
+     * Creates invocation data for a probed method of a REST service with a
+     * given front end boundary.
+     *
+     * @param obj           REST service instance
+     * @param methodName    probed method name
+     * @param methodDesc    probed method descriptor
+     * @param frontBoundary front end boundary path, null if none
+     * @return invocation data
+     */
+    public InvocationData createInvocationData(Object obj, String methodName,
+            String methodDesc, final String frontBoundary) {
+        Class<?> clazz = obj.getClass();
+        ProbeIdentification probe =
+                new ProbeIdentification(clazz.getSimpleName(), methodName,
+                        methodDesc, clazz.getName());
+
+        FrontendTracer frontendTracer =
+                new FrontendTracer(agent, new AttributeListing(), probe,
+                        new HelloWorldJaxrsService()) {
+                    protected boolean hasFrontend() {
+                        return frontBoundary != null;
+                    }
+
+                    protected String getFrontendNameForComponent(
+                            String rootName) {
+                        return frontBoundary;
+                    }
+                };
+        ITracerFactory[] tracerFactory = new ITracerFactory[1];
+        tracerFactory[0] = frontendTracer;
+
+        ProbeInformation info =
+                new ProbeInformation(agent, probe, tracerFactory);
+
+        InvocationData data =
+                InvocationData.debug_createInvocationData(agent, info, obj);
+        data.IMethodTracer_startTrace();
+        data.IMethodTracer_finishTrace();
+
+        return data;
+    }
+}
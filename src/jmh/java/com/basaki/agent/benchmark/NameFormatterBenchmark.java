@@ -0,0 +1,103 @@
+/*
+ * Copyright [2017] [Indra Basak]
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.basaki.agent.benchmark;
+
+import com.basaki.agent.JaxrsNameFormatter;
+import com.basaki.agent.SpringRestNameFormatter;
+import com.basaki.agent.jaxrs.HelloWorldJaxrsService;
+import com.basaki.agent.spring.HelloWorldRestSpringService;
+import com.basaki.agent.spring.HelloWorldSpringService;
+import com.wily.introscope.agent.trace.InvocationData;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * {@code NameFormatterBenchmark} measures {@code INameFormatter_format} of
+ * the Spring and JAX-RS name formatters. The formatters are shared by all
+ * benchmark threads, the same way the agent shares them across request
+ * threads.
+ *
+ * @author Indra Basak
+ * @since 10/18/26
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NameFormatterBenchmark {
+
+    private static final String SPRING_TEMPLATE =
+            "REST|Spring|{path}|{op}|{classname}|{method}";
+
+    private static final String JAXRS_TEMPLATE =
+            "REST|JAXRS|{path}|GET|{classname}|{method}";
+
+    private SpringRestNameFormatter springFormatter;
+
+    private JaxrsNameFormatter jaxrsFormatter;
+
+    private InvocationData springData;
+
+    private InvocationData restControllerData;
+
+    private InvocationData jaxrsData;
+
+    @Setup
+    public void setUp() {
+        FormatterFixtures fixtures = new FormatterFixtures();
+        springFormatter = new SpringRestNameFormatter(fixtures.getAgent());
+        jaxrsFormatter = new JaxrsNameFormatter(fixtures.getAgent());
+
+        springData = fixtures.createInvocationData(
+                new HelloWorldSpringService(), "getMessage",
+                "(Ljava/lang/String;)Ljava/lang/String;", false);
+        restControllerData = fixtures.createInvocationData(
+                new HelloWorldRestSpringService(), "getMessage",
+                "(Ljava/lang/String;)Ljava/lang/String;", true);
+        jaxrsData = fixtures.createInvocationData(
+                new HelloWorldJaxrsService(), "getMessage",
+                "(Ljava/lang/String;)Ljavax/ws/rs/core/Response;", false);
+    }
+
+    @Benchmark
+    public String springRestFormat() {
+        return springFormatter.INameFormatter_format(SPRING_TEMPLATE,
+                springData);
+    }
+
+    @Benchmark
+    public String springRestControllerFormat() {
+        return springFormatter.INameFormatter_format(SPRING_TEMPLATE,
+                restControllerData);
+    }
+
+    @Benchmark
+    public String jaxrsFormat() {
+        return jaxrsFormatter.INameFormatter_format(JAXRS_TEMPLATE,
+                jaxrsData);
+    }
+}
@@ -0,0 +1,215 @@
+/*
+ * Copyright [2017] [Indra Basak]
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.basaki.agent.benchmark;
+
+import com.basaki.agent.spring.HelloWorldSpringService;
+import com.basaki.agent.url.UrlNormalizer;
+import com.basaki.agent.util.AnnotationResolver;
+import com.basaki.agent.util.AnnotationStringParser;
+import com.basaki.agent.util.ClassFileAnnotationReader;
+import com.basaki.agent.util.MethodUtil;
+import com.basaki.agent.util.MetricNameTemplate;
+import com.basaki.agent.util.ParserHelper;
+import com.basaki.agent.util.RestAnnotation;
+import com.wily.util.StringUtils;
+import java.lang.reflect.Method;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * {@code ParserBenchmark} measures the building blocks of a cold name
+ * resolution: annotation parsing, method lookup, front end application
+ * name extraction, metric name rendering and REST client URL
+ * normalization.
+ *
+ * @author Indra Basak
+ * @since 10/18/26
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParserBenchmark {
+
+    private static final String REQUEST_MAPPING =
+            "org.springframework.web.bind.annotation.RequestMapping";
+
+    private static final String ANNOTATION_STRING =
+            "@" + REQUEST_MAPPING + "(value=[/x], method=[GET])";
+
+    private static final String METHOD_DESC =
+            "(Ljava/lang/String;)Ljava/lang/String;";
+
+    private static final String TEMPLATE =
+            "REST|Spring|{path}|{op}|{classname}|{method}";
+
+    private static final String URL =
+            "http://books:8080/books/1234/pages?lang=en";
+
+    private static final Pattern QUERY = Pattern.compile("[?#].*$");
+
+    private static final Pattern NUMBER = Pattern.compile("/\\d+(?=/|$)");
+
+    private final Map<String, String> values = new HashMap<String, String>();
+
+    private final UrlNormalizer normalizer = new UrlNormalizer();
+
+    private final UrlNormalizer uncachedNormalizer = new UrlNormalizer(1);
+
+    private final String[] urls = new String[1024];
+
+    private final String[] frontBoundaries = {
+            new String(FormatterFixtures.FRONT_BOUNDARY + "|hello"),
+            new String(FormatterFixtures.FRONT_BOUNDARY + "|bonjour")};
+
+    @Setup
+    public void setUp() {
+        values.put("{path}", "Indra|/hello/{msg}");
+        values.put("{op}", "GET");
+        for (int i = 0; i < urls.length; i++) {
+            urls[i] = "http://books:8080/books/" + i + "/pages?lang=en";
+        }
+    }
+
+    @Benchmark
+    public RestAnnotation parseAnnotation() {
+        return ParserHelper.parseAnnotation(ANNOTATION_STRING);
+    }
+
+    @Benchmark
+    public String annotationStringParser() {
+        AnnotationStringParser parser = AnnotationStringParser.get();
+        parser.parse(ANNOTATION_STRING);
+        return parser.getValue("value");
+    }
+
+    @Benchmark
+    public Method findMethod() {
+        return MethodUtil.findMethod(HelloWorldSpringService.class,
+                "getMessage", METHOD_DESC);
+    }
+
+    @Benchmark
+    public RestAnnotation resolveMethodAnnotation() {
+        return AnnotationResolver.findMethodAnnotation(
+                HelloWorldSpringService.class, "getMessage", METHOD_DESC,
+                REQUEST_MAPPING);
+    }
+
+    @Benchmark
+    public RestAnnotation readMethodAnnotation() {
+        return ClassFileAnnotationReader.findMethodAnnotation(
+                HelloWorldSpringService.class, "getMessage", METHOD_DESC,
+                REQUEST_MAPPING);
+    }
+
+    @Benchmark
+    public String getFrontendAppName() {
+        return ParserHelper.getFrontendAppName(
+                FormatterFixtures.FRONT_BOUNDARY + "|hello");
+    }
+
+    /**
+     * Alternates between equal but distinct front boundary instances, so
+     * the identity check misses and the cache map is hit.
+     */
+    @Benchmark
+    public String getFrontendAppNameMixed(Cursor cursor) {
+        return ParserHelper.getFrontendAppName(
+                frontBoundaries[cursor.next(frontBoundaries.length)]);
+    }
+
+    /**
+     * Baseline of the previous, uncached implementation.
+     */
+    @Benchmark
+    public String splitFrontendAppName() {
+        String[] tokens =
+                (FormatterFixtures.FRONT_BOUNDARY + "|hello").split("\\|");
+        return tokens.length > 2 ? tokens[2] : null;
+    }
+
+    @Benchmark
+    public String renderTemplate() {
+        return MetricNameTemplate.compile(TEMPLATE).render(values);
+    }
+
+    @Benchmark
+    public String replaceTemplate() {
+        String name = StringUtils.replace(TEMPLATE, "{path}",
+                "Indra|/hello/{msg}");
+        return StringUtils.replace(name, "{op}", "GET");
+    }
+
+    @Benchmark
+    public String normalizeUrl() {
+        return normalizer.normalize(URL);
+    }
+
+    /**
+     * Cycles through distinct URLs with a single entry cache, so every
+     * call tokenizes.
+     */
+    @Benchmark
+    public String normalizeUncachedUrl(Cursor cursor) {
+        return uncachedNormalizer.normalize(urls[cursor.next(urls.length)]);
+    }
+
+    /**
+     * Baseline of a regular expression based normalization.
+     */
+    @Benchmark
+    public String replaceUrlRegex(Cursor cursor) {
+        String url = QUERY.matcher(urls[cursor.next(urls.length)])
+                .replaceFirst("");
+        return NUMBER.matcher(url).replaceAll("/{number}");
+    }
+
+    /**
+     * Position of a benchmark thread in a cycled array, kept per thread so
+     * the threads don't write a shared field.
+     */
+    @State(Scope.Thread)
+    public static class Cursor {
+
+        private int position;
+
+        /**
+         * Advances the cursor.
+         *
+         * @param length array length, a power of two
+         * @return next position
+         */
+        int next(int length) {
+            position = (position + 1) & (length - 1);
+            return position;
+        }
+    }
+}
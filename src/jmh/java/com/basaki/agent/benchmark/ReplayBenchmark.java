@@ -0,0 +1,195 @@
+/*
+ * Copyright [2017] [Indra Basak]
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.basaki.agent.benchmark;
+
+import com.basaki.agent.JaxrsNameFormatter;
+import com.basaki.agent.SpringRestNameFormatter;
+import com.basaki.agent.jaxrs.HelloWorldJaxrsService;
+import com.basaki.agent.record.InvocationRecording;
+import com.basaki.agent.spring.HelloWorldNoopSpringService;
+import com.basaki.agent.spring.HelloWorldRestSpringService;
+import com.basaki.agent.spring.HelloWorldSpringService;
+import com.wily.introscope.agent.IAgent;
+import com.wily.introscope.agent.trace.INameFormatter;
+import com.wily.introscope.agent.trace.InvocationData;
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Constructor;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * {@code ReplayBenchmark} replays a recording of production invocations,
+ * written by {@code InvocationRecorder}, through the name formatters at full
+ * speed. The recorded controller classes have to be on the benchmark class
+ * path and have a no-argument constructor; other invocations are skipped.
+ * <pre>
+ *     mvn -Pbenchmark verify \
+ *         -Djmh.args="ReplayBenchmark -p recording=/tmp/recording.tsv"
+ * </pre>
+ * Without a recording, a mix of the test fixture controllers is replayed.
+ *
+ * @author Indra Basak
+ * @since 10/18/26
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ReplayBenchmark {
+
+    private static final String SPRING_TEMPLATE =
+            "REST|Spring|{path}|{op}|{classname}|{method}";
+
+    private static final String SPRING_DESC =
+            "(Ljava/lang/String;)Ljava/lang/String;";
+
+    @Param({""})
+    private String recording;
+
+    private INameFormatter[] formatters;
+
+    private InvocationData[] data;
+
+    private String[] templates;
+
+    @Setup
+    public void setUp() throws Exception {
+        FormatterFixtures fixtures = new FormatterFixtures();
+        List<INameFormatter> formatterList = new ArrayList<INameFormatter>();
+        List<InvocationData> dataList = new ArrayList<InvocationData>();
+        List<String> templateList = new ArrayList<String>();
+
+        if (recording.isEmpty()) {
+            INameFormatter spring =
+                    new SpringRestNameFormatter(fixtures.getAgent());
+            INameFormatter jaxrs = new JaxrsNameFormatter(fixtures.getAgent());
+            Object[] controllers = {new HelloWorldSpringService(),
+                    new HelloWorldRestSpringService(),
+                    new HelloWorldNoopSpringService()};
+            for (Object controller : controllers) {
+                formatterList.add(spring);
+                dataList.add(fixtures.createInvocationData(controller,
+                        "getMessage", SPRING_DESC, true));
+                templateList.add(SPRING_TEMPLATE);
+            }
+            formatterList.add(jaxrs);
+            dataList.add(fixtures.createInvocationData(
+                    new HelloWorldJaxrsService(), "getMessage",
+                    "(Ljava/lang/String;)Ljavax/ws/rs/core/Response;", false));
+            templateList.add("REST|JAXRS|{path}|GET|{classname}|{method}");
+        } else {
+            load(fixtures, formatterList, dataList, templateList);
+        }
+
+        formatters = formatterList.toArray(
+                new INameFormatter[formatterList.size()]);
+        data = dataList.toArray(new InvocationData[dataList.size()]);
+        templates = templateList.toArray(new String[templateList.size()]);
+    }
+
+    @Benchmark
+    public String replay(Cursor cursor) {
+        int i = cursor.next(data.length);
+        return formatters[i].INameFormatter_format(templates[i], data[i]);
+    }
+
+    private void load(FormatterFixtures fixtures,
+            List<INameFormatter> formatterList,
+            List<InvocationData> dataList, List<String> templateList)
+            throws IOException {
+        InvocationRecording invocations =
+                new InvocationRecording(new File(recording));
+        Map<String, INameFormatter> formatterMap =
+                new HashMap<String, INameFormatter>();
+        Map<InvocationRecording.Invocation, InvocationData> dataMap =
+                new HashMap<InvocationRecording.Invocation, InvocationData>();
+        int skipped = 0;
+
+        for (InvocationRecording.Invocation invocation :
+                invocations.getSamples()) {
+            try {
+                INameFormatter formatter =
+                        formatterMap.get(invocation.getFormatter());
+                if (formatter == null) {
+                    formatter = (INameFormatter) Class.forName(
+                            invocation.getFormatter())
+                            .getConstructor(IAgent.class)
+                            .newInstance(fixtures.getAgent());
+                    formatterMap.put(invocation.getFormatter(), formatter);
+                }
+
+                InvocationData invocationData = dataMap.get(invocation);
+                if (invocationData == null) {
+                    Constructor<?> constructor = Class.forName(
+                            invocation.getClassName())
+                            .getDeclaredConstructor();
+                    constructor.setAccessible(true);
+                    invocationData = fixtures.createInvocationData(
+                            constructor.newInstance(),
+                            invocation.getMethodName(),
+                            invocation.getMethodDesc(),
+                            invocation.getFrontBoundary());
+                    dataMap.put(invocation, invocationData);
+                }
+
+                formatterList.add(formatter);
+                dataList.add(invocationData);
+                templateList.add(invocation.getTemplate());
+            } catch (Exception e) {
+                skipped++;
+            }
+        }
+
+        System.out.println("Replaying " + dataList.size() + " of "
+                + invocations.getSamples().size() + " samples, skipped "
+                + skipped);
+        if (dataList.isEmpty()) {
+            throw new IOException("Nothing to replay in " + recording);
+        }
+    }
+
+    /**
+     * Position of a benchmark thread in the replayed sequence.
+     */
+    @State(Scope.Thread)
+    public static class Cursor {
+
+        private int position;
+
+        int next(int length) {
+            int current = position;
+            position = current + 1 == length ? 0 : current + 1;
+            return current;
+        }
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright [2017] [Indra Basak]
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.basaki.agent;
+
+import com.basaki.agent.cache.CardinalityLimiter;
+import com.basaki.agent.url.UrlNormalizer;
+import com.basaki.agent.util.MetricNameTemplate;
+import com.basaki.agent.util.ParserHelper;
+import com.wily.introscope.agent.IAgent;
+import com.wily.introscope.agent.trace.INameFormatter;
+import com.wily.introscope.agent.trace.InvocationData;
+import com.wily.util.feedback.IModuleFeedbackChannel;
+import java.util.Collections;
+
+/**
+ * {@code BackendUrlNameFormatter} formats the metric name of a REST client
+ * call, e.g., a {@code RestTemplate} call, by replacing the '{0}' place
+ * holder with the normalized URL of the call. See {@link UrlNormalizer}
+ * for how a URL is normalized, e.g.,
+ * {@code REST GET call at http://books:8080/books/{number}}.
+ * <p/>
+ * Normalized URLs count against the shared {@link CardinalityLimiter}
+ * budget. A URL over budget is folded into {@value
+ * CardinalityLimiter#OVERFLOW_PATH}.
+ * <p/>
+ * PBD associated with this name formatter:
+ * <p/>
+ * <p>
+ * <pre>
+ *     SetTracerClassMapping: SpringRestBackendTracer
+ * com.wily.introscope.agent.trace.hc2.BackendTracer
+ * com.wily.introscope.probebuilder.validate.ResourceNameValidator
+ *     SetTracerParameter: SpringRestBackendTracer nameformatter
+ * com.basaki.agent.BackendUrlNameFormatter
+ *
+ *     SetFlag: SpringRestBackendFlag
+ *     TurnOn: SpringRestBackendFlag
+ *     IdentifyClassAs: org.springframework.web.client.RestTemplate
+ * SpringRestBackendFlag
+ *     TraceOneMethodWithParametersIfFlagged: SpringRestBackendFlag
+ * getForObject SpringRestBackendTracer "REST GET call at {0}"
+ * </pre>
+ *
+ * @author Indra Basak
+ * @since 10/18/26
+ */
+public class BackendUrlNameFormatter implements INameFormatter {
+
+    private static final String URL_NAME_HOLDER = "{0}";
+
+    private static final String UNKNOWN_URL = "unknown";
+
+    private final IModuleFeedbackChannel feedback;
+
+    private final UrlNormalizer normalizer = new UrlNormalizer();
+
+    private final CardinalityLimiter cardinalityLimiter;
+
+    /**
+     * Constructs a {@code BackendUrlNameFormatter} which takes an agent as
+     * parameter.
+     *
+     * @param agent Java agent reference
+     */
+    public BackendUrlNameFormatter(IAgent agent) {
+        this(agent, CardinalityLimiter.getDefault());
+    }
+
+    BackendUrlNameFormatter(IAgent agent,
+            CardinalityLimiter cardinalityLimiter) {
+        feedback = agent.IAgent_getModuleFeedback();
+        this.cardinalityLimiter = cardinalityLimiter;
+    }
+
+    public IModuleFeedbackChannel getFeedback() {
+        return feedback;
+    }
+
+    public UrlNormalizer getNormalizer() {
+        return normalizer;
+    }
+
+    public CardinalityLimiter getCardinalityLimiter() {
+        return cardinalityLimiter;
+    }
+
+    /**
+     * Retrieves a formatted metric name for a REST client call. Replaces the
+     * '{0}' place holder with the normalized URL, or with the overflow path
+     * if the URL is over the cardinality budget.
+     *
+     * @param name metric name
+     * @param data invocation data
+     * @return formatted metric name
+     */
+    public String INameFormatter_format(String name, InvocationData data) {
+        Object url = getUrl(data);
+        String normalized =
+                url != null ? normalizer.normalize(url.toString()) :
+                        UNKNOWN_URL;
+        if (url != null && !cardinalityLimiter.admit(
+                ParserHelper.getFrontendAppName(data.getFrontBoundary()),
+                normalized)) {
+            normalized = CardinalityLimiter.OVERFLOW_PATH;
+        }
+
+        return MetricNameTemplate.compile(name).render(
+                Collections.singletonMap(URL_NAME_HOLDER, normalized));
+    }
+
+    /**
+     * Retrieves the URL of a REST client call, the first parameter of the
+     * traced method. A {@code String} or a {@code java.net.URI} for {@code
+     * RestTemplate}.
+     *
+     * @param data invocation data
+     * @return URL, null if not available
+     */
+    protected Object getUrl(InvocationData data) {
+        Object[] parameters = data.getInvocationParameters();
+        return parameters != null && parameters.length > 0 ?
+                parameters[0] : null;
+    }
+}
@@ -15,15 +15,36 @@
 
 package com.basaki.agent;
 
-import com.basaki.agent.util.IAnnotation;
+import com.basaki.agent.cache.CardinalityLimiter;
+import com.basaki.agent.cache.ClassMetadata;
+import com.basaki.agent.cache.NameStore;
+import com.basaki.agent.cache.ResolvedNameCache;
+import com.basaki.agent.jmx.RestFormatter;
+import com.basaki.agent.metrics.AccumulatorBridge;
+import com.basaki.agent.metrics.FormatterMetrics;
+import com.basaki.agent.metrics.MetricsReporter;
+import com.basaki.agent.metrics.OverheadGuard;
+import com.basaki.agent.record.InvocationRecorder;
+import com.basaki.agent.route.ClasspathScanner;
+import com.basaki.agent.route.RouteIndex;
+import com.basaki.agent.route.RouteTable;
+import com.basaki.agent.util.AnnotationResolver;
+import com.basaki.agent.util.ClassFileAnnotationReader;
+import com.basaki.agent.util.Config;
+import com.basaki.agent.util.Diagnostics;
+import com.basaki.agent.util.MetricNameTemplate;
 import com.basaki.agent.util.ParserHelper;
 import com.basaki.agent.util.RestAnnotation;
-import com.basaki.agent.util.RestAnnotationParam;
+import com.basaki.agent.util.RestPathUtil;
 import com.wily.introscope.agent.IAgent;
 import com.wily.introscope.agent.trace.INameFormatter;
 import com.wily.introscope.agent.trace.InvocationData;
+import com.wily.introscope.agent.trace.ProbeIdentification;
 import com.wily.util.feedback.IModuleFeedbackChannel;
-import java.util.List;
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+import java.util.Map;
+import javax.management.ObjectName;
 
 /**
  * {@code JBaseRestNameFormatter} is the abstract base class for REST (JAX-RS,
@@ -34,47 +55,531 @@ import java.util.List;
  */
 public abstract class BaseRestNameFormatter implements INameFormatter {
 
+    /**
+     * Budget of the cheap paths, kept apart so a degradation can't use up
+     * the budget of the resolved paths.
+     */
+    private static final CardinalityLimiter CHEAP_LIMITER =
+            new CardinalityLimiter(
+                    Config.getInt("cardinality.maxCheapPaths", 2000),
+                    CardinalityLimiter.DEFAULT_MAX_PATHS_PER_APP);
+
     private IModuleFeedbackChannel feedback;
 
+    private Diagnostics diagnostics;
+
+    private final ResolvedNameCache nameCache = new ResolvedNameCache();
+
+    private final NameStore nameStore = new NameStore();
+
+    private final CardinalityLimiter cardinalityLimiter =
+            CardinalityLimiter.getDefault();
+
+    private final InvocationRecorder recorder;
+
+    private final FormatterMetrics metrics = new FormatterMetrics(
+            Config.getString("metrics.node", "REST Extension|Formatter") + "|"
+                    + getClass().getSimpleName());
+
+    private final OverheadGuard overheadGuard = new OverheadGuard();
+
+    private final RouteTable routeTable =
+            RouteTable.create(getClass().getSimpleName());
+
+    private final ClasspathScanner scanner;
+
+    private ClasspathScanner.Listener scanListener;
+
+    private ObjectName objectName;
+
+    private volatile boolean started;
+
+    private volatile boolean overheadGuardEnabled =
+            Config.getBoolean("overhead.enabled", false);
+
+    private volatile boolean metricsEnabled =
+            Config.getBoolean("metrics.enabled", true);
+
+    private volatile boolean batchResolveEnabled =
+            Config.getBoolean("resolution.batch", true);
+
+    private volatile boolean routeIndexEnabled =
+            Config.getBoolean("resolution.routeIndex", true);
+
+    private volatile boolean classFileResolutionEnabled =
+            Config.getBoolean("resolution.classFile", false);
+
     /**
      * Constructs a <code>JaxrsNameFormatter</code> which takes an agent as
-     * parameter.
+     * parameter. The formatter is handed to the MBean server and the
+     * pre-scan on its first call, once it's fully constructed.
      *
      * @param agent Java agent reference
      */
     public BaseRestNameFormatter(IAgent agent) {
         feedback = agent.IAgent_getModuleFeedback();
+        diagnostics = new Diagnostics(feedback);
+        recorder = InvocationRecorder.getDefault(diagnostics);
+        if (metricsEnabled) {
+            MetricsReporter.register(metrics,
+                    new AccumulatorBridge(agent, diagnostics));
+        }
+
+        scanner = ClasspathScanner.getDefault(diagnostics);
+    }
+
+    /**
+     * Registers the formatter's management bean and pre-scan listener, and
+     * starts the pre-scan of the context class loader of the calling
+     * thread. Done once, on the first call.
+     */
+    private synchronized void start() {
+        if (started) {
+            return;
+        }
+
+        if (Config.getBoolean("jmx.enabled", true)) {
+            registerMBean();
+        }
+
+        if (scanner != null) {
+            scanListener = new ClasspathScanner.Listener() {
+                @Override
+                public int found(Class<?> clazz) {
+                    return preload(clazz);
+                }
+            };
+            scanner.addListener(getClassAnnotations(), scanListener);
+        }
+        prescan(Thread.currentThread().getContextClassLoader());
+        started = true;
+    }
+
+    /**
+     * Unregisters the formatter's management bean, pre-scan listener and
+     * metrics publishing, so nothing global keeps the formatter reachable.
+     * The formatter still formats names afterwards, without registering
+     * again.
+     */
+    public synchronized void close() {
+        started = true;
+        if (objectName != null) {
+            try {
+                RestFormatter.unregister(objectName);
+            } catch (Exception e) {
+                diagnostics.warn("jmx", "Unable to unregister MBean: ", e);
+            }
+            objectName = null;
+        }
+
+        if (scanListener != null) {
+            scanner.removeListener(scanListener);
+            scanListener = null;
+        }
+
+        MetricsReporter.unregister(metrics);
+    }
+
+    /**
+     * Retrieves the object name of the formatter's management bean.
+     *
+     * @return object name, null if the bean isn't registered
+     */
+    public synchronized ObjectName getObjectName() {
+        return objectName;
     }
 
     public IModuleFeedbackChannel getFeedback() {
         return feedback;
     }
 
+    public Diagnostics getDiagnostics() {
+        return diagnostics;
+    }
+
+    public ResolvedNameCache getNameCache() {
+        return nameCache;
+    }
+
+    public NameStore getNameStore() {
+        return nameStore;
+    }
+
+    public CardinalityLimiter getCardinalityLimiter() {
+        return cardinalityLimiter;
+    }
+
+    public FormatterMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Retrieves the warm start route table.
+     *
+     * @return route table, null if warm start is off
+     */
+    public RouteTable getRouteTable() {
+        return routeTable;
+    }
+
+    public OverheadGuard getOverheadGuard() {
+        return overheadGuard;
+    }
+
+    public boolean isOverheadGuardEnabled() {
+        return overheadGuardEnabled;
+    }
+
+    /**
+     * Enables or disables the overhead budget. When enabled, a formatter
+     * whose cold resolutions get too slow or too frequent hands out cheap
+     * names for a cooldown period, see {@link OverheadGuard}. Off by
+     * default, since a redeploy legitimately resolves many names at once.
+     *
+     * @param overheadGuardEnabled true to enable the overhead budget
+     */
+    public void setOverheadGuardEnabled(boolean overheadGuardEnabled) {
+        this.overheadGuardEnabled = overheadGuardEnabled;
+    }
+
+    public boolean isMetricsEnabled() {
+        return metricsEnabled;
+    }
+
+    /**
+     * Enables or disables the recording of the formatter's own metrics.
+     * Publishing to the agent is only scheduled if metrics were enabled
+     * when the formatter was created.
+     *
+     * @param metricsEnabled true to record formatter metrics
+     */
+    public void setMetricsEnabled(boolean metricsEnabled) {
+        this.metricsEnabled = metricsEnabled;
+    }
+
+    public boolean isBatchResolveEnabled() {
+        return batchResolveEnabled;
+    }
+
+    /**
+     * Enables or disables batch resolution. When enabled, the first
+     * invocation on a class resolves the annotations of all its methods in
+     * one pass, so later endpoints of the same controller start warm.
+     *
+     * @param batchResolveEnabled true to enable batch resolution
+     */
+    public void setBatchResolveEnabled(boolean batchResolveEnabled) {
+        this.batchResolveEnabled = batchResolveEnabled;
+    }
+
+    public boolean isRouteIndexEnabled() {
+        return routeIndexEnabled;
+    }
+
+    /**
+     * Enables or disables the build-time route index. When enabled, routes
+     * are looked up in the {@link RouteIndex} of the invoked class's loader
+     * before falling back to annotation resolution.
+     *
+     * @param routeIndexEnabled true to enable the route index
+     */
+    public void setRouteIndexEnabled(boolean routeIndexEnabled) {
+        this.routeIndexEnabled = routeIndexEnabled;
+    }
+
+    public boolean isClassFileResolutionEnabled() {
+        return classFileResolutionEnabled;
+    }
+
+    /**
+     * Switches annotation resolution between reflection and the class file
+     * reader. When enabled, annotations are read from the class files by the
+     * {@link ClassFileAnnotationReader}, which avoids annotation proxies and
+     * reflection metadata, instead of by the {@link AnnotationResolver}.
+     *
+     * @param classFileResolutionEnabled true to read annotations from class
+     *                                   files
+     */
+    public void setClassFileResolutionEnabled(
+            boolean classFileResolutionEnabled) {
+        this.classFileResolutionEnabled = classFileResolutionEnabled;
+    }
+
+    /**
+     * Retrieves a formatted metric name path for REST service. A resolved
+     * name is cached against the invoked class, probe method, front boundary
+     * and metric name template, so the annotation lookup only happens the
+     * first time a tuple is seen. While the {@link OverheadGuard} is
+     * degraded, a cache miss gets an uncached cheap name instead. The tuple
+     * is sampled by the {@link InvocationRecorder} if recording is on, and
+     * the call is measured in the formatter's {@link FormatterMetrics}.
+     *
+     * @param name metric path
+     * @param data invocation data
+     * @return formatted metric path
+     */
+    public String INameFormatter_format(String name, InvocationData data) {
+        if (!started) {
+            start();
+        }
+
+        boolean measured = metricsEnabled;
+        long start = measured ? System.nanoTime() : 0L;
+
+        Class<?> invocationClass = data.getInvocationObject().getClass();
+        ProbeIdentification probe =
+                data.getProbeInformation().getProbeIdentification();
+        String methodName = probe.getProbeMethodName();
+        String methodDesc = probe.getProbeMethodDescriptor();
+        String frontBoundary = data.getFrontBoundary();
+        if (recorder != null) {
+            recorder.record(getClass(), invocationClass, methodName,
+                    methodDesc, frontBoundary, name);
+        }
+
+        String resolved = nameCache.get(invocationClass, methodName,
+                methodDesc, frontBoundary, name);
+        boolean cold = resolved == null;
+        if (cold) {
+            boolean guarded = overheadGuardEnabled;
+            if (guarded && overheadGuard.isDegraded()) {
+                resolved = formatCheapName(name, data);
+            } else {
+                long resolveStart = guarded ? System.nanoTime() : 0L;
+                resolved = nameStore.canonicalize(formatName(name, data));
+                diagnostics.resolution(invocationClass.getName(), methodName,
+                        methodDesc, resolved);
+                nameCache.put(invocationClass, methodName, methodDesc,
+                        frontBoundary, name, resolved);
+                if (guarded && overheadGuard.record(
+                        System.nanoTime() - resolveStart)) {
+                    diagnostics.warn("overhead",
+                            "Name resolution over budget, degrading to cheap names: ",
+                            overheadGuard.getDegradationCount());
+                }
+            }
+        }
+
+        if (measured) {
+            metrics.record(System.nanoTime() - start, cold, resolved);
+        }
+
+        return resolved;
+    }
+
     /**
-     * Retrieves Spring Controller annotation from the controller's class
+     * Retrieves a metric name path made of the user class and method only,
+     * used while resolution is over budget. Proxies are named after the
+     * class or interface they proxy. Cheap paths have a cardinality budget
+     * of their own, so they never take the place of resolved paths. The
+     * name is kept apart from the resolved names of the class, so the tuple
+     * is resolved properly once the formatter recovers.
      *
+     * @param name metric path
      * @param data invocation data
+     * @return cheap metric path
+     */
+    protected String formatCheapName(String name, InvocationData data) {
+        Class<?> invocationClass = data.getInvocationObject().getClass();
+        ProbeIdentification probe =
+                data.getProbeInformation().getProbeIdentification();
+        String methodName = probe.getProbeMethodName();
+        String methodDesc = probe.getProbeMethodDescriptor();
+        String frontBoundary = data.getFrontBoundary();
+        ClassMetadata metadata =
+                nameCache.getMetadataCache().getMetadata(invocationClass);
+        String cheapName = metadata.getCheapName(methodName, methodDesc,
+                frontBoundary, name);
+        if (cheapName != null) {
+            return cheapName;
+        }
+
+        String appName = ParserHelper.getFrontendAppName(frontBoundary);
+        String path = getUserClass(invocationClass).getName() + "|"
+                + methodName;
+        if (!CHEAP_LIMITER.admit(appName, path)) {
+            path = CHEAP_LIMITER.getOverflowPath(appName);
+        } else if (appName != null) {
+            path = appName + "|" + path;
+        }
+
+        Map<String, String> values = new HashMap<String, String>(4);
+        values.put("{path}", path);
+        values.put("{op}", "noop");
+        cheapName = nameStore.canonicalize(
+                MetricNameTemplate.compile(name).render(values));
+        metadata.putCheapName(methodName, methodDesc, frontBoundary, name,
+                cheapName);
+
+        return cheapName;
+    }
+
+    /**
+     * Retrieves the user class of a proxy: the first interface of a JDK
+     * proxy, or the closest superclass of a generated subclass, e.g., a
+     * CGLIB proxy, whose name carries a {@code $$} suffix.
+     *
+     * @param clazz invoked class
+     * @return user class, the class itself if it isn't a proxy
+     */
+    static Class<?> getUserClass(Class<?> clazz) {
+        if (Proxy.isProxyClass(clazz) && clazz.getInterfaces().length > 0) {
+            return clazz.getInterfaces()[0];
+        }
+
+        Class<?> userClass = clazz;
+        while (userClass.getName().contains("$$")
+                && userClass.getSuperclass() != null
+                && userClass.getSuperclass() != Object.class) {
+            userClass = userClass.getSuperclass();
+        }
+
+        return userClass;
+    }
+
+    /**
+     * Retrieves the class level annotations marking a REST class.
+     *
+     * @return annotation class names in order of preference
+     */
+    protected abstract String[] getClassAnnotations();
+
+    /**
+     * Retrieves the annotation carrying the path of a REST method.
+     *
+     * @return annotation class name
+     */
+    protected abstract String getMethodAnnotation();
+
+    /**
+     * Resolves the routes of a class ahead of its first invocation, e.g.,
+     * for a class found by the pre-scan. The class level annotation and the
+     * annotations of all methods are kept in the class metadata cache.
+     *
+     * @param clazz REST class
+     * @return number of annotated methods
+     */
+    public int preload(Class<?> clazz) {
+        findClassAnnotation(clazz, getClassAnnotations());
+        Map<String, RestAnnotation> annotations =
+                findMethodAnnotations(clazz, getMethodAnnotation());
+        nameCache.getMetadataCache().getMetadata(clazz)
+                .setMethodAnnotations(annotations);
+
+        return annotations.size();
+    }
+
+    /**
+     * Starts the background pre-scan of a class loader if pre-scanning is
+     * on and the loader hasn't been scanned yet. The scan is shared by all
+     * formatters.
+     *
+     * @param loader class loader
+     */
+    private void prescan(ClassLoader loader) {
+        if (scanner == null) {
+            return;
+        }
+
+        scanner.submit(loader);
+    }
+
+    /**
+     * Resolves a formatted metric name path by replacing the place holders
+     * of a metric name template. Called only on a name cache miss.
+     *
+     * @param name metric path
+     * @param data invocation data
+     * @return formatted metric path
+     */
+    protected abstract String formatName(String name, InvocationData data);
+
+    /**
+     * Retrieves the class level annotation of the controller's class. The
+     * annotations are tried in order and the first one carrying a path wins,
+     * otherwise the first one found. The class hierarchy is searched, so
+     * proxies and annotated base classes or interfaces are covered. A class
+     * present in the warm start route table or the route index is answered
+     * from there instead. The parsed annotation is kept in the class
+     * metadata cache.
+     *
+     * @param data        invocation data
+     * @param annotations class level annotation class names in order of
+     *                    preference
      * @return controller rest annotation object
      */
     public RestAnnotation findClassAnnotation(InvocationData data,
             String[] annotations) {
+        return findClassAnnotation(data.getInvocationObject().getClass(),
+                annotations);
+    }
+
+    /**
+     * Retrieves the class level annotation of a controller class, see
+     * {@link #findClassAnnotation(InvocationData, String[])}. The first
+     * class seen from a class loader starts the pre-scan of the loader if
+     * pre-scanning is on.
+     *
+     * @param invocationClass controller class
+     * @param annotations     class level annotation class names in order of
+     *                        preference
+     * @return controller rest annotation object
+     */
+    public RestAnnotation findClassAnnotation(Class<?> invocationClass,
+            String[] annotations) {
+        ClassMetadata metadata =
+                nameCache.getMetadataCache().getMetadata(invocationClass);
+        if (metadata.isClassAnnotationResolved()) {
+            return metadata.getClassAnnotation();
+        }
+
+        prescan(invocationClass.getClassLoader());
         RestAnnotation anno = null;
+        diagnostics.debug("invocation-object", "Invocation object ",
+                invocationClass.getName());
+        RouteTable.ClassRoutes routes = getWarmRoutes(invocationClass);
+        if (routes != null && routes.isClassAnnotationResolved()) {
+            anno = routes.getClassAnnotation();
+            metadata.setClassAnnotation(anno);
+
+            return anno;
+        }
+
+        RouteIndex index = getRouteIndex(invocationClass);
+        if (index.containsClass(invocationClass.getName(), annotations[0])) {
+            anno = index.findClassAnnotation(invocationClass.getName(),
+                    annotations[0]);
+            metadata.setClassAnnotation(anno);
+
+            return anno;
+        }
 
-        Class<?> invocationClass = data.getInvocationObject().getClass();
-        feedback.info("Invocation object " + invocationClass.getName());
-        String annoStr = null;
         for (String annotation : annotations) {
-            annoStr = ParserHelper.findClassAnnotation(invocationClass,
-                    annotation);
-            if (annoStr != null) {
+            RestAnnotation found = classFileResolutionEnabled ?
+                    ClassFileAnnotationReader.findClassAnnotation(
+                            invocationClass, annotation) :
+                    AnnotationResolver.findClassAnnotation(invocationClass,
+                            annotation);
+            if (found == null) {
+                continue;
+            }
+
+            if (anno == null || getPathValue(found) != null) {
+                anno = found;
+            }
+            if (getPathValue(found) != null) {
                 break;
             }
         }
 
-        if (annoStr != null) {
-            feedback.info(
-                    "INameFormatter_format cntrl annotation: " + annoStr);
-            anno = ParserHelper.parseAnnotation(annoStr);
+        if (anno != null) {
+            diagnostics.debug("class-annotation",
+                    "INameFormatter_format cntrl annotation: ", anno);
+        }
+        metadata.setClassAnnotation(anno);
+        routes = routeTable != null ? routeTable.put(invocationClass) : null;
+        if (routes != null) {
+            routes.setClassAnnotation(anno);
         }
 
         return anno;
@@ -82,7 +587,10 @@ public abstract class BaseRestNameFormatter implements INameFormatter {
 
     /**
      * Retrieves Spring Request Mapping annotation from the controller's invoked
-     * method
+     * method. The warm start route table and the route index are consulted
+     * first, then the annotations of all handler methods of the class are
+     * batch resolved if enabled. The parsed annotation is kept in the class
+     * metadata cache and recorded in the route table.
      *
      * @param data invocation data
      * @return request mapping annotation object
@@ -99,29 +607,140 @@ public abstract class BaseRestNameFormatter implements INameFormatter {
         String methodDesc = data.getProbeInformation().getProbeIdentification()
                 .getProbeMethodDescriptor();
 
-        String annoStr =
-                ParserHelper.findMethodAnnotation(invocationObj.getClass(),
-                        methodName, methodDesc, annotation);
+        Class<?> invocationClass = invocationObj.getClass();
+        ClassMetadata metadata =
+                nameCache.getMetadataCache().getMetadata(invocationClass);
+        if (metadata.isMethodAnnotationResolved(methodName, methodDesc)) {
+            return metadata.getMethodAnnotation(methodName, methodDesc);
+        }
+
+        RouteTable.ClassRoutes routes = getWarmRoutes(invocationClass);
+        if (routes != null
+                && routes.isMethodAnnotationResolved(methodName, methodDesc)) {
+            anno = routes.getMethodAnnotation(methodName, methodDesc);
+            metadata.setMethodAnnotation(methodName, methodDesc, anno);
+
+            return anno;
+        }
+
+        anno = getRouteIndex(invocationClass).findMethodAnnotation(
+                invocationClass.getName(), methodName, methodDesc, annotation);
+        if (anno == null) {
+            if (batchResolveEnabled && !metadata.isMethodsBatchResolved()) {
+                resolveMethodAnnotations(invocationClass, metadata,
+                        annotation);
+            }
 
-        if (annoStr != null) {
-            feedback.info(
-                    "INameFormatter_format method annotation: " + annoStr);
-            anno = ParserHelper.parseAnnotation(annoStr);
+            if (metadata.isMethodAnnotationResolved(methodName, methodDesc)) {
+                anno = metadata.getMethodAnnotation(methodName, methodDesc);
+            } else {
+                anno = classFileResolutionEnabled ?
+                        ClassFileAnnotationReader.findMethodAnnotation(
+                                invocationClass, methodName, methodDesc,
+                                annotation) :
+                        AnnotationResolver.findMethodAnnotation(
+                                invocationClass, methodName, methodDesc,
+                                annotation);
+            }
+        }
+        if (anno != null) {
+            diagnostics.debug("method-annotation",
+                    "INameFormatter_format method annotation: ", anno);
+        }
+        metadata.setMethodAnnotation(methodName, methodDesc, anno);
+        routes = routeTable != null ? routeTable.put(invocationClass) : null;
+        if (routes != null) {
+            routes.setMethodAnnotation(methodName, methodDesc, anno);
         }
 
         return anno;
     }
 
+    /**
+     * Registers the formatter's management bean. A failure is logged and
+     * otherwise ignored.
+     */
+    private void registerMBean() {
+        try {
+            objectName = RestFormatter.register(this);
+            diagnostics.info("jmx", "Registered MBean ", objectName);
+        } catch (Exception e) {
+            diagnostics.warn("jmx", "Unable to register MBean: ", e);
+        }
+    }
+
+    /**
+     * Retrieves the trusted warm start routes of a class.
+     *
+     * @param clazz invoked class
+     * @return routes of the class, null if warm start is off or the class
+     * isn't in the route table
+     */
+    private RouteTable.ClassRoutes getWarmRoutes(Class<?> clazz) {
+        return routeTable != null ? routeTable.get(clazz) : null;
+    }
+
+    /**
+     * Retrieves the route index of the class loader of a class.
+     *
+     * @param clazz invoked class
+     * @return route index, empty if disabled or if there's no index
+     */
+    private RouteIndex getRouteIndex(Class<?> clazz) {
+        return routeIndexEnabled ? RouteIndex.get(clazz.getClassLoader()) :
+                RouteIndex.get(null);
+    }
+
+    /**
+     * Resolves the annotations of all methods of a class in one pass and
+     * stores them in the class metadata.
+     *
+     * @param clazz      invoked class
+     * @param metadata   metadata of the class
+     * @param annotation method annotation class name
+     */
+    private void resolveMethodAnnotations(Class<?> clazz,
+            ClassMetadata metadata, String annotation) {
+        synchronized (metadata) {
+            if (!metadata.isMethodsBatchResolved()) {
+                Map<String, RestAnnotation> annotations =
+                        findMethodAnnotations(clazz, annotation);
+                metadata.setMethodAnnotations(annotations);
+                diagnostics.debug("batch-resolution",
+                        "Batch resolved handler methods of ",
+                        clazz.getName());
+            }
+        }
+    }
+
+    /**
+     * Resolves the annotations of all methods of a class with the selected
+     * resolution backend.
+     *
+     * @param clazz      invoked class
+     * @param annotation method annotation class name
+     * @return annotations of the annotated methods keyed by method name
+     * followed by method descriptor
+     */
+    private Map<String, RestAnnotation> findMethodAnnotations(
+            Class<?> clazz, String annotation) {
+        return classFileResolutionEnabled ?
+                ClassFileAnnotationReader.findMethodAnnotations(clazz,
+                        annotation) :
+                AnnotationResolver.findMethodAnnotations(clazz, annotation);
+    }
+
     /**
      * Creates a path name from a front end application name, controller's
      * request mapping annotation, and invoked method's request mapping
-     * annotation.
+     * annotation. A path over the cardinality budget of the application is
+     * folded into the application's overflow path.
      *
      * @param appName    front end application name
      * @param cntrlAnno  controller's request mapping annotation
      * @param methodAnno invoked method's request mapping annotation
-     * @return valid path name if one of the parameter is not null, otherwise
-     * returns path name as 'nopath'
+     * @return canonical path name from the name store if one of the
+     * parameter is not null, otherwise returns path name as 'nopath'
      */
 
     public String getPath(String appName, RestAnnotation cntrlAnno,
@@ -132,12 +751,14 @@ public abstract class BaseRestNameFormatter implements INameFormatter {
             path = appName;
         }
 
-        String cntrlMthdPath = getValue(cntrlAnno, "value");
-        String value = getValue(methodAnno, "value");
-        if (value != null) {
-            String suffix = value.startsWith("/") ? value : "/" + value;
-            cntrlMthdPath =
-                    (cntrlMthdPath != null) ? (cntrlMthdPath + suffix) : suffix;
+        String cntrlMthdPath = RestPathUtil.joinPath(cntrlAnno, methodAnno);
+        if (cntrlMthdPath != null
+                && !cardinalityLimiter.admit(appName, cntrlMthdPath)) {
+            diagnostics.warn("cardinality",
+                    "Metric path budget exceeded, folding path of app ",
+                    appName);
+            return nameStore.canonicalize(
+                    cardinalityLimiter.getOverflowPath(appName));
         }
 
         if (path != null && cntrlMthdPath != null) {
@@ -148,18 +769,21 @@ public abstract class BaseRestNameFormatter implements INameFormatter {
             path = "nopath";
         }
 
-        return path.intern();
+        return nameStore.canonicalize(path);
     }
 
-    public String getValue(RestAnnotation anno, String paramName) {
-        String paramValue = null;
-        if (anno != null) {
-            List<IAnnotation> params = anno.getParam(paramName);
-            if (params != null && params.size() == 1) {
-                paramValue = ((RestAnnotationParam) params.get(0)).getValue();
-            }
-        }
+    /**
+     * Retrieves the path of an annotation. Spring's {@code path} attribute is
+     * an alias of {@code value} and is used when {@code value} is empty.
+     *
+     * @param anno rest annotation
+     * @return path value if present, null otherwise
+     */
+    public String getPathValue(RestAnnotation anno) {
+        return RestPathUtil.getPathValue(anno);
+    }
 
-        return paramValue;
+    public String getValue(RestAnnotation anno, String paramName) {
+        return RestPathUtil.getValue(anno, paramName);
     }
 }
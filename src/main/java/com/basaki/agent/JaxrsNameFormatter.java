@@ -15,11 +15,12 @@
 
 package com.basaki.agent;
 
+import com.basaki.agent.util.MetricNameTemplate;
 import com.basaki.agent.util.ParserHelper;
 import com.basaki.agent.util.RestAnnotation;
 import com.wily.introscope.agent.IAgent;
 import com.wily.introscope.agent.trace.InvocationData;
-import com.wily.util.StringUtils;
+import java.util.Collections;
 
 /**
  * {@code JaxrsNameFormatter} is a metric name formatter for REST classes
@@ -72,6 +73,8 @@ public class JaxrsNameFormatter extends BaseRestNameFormatter {
 
     private static final String PATH_ANNOTATION = "javax.ws.rs.Path";
 
+    private static final String[] CLASS_ANNOTATIONS = {PATH_ANNOTATION};
+
     /**
      * Constructs a <code>JaxrsNameFormatter</code> which takes an agent as
      * parameter.
@@ -90,19 +93,31 @@ public class JaxrsNameFormatter extends BaseRestNameFormatter {
      * @param data invocation data
      * @return name formatted metric path for JAXRS REST service
      */
-    public String INameFormatter_format(String name, InvocationData data) {
+    @Override
+    protected String formatName(String name, InvocationData data) {
         String appName = ParserHelper.getFrontendAppName(data
                 .getFrontBoundary());
-        getFeedback().debug("INameFormatter_format app name: " + appName);
+        getDiagnostics().debug("app-name", "INameFormatter_format app name: ",
+                appName);
 
-        String[] annotations = {PATH_ANNOTATION};
-        RestAnnotation classPathAnno = findClassAnnotation(data, annotations);
+        RestAnnotation classPathAnno =
+                findClassAnnotation(data, CLASS_ANNOTATIONS);
         RestAnnotation methodPathAnno =
                 findMethodAnnotation(data, PATH_ANNOTATION);
 
         String path = getPath(appName, classPathAnno, methodPathAnno);
-        name = StringUtils.replace(name, PATH_NAME_HOLDER, path);
 
-        return name;
+        return MetricNameTemplate.compile(name).render(
+                Collections.singletonMap(PATH_NAME_HOLDER, path));
+    }
+
+    @Override
+    protected String[] getClassAnnotations() {
+        return CLASS_ANNOTATIONS.clone();
+    }
+
+    @Override
+    protected String getMethodAnnotation() {
+        return PATH_ANNOTATION;
     }
 }
@@ -15,12 +15,14 @@
 
 package com.basaki.agent;
 
+import com.basaki.agent.util.MetricNameTemplate;
 import com.basaki.agent.util.ParserHelper;
 import com.basaki.agent.util.RestAnnotation;
 import com.wily.introscope.agent.IAgent;
 import com.wily.introscope.agent.trace.InvocationData;
-import com.wily.util.StringUtils;
 import com.wily.util.feedback.IModuleFeedbackChannel;
+import java.util.HashMap;
+import java.util.Map;
 
 /**
  * <code>SpringRestNameFormatter</code> formats a metric path associated with a
@@ -38,6 +40,10 @@ import com.wily.util.feedback.IModuleFeedbackChannel;
  *  }
  * </pre>
  * <p/>
+ * The path prefix comes from a class level {@code RequestMapping} if there is
+ * one, otherwise from the value of the {@code Controller} or {@code
+ * RestController} annotation.
+ * <p/>
  * PBD associated with this name formatter:
  * <p/>
  * <p>
@@ -78,6 +84,10 @@ public class SpringRestNameFormatter extends BaseRestNameFormatter {
     private static final String REQUEST_MAPPING_ANNOTATION =
             "org.springframework.web.bind.annotation.RequestMapping";
 
+    private static final String[] CLASS_ANNOTATIONS =
+            {REQUEST_MAPPING_ANNOTATION, CONTROLLER_ANNOTATION,
+                    REST_CONTROLLER_ANNOTATION};
+
     private IModuleFeedbackChannel feedback;
 
     /**
@@ -98,24 +108,34 @@ public class SpringRestNameFormatter extends BaseRestNameFormatter {
      * @param data invocation data
      * @return name formatted metric path for Spring REST service
      */
-    public String INameFormatter_format(String name, InvocationData data) {
+    @Override
+    protected String formatName(String name, InvocationData data) {
         String appName =
                 ParserHelper.getFrontendAppName(data.getFrontBoundary());
 
-        String[] annotations =
-                {CONTROLLER_ANNOTATION, REST_CONTROLLER_ANNOTATION};
-        RestAnnotation ctrlAnno = findClassAnnotation(data, annotations);
+        RestAnnotation ctrlAnno = findClassAnnotation(data, CLASS_ANNOTATIONS);
         RestAnnotation methodAnno =
                 findMethodAnnotation(data, REQUEST_MAPPING_ANNOTATION);
 
         String path = getPath(appName, ctrlAnno, methodAnno);
-        name = StringUtils.replace(name, PATH_NAME_HOLDER, path);
 
         String value = getValue(methodAnno, "method");
         String op = value != null ? value : "noop";
 
-        name = StringUtils.replace(name, OP_NAME_HOLDER, op);
+        Map<String, String> values = new HashMap<String, String>(4);
+        values.put(PATH_NAME_HOLDER, path);
+        values.put(OP_NAME_HOLDER, op);
+
+        return MetricNameTemplate.compile(name).render(values);
+    }
+
+    @Override
+    protected String[] getClassAnnotations() {
+        return CLASS_ANNOTATIONS.clone();
+    }
 
-        return name;
+    @Override
+    protected String getMethodAnnotation() {
+        return REQUEST_MAPPING_ANNOTATION;
     }
 }
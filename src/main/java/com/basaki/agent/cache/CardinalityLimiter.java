@@ -0,0 +1,221 @@
+/*
+ * Copyright [2017] [Indra Basak]
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.basaki.agent.cache;
+
+import com.basaki.agent.util.Config;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@code CardinalityLimiter} caps the number of distinct metric paths, both
+ * globally and per front end application. A path over either budget is
+ * folded into the stable {@value #OVERFLOW_PATH} path of its application,
+ * so a misbehaving service can't flood the agent with metric names.
+ * <p/>
+ * The formatters share the {@link #getDefault() default} limiter, so its
+ * global budget holds for the whole agent rather than for each formatter.
+ * <p/>
+ * A path admitted once stays admitted until the limiter is {@link #reset()}.
+ * Paths are admitted in the order they are first seen.
+ *
+ * @author Indra Basak
+ * @since 10/18/26
+ */
+public class CardinalityLimiter {
+
+    public static final String OVERFLOW_PATH = "_overflow_";
+
+    public static final int DEFAULT_MAX_PATHS =
+            Config.getInt("cardinality.maxPaths", 20000);
+
+    public static final int DEFAULT_MAX_PATHS_PER_APP =
+            Config.getInt("cardinality.maxPathsPerApp", 2000);
+
+    /**
+     * Key of the budget of paths without a front end application.
+     */
+    private static final String NO_APP = "";
+
+    private static final CardinalityLimiter DEFAULT_LIMITER =
+            new CardinalityLimiter();
+
+    private final int maxPaths;
+
+    private final int maxPathsPerApp;
+
+    private final ConcurrentMap<String, Boolean> paths =
+            new ConcurrentHashMap<String, Boolean>();
+
+    private final AtomicInteger pathCount = new AtomicInteger();
+
+    private final ConcurrentMap<String, Budget> budgets =
+            new ConcurrentHashMap<String, Budget>();
+
+    private final AtomicLong folded = new AtomicLong();
+
+    public CardinalityLimiter() {
+        this(DEFAULT_MAX_PATHS, DEFAULT_MAX_PATHS_PER_APP);
+    }
+
+    public CardinalityLimiter(int maxPaths, int maxPathsPerApp) {
+        this.maxPaths = maxPaths;
+        this.maxPathsPerApp = maxPathsPerApp;
+    }
+
+    /**
+     * Retrieves the limiter shared by the formatters of the agent, with the
+     * budgets configured with system properties.
+     *
+     * @return shared limiter
+     */
+    public static CardinalityLimiter getDefault() {
+        return DEFAULT_LIMITER;
+    }
+
+    /**
+     * Checks a path against the budgets, admitting it if there's room.
+     *
+     * @param appName front end application name, may be null
+     * @param path    controller and method path
+     * @return true if the path is admitted, false if it has to be folded
+     */
+    public boolean admit(String appName, String path) {
+        String app = appName != null ? appName : NO_APP;
+        String key = app + '|' + path;
+        if (paths.containsKey(key)) {
+            return true;
+        }
+
+        Budget budget = getBudget(app);
+        if (budget.admitted.incrementAndGet() > maxPathsPerApp) {
+            budget.admitted.decrementAndGet();
+            return fold(budget);
+        }
+
+        if (pathCount.incrementAndGet() > maxPaths) {
+            pathCount.decrementAndGet();
+            budget.admitted.decrementAndGet();
+            return fold(budget);
+        }
+
+        if (paths.putIfAbsent(key, Boolean.TRUE) != null) {
+            pathCount.decrementAndGet();
+            budget.admitted.decrementAndGet();
+        }
+
+        return true;
+    }
+
+    /**
+     * Forgets the admitted paths and the fold counts, so every path is
+     * checked against empty budgets again. Paths admitted concurrently
+     * with a reset may be counted against the old budgets.
+     */
+    public void reset() {
+        paths.clear();
+        budgets.clear();
+        pathCount.set(0);
+        folded.set(0);
+    }
+
+    /**
+     * Retrieves the folded path of a front end application.
+     *
+     * @param appName front end application name, may be null
+     * @return overflow path
+     */
+    public String getOverflowPath(String appName) {
+        return appName != null ? appName + '|' + OVERFLOW_PATH :
+                OVERFLOW_PATH;
+    }
+
+    public int getMaxPaths() {
+        return maxPaths;
+    }
+
+    public int getMaxPathsPerApp() {
+        return maxPathsPerApp;
+    }
+
+    public int getPathCount() {
+        return pathCount.get();
+    }
+
+    /**
+     * Retrieves the number of admitted paths of an application.
+     *
+     * @param appName front end application name, may be null
+     * @return admitted path count
+     */
+    public int getPathCount(String appName) {
+        Budget budget = budgets.get(appName != null ? appName : NO_APP);
+        return budget != null ? budget.admitted.get() : 0;
+    }
+
+    /**
+     * Retrieves the number of times a path was folded into an overflow
+     * path.
+     *
+     * @return total fold count
+     */
+    public long getFoldedCount() {
+        return folded.get();
+    }
+
+    /**
+     * Retrieves the number of times a path of an application was folded
+     * into its overflow path.
+     *
+     * @param appName front end application name, may be null
+     * @return fold count of the application
+     */
+    public long getFoldedCount(String appName) {
+        Budget budget = budgets.get(appName != null ? appName : NO_APP);
+        return budget != null ? budget.folded.get() : 0;
+    }
+
+    private Budget getBudget(String app) {
+        Budget budget = budgets.get(app);
+        if (budget == null) {
+            Budget newBudget = new Budget();
+            budget = budgets.putIfAbsent(app, newBudget);
+            if (budget == null) {
+                budget = newBudget;
+            }
+        }
+
+        return budget;
+    }
+
+    private boolean fold(Budget budget) {
+        budget.folded.incrementAndGet();
+        folded.incrementAndGet();
+
+        return false;
+    }
+
+    /**
+     * Path budget of a front end application.
+     */
+    private static class Budget {
+
+        private final AtomicInteger admitted = new AtomicInteger();
+
+        private final AtomicLong folded = new AtomicLong();
+    }
+}
@@ -0,0 +1,235 @@
+/*
+ * Copyright [2017] [Indra Basak]
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.basaki.agent.cache;
+
+import com.basaki.agent.util.RestAnnotation;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * {@code ClassMetadata} holds everything resolved for a single REST class:
+ * the parsed class level annotation, the parsed annotation of each probed
+ * method, the metric names formatted for the class, and the cheap names
+ * used while name resolution is over budget. It only holds
+ * strings so it never pins the class it describes.
+ *
+ * @author Indra Basak
+ * @since 10/18/26
+ */
+public class ClassMetadata {
+
+    private static final RestAnnotation NO_ANNOTATION = new RestAnnotation();
+
+    private volatile RestAnnotation classAnnotation;
+
+    private final ConcurrentMap<String, RestAnnotation> methodAnnotations =
+            new ConcurrentHashMap<String, RestAnnotation>();
+
+    private volatile boolean methodsBatchResolved;
+
+    private final ConcurrentMap<NameKey, String> names =
+            new ConcurrentHashMap<NameKey, String>();
+
+    private final ConcurrentMap<NameKey, String> cheapNames =
+            new ConcurrentHashMap<NameKey, String>();
+
+    public boolean isClassAnnotationResolved() {
+        return classAnnotation != null;
+    }
+
+    /**
+     * Retrieves the class level annotation.
+     *
+     * @return class level annotation, null if the class has none or it is
+     * not resolved yet
+     */
+    public RestAnnotation getClassAnnotation() {
+        RestAnnotation anno = classAnnotation;
+        return anno == NO_ANNOTATION ? null : anno;
+    }
+
+    /**
+     * Sets the class level annotation.
+     *
+     * @param anno class level annotation, null if the class has none
+     */
+    public void setClassAnnotation(RestAnnotation anno) {
+        classAnnotation = anno != null ? anno : NO_ANNOTATION;
+    }
+
+    public boolean isMethodAnnotationResolved(String methodName,
+            String methodDesc) {
+        return methodAnnotations.containsKey(methodKey(methodName, methodDesc));
+    }
+
+    /**
+     * Retrieves the annotation of a method.
+     *
+     * @param methodName method name
+     * @param methodDesc method descriptor
+     * @return method annotation, null if the method has none or it is not
+     * resolved yet
+     */
+    public RestAnnotation getMethodAnnotation(String methodName,
+            String methodDesc) {
+        RestAnnotation anno =
+                methodAnnotations.get(methodKey(methodName, methodDesc));
+        return anno == NO_ANNOTATION ? null : anno;
+    }
+
+    /**
+     * Sets the annotation of a method.
+     *
+     * @param methodName method name
+     * @param methodDesc method descriptor
+     * @param anno       method annotation, null if the method has none
+     */
+    public void setMethodAnnotation(String methodName, String methodDesc,
+            RestAnnotation anno) {
+        methodAnnotations.put(methodKey(methodName, methodDesc),
+                anno != null ? anno : NO_ANNOTATION);
+    }
+
+    /**
+     * Checks whether the annotations of all the methods of the class have
+     * been resolved in one batch.
+     *
+     * @return true if the methods are batch resolved
+     */
+    public boolean isMethodsBatchResolved() {
+        return methodsBatchResolved;
+    }
+
+    /**
+     * Adds the annotations of a batch resolution. Methods missing from the
+     * batch are still resolved one at a time.
+     *
+     * @param annotations method annotations keyed by method name followed by
+     *                    method descriptor
+     */
+    public void setMethodAnnotations(Map<String, RestAnnotation> annotations) {
+        for (Map.Entry<String, RestAnnotation> entry : annotations
+                .entrySet()) {
+            methodAnnotations.putIfAbsent(entry.getKey(), entry.getValue());
+        }
+        methodsBatchResolved = true;
+    }
+
+    public int getMethodAnnotationCount() {
+        return methodAnnotations.size();
+    }
+
+    public String getName(String methodName, String methodDesc,
+            String frontBoundary, String template) {
+        return names.get(
+                new NameKey(methodName, methodDesc, frontBoundary, template));
+    }
+
+    public void putName(String methodName, String methodDesc,
+            String frontBoundary, String template, String name) {
+        names.putIfAbsent(
+                new NameKey(methodName, methodDesc, frontBoundary, template),
+                name);
+    }
+
+    public int getNameCount() {
+        return names.size();
+    }
+
+    public String getCheapName(String methodName, String methodDesc,
+            String frontBoundary, String template) {
+        return cheapNames.get(
+                new NameKey(methodName, methodDesc, frontBoundary, template));
+    }
+
+    public void putCheapName(String methodName, String methodDesc,
+            String frontBoundary, String template, String name) {
+        cheapNames.putIfAbsent(
+                new NameKey(methodName, methodDesc, frontBoundary, template),
+                name);
+    }
+
+    public void clearNames() {
+        names.clear();
+        cheapNames.clear();
+    }
+
+    private static String methodKey(String methodName, String methodDesc) {
+        return methodName + methodDesc;
+    }
+
+    /**
+     * Composite key of a formatted metric name within a class. The hash code
+     * is computed once since keys are created on every lookup.
+     */
+    private static final class NameKey {
+
+        private final String methodName;
+
+        private final String methodDesc;
+
+        private final String frontBoundary;
+
+        private final String template;
+
+        private final int hash;
+
+        NameKey(String methodName, String methodDesc, String frontBoundary,
+                String template) {
+            this.methodName = methodName;
+            this.methodDesc = methodDesc;
+            this.frontBoundary = frontBoundary;
+            this.template = template;
+
+            int h = hashCode(methodName);
+            h = 31 * h + hashCode(methodDesc);
+            h = 31 * h + hashCode(frontBoundary);
+            h = 31 * h + hashCode(template);
+            hash = h;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof NameKey)) {
+                return false;
+            }
+
+            NameKey key = (NameKey) o;
+            return hash == key.hash
+                    && equal(methodName, key.methodName)
+                    && equal(methodDesc, key.methodDesc)
+                    && equal(frontBoundary, key.frontBoundary)
+                    && equal(template, key.template);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        private static int hashCode(String str) {
+            return str != null ? str.hashCode() : 0;
+        }
+
+        private static boolean equal(String a, String b) {
+            return a == null ? b == null : a.equals(b);
+        }
+    }
+}
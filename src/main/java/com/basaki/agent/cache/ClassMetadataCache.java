@@ -0,0 +1,55 @@
+/*
+ * Copyright [2017] [Indra Basak]
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.basaki.agent.cache;
+
+import com.basaki.agent.util.Config;
+
+/**
+ * {@code ClassMetadataCache} is the per-class {@link ClassMetadata} store of
+ * a name formatter. Classes are held weakly and the number of classes is
+ * bounded by the {@code com.basaki.agent.cache.maxClasses} system property.
+ *
+ * @author Indra Basak
+ * @since 10/18/26
+ */
+public class ClassMetadataCache extends WeakClassCache<ClassMetadata> {
+
+    public static final int DEFAULT_MAX_CLASSES = 10000;
+
+    public ClassMetadataCache() {
+        this(Config.getInt("cache.maxClasses", DEFAULT_MAX_CLASSES));
+    }
+
+    public ClassMetadataCache(int maxSize) {
+        super(maxSize);
+    }
+
+    /**
+     * Retrieves the metadata of a class, creating an empty one on first
+     * access.
+     *
+     * @param clazz REST class
+     * @return metadata of the class
+     */
+    public ClassMetadata getMetadata(Class<?> clazz) {
+        ClassMetadata metadata = get(clazz);
+        if (metadata == null) {
+            metadata = putIfAbsent(clazz, new ClassMetadata());
+        }
+
+        return metadata;
+    }
+}
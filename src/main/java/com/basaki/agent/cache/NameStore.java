@@ -0,0 +1,138 @@
+/*
+ * Copyright [2017] [Indra Basak]
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.basaki.agent.cache;
+
+import com.basaki.agent.util.Config;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@code NameStore} canonicalizes metric names and paths so that equal names
+ * built for different classes, e.g., proxies or redeployed controllers,
+ * share a single {@code String} instance. It replaces {@link String#intern()}
+ * with a store which is bounded and reports its footprint.
+ * <p/>
+ * Once full, a name which isn't already stored is returned as is, which is
+ * still correct but no longer deduplicated.
+ *
+ * @author Indra Basak
+ * @since 10/18/26
+ */
+public class NameStore {
+
+    public static final int DEFAULT_MAX_NAMES =
+            Config.getInt("cache.maxNames", 50000);
+
+    /**
+     * Approximate bytes of a stored name excluding its characters: string
+     * and char array headers plus a map entry.
+     */
+    static final int ENTRY_OVERHEAD = 80;
+
+    private final ConcurrentMap<String, String> names =
+            new ConcurrentHashMap<String, String>();
+
+    private final int maxSize;
+
+    private final AtomicInteger size = new AtomicInteger();
+
+    private final AtomicLong bytes = new AtomicLong();
+
+    private final AtomicLong rejections = new AtomicLong();
+
+    public NameStore() {
+        this(DEFAULT_MAX_NAMES);
+    }
+
+    public NameStore(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Retrieves the canonical instance of a name, storing the name if it's
+     * not present and the store isn't full.
+     *
+     * @param name metric name or path
+     * @return canonical instance of the name
+     */
+    public String canonicalize(String name) {
+        if (name == null) {
+            return null;
+        }
+
+        String canonical = names.get(name);
+        if (canonical != null) {
+            return canonical;
+        }
+
+        if (size.incrementAndGet() > maxSize) {
+            size.decrementAndGet();
+            rejections.incrementAndGet();
+            return name;
+        }
+
+        canonical = names.putIfAbsent(name, name);
+        if (canonical != null) {
+            size.decrementAndGet();
+            return canonical;
+        }
+
+        bytes.addAndGet(ENTRY_OVERHEAD + 2L * name.length());
+
+        return name;
+    }
+
+    public int size() {
+        return size.get();
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * Retrieves the approximate memory held by the stored names.
+     *
+     * @return approximate size in bytes
+     */
+    public long getApproximateBytes() {
+        return bytes.get();
+    }
+
+    /**
+     * Retrieves the number of names which weren't stored since the store was
+     * full.
+     *
+     * @return rejection count
+     */
+    public long getRejectionCount() {
+        return rejections.get();
+    }
+
+    /**
+     * Removes all names. Names handed out earlier remain valid.
+     */
+    public void clear() {
+        for (String name : names.keySet()) {
+            if (names.remove(name) != null) {
+                size.decrementAndGet();
+                bytes.addAndGet(-(ENTRY_OVERHEAD + 2L * name.length()));
+            }
+        }
+    }
+}
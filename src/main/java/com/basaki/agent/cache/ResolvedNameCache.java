@@ -0,0 +1,127 @@
+/*
+ * Copyright [2017] [Indra Basak]
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.basaki.agent.cache;
+
+import com.basaki.agent.metrics.StripedCounter;
+
+/**
+ * {@code ResolvedNameCache} memoizes fully formatted metric names. A name
+ * depends only on the invoked class, the probe method name and descriptor,
+ * the front boundary and the metric name template, so once resolved it never
+ * changes for the same tuple. Names are kept in the {@link ClassMetadata} of
+ * the invoked class and go away with it. Hits and misses are counted with
+ * striped counters, since every formatter call updates one of them.
+ *
+ * @author Indra Basak
+ * @since 10/18/26
+ */
+public class ResolvedNameCache {
+
+    private final ClassMetadataCache metadataCache;
+
+    private final StripedCounter hits = new StripedCounter();
+
+    private final StripedCounter misses = new StripedCounter();
+
+    public ResolvedNameCache() {
+        this(new ClassMetadataCache());
+    }
+
+    public ResolvedNameCache(ClassMetadataCache metadataCache) {
+        this.metadataCache = metadataCache;
+    }
+
+    public ClassMetadataCache getMetadataCache() {
+        return metadataCache;
+    }
+
+    /**
+     * Retrieves a previously resolved metric name.
+     *
+     * @param clazz         invoked class
+     * @param methodName    probe method name
+     * @param methodDesc    probe method descriptor
+     * @param frontBoundary front end boundary path, may be null
+     * @param template      metric name template
+     * @return resolved metric name if present, null otherwise
+     */
+    public String get(Class<?> clazz, String methodName, String methodDesc,
+            String frontBoundary, String template) {
+        String name = null;
+        ClassMetadata metadata = metadataCache.get(clazz);
+        if (metadata != null) {
+            name = metadata.getName(methodName, methodDesc, frontBoundary,
+                    template);
+        }
+
+        if (name != null) {
+            hits.increment();
+        } else {
+            misses.increment();
+        }
+
+        return name;
+    }
+
+    /**
+     * Stores a resolved metric name.
+     *
+     * @param clazz         invoked class
+     * @param methodName    probe method name
+     * @param methodDesc    probe method descriptor
+     * @param frontBoundary front end boundary path, may be null
+     * @param template      metric name template
+     * @param name          resolved metric name
+     */
+    public void put(Class<?> clazz, String methodName, String methodDesc,
+            String frontBoundary, String template, String name) {
+        if (name != null) {
+            metadataCache.getMetadata(clazz).putName(methodName, methodDesc,
+                    frontBoundary, template, name);
+        }
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    /**
+     * Retrieves the number of cached names across all classes.
+     *
+     * @return number of cached names
+     */
+    public int size() {
+        int size = 0;
+        for (ClassMetadata metadata : metadataCache.values()) {
+            size += metadata.getNameCount();
+        }
+
+        return size;
+    }
+
+    /**
+     * Discards every cached name. Parsed annotations are kept.
+     */
+    public void clear() {
+        for (ClassMetadata metadata : metadataCache.values()) {
+            metadata.clearNames();
+        }
+    }
+}
@@ -0,0 +1,285 @@
+/*
+ * Copyright [2017] [Indra Basak]
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.basaki.agent.cache;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@code WeakClassCache} is a concurrent, size bounded cache keyed by
+ * weakly referenced classes. Entries of a class disappear once the class
+ * (and so its class loader) becomes unreachable, e.g., after a web
+ * application is undeployed.
+ * <p/>
+ * Values must never hold a strong reference to their key class, directly or
+ * through a {@code Method} or {@code Annotation}, otherwise the class can
+ * never be collected.
+ * <p/>
+ * Once the cache is full, an entry is evicted with the second chance
+ * (clock) policy: a hand sweeps the entries, clearing the referenced bit
+ * set by a lookup, and evicts the first entry whose bit is already clear.
+ * The entry being inserted is never evicted.
+ *
+ * @author Indra Basak
+ * @since 10/18/26
+ */
+public class WeakClassCache<V> {
+
+    private final ConcurrentMap<Object, Entry<V>> entries =
+            new ConcurrentHashMap<Object, Entry<V>>();
+
+    private final ReferenceQueue<Class<?>> queue =
+            new ReferenceQueue<Class<?>>();
+
+    private final int maxSize;
+
+    private final AtomicLong evictions = new AtomicLong();
+
+    /**
+     * Clock hand of the eviction, guarded by the cache.
+     */
+    private Iterator<Map.Entry<Object, Entry<V>>> hand;
+
+    /**
+     * Constructs a <code>WeakClassCache</code>.
+     *
+     * @param maxSize maximum number of classes retained
+     */
+    public WeakClassCache(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Retrieves the value associated with a class.
+     *
+     * @param clazz key class
+     * @return cached value, null if absent
+     */
+    public V get(Class<?> clazz) {
+        Entry<V> entry = entries.get(new LookupKey(clazz));
+        if (entry == null) {
+            return null;
+        }
+
+        entry.reference();
+        return entry.value;
+    }
+
+    /**
+     * Associates a value with a class unless one is already present.
+     *
+     * @param clazz key class
+     * @param value value to be cached
+     * @return the value present in the cache after the call
+     */
+    public V putIfAbsent(Class<?> clazz, V value) {
+        expungeStaleEntries();
+
+        Entry<V> entry = new Entry<V>(value);
+        Entry<V> existing =
+                entries.putIfAbsent(new WeakKey(clazz, queue), entry);
+        if (existing != null) {
+            existing.reference();
+            return existing.value;
+        }
+
+        evictIfNecessary(entry);
+
+        return value;
+    }
+
+    public V remove(Class<?> clazz) {
+        Entry<V> entry = entries.remove(new LookupKey(clazz));
+        return entry != null ? entry.value : null;
+    }
+
+    /**
+     * Retrieves a snapshot of the cached values.
+     *
+     * @return cached values
+     */
+    public Collection<V> values() {
+        expungeStaleEntries();
+        List<V> values = new ArrayList<V>(entries.size());
+        for (Entry<V> entry : entries.values()) {
+            values.add(entry.value);
+        }
+
+        return values;
+    }
+
+    public int size() {
+        expungeStaleEntries();
+        return entries.size();
+    }
+
+    public void clear() {
+        entries.clear();
+        expungeStaleEntries();
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public long getEvictionCount() {
+        return evictions.get();
+    }
+
+    /**
+     * Removes the entries whose classes have been garbage collected.
+     */
+    public void expungeStaleEntries() {
+        Reference<? extends Class<?>> ref;
+        while ((ref = queue.poll()) != null) {
+            entries.remove(ref);
+        }
+    }
+
+    /**
+     * Evicts entries until the cache is within its size. The hand goes
+     * round at most twice more, once to clear the referenced bits and once
+     * to evict.
+     *
+     * @param inserted entry just inserted, kept
+     */
+    private synchronized void evictIfNecessary(Entry<V> inserted) {
+        int rounds = 0;
+        while (entries.size() > maxSize) {
+            if (hand == null || !hand.hasNext()) {
+                if (++rounds > 2) {
+                    return;
+                }
+                hand = entries.entrySet().iterator();
+                continue;
+            }
+
+            Map.Entry<Object, Entry<V>> candidate = hand.next();
+            Entry<V> entry = candidate.getValue();
+            if (entry == inserted) {
+                continue;
+            }
+
+            if (entry.referenced) {
+                entry.referenced = false;
+            } else if (entries.remove(candidate.getKey(), entry)) {
+                evictions.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * A cached value and its referenced bit.
+     */
+    private static final class Entry<V> {
+
+        private final V value;
+
+        private volatile boolean referenced;
+
+        Entry(V value) {
+            this.value = value;
+        }
+
+        /**
+         * Sets the referenced bit, writing it only when it's clear.
+         */
+        void reference() {
+            if (!referenced) {
+                referenced = true;
+            }
+        }
+    }
+
+    /**
+     * Returns the class a key refers to, null if it has been collected.
+     */
+    private interface ClassKey {
+        Class<?> getKeyClass();
+    }
+
+    /**
+     * Key stored in the map. Holds the class weakly.
+     */
+    private static final class WeakKey extends WeakReference<Class<?>>
+            implements ClassKey {
+
+        private final int hash;
+
+        WeakKey(Class<?> clazz, ReferenceQueue<Class<?>> queue) {
+            super(clazz, queue);
+            hash = System.identityHashCode(clazz);
+        }
+
+        @Override
+        public Class<?> getKeyClass() {
+            return get();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+
+            Class<?> clazz = get();
+            return clazz != null && o instanceof ClassKey
+                    && clazz == ((ClassKey) o).getKeyClass();
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    /**
+     * Transient key used for lookups. Never stored in the map.
+     */
+    private static final class LookupKey implements ClassKey {
+
+        private final Class<?> clazz;
+
+        LookupKey(Class<?> clazz) {
+            this.clazz = clazz;
+        }
+
+        @Override
+        public Class<?> getKeyClass() {
+            return clazz;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof ClassKey
+                    && clazz == ((ClassKey) o).getKeyClass();
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(clazz);
+        }
+    }
+}
@@ -0,0 +1,288 @@
+/*
+ * Copyright [2017] [Indra Basak]
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.basaki.agent.jmx;
+
+import com.basaki.agent.BaseRestNameFormatter;
+import com.basaki.agent.cache.ResolvedNameCache;
+import com.basaki.agent.metrics.LatencyHistogram;
+import com.basaki.agent.route.RouteTable;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * {@code RestFormatter} is the {@link RestFormatterMBean} of a REST name
+ * formatter, registered on the platform MBean server as
+ * {@code com.basaki.agent:type=RestFormatter,name=<formatter>}. A second
+ * formatter of the same class gets an {@code instance} key as well.
+ *
+ * @author Indra Basak
+ * @since 10/18/26
+ */
+public class RestFormatter implements RestFormatterMBean {
+
+    public static final String DOMAIN = "com.basaki.agent";
+
+    private static final int TOP_ROUTES = 20;
+
+    private final BaseRestNameFormatter formatter;
+
+    public RestFormatter(BaseRestNameFormatter formatter) {
+        this.formatter = formatter;
+    }
+
+    /**
+     * Registers the management bean of a formatter on the platform MBean
+     * server.
+     *
+     * @param formatter REST name formatter
+     * @return object name of the bean
+     * @throws JMException if the bean can't be registered
+     */
+    public static ObjectName register(BaseRestNameFormatter formatter)
+            throws JMException {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        String name = DOMAIN + ":type=RestFormatter,name="
+                + formatter.getClass().getSimpleName();
+        ObjectName objectName = new ObjectName(name);
+        RestFormatter bean = new RestFormatter(formatter);
+        for (int instance = 2; ; instance++) {
+            try {
+                server.registerMBean(bean, objectName);
+                return objectName;
+            } catch (InstanceAlreadyExistsException e) {
+                objectName = new ObjectName(name + ",instance=" + instance);
+            }
+        }
+    }
+
+    /**
+     * Unregisters a management bean from the platform MBean server. A bean
+     * which isn't registered is ignored.
+     *
+     * @param objectName object name of the bean
+     * @throws JMException if the bean can't be unregistered
+     */
+    public static void unregister(ObjectName objectName) throws JMException {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        if (server.isRegistered(objectName)) {
+            server.unregisterMBean(objectName);
+        }
+    }
+
+    @Override
+    public String getFormatterClass() {
+        return formatter.getClass().getName();
+    }
+
+    @Override
+    public int getCachedClassCount() {
+        return formatter.getNameCache().getMetadataCache().size();
+    }
+
+    @Override
+    public int getNameCacheSize() {
+        return formatter.getNameCache().size();
+    }
+
+    @Override
+    public long getNameCacheHitCount() {
+        return formatter.getNameCache().getHitCount();
+    }
+
+    @Override
+    public long getNameCacheMissCount() {
+        return formatter.getNameCache().getMissCount();
+    }
+
+    @Override
+    public double getNameCacheHitRatio() {
+        ResolvedNameCache cache = formatter.getNameCache();
+        long hits = cache.getHitCount();
+        long total = hits + cache.getMissCount();
+
+        return total > 0 ? hits * 100.0 / total : 0;
+    }
+
+    @Override
+    public int getNameStoreSize() {
+        return formatter.getNameStore().size();
+    }
+
+    @Override
+    public long getNameStoreBytes() {
+        return formatter.getNameStore().getApproximateBytes();
+    }
+
+    @Override
+    public int getAgentPathCount() {
+        return formatter.getCardinalityLimiter().getPathCount();
+    }
+
+    @Override
+    public long getAgentFoldedPathCount() {
+        return formatter.getCardinalityLimiter().getFoldedCount();
+    }
+
+    @Override
+    public long getInvocationCount() {
+        return formatter.getMetrics().getInvocationCount();
+    }
+
+    @Override
+    public long getColdResolutionCount() {
+        return formatter.getMetrics().getColdResolutionCount();
+    }
+
+    @Override
+    public long getAverageFormatTimeNanos() {
+        return getAverage(formatter.getMetrics().getLatencySnapshot());
+    }
+
+    @Override
+    public long getFormatTime99thPercentileNanos() {
+        return LatencyHistogram.getPercentile(
+                formatter.getMetrics().getLatencySnapshot(), 99);
+    }
+
+    @Override
+    public long getAverageResolutionTimeNanos() {
+        return getAverage(
+                formatter.getMetrics().getResolutionLatencySnapshot());
+    }
+
+    @Override
+    public long getResolutionTime99thPercentileNanos() {
+        return LatencyHistogram.getPercentile(
+                formatter.getMetrics().getResolutionLatencySnapshot(), 99);
+    }
+
+    @Override
+    public String[] getTopRoutes() {
+        List<String> routes = formatter.getMetrics().getRouteStatistics()
+                .getTopRoutes(TOP_ROUTES);
+
+        return routes.toArray(new String[routes.size()]);
+    }
+
+    @Override
+    public int getRouteTableSize() {
+        RouteTable table = formatter.getRouteTable();
+        return table != null ? table.size() : -1;
+    }
+
+    @Override
+    public long getDegradationCount() {
+        return formatter.getOverheadGuard().getDegradationCount();
+    }
+
+    @Override
+    public long getCheapNameCount() {
+        return formatter.getOverheadGuard().getCheapNameCount();
+    }
+
+    @Override
+    public boolean isBatchResolveEnabled() {
+        return formatter.isBatchResolveEnabled();
+    }
+
+    @Override
+    public void setBatchResolveEnabled(boolean enabled) {
+        formatter.setBatchResolveEnabled(enabled);
+    }
+
+    @Override
+    public boolean isRouteIndexEnabled() {
+        return formatter.isRouteIndexEnabled();
+    }
+
+    @Override
+    public void setRouteIndexEnabled(boolean enabled) {
+        formatter.setRouteIndexEnabled(enabled);
+    }
+
+    @Override
+    public boolean isClassFileResolutionEnabled() {
+        return formatter.isClassFileResolutionEnabled();
+    }
+
+    @Override
+    public void setClassFileResolutionEnabled(boolean enabled) {
+        formatter.setClassFileResolutionEnabled(enabled);
+    }
+
+    @Override
+    public boolean isMetricsEnabled() {
+        return formatter.isMetricsEnabled();
+    }
+
+    @Override
+    public void setMetricsEnabled(boolean enabled) {
+        formatter.setMetricsEnabled(enabled);
+    }
+
+    @Override
+    public boolean isOverheadGuardEnabled() {
+        return formatter.isOverheadGuardEnabled();
+    }
+
+    @Override
+    public void setOverheadGuardEnabled(boolean enabled) {
+        formatter.setOverheadGuardEnabled(enabled);
+    }
+
+    @Override
+    public void flushNameCache() {
+        formatter.getNameCache().clear();
+    }
+
+    @Override
+    public void flushAll() {
+        formatter.getNameCache().getMetadataCache().clear();
+        formatter.getNameStore().clear();
+        RouteTable table = formatter.getRouteTable();
+        if (table != null) {
+            table.clear();
+        }
+    }
+
+    @Override
+    public void resetTopRoutes() {
+        formatter.getMetrics().getRouteStatistics().clear();
+    }
+
+    @Override
+    public void resetOverheadGuard() {
+        formatter.getOverheadGuard().reset();
+    }
+
+    @Override
+    public void saveRouteTable() throws IOException {
+        RouteTable table = formatter.getRouteTable();
+        if (table != null) {
+            table.save();
+        }
+    }
+
+    private static long getAverage(long[] snapshot) {
+        long count = LatencyHistogram.getCount(snapshot);
+        return count > 0 ? snapshot[LatencyHistogram.BUCKETS] / count : 0;
+    }
+}
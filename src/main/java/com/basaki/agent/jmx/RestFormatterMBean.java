@@ -0,0 +1,149 @@
+/*
+ * Copyright [2017] [Indra Basak]
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.basaki.agent.jmx;
+
+import java.io.IOException;
+
+/**
+ * {@code RestFormatterMBean} is the management interface of a REST name
+ * formatter. It exposes the formatter's caches and statistics, flushes the
+ * caches and switches the fast path features at runtime.
+ *
+ * @author Indra Basak
+ * @since 10/18/26
+ */
+public interface RestFormatterMBean {
+
+    String getFormatterClass();
+
+    int getCachedClassCount();
+
+    int getNameCacheSize();
+
+    long getNameCacheHitCount();
+
+    long getNameCacheMissCount();
+
+    /**
+     * Retrieves the share of name cache lookups which were hits.
+     *
+     * @return hit ratio in percent
+     */
+    double getNameCacheHitRatio();
+
+    int getNameStoreSize();
+
+    long getNameStoreBytes();
+
+    /**
+     * Retrieves the number of paths admitted by the cardinality budget. The
+     * budget is shared by all formatters, so the count is agent wide.
+     *
+     * @return agent wide admitted path count
+     */
+    int getAgentPathCount();
+
+    /**
+     * Retrieves the number of times a path was folded by the cardinality
+     * budget shared by all formatters.
+     *
+     * @return agent wide fold count
+     */
+    long getAgentFoldedPathCount();
+
+    long getInvocationCount();
+
+    long getColdResolutionCount();
+
+    long getAverageFormatTimeNanos();
+
+    long getFormatTime99thPercentileNanos();
+
+    long getAverageResolutionTimeNanos();
+
+    long getResolutionTime99thPercentileNanos();
+
+    /**
+     * Retrieves the most frequent metric names with their approximate call
+     * counts.
+     *
+     * @return top 20 metric names
+     */
+    String[] getTopRoutes();
+
+    /**
+     * Retrieves the number of classes in the warm start route table.
+     *
+     * @return class count, -1 if warm start is off
+     */
+    int getRouteTableSize();
+
+    long getDegradationCount();
+
+    long getCheapNameCount();
+
+    boolean isBatchResolveEnabled();
+
+    void setBatchResolveEnabled(boolean enabled);
+
+    boolean isRouteIndexEnabled();
+
+    void setRouteIndexEnabled(boolean enabled);
+
+    boolean isClassFileResolutionEnabled();
+
+    void setClassFileResolutionEnabled(boolean enabled);
+
+    boolean isMetricsEnabled();
+
+    void setMetricsEnabled(boolean enabled);
+
+    boolean isOverheadGuardEnabled();
+
+    void setOverheadGuardEnabled(boolean enabled);
+
+    /**
+     * Discards the resolved metric names. Parsed annotations are kept.
+     */
+    void flushNameCache();
+
+    /**
+     * Discards the resolved metric names, the parsed annotations, the
+     * canonical names and the warm start route table of the formatter, so
+     * every name is resolved again. The route table is shared by the
+     * instances of the formatter class. The cardinality budget and the route
+     * indexes are shared by all formatters and are kept, since names still
+     * cached by the other formatters count against them.
+     */
+    void flushAll();
+
+    /**
+     * Discards the route statistics.
+     */
+    void resetTopRoutes();
+
+    /**
+     * Ends a degradation to cheap names before its cooldown is over.
+     */
+    void resetOverheadGuard();
+
+    /**
+     * Writes the warm start route table now rather than at shutdown.
+     *
+     * @throws IOException if the table can't be written
+     */
+    void saveRouteTable() throws IOException;
+}
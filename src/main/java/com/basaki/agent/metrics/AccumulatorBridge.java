@@ -0,0 +1,120 @@
+/*
+ * Copyright [2017] [Indra Basak]
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.basaki.agent.metrics;
+
+import com.basaki.agent.util.Diagnostics;
+import com.wily.introscope.agent.IAgent;
+import com.wily.introscope.agent.stat.IDataAccumulatorFactory;
+import com.wily.introscope.agent.stat.ILongFluctuatingAggregatingDataAccumulator;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * {@code AccumulatorBridge} publishes metric values through the long
+ * fluctuating data accumulators of the Introscope agent. An agent which
+ * predates the accumulator API fails with a {@link LinkageError} when it's
+ * called, and an agent without an accumulator factory returns none. In
+ * either case publishing is turned off with a single warning and the
+ * formatters carry on unaffected.
+ *
+ * @author Indra Basak
+ * @since 10/18/26
+ */
+public class AccumulatorBridge {
+
+    private final Diagnostics diagnostics;
+
+    private final IDataAccumulatorFactory factory;
+
+    private final Map<String, ILongFluctuatingAggregatingDataAccumulator>
+            accumulators =
+            new HashMap<String, ILongFluctuatingAggregatingDataAccumulator>();
+
+    private volatile boolean available;
+
+    /**
+     * Constructs an <code>AccumulatorBridge</code> on top of an agent.
+     *
+     * @param agent       Introscope agent
+     * @param diagnostics diagnostics of the formatter
+     */
+    public AccumulatorBridge(IAgent agent, Diagnostics diagnostics) {
+        this.diagnostics = diagnostics;
+
+        IDataAccumulatorFactory accumulatorFactory;
+        try {
+            accumulatorFactory = agent.IAgent_getDataAccumulatorFactory();
+        } catch (LinkageError e) {
+            accumulatorFactory = null;
+        }
+
+        factory = accumulatorFactory;
+        available = accumulatorFactory != null;
+        if (!available) {
+            diagnostics.warn("metrics",
+                    "Agent data accumulators not found, not publishing ",
+                    "formatter metrics");
+        }
+    }
+
+    public boolean isAvailable() {
+        return available;
+    }
+
+    /**
+     * Publishes a metric value.
+     *
+     * @param metricName full metric name, e.g., {@code REST
+     *                   Extension|Formatter|Spring:Invocations Per Interval}
+     * @param value      metric value
+     * @return true if the value was published
+     */
+    public synchronized boolean publish(String metricName, long value) {
+        if (!available) {
+            return false;
+        }
+
+        try {
+            ILongFluctuatingAggregatingDataAccumulator accumulator =
+                    accumulators.get(metricName);
+            if (accumulator == null) {
+                accumulator = factory
+                        .safeGetLongFluctuatingAggregatingDataAccumulator(
+                                metricName);
+                if (accumulator == null) {
+                    throw new IllegalStateException("No accumulator for "
+                            + metricName);
+                }
+                accumulators.put(metricName, accumulator);
+            }
+            accumulator.ILongAggregatingDataAccumulator_recordDataPoint(value);
+
+            return true;
+        } catch (RuntimeException e) {
+            return disable(e);
+        } catch (LinkageError e) {
+            return disable(e);
+        }
+    }
+
+    private boolean disable(Throwable cause) {
+        available = false;
+        diagnostics.warn("metrics",
+                "Unable to publish formatter metrics, disabled: ", cause);
+
+        return false;
+    }
+}
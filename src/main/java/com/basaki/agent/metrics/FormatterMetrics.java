@@ -0,0 +1,152 @@
+/*
+ * Copyright [2017] [Indra Basak]
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.basaki.agent.metrics;
+
+/**
+ * {@code FormatterMetrics} measures the cost of a name formatter: the
+ * number of {@code INameFormatter_format} calls, how many of them had to
+ * resolve a name cold, how long they took, how long the cold resolutions
+ * took and which names were handed out most. The metrics are published
+ * under a node such as {@code REST Extension|Formatter|SpringRestNameFormatter}
+ * with values per publishing interval.
+ *
+ * @author Indra Basak
+ * @since 10/18/26
+ */
+public class FormatterMetrics {
+
+    static final String INVOCATIONS = ":Invocations Per Interval";
+
+    static final String COLD_RESOLUTIONS = ":Cold Resolutions Per Interval";
+
+    static final String HIT_RATIO = ":Cache Hit Ratio (%)";
+
+    static final String AVERAGE_TIME = ":Average Format Time (ns)";
+
+    static final String[] PERCENTILE_NAMES =
+            {":Format Time 50th Percentile (ns)",
+                    ":Format Time 90th Percentile (ns)",
+                    ":Format Time 99th Percentile (ns)"};
+
+    static final double[] PERCENTILES = {50, 90, 99};
+
+    private final String node;
+
+    private final StripedCounter invocations = new StripedCounter();
+
+    private final StripedCounter coldResolutions = new StripedCounter();
+
+    private final LatencyHistogram latency = new LatencyHistogram();
+
+    private final LatencyHistogram resolutionLatency = new LatencyHistogram();
+
+    private final RouteStatistics routes = new RouteStatistics();
+
+    private long lastInvocations;
+
+    private long lastColdResolutions;
+
+    private long[] lastLatency;
+
+    public FormatterMetrics(String node) {
+        this.node = node;
+    }
+
+    public String getNode() {
+        return node;
+    }
+
+    /**
+     * Records a formatter call.
+     *
+     * @param nanos duration of the call in nanoseconds
+     * @param cold  true if the name had to be resolved
+     * @param name  metric name handed out
+     */
+    public void record(long nanos, boolean cold, String name) {
+        invocations.increment();
+        if (cold) {
+            coldResolutions.increment();
+            resolutionLatency.record(nanos);
+        }
+        latency.record(nanos);
+        routes.record(name);
+    }
+
+    public long getInvocationCount() {
+        return invocations.sum();
+    }
+
+    public long getColdResolutionCount() {
+        return coldResolutions.sum();
+    }
+
+    /**
+     * Retrieves the latency distribution since the formatter was created.
+     *
+     * @return latency histogram snapshot
+     * @see LatencyHistogram#snapshot()
+     */
+    public long[] getLatencySnapshot() {
+        return latency.snapshot();
+    }
+
+    /**
+     * Retrieves the latency distribution of the cold resolutions since the
+     * formatter was created.
+     *
+     * @return latency histogram snapshot
+     * @see LatencyHistogram#snapshot()
+     */
+    public long[] getResolutionLatencySnapshot() {
+        return resolutionLatency.snapshot();
+    }
+
+    public RouteStatistics getRouteStatistics() {
+        return routes;
+    }
+
+    /**
+     * Publishes the metrics of the interval since the last call.
+     *
+     * @param bridge agent accumulator bridge
+     */
+    public synchronized void publish(AccumulatorBridge bridge) {
+        long currentInvocations = invocations.sum();
+        long currentCold = coldResolutions.sum();
+        long[] currentLatency = latency.snapshot();
+
+        long calls = currentInvocations - lastInvocations;
+        long cold = currentCold - lastColdResolutions;
+        long[] delta = LatencyHistogram.subtract(currentLatency, lastLatency);
+        lastInvocations = currentInvocations;
+        lastColdResolutions = currentCold;
+        lastLatency = currentLatency;
+
+        bridge.publish(node + INVOCATIONS, calls);
+        bridge.publish(node + COLD_RESOLUTIONS, cold);
+        bridge.publish(node + HIT_RATIO,
+                calls > 0 ? Math.max(0, (calls - cold) * 100 / calls) : 100);
+
+        long count = LatencyHistogram.getCount(delta);
+        bridge.publish(node + AVERAGE_TIME,
+                count > 0 ? delta[LatencyHistogram.BUCKETS] / count : 0);
+        for (int i = 0; i < PERCENTILES.length; i++) {
+            bridge.publish(node + PERCENTILE_NAMES[i],
+                    LatencyHistogram.getPercentile(delta, PERCENTILES[i]));
+        }
+    }
+}
@@ -0,0 +1,144 @@
+/*
+ * Copyright [2017] [Indra Basak]
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.basaki.agent.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * {@code LatencyHistogram} counts latencies in nanoseconds in power of two
+ * buckets: bucket 0 holds 0 ns and bucket {@code b} holds
+ * {@code [2^(b-1), 2^b)} ns. Like {@link StripedCounter}, every thread
+ * records into its own cache line padded row of buckets.
+ *
+ * @author Indra Basak
+ * @since 10/18/26
+ */
+public class LatencyHistogram {
+
+    public static final int BUCKETS = 40;
+
+    /**
+     * Row length: the buckets followed by the total nanoseconds, padded to
+     * a whole number of cache lines.
+     */
+    private static final int ROW = (BUCKETS + 1 + StripedCounter.PADDING - 1)
+            / StripedCounter.PADDING * StripedCounter.PADDING;
+
+    private final AtomicLongArray cells =
+            new AtomicLongArray((StripedCounter.STRIPES + 1) * ROW);
+
+    /**
+     * Records a latency.
+     *
+     * @param nanos latency in nanoseconds
+     */
+    public void record(long nanos) {
+        int base = (StripedCounter.stripe() + 1) * ROW;
+        cells.incrementAndGet(base + getBucket(nanos));
+        cells.addAndGet(base + BUCKETS, Math.max(0, nanos));
+    }
+
+    /**
+     * Retrieves the bucket counts followed by the total recorded
+     * nanoseconds.
+     *
+     * @return array of {@link #BUCKETS} counts and the total nanoseconds
+     */
+    public long[] snapshot() {
+        long[] snapshot = new long[BUCKETS + 1];
+        for (int stripe = 1; stripe <= StripedCounter.STRIPES; stripe++) {
+            int base = stripe * ROW;
+            for (int i = 0; i <= BUCKETS; i++) {
+                snapshot[i] += cells.get(base + i);
+            }
+        }
+
+        return snapshot;
+    }
+
+    /**
+     * Maps a latency to its bucket.
+     *
+     * @param nanos latency in nanoseconds
+     * @return bucket index
+     */
+    static int getBucket(long nanos) {
+        if (nanos <= 0) {
+            return 0;
+        }
+
+        return Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(nanos));
+    }
+
+    /**
+     * Retrieves the number of latencies of a snapshot.
+     *
+     * @param snapshot histogram snapshot
+     * @return latency count
+     */
+    public static long getCount(long[] snapshot) {
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            count += snapshot[i];
+        }
+
+        return count;
+    }
+
+    /**
+     * Estimates a percentile of a snapshot as the upper bound of the bucket
+     * it falls in.
+     *
+     * @param snapshot   histogram snapshot
+     * @param percentile percentile between 0 and 100
+     * @return latency upper bound in nanoseconds, 0 if the snapshot is empty
+     */
+    public static long getPercentile(long[] snapshot, double percentile) {
+        long count = getCount(snapshot);
+        if (count == 0) {
+            return 0;
+        }
+
+        long rank = (long) Math.ceil(count * percentile / 100.0);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += snapshot[i];
+            if (seen >= rank && snapshot[i] > 0) {
+                return i == 0 ? 0 : (1L << i) - 1;
+            }
+        }
+
+        return (1L << (BUCKETS - 1)) - 1;
+    }
+
+    /**
+     * Computes the difference of two snapshots.
+     *
+     * @param current  later snapshot
+     * @param previous earlier snapshot, may be null
+     * @return counts recorded in between
+     */
+    public static long[] subtract(long[] current, long[] previous) {
+        long[] delta = current.clone();
+        if (previous != null) {
+            for (int i = 0; i < delta.length; i++) {
+                delta[i] -= previous[i];
+            }
+        }
+
+        return delta;
+    }
+}
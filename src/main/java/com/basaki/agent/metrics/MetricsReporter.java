@@ -0,0 +1,107 @@
+/*
+ * Copyright [2017] [Indra Basak]
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.basaki.agent.metrics;
+
+import com.basaki.agent.util.Config;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Timer;
+import java.util.TimerTask;
+
+/**
+ * {@code MetricsReporter} publishes the {@link FormatterMetrics} of every
+ * formatter every {@code metrics.intervalMillis} (default 15000)
+ * milliseconds from a single daemon thread.
+ *
+ * @author Indra Basak
+ * @since 10/18/26
+ */
+public final class MetricsReporter {
+
+    private static final long INTERVAL_MILLIS =
+            Config.getLong("metrics.intervalMillis", 15000L);
+
+    private static Timer timer;
+
+    private static final Map<FormatterMetrics, TimerTask> TASKS =
+            new HashMap<FormatterMetrics, TimerTask>();
+
+    private MetricsReporter() {
+
+    }
+
+    /**
+     * Schedules the publishing of a formatter's metrics. Nothing is
+     * scheduled if the agent's accumulators aren't available.
+     *
+     * @param metrics formatter metrics
+     * @param bridge  agent accumulator bridge
+     * @return true if the metrics are published
+     */
+    public static synchronized boolean register(final FormatterMetrics metrics,
+            final AccumulatorBridge bridge) {
+        if (!bridge.isAvailable()) {
+            return false;
+        }
+
+        if (timer == null) {
+            timer = new Timer("rest-introscope-metrics", true);
+        }
+
+        TimerTask task = new TimerTask() {
+            @Override
+            public void run() {
+                if (!bridge.isAvailable()) {
+                    remove(metrics, this);
+                    return;
+                }
+
+                try {
+                    metrics.publish(bridge);
+                } catch (RuntimeException e) {
+                    // keep the timer thread alive for the other formatters
+                }
+            }
+        };
+        TimerTask previous = TASKS.put(metrics, task);
+        if (previous != null) {
+            previous.cancel();
+        }
+        timer.scheduleAtFixedRate(task, INTERVAL_MILLIS, INTERVAL_MILLIS);
+
+        return true;
+    }
+
+    private static synchronized void remove(FormatterMetrics metrics,
+            TimerTask task) {
+        if (TASKS.get(metrics) == task) {
+            TASKS.remove(metrics);
+        }
+        task.cancel();
+    }
+
+    /**
+     * Stops the publishing of a formatter's metrics.
+     *
+     * @param metrics formatter metrics
+     */
+    public static synchronized void unregister(FormatterMetrics metrics) {
+        TimerTask task = TASKS.remove(metrics);
+        if (task != null) {
+            task.cancel();
+        }
+    }
+}
@@ -0,0 +1,188 @@
+/*
+ * Copyright [2017] [Indra Basak]
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.basaki.agent.metrics;
+
+import com.basaki.agent.util.Config;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@code OverheadGuard} keeps the cost of cold name resolution within a
+ * budget. Spending more than {@code overhead.maxResolutionMillisPerSecond}
+ * (default 200) milliseconds on cold resolutions, or making more than {@code
+ * overhead.maxResolutionsPerSecond} (default 500) of them, within a second
+ * trips the guard. The budget is per second rather than per resolution, so
+ * the first resolutions of a cold JVM don't trip it on their own. A tripped
+ * guard stays degraded for {@code overhead.cooldownMillis} (default 30000)
+ * milliseconds and then recovers on its own. While degraded, a formatter
+ * hands out a cheap name instead of resolving annotations. The formatters
+ * only consult the guard if {@code overhead.enabled} is set.
+ * <p/>
+ * Checking the guard is a single volatile read.
+ *
+ * @author Indra Basak
+ * @since 10/18/26
+ */
+public class OverheadGuard {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private final long maxResolutionNanosPerSecond;
+
+    private final int maxResolutionsPerSecond;
+
+    private final long cooldownNanos;
+
+    /**
+     * Time the last degradation ends. Only meaningful once {@link
+     * #degraded} is set.
+     */
+    private volatile long degradedUntil;
+
+    /**
+     * Set once the guard is tripped, so an untripped guard doesn't have to
+     * read the clock.
+     */
+    private volatile boolean degraded;
+
+    private final AtomicLong windowStart = new AtomicLong(System.nanoTime());
+
+    private final AtomicInteger windowCount = new AtomicInteger();
+
+    private final AtomicLong windowNanos = new AtomicLong();
+
+    private final AtomicLong degradations = new AtomicLong();
+
+    private final AtomicLong cheapNames = new AtomicLong();
+
+    public OverheadGuard() {
+        this(TimeUnit.MILLISECONDS.toNanos(
+                Config.getLong("overhead.maxResolutionMillisPerSecond", 200L)),
+                Config.getInt("overhead.maxResolutionsPerSecond", 500),
+                TimeUnit.MILLISECONDS.toNanos(
+                        Config.getLong("overhead.cooldownMillis", 30000L)));
+    }
+
+    public OverheadGuard(long maxResolutionNanosPerSecond,
+            int maxResolutionsPerSecond, long cooldownNanos) {
+        this.maxResolutionNanosPerSecond = maxResolutionNanosPerSecond;
+        this.maxResolutionsPerSecond = maxResolutionsPerSecond;
+        this.cooldownNanos = cooldownNanos;
+    }
+
+    /**
+     * Checks if cold resolutions should be replaced by cheap names. Also
+     * counts a cheap name handed out if so.
+     *
+     * @return true if the guard is degraded
+     */
+    public boolean isDegraded() {
+        return degraded && isDegraded(System.nanoTime());
+    }
+
+    boolean isDegraded(long now) {
+        if (!degraded || now - degradedUntil >= 0) {
+            return false;
+        }
+
+        cheapNames.incrementAndGet();
+        return true;
+    }
+
+    /**
+     * Charges a cold resolution against the budget.
+     *
+     * @param nanos time the resolution took
+     * @return true if this resolution tripped the guard
+     */
+    public boolean record(long nanos) {
+        return record(nanos, System.nanoTime());
+    }
+
+    boolean record(long nanos, long now) {
+        long start = windowStart.get();
+        if (now - start >= SECOND && windowStart.compareAndSet(start, now)) {
+            windowCount.set(0);
+            windowNanos.set(0);
+        }
+
+        int count = windowCount.incrementAndGet();
+        long total = windowNanos.addAndGet(nanos);
+        if (total > maxResolutionNanosPerSecond
+                || count > maxResolutionsPerSecond) {
+            return trip(now);
+        }
+
+        return false;
+    }
+
+    /**
+     * Degrades the formatter for a cooldown period, unless it's already
+     * degraded.
+     *
+     * @param now current time in nanoseconds
+     * @return true if the guard was tripped
+     */
+    synchronized boolean trip(long now) {
+        if (degraded && now - degradedUntil < 0) {
+            return false;
+        }
+
+        degradedUntil = now + cooldownNanos;
+        degraded = true;
+        degradations.incrementAndGet();
+
+        return true;
+    }
+
+    /**
+     * Ends a degradation early.
+     */
+    public void reset() {
+        degraded = false;
+    }
+
+    /**
+     * Retrieves the number of times the guard was tripped.
+     *
+     * @return degradation count
+     */
+    public long getDegradationCount() {
+        return degradations.get();
+    }
+
+    /**
+     * Retrieves the number of cheap names handed out while degraded.
+     *
+     * @return cheap name count
+     */
+    public long getCheapNameCount() {
+        return cheapNames.get();
+    }
+
+    public long getMaxResolutionNanosPerSecond() {
+        return maxResolutionNanosPerSecond;
+    }
+
+    public int getMaxResolutionsPerSecond() {
+        return maxResolutionsPerSecond;
+    }
+
+    public long getCooldownNanos() {
+        return cooldownNanos;
+    }
+}
@@ -0,0 +1,164 @@
+/*
+ * Copyright [2017] [Indra Basak]
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.basaki.agent.metrics;
+
+import com.basaki.agent.util.Config;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@code RouteStatistics} estimates how often each metric name is handed
+ * out. Only one in {@value #SAMPLE_INTERVAL} calls is counted, with a
+ * sampling tick per {@link StripedCounter} stripe of threads, so the counts
+ * are approximate but the hot path stays cheap and doesn't write a cache
+ * line shared by all threads. Up to {@code metrics.maxRoutes} (default 10000) names are tracked.
+ *
+ * @author Indra Basak
+ * @since 10/18/26
+ */
+public class RouteStatistics {
+
+    static final int SAMPLE_INTERVAL = 64;
+
+    /**
+     * Ints per cache line, used to pad the ticks apart.
+     */
+    private static final int TICK_PADDING = 2 * StripedCounter.PADDING;
+
+    private static final int MAX_ROUTES =
+            Config.getInt("metrics.maxRoutes", 10000);
+
+    private final ConcurrentMap<String, AtomicLong> counts =
+            new ConcurrentHashMap<String, AtomicLong>();
+
+    private final int maxRoutes;
+
+    /**
+     * Sampling ticks, one per stripe. Lost increments of threads sharing a
+     * stripe only shift which call is sampled.
+     */
+    private final int[] ticks =
+            new int[(StripedCounter.STRIPES + 1) * TICK_PADDING];
+
+    public RouteStatistics() {
+        this(MAX_ROUTES);
+    }
+
+    public RouteStatistics(int maxRoutes) {
+        this.maxRoutes = maxRoutes;
+    }
+
+    /**
+     * Counts a metric name handed out by a formatter.
+     *
+     * @param name metric name
+     */
+    public void record(String name) {
+        int index = (StripedCounter.stripe() + 1) * TICK_PADDING;
+        if ((++ticks[index] & (SAMPLE_INTERVAL - 1)) != 0 || name == null) {
+            return;
+        }
+
+        AtomicLong count = counts.get(name);
+        if (count == null) {
+            if (counts.size() >= maxRoutes) {
+                return;
+            }
+
+            AtomicLong newCount = new AtomicLong();
+            count = counts.putIfAbsent(name, newCount);
+            if (count == null) {
+                count = newCount;
+            }
+        }
+        count.addAndGet(SAMPLE_INTERVAL);
+    }
+
+    public int size() {
+        return counts.size();
+    }
+
+    /**
+     * Retrieves the most frequent metric names.
+     *
+     * @param limit maximum number of names
+     * @return names with their estimated call counts, most frequent first,
+     * e.g., {@code ~6400 REST|Spring|/hello/{msg}|GET}
+     */
+    public List<String> getTopRoutes(int limit) {
+        List<Map.Entry<String, Long>> entries =
+                new ArrayList<Map.Entry<String, Long>>();
+        for (Map.Entry<String, AtomicLong> entry : counts.entrySet()) {
+            entries.add(new Route(entry.getKey(), entry.getValue().get()));
+        }
+
+        Collections.sort(entries, new Comparator<Map.Entry<String, Long>>() {
+            @Override
+            public int compare(Map.Entry<String, Long> o1,
+                    Map.Entry<String, Long> o2) {
+                return o2.getValue().compareTo(o1.getValue());
+            }
+        });
+
+        List<String> routes = new ArrayList<String>();
+        for (int i = 0; i < entries.size() && i < limit; i++) {
+            Map.Entry<String, Long> entry = entries.get(i);
+            routes.add("~" + entry.getValue() + " " + entry.getKey());
+        }
+
+        return routes;
+    }
+
+    public void clear() {
+        counts.clear();
+    }
+
+    /**
+     * Snapshot of a route count.
+     */
+    private static class Route implements Map.Entry<String, Long> {
+
+        private final String name;
+
+        private final Long count;
+
+        Route(String name, long count) {
+            this.name = name;
+            this.count = count;
+        }
+
+        @Override
+        public String getKey() {
+            return name;
+        }
+
+        @Override
+        public Long getValue() {
+            return count;
+        }
+
+        @Override
+        public Long setValue(Long value) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
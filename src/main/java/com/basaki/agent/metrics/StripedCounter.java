@@ -0,0 +1,95 @@
+/*
+ * Copyright [2017] [Indra Basak]
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.basaki.agent.metrics;
+
+import com.basaki.agent.util.Config;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * {@code StripedCounter} is a low contention counter for hot paths. Updates
+ * are spread over cache line padded stripes picked by thread id, so threads
+ * rarely update the same cache line. Reading sums the stripes and is meant
+ * for the occasional reporting thread.
+ *
+ * @author Indra Basak
+ * @since 10/18/26
+ */
+public class StripedCounter {
+
+    /**
+     * Longs per cache line, used to pad the stripes apart.
+     */
+    static final int PADDING = 8;
+
+    static final int STRIPES = getStripeCount(
+            Config.getInt("metrics.stripes",
+                    2 * Runtime.getRuntime().availableProcessors()));
+
+    private final AtomicLongArray cells =
+            new AtomicLongArray((STRIPES + 1) * PADDING);
+
+    public void increment() {
+        cells.incrementAndGet(index());
+    }
+
+    public void add(long delta) {
+        cells.addAndGet(index(), delta);
+    }
+
+    /**
+     * Retrieves the current count. Concurrent updates may or may not be
+     * included.
+     *
+     * @return sum of all stripes
+     */
+    public long sum() {
+        long sum = 0;
+        for (int i = 1; i <= STRIPES; i++) {
+            sum += cells.get(i * PADDING);
+        }
+
+        return sum;
+    }
+
+    /**
+     * Retrieves the stripe of the current thread. Thread ids are handed out
+     * in sequence, so the threads of a pool land on different stripes.
+     *
+     * @return stripe index
+     */
+    static int stripe() {
+        return (int) (Thread.currentThread().getId() & (STRIPES - 1));
+    }
+
+    private static int index() {
+        return (stripe() + 1) * PADDING;
+    }
+
+    /**
+     * Rounds a stripe count up to a power of two between 1 and 64.
+     *
+     * @param count requested stripe count
+     * @return stripe count
+     */
+    static int getStripeCount(int count) {
+        int stripes = 1;
+        while (stripes < count && stripes < 64) {
+            stripes <<= 1;
+        }
+
+        return stripes;
+    }
+}
@@ -0,0 +1,283 @@
+/*
+ * Copyright [2017] [Indra Basak]
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.basaki.agent.record;
+
+import com.basaki.agent.util.Config;
+import com.basaki.agent.util.Diagnostics;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@code InvocationRecorder} samples the invocations seen by the name
+ * formatters into a local file, so a production route mix can be replayed
+ * offline. It's off unless {@code recorder.file} is set.
+ * <p/>
+ * One in {@code recorder.sampleRate} (default 100) invocations of each
+ * thread is queued and written by a background thread, up to {@code recorder.maxRecords}
+ * (default 100000) samples. A sample which doesn't fit in the queue is
+ * dropped rather than blocking the request thread.
+ * <p/>
+ * The recording is a tab separated text file. A distinct tuple of
+ * formatter, class, method, descriptor, front boundary and template is
+ * defined once with a {@code D} line and every sample is a {@code S} line
+ * referring to it:
+ * <pre>
+ *     D  id  formatter  class  method  descriptor  front boundary  template
+ *     S  id
+ * </pre>
+ *
+ * @author Indra Basak
+ * @since 10/18/26
+ */
+public class InvocationRecorder {
+
+    public static final String HEADER = "# rest-introscope recording v1";
+
+    private static InvocationRecorder defaultRecorder;
+
+    private static boolean defaultCreated;
+
+    private final File file;
+
+    private final int sampleRate;
+
+    private final int maxRecords;
+
+    private final BlockingQueue<String[]> queue;
+
+    private final Thread writerThread;
+
+    private final AtomicLong recorded = new AtomicLong();
+
+    private final AtomicLong dropped = new AtomicLong();
+
+    /**
+     * Sampling counter of each thread, so request threads don't write a
+     * shared field.
+     */
+    private final ThreadLocal<int[]> counters = new ThreadLocal<int[]>() {
+        @Override
+        protected int[] initialValue() {
+            return new int[1];
+        }
+    };
+
+    private volatile boolean closed;
+
+    /**
+     * Constructs an <code>InvocationRecorder</code> and starts its writer
+     * thread.
+     *
+     * @param file       recording file
+     * @param sampleRate one in how many invocations is recorded
+     * @param maxRecords maximum number of samples written
+     * @param queueSize  maximum number of samples waiting to be written
+     * @throws IOException if the file can't be created
+     */
+    public InvocationRecorder(File file, int sampleRate, int maxRecords,
+            int queueSize) throws IOException {
+        this.file = file;
+        this.sampleRate = Math.max(1, sampleRate);
+        this.maxRecords = maxRecords;
+        queue = new ArrayBlockingQueue<String[]>(queueSize);
+
+        final Writer writer = new BufferedWriter(new OutputStreamWriter(
+                new FileOutputStream(file), "UTF-8"));
+        writer.write(HEADER);
+        writer.write('\n');
+
+        writerThread = new Thread("rest-introscope-recorder") {
+            @Override
+            public void run() {
+                write(writer);
+            }
+        };
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    /**
+     * Retrieves the recorder configured with system properties, creating it
+     * on first use.
+     *
+     * @param diagnostics diagnostics to report a file which can't be
+     *                    created to, used when the recorder is created
+     * @return recorder, null if recording is off or the file can't be
+     * created
+     */
+    public static synchronized InvocationRecorder getDefault(
+            Diagnostics diagnostics) {
+        if (!defaultCreated) {
+            defaultRecorder = createDefault(diagnostics);
+            defaultCreated = true;
+        }
+
+        return defaultRecorder;
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * Samples an invocation.
+     *
+     * @param formatter     name formatter class
+     * @param clazz         invoked class
+     * @param methodName    probe method name
+     * @param methodDesc    probe method descriptor
+     * @param frontBoundary front end boundary path, may be null
+     * @param template      metric name template
+     */
+    public void record(Class<?> formatter, Class<?> clazz, String methodName,
+            String methodDesc, String frontBoundary, String template) {
+        int[] counter = counters.get();
+        if (++counter[0] % sampleRate != 0 || closed) {
+            return;
+        }
+
+        if (recorded.incrementAndGet() > maxRecords) {
+            recorded.decrementAndGet();
+            closed = true;
+            return;
+        }
+
+        String[] sample = {formatter.getName(), clazz.getName(), methodName,
+                methodDesc, frontBoundary, template};
+        if (!queue.offer(sample)) {
+            recorded.decrementAndGet();
+            dropped.incrementAndGet();
+        }
+    }
+
+    /**
+     * Retrieves the number of samples accepted for writing.
+     *
+     * @return recorded sample count
+     */
+    public long getRecordedCount() {
+        return recorded.get();
+    }
+
+    /**
+     * Retrieves the number of samples dropped because the writer fell
+     * behind.
+     *
+     * @return dropped sample count
+     */
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    /**
+     * Stops recording, writes the queued samples and closes the file.
+     *
+     * @throws InterruptedException if interrupted while waiting for the
+     *                              writer thread
+     */
+    public void close() throws InterruptedException {
+        closed = true;
+        writerThread.interrupt();
+        writerThread.join();
+    }
+
+    private void write(Writer writer) {
+        Map<String, Integer> ids = new HashMap<String, Integer>();
+        try {
+            try {
+                while (!closed || !queue.isEmpty()) {
+                    String[] sample = queue.poll(1, TimeUnit.SECONDS);
+                    if (sample != null) {
+                        writeSample(writer, ids, sample);
+                    }
+                    if (queue.isEmpty()) {
+                        writer.flush();
+                    }
+                }
+            } catch (InterruptedException e) {
+                String[] sample;
+                while ((sample = queue.poll()) != null) {
+                    writeSample(writer, ids, sample);
+                }
+            } finally {
+                writer.close();
+            }
+        } catch (IOException e) {
+            closed = true;
+        }
+    }
+
+    private static void writeSample(Writer writer, Map<String, Integer> ids,
+            String[] sample) throws IOException {
+        StringBuilder builder = new StringBuilder();
+        for (String field : sample) {
+            builder.append('\t').append(clean(field));
+        }
+
+        String tuple = builder.toString();
+        Integer id = ids.get(tuple);
+        if (id == null) {
+            id = ids.size();
+            ids.put(tuple, id);
+            writer.write("D\t" + id + tuple + '\n');
+        }
+        writer.write("S\t" + id + '\n');
+    }
+
+    private static String clean(String value) {
+        if (value == null) {
+            return "";
+        }
+
+        return value.replace('\t', ' ').replace('\n', ' ').replace('\r', ' ');
+    }
+
+    private static InvocationRecorder createDefault(Diagnostics diagnostics) {
+        String path = Config.getString("recorder.file", null);
+        return path != null ? create(new File(path), diagnostics) : null;
+    }
+
+    /**
+     * Creates a recorder configured with system properties.
+     *
+     * @param file        recording file
+     * @param diagnostics diagnostics to report a file which can't be
+     *                    created to
+     * @return recorder, null if the file can't be created
+     */
+    static InvocationRecorder create(File file, Diagnostics diagnostics) {
+        try {
+            return new InvocationRecorder(file,
+                    Config.getInt("recorder.sampleRate", 100),
+                    Config.getInt("recorder.maxRecords", 100000),
+                    Config.getInt("recorder.queueSize", 1024));
+        } catch (IOException e) {
+            diagnostics.warn("recorder", "Unable to record invocations to ",
+                    file + ": " + e);
+            return null;
+        }
+    }
+}
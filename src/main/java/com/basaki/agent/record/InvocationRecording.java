@@ -0,0 +1,147 @@
+/*
+ * Copyright [2017] [Indra Basak]
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.basaki.agent.record;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * {@code InvocationRecording} reads a recording written by {@link
+ * InvocationRecorder} back into the sequence of sampled invocations.
+ *
+ * @author Indra Basak
+ * @since 10/18/26
+ */
+public class InvocationRecording {
+
+    private final List<Invocation> invocations = new ArrayList<Invocation>();
+
+    private final List<Invocation> samples = new ArrayList<Invocation>();
+
+    /**
+     * Reads a recording.
+     *
+     * @param file recording file
+     * @throws IOException if the file can't be read or isn't a recording
+     */
+    public InvocationRecording(File file) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new FileInputStream(file), "UTF-8"));
+        try {
+            if (!InvocationRecorder.HEADER.equals(reader.readLine())) {
+                throw new IOException(file + " isn't a recording");
+            }
+
+            String line;
+            while ((line = reader.readLine()) != null) {
+                add(line);
+            }
+        } finally {
+            reader.close();
+        }
+    }
+
+    /**
+     * Retrieves the distinct invocations of the recording.
+     *
+     * @return distinct invocations in order of definition
+     */
+    public List<Invocation> getInvocations() {
+        return Collections.unmodifiableList(invocations);
+    }
+
+    /**
+     * Retrieves the sampled invocations in the order they were recorded.
+     *
+     * @return sampled invocations
+     */
+    public List<Invocation> getSamples() {
+        return Collections.unmodifiableList(samples);
+    }
+
+    private void add(String line) throws IOException {
+        String[] fields = line.split("\t", -1);
+        if ("D".equals(fields[0]) && fields.length == 8) {
+            if (Integer.parseInt(fields[1]) != invocations.size()) {
+                throw new IOException("Unexpected definition: " + line);
+            }
+            invocations.add(new Invocation(fields));
+        } else if ("S".equals(fields[0]) && fields.length == 2) {
+            int id = Integer.parseInt(fields[1]);
+            if (id < 0 || id >= invocations.size()) {
+                throw new IOException("Undefined invocation: " + line);
+            }
+            samples.add(invocations.get(id));
+        }
+    }
+
+    /**
+     * A recorded invocation.
+     */
+    public static class Invocation {
+
+        private final String formatter;
+
+        private final String className;
+
+        private final String methodName;
+
+        private final String methodDesc;
+
+        private final String frontBoundary;
+
+        private final String template;
+
+        Invocation(String[] fields) {
+            formatter = fields[2];
+            className = fields[3];
+            methodName = fields[4];
+            methodDesc = fields[5];
+            frontBoundary = fields[6].isEmpty() ? null : fields[6];
+            template = fields[7];
+        }
+
+        public String getFormatter() {
+            return formatter;
+        }
+
+        public String getClassName() {
+            return className;
+        }
+
+        public String getMethodName() {
+            return methodName;
+        }
+
+        public String getMethodDesc() {
+            return methodDesc;
+        }
+
+        public String getFrontBoundary() {
+            return frontBoundary;
+        }
+
+        public String getTemplate() {
+            return template;
+        }
+    }
+}
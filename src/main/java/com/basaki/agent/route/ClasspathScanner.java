@@ -0,0 +1,882 @@
+/*
+ * Copyright [2017] [Indra Basak]
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.basaki.agent.route;
+
+import com.basaki.agent.util.Config;
+import com.basaki.agent.util.Diagnostics;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.ref.WeakReference;
+import java.net.MalformedURLException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.jar.JarInputStream;
+
+/**
+ * {@code ClasspathScanner} pre-scans the jars and class directories of a
+ * class loader for REST classes, so their routes are resolved before they
+ * are first invoked. It's off unless {@code prescan.enabled} is true.
+ * <p/>
+ * There's one scanner for all name formatters. Each class loader is scanned
+ * once, in the background, for the class level annotations of all
+ * formatters. A class file is a candidate if its constant pool mentions one
+ * of the marker annotations. Candidates are loaded without being
+ * initialized and handed to the {@link Listener} of every formatter whose
+ * annotations they carry. A formatter registered after a scan gets the
+ * candidates found so far.
+ * <p/>
+ * The class files are read and searched on {@code prescan.threads}
+ * (default number of processors) threads, in batches of {@value
+ * #BATCH_SIZE} class files, so a single war or fat jar is scanned in
+ * parallel too. The duration of the scan and the number of routes found
+ * are logged.
+ * <p/>
+ * The roots of a class loader are its URLs if it's an {@link
+ * URLClassLoader}, and the {@code java.class.path} entries for the system
+ * class loader. Besides {@code file:} URLs, the {@code jar:} URLs of a
+ * directory or a jar nested in a jar, e.g., {@code
+ * jar:file:/app.jar!/BOOT-INF/classes!/} of a Spring Boot fat jar, are
+ * scanned. In a jar root, the {@code BOOT-INF/}, {@code WEB-INF/} and
+ * {@code META-INF/} entries are skipped since they aren't on its class path.
+ *
+ * @author Indra Basak
+ * @since 10/18/26
+ */
+public class ClasspathScanner {
+
+    static final int BATCH_SIZE = 256;
+
+    /**
+     * Class level annotations of all name formatters.
+     */
+    static final String[] MARKERS = {RouteIndex.REQUEST_MAPPING_ANNOTATION,
+            RouteIndex.CONTROLLER_ANNOTATION,
+            RouteIndex.REST_CONTROLLER_ANNOTATION, RouteIndex.PATH_ANNOTATION};
+
+    private static final String CLASS_SUFFIX = ".class";
+
+    private static final String[] SKIPPED_PREFIXES =
+            {"META-INF/", "BOOT-INF/", "WEB-INF/"};
+
+    private static final String JAR_SEPARATOR = "!/";
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private static ClasspathScanner defaultScanner;
+
+    /**
+     * Type descriptors of the marker annotations, e.g., {@code
+     * Ljavax/ws/rs/Path;}, as ASCII bytes.
+     */
+    private final byte[][] markers;
+
+    private final String[] annotations;
+
+    private final int threads;
+
+    private final Diagnostics diagnostics;
+
+    private final Map<ClassLoader, Boolean> scanned =
+            Collections.synchronizedMap(
+                    new WeakHashMap<ClassLoader, Boolean>());
+
+    /**
+     * Registered listeners, guarded by the scanner.
+     */
+    private final List<Registration> listeners =
+            new ArrayList<Registration>();
+
+    /**
+     * Candidates found so far, guarded by the scanner.
+     */
+    private final List<Candidate> candidates = new ArrayList<Candidate>();
+
+    /**
+     * Receives the candidate classes of a scan.
+     */
+    public interface Listener {
+
+        /**
+         * Resolves the routes of a candidate class.
+         *
+         * @param clazz candidate class, not initialized
+         * @return number of routes of the class
+         */
+        int found(Class<?> clazz);
+    }
+
+    /**
+     * Constructs a {@code ClasspathScanner}.
+     *
+     * @param annotations marker annotation class names, at most 32
+     * @param threads     number of scanning threads
+     * @param diagnostics diagnostics to report the scans to
+     */
+    public ClasspathScanner(String[] annotations, int threads,
+            Diagnostics diagnostics) {
+        this.annotations = annotations.clone();
+        markers = new byte[annotations.length][];
+        for (int i = 0; i < annotations.length; i++) {
+            String marker = 'L' + annotations[i].replace('.', '/') + ';';
+            markers[i] = new byte[marker.length()];
+            for (int j = 0; j < marker.length(); j++) {
+                markers[i][j] = (byte) marker.charAt(j);
+            }
+        }
+        this.threads = Math.max(1, threads);
+        this.diagnostics = diagnostics;
+    }
+
+    /**
+     * Retrieves the scanner shared by the name formatters, creating it on
+     * first use if pre-scanning is on.
+     *
+     * @param diagnostics diagnostics to report the scans to, used when the
+     *                    scanner is created
+     * @return scanner, null if pre-scanning is off
+     */
+    public static synchronized ClasspathScanner getDefault(
+            Diagnostics diagnostics) {
+        if (defaultScanner == null
+                && Config.getBoolean("prescan.enabled", false)) {
+            defaultScanner = new ClasspathScanner(MARKERS,
+                    Config.getInt("prescan.threads",
+                            Runtime.getRuntime().availableProcessors()),
+                    diagnostics);
+        }
+
+        return defaultScanner;
+    }
+
+    /**
+     * Registers a listener for the candidates carrying any of a set of
+     * annotations. The matching candidates found by earlier scans are
+     * handed to it in the background.
+     *
+     * @param classAnnotations class level annotation class names
+     * @param listener         receives the candidate classes
+     */
+    public void addListener(String[] classAnnotations,
+            final Listener listener) {
+        int mask = getMask(classAnnotations);
+        final List<Class<?>> found = new ArrayList<Class<?>>();
+        synchronized (this) {
+            listeners.add(new Registration(mask, listener));
+            for (Candidate candidate : candidates) {
+                Class<?> clazz = candidate.get();
+                if (clazz != null && (candidate.mask & mask) != 0) {
+                    found.add(clazz);
+                }
+            }
+        }
+
+        if (found.isEmpty()) {
+            return;
+        }
+
+        Thread thread = new Thread("rest-introscope-prescan") {
+            @Override
+            public void run() {
+                Result result = new Result();
+                long start = System.nanoTime();
+                for (Class<?> clazz : found) {
+                    result.candidates.incrementAndGet();
+                    dispatch(listener, clazz, result);
+                }
+                result.nanos = System.nanoTime() - start;
+                diagnostics.info("prescan", "Pre-scan replayed: ", result);
+            }
+        };
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Removes a listener. Candidates already handed to it may still be
+     * delivered.
+     *
+     * @param listener listener registered with {@link #addListener}
+     */
+    public synchronized void removeListener(Listener listener) {
+        for (Iterator<Registration> itr = listeners.iterator();
+                itr.hasNext(); ) {
+            if (itr.next().listener == listener) {
+                itr.remove();
+            }
+        }
+    }
+
+    /**
+     * Starts a background scan of a class loader unless it has been scanned
+     * before.
+     *
+     * @param loader class loader
+     * @return true if a scan was started
+     */
+    public boolean submit(final ClassLoader loader) {
+        if (loader == null || scanned.put(loader, Boolean.TRUE) != null) {
+            return false;
+        }
+
+        Thread thread = new Thread("rest-introscope-prescan") {
+            @Override
+            public void run() {
+                Result result = scan(loader);
+                diagnostics.info("prescan", "Pre-scan finished: ", result);
+            }
+        };
+        thread.setDaemon(true);
+        thread.start();
+
+        return true;
+    }
+
+    /**
+     * Scans a class loader and hands the candidates to the registered
+     * listeners.
+     *
+     * @param loader class loader
+     * @return scan result
+     */
+    public Result scan(final ClassLoader loader) {
+        final Result result = new Result();
+        long start = System.nanoTime();
+
+        ExecutorService executor =
+                Executors.newFixedThreadPool(threads, new ThreadFactory() {
+                    private final AtomicInteger count = new AtomicInteger();
+
+                    @Override
+                    public Thread newThread(Runnable runnable) {
+                        Thread thread = new Thread(runnable,
+                                "rest-introscope-prescan-"
+                                        + count.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                });
+        List<JarFile> jars = new ArrayList<JarFile>();
+        try {
+            List<Future<?>> futures = new ArrayList<Future<?>>();
+            for (Root root : getRoots(loader)) {
+                try {
+                    submitRoot(root, loader, executor, futures, jars, result);
+                } catch (IOException e) {
+                    diagnostics.warn("prescan", "Unable to scan ", root);
+                }
+            }
+
+            for (Future<?> future : futures) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    diagnostics.warn("prescan", "Pre-scan failed: ",
+                            e.getCause());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            executor.shutdownNow();
+            for (JarFile jar : jars) {
+                close(jar);
+            }
+            purgeCandidates();
+        }
+        result.nanos = System.nanoTime() - start;
+
+        return result;
+    }
+
+    /**
+     * Retrieves the jars, class directories and nested jar entries of a
+     * class loader.
+     *
+     * @param loader class loader
+     * @return existing roots
+     */
+    static List<Root> getRoots(ClassLoader loader) {
+        List<Root> roots = new ArrayList<Root>();
+        if (loader instanceof URLClassLoader) {
+            for (URL url : ((URLClassLoader) loader).getURLs()) {
+                addRoot(roots, toRoot(url));
+            }
+        } else if (loader == ClassLoader.getSystemClassLoader()) {
+            String classPath = System.getProperty("java.class.path", "");
+            for (String path : classPath.split(File.pathSeparator)) {
+                if (!path.isEmpty()) {
+                    addRoot(roots, new Root(new File(path), null));
+                }
+            }
+        }
+
+        return roots;
+    }
+
+    /**
+     * Converts a {@code file:} URL, or a {@code jar:} URL pointing into a
+     * jar file, into a root.
+     *
+     * @param url class loader URL
+     * @return root, null if the URL isn't supported
+     */
+    static Root toRoot(URL url) {
+        if ("file".equals(url.getProtocol())) {
+            return new Root(toFile(url), null);
+        }
+        if (!"jar".equals(url.getProtocol())) {
+            return null;
+        }
+
+        String[] parts = url.getPath().split(JAR_SEPARATOR);
+        try {
+            URL outer = new URL(parts[0]);
+            if (!"file".equals(outer.getProtocol())) {
+                return null;
+            }
+
+            String entry = parts.length > 1 ? parts[1] : "";
+            if (entry.startsWith("/")) {
+                entry = entry.substring(1);
+            }
+            if (!entry.isEmpty() && !entry.endsWith(".jar")
+                    && !entry.endsWith("/")) {
+                entry += '/';
+            }
+
+            return new Root(toFile(outer), entry.isEmpty() ? null : entry);
+        } catch (MalformedURLException e) {
+            return null;
+        }
+    }
+
+    private static File toFile(URL url) {
+        try {
+            return new File(url.toURI());
+        } catch (URISyntaxException e) {
+            return new File(url.getPath());
+        } catch (IllegalArgumentException e) {
+            return new File(url.getPath());
+        }
+    }
+
+    private static void addRoot(List<Root> roots, Root root) {
+        if (root != null && root.getFile().exists() && !roots.contains(root)) {
+            roots.add(root);
+        }
+    }
+
+    /**
+     * Lists the class files of a root and submits them in batches.
+     */
+    private void submitRoot(Root root, ClassLoader loader,
+            ExecutorService executor, List<Future<?>> futures,
+            List<JarFile> jars, Result result) throws IOException {
+        List<ClassSource> sources = new ArrayList<ClassSource>();
+        if (root.getFile().isDirectory()) {
+            listDirectory(root.getFile(), "", sources);
+            submitBatches(sources, loader, executor, futures, result);
+            return;
+        }
+
+        JarFile jar = new JarFile(root.getFile());
+        jars.add(jar);
+        String entryName = root.getEntry();
+        if (entryName != null && entryName.endsWith(".jar")) {
+            JarEntry nested = jar.getJarEntry(entryName);
+            if (nested != null) {
+                readNestedJar(jar.getInputStream(nested), loader, executor,
+                        futures, result);
+            }
+            return;
+        }
+
+        Enumeration<JarEntry> entries = jar.entries();
+        while (entries.hasMoreElements()) {
+            JarEntry entry = entries.nextElement();
+            String name = entry.getName();
+            String className = toClassName(name, entryName);
+            if (className != null && !entry.isDirectory()) {
+                sources.add(new JarEntrySource(className, jar, entry));
+            }
+        }
+        submitBatches(sources, loader, executor, futures, result);
+    }
+
+    private static void listDirectory(File dir, String packagePrefix,
+            List<ClassSource> sources) {
+        File[] files = dir.listFiles();
+        if (files == null) {
+            return;
+        }
+
+        for (File file : files) {
+            String name = file.getName();
+            if (file.isDirectory()) {
+                listDirectory(file, packagePrefix + name + '.', sources);
+            } else if (isClassFile(name)) {
+                sources.add(new FileSource(packagePrefix + name.substring(0,
+                        name.length() - CLASS_SUFFIX.length()), file));
+            }
+        }
+    }
+
+    /**
+     * Reads a jar nested in a jar sequentially and submits its class files
+     * in batches as they're read.
+     */
+    private void readNestedJar(InputStream in, ClassLoader loader,
+            ExecutorService executor, List<Future<?>> futures, Result result)
+            throws IOException {
+        JarInputStream jar = new JarInputStream(in);
+        try {
+            List<ClassSource> sources = new ArrayList<ClassSource>();
+            JarEntry entry;
+            while ((entry = jar.getNextJarEntry()) != null) {
+                String className = toClassName(entry.getName(), null);
+                if (className == null || entry.isDirectory()) {
+                    continue;
+                }
+
+                sources.add(new BytesSource(className, read(jar)));
+                if (sources.size() == BATCH_SIZE) {
+                    submitBatches(sources, loader, executor, futures, result);
+                    sources = new ArrayList<ClassSource>();
+                }
+            }
+            submitBatches(sources, loader, executor, futures, result);
+        } finally {
+            jar.close();
+        }
+    }
+
+    /**
+     * Converts a jar entry name into a class name.
+     *
+     * @param name   jar entry name
+     * @param prefix directory of the root in the jar, null for the jar root
+     * @return class name, null if the entry isn't a class file of the root
+     */
+    private static String toClassName(String name, String prefix) {
+        if (prefix != null) {
+            if (!name.startsWith(prefix)) {
+                return null;
+            }
+            name = name.substring(prefix.length());
+        } else {
+            for (String skipped : SKIPPED_PREFIXES) {
+                if (name.startsWith(skipped)) {
+                    return null;
+                }
+            }
+        }
+
+        if (!isClassFile(name)) {
+            return null;
+        }
+
+        return name.substring(0, name.length() - CLASS_SUFFIX.length())
+                .replace('/', '.');
+    }
+
+    private static boolean isClassFile(String name) {
+        return name.endsWith(CLASS_SUFFIX)
+                && !name.endsWith("module-info.class")
+                && !name.endsWith("package-info.class");
+    }
+
+    private void submitBatches(List<ClassSource> sources,
+            final ClassLoader loader, ExecutorService executor,
+            List<Future<?>> futures, final Result result) {
+        for (int i = 0; i < sources.size(); i += BATCH_SIZE) {
+            final List<ClassSource> batch = sources.subList(i,
+                    Math.min(i + BATCH_SIZE, sources.size()));
+            futures.add(executor.submit(new Runnable() {
+                @Override
+                public void run() {
+                    for (ClassSource source : batch) {
+                        scanClass(source, loader, result);
+                    }
+                }
+            }));
+        }
+    }
+
+    /**
+     * Checks a class file for the marker annotations and loads it if it
+     * mentions one.
+     */
+    private void scanClass(ClassSource source, ClassLoader loader,
+            Result result) {
+        result.classes.incrementAndGet();
+        int mask;
+        try {
+            mask = match(source.read());
+        } catch (IOException e) {
+            result.failures.incrementAndGet();
+            return;
+        }
+        if (mask == 0) {
+            return;
+        }
+
+        result.candidates.incrementAndGet();
+        Class<?> clazz;
+        try {
+            clazz = Class.forName(source.getClassName(), false, loader);
+        } catch (ClassNotFoundException e) {
+            result.failures.incrementAndGet();
+            return;
+        } catch (LinkageError e) {
+            result.failures.incrementAndGet();
+            return;
+        }
+
+        List<Listener> matching = new ArrayList<Listener>();
+        synchronized (this) {
+            candidates.add(new Candidate(clazz, mask));
+            for (Registration registration : listeners) {
+                if ((registration.mask & mask) != 0) {
+                    matching.add(registration.listener);
+                }
+            }
+        }
+
+        for (Listener listener : matching) {
+            dispatch(listener, clazz, result);
+        }
+    }
+
+    private static void dispatch(Listener listener, Class<?> clazz,
+            Result result) {
+        try {
+            result.routes.addAndGet(listener.found(clazz));
+        } catch (LinkageError e) {
+            result.failures.incrementAndGet();
+        } catch (RuntimeException e) {
+            result.failures.incrementAndGet();
+        }
+    }
+
+    /**
+     * Checks whether a class file mentions a marker annotation. Annotation
+     * type descriptors are stored as is in the constant pool.
+     *
+     * @param classFile class file bytes
+     * @return true if a marker is found
+     */
+    boolean isCandidate(byte[] classFile) {
+        return match(classFile) != 0;
+    }
+
+    /**
+     * Finds the marker annotations a class file mentions.
+     *
+     * @param classFile class file bytes
+     * @return bit mask of the found markers
+     */
+    int match(byte[] classFile) {
+        int mask = 0;
+        for (int i = 0; i < markers.length; i++) {
+            if (contains(classFile, markers[i])) {
+                mask |= 1 << i;
+            }
+        }
+
+        return mask;
+    }
+
+    /**
+     * Retrieves the bit mask of the markers among a set of annotations.
+     */
+    int getMask(String[] classAnnotations) {
+        int mask = 0;
+        for (String annotation : classAnnotations) {
+            for (int i = 0; i < annotations.length; i++) {
+                if (annotations[i].equals(annotation)) {
+                    mask |= 1 << i;
+                }
+            }
+        }
+
+        return mask;
+    }
+
+    private synchronized void purgeCandidates() {
+        Iterator<Candidate> itr = candidates.iterator();
+        while (itr.hasNext()) {
+            if (itr.next().get() == null) {
+                itr.remove();
+            }
+        }
+    }
+
+    private static boolean contains(byte[] data, byte[] pattern) {
+        byte first = pattern[0];
+        int last = data.length - pattern.length;
+        for (int i = 0; i <= last; i++) {
+            if (data[i] != first) {
+                continue;
+            }
+
+            int j = 1;
+            while (j < pattern.length && data[i + j] == pattern[j]) {
+                j++;
+            }
+            if (j == pattern.length) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private static byte[] read(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(BUFFER_SIZE);
+        byte[] buffer = new byte[BUFFER_SIZE];
+        int count;
+        while ((count = in.read(buffer)) > 0) {
+            out.write(buffer, 0, count);
+        }
+
+        return out.toByteArray();
+    }
+
+    private static void close(JarFile jar) {
+        try {
+            jar.close();
+        } catch (IOException e) {
+            // nothing left to release
+        }
+    }
+
+    /**
+     * A jar, a class directory, or a directory or jar inside a jar.
+     */
+    static class Root {
+
+        private final File file;
+
+        private final String entry;
+
+        Root(File file, String entry) {
+            this.file = file;
+            this.entry = entry;
+        }
+
+        File getFile() {
+            return file;
+        }
+
+        /**
+         * Retrieves the directory, ending with '/', or the nested jar the
+         * root points to inside its jar file.
+         */
+        String getEntry() {
+            return entry;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Root)) {
+                return false;
+            }
+
+            Root root = (Root) o;
+            return file.equals(root.file) && (entry == null ?
+                    root.entry == null : entry.equals(root.entry));
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * file.hashCode() + (entry != null ? entry.hashCode() : 0);
+        }
+
+        @Override
+        public String toString() {
+            return entry != null ? file + JAR_SEPARATOR + entry :
+                    file.toString();
+        }
+    }
+
+    /**
+     * A class file to scan.
+     */
+    private abstract static class ClassSource {
+
+        private final String className;
+
+        ClassSource(String className) {
+            this.className = className;
+        }
+
+        String getClassName() {
+            return className;
+        }
+
+        abstract byte[] read() throws IOException;
+    }
+
+    private static class FileSource extends ClassSource {
+
+        private final File file;
+
+        FileSource(String className, File file) {
+            super(className);
+            this.file = file;
+        }
+
+        @Override
+        byte[] read() throws IOException {
+            InputStream in = new FileInputStream(file);
+            try {
+                return ClasspathScanner.read(in);
+            } finally {
+                in.close();
+            }
+        }
+    }
+
+    private static class JarEntrySource extends ClassSource {
+
+        private final JarFile jar;
+
+        private final JarEntry entry;
+
+        JarEntrySource(String className, JarFile jar, JarEntry entry) {
+            super(className);
+            this.jar = jar;
+            this.entry = entry;
+        }
+
+        @Override
+        byte[] read() throws IOException {
+            InputStream in = jar.getInputStream(entry);
+            try {
+                return ClasspathScanner.read(in);
+            } finally {
+                in.close();
+            }
+        }
+    }
+
+    private static class BytesSource extends ClassSource {
+
+        private final byte[] bytes;
+
+        BytesSource(String className, byte[] bytes) {
+            super(className);
+            this.bytes = bytes;
+        }
+
+        @Override
+        byte[] read() {
+            return bytes;
+        }
+    }
+
+    /**
+     * A listener and the bit mask of the markers it's interested in.
+     */
+    private static class Registration {
+
+        private final int mask;
+
+        private final Listener listener;
+
+        Registration(int mask, Listener listener) {
+            this.mask = mask;
+            this.listener = listener;
+        }
+    }
+
+    /**
+     * A candidate class, held weakly, and the markers it mentions.
+     */
+    private static class Candidate extends WeakReference<Class<?>> {
+
+        private final int mask;
+
+        Candidate(Class<?> clazz, int mask) {
+            super(clazz);
+            this.mask = mask;
+        }
+    }
+
+    /**
+     * Outcome of a scan.
+     */
+    public static class Result {
+
+        private final AtomicInteger classes = new AtomicInteger();
+
+        private final AtomicInteger candidates = new AtomicInteger();
+
+        private final AtomicInteger routes = new AtomicInteger();
+
+        private final AtomicInteger failures = new AtomicInteger();
+
+        private volatile long nanos;
+
+        public int getClassCount() {
+            return classes.get();
+        }
+
+        public int getCandidateCount() {
+            return candidates.get();
+        }
+
+        public int getRouteCount() {
+            return routes.get();
+        }
+
+        public int getFailureCount() {
+            return failures.get();
+        }
+
+        public long getMillis() {
+            return TimeUnit.NANOSECONDS.toMillis(nanos);
+        }
+
+        @Override
+        public String toString() {
+            return getRouteCount() + " routes in " + getCandidateCount()
+                    + " of " + getClassCount() + " classes, "
+                    + getFailureCount() + " failed to load, " + getMillis()
+                    + " ms";
+        }
+    }
+}
@@ -0,0 +1,272 @@
+/*
+ * Copyright [2017] [Indra Basak]
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.basaki.agent.route;
+
+import com.basaki.agent.util.RestAnnotation;
+import com.basaki.agent.util.RestAnnotationParam;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.URL;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * {@code RouteIndex} answers route lookups from the route index files
+ * generated at build time by {@link RouteIndexProcessor}. An index is
+ * loaded lazily, once per class loader, from all the {@value
+ * #INDEX_RESOURCE} resources visible to the loader.
+ * <p/>
+ * Each line of an index file describes one handler method with tab
+ * separated fields:
+ * <pre>
+ *     framework  class  method  descriptor  class path  method path  HTTP method
+ * </pre>
+ * where framework is {@code J} for JAX-RS and {@code S} for Spring. Absent
+ * values are left empty. Lines starting with '#' are comments.
+ *
+ * @author Indra Basak
+ * @since 10/18/26
+ */
+public class RouteIndex {
+
+    public static final String INDEX_RESOURCE =
+            "META-INF/rest-introscope/routes.idx";
+
+    public static final String HEADER = "# rest-introscope route index v1";
+
+    public static final char JAXRS = 'J';
+
+    public static final char SPRING = 'S';
+
+    static final String PATH_ANNOTATION = "javax.ws.rs.Path";
+
+    static final String REQUEST_MAPPING_ANNOTATION =
+            "org.springframework.web.bind.annotation.RequestMapping";
+
+    static final String CONTROLLER_ANNOTATION =
+            "org.springframework.stereotype.Controller";
+
+    static final String REST_CONTROLLER_ANNOTATION =
+            "org.springframework.web.bind.annotation.RestController";
+
+    private static final int FIELD_COUNT = 7;
+
+    private static final RouteIndex EMPTY = new RouteIndex();
+
+    private static final Map<ClassLoader, RouteIndex> INDEXES =
+            Collections.synchronizedMap(
+                    new WeakHashMap<ClassLoader, RouteIndex>());
+
+    /**
+     * Class path keyed by framework followed by class name. The value is
+     * an empty string if the class has no class level path.
+     */
+    private final Map<String, String> classes = new HashMap<String, String>();
+
+    /**
+     * Method path and HTTP method keyed by framework, class name, method
+     * name and method descriptor.
+     */
+    private final Map<String, String[]> methods =
+            new HashMap<String, String[]>();
+
+    RouteIndex() {
+
+    }
+
+    /**
+     * Retrieves the route index of a class loader, loading it on first
+     * access.
+     *
+     * @param loader class loader
+     * @return route index, empty if the loader has no index file
+     */
+    public static RouteIndex get(ClassLoader loader) {
+        if (loader == null) {
+            return EMPTY;
+        }
+
+        synchronized (INDEXES) {
+            RouteIndex index = INDEXES.get(loader);
+            if (index == null) {
+                index = load(loader);
+                INDEXES.put(loader, index);
+            }
+
+            return index;
+        }
+    }
+
+    /**
+     * Discards the loaded indexes. They are reloaded on the next lookup.
+     */
+    public static void clear() {
+        INDEXES.clear();
+    }
+
+    /**
+     * Maps an annotation class name to an index framework.
+     *
+     * @param annoClazz annotation class name
+     * @return {@link #JAXRS}, {@link #SPRING} or 0 if unknown
+     */
+    public static char getFramework(String annoClazz) {
+        if (PATH_ANNOTATION.equals(annoClazz)) {
+            return JAXRS;
+        } else if (REQUEST_MAPPING_ANNOTATION.equals(annoClazz)
+                || CONTROLLER_ANNOTATION.equals(annoClazz)
+                || REST_CONTROLLER_ANNOTATION.equals(annoClazz)) {
+            return SPRING;
+        }
+
+        return 0;
+    }
+
+    public int size() {
+        return methods.size();
+    }
+
+    /**
+     * Checks whether a class is in the index.
+     *
+     * @param className class name
+     * @param annoClazz annotation class name looked up by the caller
+     * @return true if the class is indexed for the annotation's framework
+     */
+    public boolean containsClass(String className, String annoClazz) {
+        return classes.containsKey(getFramework(annoClazz) + className);
+    }
+
+    /**
+     * Retrieves the class level path of an indexed class as an annotation.
+     *
+     * @param className class name
+     * @param annoClazz annotation class name looked up by the caller
+     * @return annotation with the class path as its value, null if the class
+     * isn't indexed or has no class level path
+     */
+    public RestAnnotation findClassAnnotation(String className,
+            String annoClazz) {
+        String path = classes.get(getFramework(annoClazz) + className);
+        if (path == null || path.isEmpty()) {
+            return null;
+        }
+
+        return toAnnotation(annoClazz, path, null);
+    }
+
+    /**
+     * Retrieves the mapping of an indexed method as an annotation.
+     *
+     * @param className  class name
+     * @param methodName method name
+     * @param methodDesc method descriptor
+     * @param annoClazz  annotation class name looked up by the caller
+     * @return annotation with the method path as its value and the HTTP
+     * method as its method, null if the method isn't indexed
+     */
+    public RestAnnotation findMethodAnnotation(String className,
+            String methodName, String methodDesc, String annoClazz) {
+        String[] route = methods.get(methodKey(getFramework(annoClazz),
+                className, methodName, methodDesc));
+        if (route == null) {
+            return null;
+        }
+
+        return toAnnotation(annoClazz, route[0], route[1]);
+    }
+
+    /**
+     * Adds an index line.
+     *
+     * @param line index line
+     * @return true if the line is a valid route
+     */
+    boolean add(String line) {
+        if (line.isEmpty() || line.charAt(0) == '#') {
+            return false;
+        }
+
+        String[] fields = line.split("\t", -1);
+        if (fields.length < FIELD_COUNT || fields[0].length() != 1) {
+            return false;
+        }
+
+        char framework = fields[0].charAt(0);
+        classes.put(framework + fields[1], fields[4]);
+        methods.put(methodKey(framework, fields[1], fields[2], fields[3]),
+                new String[]{fields[5], fields[6]});
+
+        return true;
+    }
+
+    private static RouteIndex load(ClassLoader loader) {
+        RouteIndex index = new RouteIndex();
+        try {
+            Enumeration<URL> urls = loader.getResources(INDEX_RESOURCE);
+            while (urls.hasMoreElements()) {
+                index.read(urls.nextElement());
+            }
+        } catch (IOException e) {
+            // fall back to runtime resolution
+        }
+
+        return index.size() > 0 ? index : EMPTY;
+    }
+
+    private void read(URL url) throws IOException {
+        InputStream in = url.openStream();
+        try {
+            BufferedReader reader =
+                    new BufferedReader(new InputStreamReader(in, "UTF-8"));
+            String line;
+            while ((line = reader.readLine()) != null) {
+                add(line);
+            }
+        } finally {
+            in.close();
+        }
+    }
+
+    private static String methodKey(char framework, String className,
+            String methodName, String methodDesc) {
+        return framework + className + '#' + methodName + methodDesc;
+    }
+
+    static RestAnnotation toAnnotation(String annoClazz, String path,
+            String httpMethod) {
+        RestAnnotation anno = new RestAnnotation();
+        anno.setAnnotationClass(annoClazz);
+        addParam(anno, "value", path);
+        addParam(anno, "method", httpMethod);
+
+        return anno;
+    }
+
+    private static void addParam(RestAnnotation anno, String key,
+            String value) {
+        if (value != null && !value.isEmpty()) {
+            RestAnnotationParam param = new RestAnnotationParam();
+            param.setValue(value);
+            anno.addParam(key, param);
+        }
+    }
+}
@@ -0,0 +1,392 @@
+/*
+ * Copyright [2017] [Indra Basak]
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.basaki.agent.route;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+
+/**
+ * {@code RouteIndexProcessor} is an annotation processor which writes the
+ * routes of the JAX-RS and Spring controllers of an application to {@value
+ * RouteIndex#INDEX_RESOURCE} at build time. The name formatters read the
+ * index instead of resolving annotations reflectively, and fall back to
+ * runtime resolution for classes missing from the index, e.g., runtime
+ * generated proxies.
+ * <p/>
+ * The processor isn't registered as a service. It has to be named
+ * explicitly, e.g., with the {@code -processor} option of {@code javac}.
+ * The index only covers the classes compiled in one pass, so it has to be
+ * regenerated with a full build rather than an incremental one.
+ *
+ * @author Indra Basak
+ * @since 10/18/26
+ */
+@SupportedAnnotationTypes({"javax.ws.rs.Path", "javax.ws.rs.GET",
+        "javax.ws.rs.POST", "javax.ws.rs.PUT", "javax.ws.rs.DELETE",
+        "javax.ws.rs.HEAD", "javax.ws.rs.OPTIONS",
+        RouteIndex.REQUEST_MAPPING_ANNOTATION})
+public class RouteIndexProcessor extends AbstractProcessor {
+
+    private static final String HTTP_METHOD_ANNOTATION =
+            "javax.ws.rs.HttpMethod";
+
+    private final Set<String> routes = new TreeSet<String>();
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations,
+            RoundEnvironment roundEnv) {
+        if (roundEnv.processingOver()) {
+            writeIndex();
+            return false;
+        }
+
+        Set<TypeElement> types = new LinkedHashSet<TypeElement>();
+        for (TypeElement annotation : annotations) {
+            for (Element element : roundEnv.getElementsAnnotatedWith(
+                    annotation)) {
+                if (element instanceof TypeElement) {
+                    types.add((TypeElement) element);
+                } else if (element instanceof ExecutableElement
+                        && element.getEnclosingElement() instanceof TypeElement) {
+                    types.add((TypeElement) element.getEnclosingElement());
+                }
+            }
+        }
+
+        for (TypeElement type : types) {
+            indexType(type);
+        }
+
+        return false;
+    }
+
+    /**
+     * Adds the routes of all handler methods declared by a class.
+     *
+     * @param type controller class
+     */
+    private void indexType(TypeElement type) {
+        String className =
+                processingEnv.getElementUtils().getBinaryName(type).toString();
+        String jaxrsPath = null;
+        String springPath = null;
+        boolean jaxrsResolved = false;
+        boolean springResolved = false;
+
+        for (ExecutableElement method : ElementFilter.methodsIn(
+                type.getEnclosedElements())) {
+            AnnotationMirror path =
+                    findAnnotation(method, RouteIndex.PATH_ANNOTATION);
+            String httpMethod = getHttpMethod(method);
+            if (path != null || httpMethod != null) {
+                if (!jaxrsResolved) {
+                    jaxrsPath = getClassPath(type, RouteIndex.PATH_ANNOTATION);
+                    jaxrsResolved = true;
+                }
+                addRoute(RouteIndex.JAXRS, className, method, jaxrsPath,
+                        getValue(path, "value"), httpMethod);
+            }
+
+            AnnotationMirror mapping = findAnnotation(method,
+                    RouteIndex.REQUEST_MAPPING_ANNOTATION);
+            if (mapping != null) {
+                if (!springResolved) {
+                    springPath = getSpringClassPath(type);
+                    springResolved = true;
+                }
+                addRoute(RouteIndex.SPRING, className, method, springPath,
+                        getPathValue(mapping), getValue(mapping, "method"));
+            }
+        }
+    }
+
+    private void addRoute(char framework, String className,
+            ExecutableElement method, String classPath, String methodPath,
+            String httpMethod) {
+        StringBuilder builder = new StringBuilder();
+        builder.append(framework).append('\t');
+        builder.append(className).append('\t');
+        builder.append(method.getSimpleName()).append('\t');
+        builder.append(getDescriptor(method)).append('\t');
+        builder.append(clean(classPath)).append('\t');
+        builder.append(clean(methodPath)).append('\t');
+        builder.append(clean(httpMethod));
+        routes.add(builder.toString());
+    }
+
+    private void writeIndex() {
+        if (routes.isEmpty()) {
+            return;
+        }
+
+        try {
+            FileObject file = processingEnv.getFiler().createResource(
+                    StandardLocation.CLASS_OUTPUT, "",
+                    RouteIndex.INDEX_RESOURCE);
+            Writer writer =
+                    new OutputStreamWriter(file.openOutputStream(), "UTF-8");
+            try {
+                writer.write(RouteIndex.HEADER);
+                writer.write('\n');
+                for (String route : routes) {
+                    writer.write(route);
+                    writer.write('\n');
+                }
+            } finally {
+                writer.close();
+            }
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING,
+                    "Unable to write " + RouteIndex.INDEX_RESOURCE + ": "
+                            + e.getMessage());
+        }
+    }
+
+    /**
+     * Retrieves the class level path of a Spring controller. A class level
+     * {@code RequestMapping} wins over the value of a {@code Controller} or
+     * {@code RestController} annotation, same as at runtime.
+     *
+     * @param type controller class
+     * @return class level path, null if absent
+     */
+    private String getSpringClassPath(TypeElement type) {
+        String path = getClassPath(type, RouteIndex.REQUEST_MAPPING_ANNOTATION);
+        if (path == null) {
+            path = getClassPath(type, RouteIndex.CONTROLLER_ANNOTATION);
+        }
+        if (path == null) {
+            path = getClassPath(type, RouteIndex.REST_CONTROLLER_ANNOTATION);
+        }
+
+        return path;
+    }
+
+    /**
+     * Retrieves the path of a class level annotation, searching the
+     * superclasses and interfaces if the class isn't annotated.
+     *
+     * @param type      class
+     * @param annoClazz annotation class name
+     * @return path of the first annotation found, null if absent
+     */
+    private String getClassPath(TypeElement type, String annoClazz) {
+        List<TypeElement> hierarchy = new ArrayList<TypeElement>();
+        hierarchy.add(type);
+        for (int i = 0; i < hierarchy.size(); i++) {
+            TypeElement current = hierarchy.get(i);
+            AnnotationMirror anno = findAnnotation(current, annoClazz);
+            if (anno != null) {
+                return getPathValue(anno);
+            }
+
+            addSuperType(hierarchy, current.getSuperclass());
+            for (TypeMirror iface : current.getInterfaces()) {
+                addSuperType(hierarchy, iface);
+            }
+        }
+
+        return null;
+    }
+
+    private static void addSuperType(List<TypeElement> hierarchy,
+            TypeMirror type) {
+        if (type.getKind() == TypeKind.DECLARED) {
+            TypeElement element =
+                    (TypeElement) ((DeclaredType) type).asElement();
+            if (!element.getQualifiedName().contentEquals("java.lang.Object")
+                    && !hierarchy.contains(element)) {
+                hierarchy.add(element);
+            }
+        }
+    }
+
+    /**
+     * Retrieves the HTTP method of a JAX-RS resource method, i.e., the name
+     * of an annotation meta-annotated with {@code HttpMethod}.
+     *
+     * @param method resource method
+     * @return HTTP method, null if absent
+     */
+    private String getHttpMethod(ExecutableElement method) {
+        for (AnnotationMirror anno : method.getAnnotationMirrors()) {
+            Element annoType = anno.getAnnotationType().asElement();
+            AnnotationMirror httpMethod =
+                    findAnnotation(annoType, HTTP_METHOD_ANNOTATION);
+            if (httpMethod != null) {
+                return getValue(httpMethod, "value");
+            }
+        }
+
+        return null;
+    }
+
+    private static AnnotationMirror findAnnotation(Element element,
+            String annoClazz) {
+        for (AnnotationMirror anno : element.getAnnotationMirrors()) {
+            TypeElement annoType =
+                    (TypeElement) anno.getAnnotationType().asElement();
+            if (annoType.getQualifiedName().contentEquals(annoClazz)) {
+                return anno;
+            }
+        }
+
+        return null;
+    }
+
+    private static String getPathValue(AnnotationMirror anno) {
+        String value = getValue(anno, "value");
+        return value != null ? value : getValue(anno, "path");
+    }
+
+    /**
+     * Retrieves an annotation attribute if it has exactly one non-empty
+     * value, following the runtime rules.
+     *
+     * @param anno      annotation
+     * @param attribute attribute name
+     * @return attribute value, null if absent or multi-valued
+     */
+    private static String getValue(AnnotationMirror anno, String attribute) {
+        if (anno == null) {
+            return null;
+        }
+
+        for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry
+                : anno.getElementValues().entrySet()) {
+            if (entry.getKey().getSimpleName().contentEquals(attribute)) {
+                List<String> values = new ArrayList<String>();
+                addValues(values, entry.getValue().getValue());
+                return values.size() == 1 ? values.get(0) : null;
+            }
+        }
+
+        return null;
+    }
+
+    private static void addValues(List<String> values, Object value) {
+        if (value instanceof List) {
+            for (Object element : (List<?>) value) {
+                addValues(values, ((AnnotationValue) element).getValue());
+            }
+        } else if (value instanceof VariableElement) {
+            values.add(((VariableElement) value).getSimpleName().toString());
+        } else if (value != null) {
+            String str = value.toString().trim();
+            if (!str.isEmpty()) {
+                values.add(str);
+            }
+        }
+    }
+
+    private String getDescriptor(ExecutableElement method) {
+        StringBuilder builder = new StringBuilder("(");
+        for (VariableElement param : method.getParameters()) {
+            appendDescriptor(builder, param.asType());
+        }
+        builder.append(')');
+        appendDescriptor(builder, method.getReturnType());
+
+        return builder.toString();
+    }
+
+    private void appendDescriptor(StringBuilder builder, TypeMirror type) {
+        TypeMirror erased = processingEnv.getTypeUtils().erasure(type);
+        switch (erased.getKind()) {
+            case BOOLEAN:
+                builder.append('Z');
+                break;
+            case BYTE:
+                builder.append('B');
+                break;
+            case CHAR:
+                builder.append('C');
+                break;
+            case SHORT:
+                builder.append('S');
+                break;
+            case INT:
+                builder.append('I');
+                break;
+            case LONG:
+                builder.append('J');
+                break;
+            case FLOAT:
+                builder.append('F');
+                break;
+            case DOUBLE:
+                builder.append('D');
+                break;
+            case VOID:
+                builder.append('V');
+                break;
+            case ARRAY:
+                builder.append('[');
+                appendDescriptor(builder,
+                        ((ArrayType) erased).getComponentType());
+                break;
+            case DECLARED:
+                TypeElement element =
+                        (TypeElement) ((DeclaredType) erased).asElement();
+                builder.append('L');
+                builder.append(processingEnv.getElementUtils()
+                        .getBinaryName(element).toString().replace('.', '/'));
+                builder.append(';');
+                break;
+            default:
+                builder.append("Ljava/lang/Object;");
+                break;
+        }
+    }
+
+    private static String clean(String value) {
+        if (value == null) {
+            return "";
+        }
+
+        return value.replace('\t', ' ').replace('\n', ' ').replace('\r', ' ');
+    }
+}
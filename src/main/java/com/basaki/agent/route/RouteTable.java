@@ -0,0 +1,587 @@
+/*
+ * Copyright [2017] [Indra Basak]
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.basaki.agent.route;
+
+import com.basaki.agent.util.AnnotationResolver;
+import com.basaki.agent.util.Config;
+import com.basaki.agent.util.IAnnotation;
+import com.basaki.agent.util.RestAnnotation;
+import com.basaki.agent.util.RestAnnotationParam;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.lang.ref.WeakReference;
+import java.net.JarURLConnection;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.jar.JarEntry;
+
+/**
+ * {@code RouteTable} keeps the routes resolved by a name formatter across
+ * JVM restarts, so a restarted application comes back with warm routes. It's
+ * off unless {@code warmstart.dir} is set. The table of a formatter is
+ * saved to {@code <warmstart.dir>/<formatter>.routes} when the JVM shuts
+ * down and loaded on its first lookup. All the instances of a formatter
+ * class share one table, so a single writer owns the file.
+ * <p/>
+ * An entry is trusted only if the class files of the loaded class and of
+ * its supertypes still have the sizes and time stamps recorded with the
+ * entry, since a route may come from an annotated base class or interface.
+ * Supertypes loaded by the bootstrap class loader aren't checked. The check
+ * is done once per loaded class. Classes which don't come from a jar or a directory,
+ * e.g., generated proxies, aren't kept. At most {@code
+ * warmstart.maxClasses} (default 10000) classes are kept.
+ * <p/>
+ * The table is a binary file written with a {@link DataOutputStream}:
+ * <pre>
+ *     magic  version  class count
+ *     class: name  size  time  supertype count  supertypes
+ *            class annotation  method count  methods
+ *     supertype: name  size  time
+ *     method: name  descriptor  annotation
+ *     annotation: present [annotation class  path  HTTP method]
+ * </pre>
+ *
+ * @author Indra Basak
+ * @since 10/18/26
+ */
+public class RouteTable {
+
+    public static final int MAGIC = 0x52545442;
+
+    public static final int VERSION = 2;
+
+    public static final String SUFFIX = ".routes";
+
+    private static final int MAX_CLASSES =
+            Config.getInt("warmstart.maxClasses", 10000);
+
+    /**
+     * Tables created with {@link #create(String)}, keyed by file, each
+     * saved by a shutdown hook of its own.
+     */
+    private static final Map<File, RouteTable> TABLES =
+            new HashMap<File, RouteTable>();
+
+    private final File file;
+
+    private final int maxClasses;
+
+    private final ConcurrentMap<String, ClassRoutes> classes =
+            new ConcurrentHashMap<String, ClassRoutes>();
+
+    private volatile boolean loaded;
+
+    public RouteTable(File file, int maxClasses) {
+        this.file = file;
+        this.maxClasses = maxClasses;
+    }
+
+    /**
+     * Retrieves the route table of a formatter if warm start is on. The
+     * table is created on first use and saved when the JVM shuts down.
+     * Later calls with the same name get the same table.
+     *
+     * @param name formatter name
+     * @return route table, null if warm start is off
+     */
+    public static synchronized RouteTable create(String name) {
+        String dir = Config.getString("warmstart.dir", null);
+        if (dir == null) {
+            return null;
+        }
+
+        File file = new File(dir, name + SUFFIX).getAbsoluteFile();
+        RouteTable existing = TABLES.get(file);
+        if (existing != null) {
+            return existing;
+        }
+
+        final RouteTable table = new RouteTable(file, MAX_CLASSES);
+        TABLES.put(file, table);
+        Runtime.getRuntime().addShutdownHook(
+                new Thread("rest-introscope-route-table") {
+                    @Override
+                    public void run() {
+                        try {
+                            table.save();
+                        } catch (IOException e) {
+                            // nothing to report to at shutdown
+                        }
+                    }
+                });
+
+        return table;
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    public int size() {
+        return classes.size();
+    }
+
+    /**
+     * Retrieves the routes of a class if they can be trusted.
+     *
+     * @param clazz loaded class
+     * @return routes of the class, null if there are none or the class has
+     * changed
+     */
+    public ClassRoutes get(Class<?> clazz) {
+        ensureLoaded();
+        ClassRoutes routes = classes.get(clazz.getName());
+        if (routes == null) {
+            return null;
+        }
+
+        WeakReference<Class<?>> trusted = routes.trusted;
+        if (trusted != null && trusted.get() == clazz) {
+            return routes;
+        }
+
+        long[] stamp = getStamp(clazz);
+        if (stamp == null || stamp[0] != routes.size
+                || stamp[1] != routes.time
+                || !isUnchanged(clazz, routes.supertypes)) {
+            return null;
+        }
+        routes.trusted = new WeakReference<Class<?>>(clazz);
+
+        return routes;
+    }
+
+    /**
+     * Retrieves the routes of a class to record resolved routes into,
+     * adding the class if needed.
+     *
+     * @param clazz loaded class
+     * @return routes of the class, null if the class can't be kept
+     */
+    public ClassRoutes put(Class<?> clazz) {
+        ClassRoutes routes = get(clazz);
+        if (routes != null || classes.size() >= maxClasses) {
+            return routes;
+        }
+
+        long[] stamp = getStamp(clazz);
+        List<Stamp> supertypes = stamp != null ?
+                getSupertypeStamps(clazz) : null;
+        if (supertypes == null) {
+            return null;
+        }
+
+        routes = new ClassRoutes(clazz.getName(), stamp[0], stamp[1],
+                supertypes);
+        routes.trusted = new WeakReference<Class<?>>(clazz);
+        classes.put(clazz.getName(), routes);
+
+        return routes;
+    }
+
+    /**
+     * Discards the entries, including the ones loaded from the file. The
+     * file is replaced by the routes resolved from now on when the table is
+     * saved.
+     */
+    public synchronized void clear() {
+        classes.clear();
+        loaded = true;
+    }
+
+    /**
+     * Writes the table to its file. The file is replaced only once the new
+     * one has been written.
+     *
+     * @throws IOException if the table can't be written
+     */
+    public synchronized void save() throws IOException {
+        ensureLoaded();
+        File dir = file.getAbsoluteFile().getParentFile();
+        if (dir != null && !dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException("Unable to create " + dir);
+        }
+
+        File tmp = new File(file.getPath() + ".tmp");
+        DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(tmp)));
+        try {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(classes.size());
+            for (ClassRoutes routes : classes.values()) {
+                routes.write(out);
+            }
+        } finally {
+            out.close();
+        }
+
+        if (!tmp.renameTo(file) && (!file.delete() || !tmp.renameTo(file))) {
+            throw new IOException("Unable to replace " + file);
+        }
+    }
+
+    /**
+     * Loads the table from its file once. A missing, outdated or corrupt
+     * file leaves the table empty.
+     */
+    private void ensureLoaded() {
+        if (loaded) {
+            return;
+        }
+
+        synchronized (this) {
+            if (loaded) {
+                return;
+            }
+
+            if (file.isFile()) {
+                try {
+                    load();
+                } catch (IOException e) {
+                    classes.clear();
+                }
+            }
+            loaded = true;
+        }
+    }
+
+    private void load() throws IOException {
+        DataInputStream in = new DataInputStream(
+                new BufferedInputStream(new FileInputStream(file)));
+        try {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                return;
+            }
+
+            int count = in.readInt();
+            for (int i = 0; i < count && i < maxClasses; i++) {
+                ClassRoutes routes = ClassRoutes.read(in);
+                classes.put(routes.className, routes);
+            }
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * Records the class file stamps of the supertypes of a class which
+     * aren't loaded by the bootstrap class loader.
+     *
+     * @param clazz loaded class
+     * @return supertype stamps, null if one of them has no class file
+     */
+    private static List<Stamp> getSupertypeStamps(Class<?> clazz) {
+        List<Stamp> stamps = new ArrayList<Stamp>();
+        for (Class<?> type : AnnotationResolver.getTypeHierarchy(clazz)) {
+            if (type == clazz || type.getClassLoader() == null) {
+                continue;
+            }
+
+            long[] stamp = getStamp(type);
+            if (stamp == null) {
+                return null;
+            }
+            stamps.add(new Stamp(type.getName(), stamp[0], stamp[1]));
+        }
+
+        return stamps;
+    }
+
+    /**
+     * Checks whether the supertypes of a class still have the recorded
+     * class file stamps.
+     */
+    private static boolean isUnchanged(Class<?> clazz, List<Stamp> stamps) {
+        if (stamps.isEmpty()) {
+            return true;
+        }
+
+        Map<String, Class<?>> types = new HashMap<String, Class<?>>();
+        for (Class<?> type : AnnotationResolver.getTypeHierarchy(clazz)) {
+            types.put(type.getName(), type);
+        }
+
+        for (Stamp stamp : stamps) {
+            Class<?> type = types.get(stamp.className);
+            long[] current = type != null ? getStamp(type) : null;
+            if (current == null || current[0] != stamp.size
+                    || current[1] != stamp.time) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Retrieves the size and time stamp of the class file of a class.
+     *
+     * @param clazz loaded class
+     * @return size and time stamp, null if the class file can't be found
+     * in a jar or a directory
+     */
+    static long[] getStamp(Class<?> clazz) {
+        String resource = clazz.getName().replace('.', '/') + ".class";
+        ClassLoader loader = clazz.getClassLoader();
+        URL url = loader != null ? loader.getResource(resource) :
+                ClassLoader.getSystemResource(resource);
+        if (url == null) {
+            return null;
+        }
+
+        try {
+            if ("file".equals(url.getProtocol())) {
+                File classFile = new File(url.toURI());
+                return classFile.isFile() ? new long[]{classFile.length(),
+                        classFile.lastModified()} : null;
+            }
+
+            URLConnection connection = url.openConnection();
+            if (connection instanceof JarURLConnection) {
+                JarEntry entry =
+                        ((JarURLConnection) connection).getJarEntry();
+                return entry != null ?
+                        new long[]{entry.getSize(), entry.getTime()} : null;
+            }
+        } catch (IOException e) {
+            // no stamp, not kept
+        } catch (URISyntaxException e) {
+            // no stamp, not kept
+        }
+
+        return null;
+    }
+
+    /**
+     * Routes of a class: its class level annotation and the annotations of
+     * its methods, as far as they have been resolved. A resolved absence
+     * of an annotation is kept too.
+     */
+    public static class ClassRoutes {
+
+        private static final Route NONE = new Route(null, null, null);
+
+        private final String className;
+
+        private final long size;
+
+        private final long time;
+
+        private final List<Stamp> supertypes;
+
+        private volatile Route classRoute;
+
+        private final ConcurrentMap<String, Route> methods =
+                new ConcurrentHashMap<String, Route>(8, 0.75f, 1);
+
+        private volatile WeakReference<Class<?>> trusted;
+
+        ClassRoutes(String className, long size, long time,
+                List<Stamp> supertypes) {
+            this.className = className;
+            this.size = size;
+            this.time = time;
+            this.supertypes = supertypes;
+        }
+
+        public boolean isClassAnnotationResolved() {
+            return classRoute != null;
+        }
+
+        public RestAnnotation getClassAnnotation() {
+            Route route = classRoute;
+            return route != null ? route.toAnnotation() : null;
+        }
+
+        public void setClassAnnotation(RestAnnotation anno) {
+            classRoute = Route.of(anno);
+        }
+
+        public boolean isMethodAnnotationResolved(String methodName,
+                String methodDesc) {
+            return methods.containsKey(methodName + methodDesc);
+        }
+
+        public RestAnnotation getMethodAnnotation(String methodName,
+                String methodDesc) {
+            Route route = methods.get(methodName + methodDesc);
+            return route != null ? route.toAnnotation() : null;
+        }
+
+        public void setMethodAnnotation(String methodName, String methodDesc,
+                RestAnnotation anno) {
+            methods.put(methodName + methodDesc, Route.of(anno));
+        }
+
+        public int getMethodCount() {
+            return methods.size();
+        }
+
+        void write(DataOutputStream out) throws IOException {
+            out.writeUTF(className);
+            out.writeLong(size);
+            out.writeLong(time);
+            out.writeInt(supertypes.size());
+            for (Stamp stamp : supertypes) {
+                out.writeUTF(stamp.className);
+                out.writeLong(stamp.size);
+                out.writeLong(stamp.time);
+            }
+            Route.write(out, classRoute);
+
+            Map<String, Route> snapshot = new HashMap<String, Route>(methods);
+            out.writeInt(snapshot.size());
+            for (Map.Entry<String, Route> method : snapshot.entrySet()) {
+                out.writeUTF(method.getKey());
+                Route.write(out, method.getValue());
+            }
+        }
+
+        static ClassRoutes read(DataInputStream in) throws IOException {
+            String className = in.readUTF();
+            long size = in.readLong();
+            long time = in.readLong();
+            int supertypeCount = in.readInt();
+            List<Stamp> supertypes = new ArrayList<Stamp>(
+                    Math.min(supertypeCount, 64));
+            for (int i = 0; i < supertypeCount; i++) {
+                supertypes.add(new Stamp(in.readUTF(), in.readLong(),
+                        in.readLong()));
+            }
+
+            ClassRoutes routes = new ClassRoutes(className, size, time,
+                    Collections.unmodifiableList(supertypes));
+            routes.classRoute = Route.read(in);
+
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                String method = in.readUTF();
+                Route route = Route.read(in);
+                if (route != null) {
+                    routes.methods.put(method, route);
+                }
+            }
+
+            return routes;
+        }
+    }
+
+    /**
+     * The class file size and time stamp of a supertype.
+     */
+    private static class Stamp {
+
+        private final String className;
+
+        private final long size;
+
+        private final long time;
+
+        Stamp(String className, long size, long time) {
+            this.className = className;
+            this.size = size;
+            this.time = time;
+        }
+    }
+
+    /**
+     * A resolved annotation reduced to what the formatters use: the
+     * annotation class, the path and the HTTP method.
+     */
+    private static class Route {
+
+        private final String annoClazz;
+
+        private final String path;
+
+        private final String httpMethod;
+
+        Route(String annoClazz, String path, String httpMethod) {
+            this.annoClazz = annoClazz;
+            this.path = path;
+            this.httpMethod = httpMethod;
+        }
+
+        static Route of(RestAnnotation anno) {
+            if (anno == null) {
+                return ClassRoutes.NONE;
+            }
+
+            String path = getValue(anno, "value");
+            return new Route(anno.getAnnotationClass(),
+                    path != null ? path : getValue(anno, "path"),
+                    getValue(anno, "method"));
+        }
+
+        RestAnnotation toAnnotation() {
+            return annoClazz != null ?
+                    RouteIndex.toAnnotation(annoClazz, path, httpMethod) :
+                    null;
+        }
+
+        static void write(DataOutputStream out, Route route)
+                throws IOException {
+            out.writeBoolean(route != null);
+            if (route == null) {
+                return;
+            }
+
+            out.writeBoolean(route.annoClazz != null);
+            if (route.annoClazz != null) {
+                out.writeUTF(route.annoClazz);
+                out.writeUTF(route.path != null ? route.path : "");
+                out.writeUTF(route.httpMethod != null ? route.httpMethod : "");
+            }
+        }
+
+        static Route read(DataInputStream in) throws IOException {
+            if (!in.readBoolean()) {
+                return null;
+            }
+
+            if (!in.readBoolean()) {
+                return ClassRoutes.NONE;
+            }
+
+            return new Route(in.readUTF(), in.readUTF(), in.readUTF());
+        }
+
+        private static String getValue(RestAnnotation anno, String key) {
+            List<IAnnotation> params = anno.getParam(key);
+            if (params != null && params.size() == 1
+                    && params.get(0) instanceof RestAnnotationParam) {
+                return ((RestAnnotationParam) params.get(0)).getValue();
+            }
+
+            return null;
+        }
+    }
+}
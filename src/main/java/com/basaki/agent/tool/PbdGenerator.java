@@ -0,0 +1,693 @@
+/*
+ * Copyright [2017] [Indra Basak]
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.basaki.agent.tool;
+
+import com.basaki.agent.util.ClassFileAnnotationReader;
+import com.basaki.agent.util.ClassFileAnnotationReader.ClassAnnotations;
+import com.basaki.agent.util.ClassFileAnnotationReader.MethodAnnotations;
+import com.basaki.agent.util.MetricNameTemplate;
+import com.basaki.agent.util.RestAnnotation;
+import com.basaki.agent.util.RestPathUtil;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+/**
+ * {@code PbdGenerator} is a command line tool which scans the class files of
+ * an application offline and generates a PBD with a {@code
+ * TraceOneMethodOfClass} directive for every Spring and JAX-RS handler
+ * method. The metric names of the directives already contain the path and
+ * the HTTP method, so the agent neither matches annotations when a class is
+ * loaded nor resolves them when a request is served. The generated PBD
+ * replaces {@code rest.pbd} and has to be regenerated whenever the routes
+ * change, e.g., as part of the application build.
+ * <pre>
+ *     java -cp Rest.jar com.basaki.agent.tool.PbdGenerator
+ *          [-o rest-routes.pbd] [-app name] app.war lib/api.jar classes/
+ * </pre>
+ * <p/>
+ * Jars, wars and class directories are scanned, including the jars nested
+ * in a war. The routes are resolved the same way as by the name
+ * formatters, through the type hierarchy of each concrete class, with the
+ * {@link ClassFileAnnotationReader}. Supertypes which aren't part of the
+ * scanned files are skipped. The front end application name, which the
+ * formatters take from the front boundary at runtime, can be given with
+ * {@code -app}.
+ * <p/>
+ * A directive instruments the method of the class it names, so a handler
+ * method inherited from a base class, e.g., an abstract controller, can't
+ * get a literal name per subclass. Such a method is traced once in the
+ * class which declares it, by the Spring or JAX-RS name formatter, which
+ * resolves the path of the invoked subclass at runtime as with {@code
+ * rest.pbd}.
+ *
+ * @author Indra Basak
+ * @since 10/18/26
+ */
+@SuppressWarnings({"squid:S106"})
+public class PbdGenerator {
+
+    static final String TRACER = "RestRouteBlamePointTracer";
+
+    static final String SPRING_TRACER = "SpringRestBlamePointTracer";
+
+    static final String JAXRS_TRACER = "JaxrsBlamePointTracer";
+
+    private static final String SPRING_TEMPLATE =
+            "REST|Spring|{path}|{op}|{classname}|{method}";
+
+    private static final String JAXRS_TEMPLATE =
+            "REST|JAXRS|{path}|{op}|{classname}|{method}";
+
+    private static final String BLAME_POINT_TRACER =
+            "com.wily.introscope.agent.trace.hc2.BlamePointTracer"
+                    + " com.wily.introscope.probebuilder.validate"
+                    + ".ResourceNameValidator";
+
+    private static final String REQUEST_MAPPING_ANNOTATION =
+            "org.springframework.web.bind.annotation.RequestMapping";
+
+    private static final String[] SPRING_CLASS_ANNOTATIONS =
+            {REQUEST_MAPPING_ANNOTATION,
+                    "org.springframework.stereotype.Controller",
+                    "org.springframework.web.bind.annotation.RestController"};
+
+    private static final String PATH_ANNOTATION = "javax.ws.rs.Path";
+
+    private static final String HTTP_METHOD_ANNOTATION =
+            "javax.ws.rs.HttpMethod";
+
+    private static final String[] HTTP_METHODS =
+            {"GET", "POST", "PUT", "DELETE", "HEAD", "OPTIONS", "PATCH"};
+
+    private final Map<String, ClassAnnotations> classes =
+            new TreeMap<String, ClassAnnotations>();
+
+    private final String appName;
+
+    private int failureCount;
+
+    /**
+     * Constructs a <code>PbdGenerator</code>.
+     *
+     * @param appName front end application name put in front of each path,
+     *                null for none
+     */
+    public PbdGenerator(String appName) {
+        this.appName = appName;
+    }
+
+    /**
+     * Generates a PBD from the command line arguments.
+     *
+     * @param args {@code [-o <pbd file>] [-app <name>] <jar|war|dir>...}
+     * @throws IOException if a file can't be read or written
+     */
+    public static void main(String[] args) throws IOException {
+        String output = null;
+        String app = null;
+        List<File> files = new ArrayList<File>();
+        for (int i = 0; i < args.length; i++) {
+            if ("-o".equals(args[i]) && i + 1 < args.length) {
+                output = args[++i];
+            } else if ("-app".equals(args[i]) && i + 1 < args.length) {
+                app = args[++i];
+            } else if (args[i].startsWith("-")) {
+                files.clear();
+                break;
+            } else {
+                files.add(new File(args[i]));
+            }
+        }
+
+        if (files.isEmpty()) {
+            System.err.println("Usage: java -cp Rest.jar "
+                    + PbdGenerator.class.getName()
+                    + " [-o <pbd file>] [-app <name>] <jar|war|dir>...");
+            System.exit(1);
+        }
+
+        PbdGenerator generator = new PbdGenerator(app);
+        for (File file : files) {
+            generator.add(file);
+        }
+
+        List<Route> routes = generator.getRoutes();
+        OutputStream out = output != null ? new FileOutputStream(output) :
+                System.out;
+        Writer writer = new OutputStreamWriter(out, "UTF-8");
+        try {
+            generator.write(writer, routes);
+        } finally {
+            if (output != null) {
+                writer.close();
+            } else {
+                writer.flush();
+            }
+        }
+
+        int inherited = 0;
+        for (Route route : routes) {
+            if (!TRACER.equals(route.getTracer())) {
+                inherited++;
+            }
+        }
+        System.err.println("Generated " + routes.size() + " directives ("
+                + inherited + " of inherited handler methods named at runtime)"
+                + " from " + generator.getClassCount() + " classes, "
+                + generator.getFailureCount() + " failed to parse");
+    }
+
+    /**
+     * Adds the class files of a jar, a war or a class directory.
+     *
+     * @param file jar, war or directory
+     * @throws IOException if the file can't be read
+     */
+    public void add(File file) throws IOException {
+        if (file.isDirectory()) {
+            File[] children = file.listFiles();
+            if (children != null) {
+                for (File child : children) {
+                    if (child.isDirectory() || isClassFile(child.getName())) {
+                        add(child);
+                    }
+                }
+            }
+        } else if (isClassFile(file.getName())) {
+            InputStream in = new FileInputStream(file);
+            try {
+                add(read(in));
+            } finally {
+                in.close();
+            }
+        } else {
+            InputStream in = new FileInputStream(file);
+            try {
+                addArchive(in);
+            } finally {
+                in.close();
+            }
+        }
+    }
+
+    /**
+     * Adds a class file.
+     *
+     * @param classFile class file bytes
+     */
+    public void add(byte[] classFile) {
+        try {
+            ClassAnnotations type =
+                    ClassFileAnnotationReader.parse(classFile, true);
+            classes.put(type.getName(), type);
+        } catch (IOException e) {
+            failureCount++;
+        } catch (RuntimeException e) {
+            failureCount++;
+        }
+    }
+
+    public int getClassCount() {
+        return classes.size();
+    }
+
+    public int getFailureCount() {
+        return failureCount;
+    }
+
+    /**
+     * Resolves the routes of the handler methods of the concrete classes
+     * added so far. A handler method a concrete class declares gets a
+     * literal metric name. A handler method it inherits from a scanned base
+     * class gets a single route in the declaring class, named at runtime by
+     * the Spring or JAX-RS name formatter.
+     *
+     * @return routes ordered by class name
+     */
+    public List<Route> getRoutes() {
+        Map<String, String> httpMethods = getHttpMethods();
+        List<Route> routes = new ArrayList<Route>();
+        Map<String, Route> inherited = new LinkedHashMap<String, Route>();
+        for (ClassAnnotations type : classes.values()) {
+            if (type.isInterface() || type.isAbstract()) {
+                continue;
+            }
+
+            List<ClassAnnotations> hierarchy = getTypeHierarchy(type);
+            RestAnnotation springAnno = findSpringClassAnnotation(hierarchy);
+            RestAnnotation jaxrsAnno = ClassFileAnnotationReader
+                    .findClassAnnotation(hierarchy, PATH_ANNOTATION);
+            if (springAnno == null && jaxrsAnno == null) {
+                continue;
+            }
+
+            Set<String> declared = new HashSet<String>();
+            for (MethodAnnotations method : type.getMethods()) {
+                if (!isHandlerCandidate(method)) {
+                    continue;
+                }
+
+                declared.add(method.getName() + method.getDescriptor());
+                Route route = getRoute(type, hierarchy, springAnno, jaxrsAnno,
+                        method, httpMethods);
+                if (route != null) {
+                    routes.add(route);
+                }
+            }
+
+            addInheritedRoutes(type, hierarchy, springAnno, jaxrsAnno,
+                    declared, httpMethods, inherited);
+        }
+
+        List<Route> all = new ArrayList<Route>(inherited.values());
+        for (Route route : routes) {
+            if (!inherited.containsKey(route.getMethodKey())) {
+                all.add(route);
+            }
+        }
+        Collections.sort(all, new Comparator<Route>() {
+            @Override
+            public int compare(Route r1, Route r2) {
+                return r1.getClassName().compareTo(r2.getClassName());
+            }
+        });
+
+        return all;
+    }
+
+    /**
+     * Adds a runtime named route for each handler method a concrete class
+     * inherits from its scanned superclasses without overriding it. A
+     * literal route of the declaring class for the same method is replaced,
+     * since its name would be wrong for the subclass.
+     */
+    private void addInheritedRoutes(ClassAnnotations type,
+            List<ClassAnnotations> hierarchy, RestAnnotation springAnno,
+            RestAnnotation jaxrsAnno, Set<String> declared,
+            Map<String, String> httpMethods, Map<String, Route> inherited) {
+        for (ClassAnnotations superType = getSuperclass(type);
+             superType != null && !superType.isInterface();
+             superType = getSuperclass(superType)) {
+            for (MethodAnnotations method : superType.getMethods()) {
+                if (!isHandlerCandidate(method) || !declared.add(
+                        method.getName() + method.getDescriptor())) {
+                    continue;
+                }
+
+                Route route = getRoute(type, hierarchy, springAnno, jaxrsAnno,
+                        method, httpMethods);
+                if (route == null) {
+                    continue;
+                }
+
+                Route runtimeRoute = route.resolvedAtRuntime(
+                        superType.getName());
+                if (!inherited.containsKey(runtimeRoute.getMethodKey())) {
+                    inherited.put(runtimeRoute.getMethodKey(), runtimeRoute);
+                }
+            }
+        }
+    }
+
+    private ClassAnnotations getSuperclass(ClassAnnotations type) {
+        String name = type.getSuperName();
+        return name != null ? classes.get(name) : null;
+    }
+
+    private static boolean isHandlerCandidate(MethodAnnotations method) {
+        return !method.isBridge() && !method.isSynthetic()
+                && !method.isAbstract() && !method.getName().startsWith("<");
+    }
+
+    private Route getRoute(ClassAnnotations type,
+            List<ClassAnnotations> hierarchy, RestAnnotation springAnno,
+            RestAnnotation jaxrsAnno, MethodAnnotations method,
+            Map<String, String> httpMethods) {
+        Route route = springAnno != null ?
+                getSpringRoute(type, hierarchy, springAnno, method) : null;
+        if (route == null && jaxrsAnno != null) {
+            route = getJaxrsRoute(type, hierarchy, jaxrsAnno, method,
+                    httpMethods);
+        }
+
+        return route;
+    }
+
+    /**
+     * Writes a PBD with the tracer definition and one directive per route.
+     *
+     * @param writer PBD writer
+     * @param routes routes to trace
+     * @throws IOException if the PBD can't be written
+     */
+    public void write(Writer writer, List<Route> routes) throws IOException {
+        PrintWriter out = new PrintWriter(writer);
+        out.println("#############################################################");
+        out.println("# Generated by " + getClass().getName() + ".");
+        out.println("# Traces the REST handler methods of an application with");
+        out.println("# literal metric names. Regenerate it whenever the routes");
+        out.println("# change, and use it in place of rest.pbd.");
+        out.println("#############################################################");
+        out.println("SetTracerClassMapping: " + TRACER + " "
+                + BLAME_POINT_TRACER);
+        out.println("SetTracerParameter: " + TRACER + " reentrancy instance");
+        out.println("SetTracerOrdering: " + TRACER + " -99000");
+
+        Set<String> tracers = new HashSet<String>();
+        for (Route route : routes) {
+            tracers.add(route.getTracer());
+        }
+        if (tracers.contains(SPRING_TRACER)) {
+            writeFormatterTracer(out, SPRING_TRACER,
+                    "com.basaki.agent.SpringRestNameFormatter", -99001);
+        }
+        if (tracers.contains(JAXRS_TRACER)) {
+            writeFormatterTracer(out, JAXRS_TRACER,
+                    "com.basaki.agent.JaxrsNameFormatter", -99002);
+        }
+
+        String className = null;
+        for (Route route : routes) {
+            if (!route.getClassName().equals(className)) {
+                className = route.getClassName();
+                out.println();
+                out.println("# " + className);
+            }
+            out.println(route.getDirective());
+        }
+        out.flush();
+        if (out.checkError()) {
+            throw new IOException("Unable to write the PBD");
+        }
+    }
+
+    /**
+     * Writes the definition of a tracer whose metric names are resolved at
+     * runtime by a name formatter.
+     */
+    private static void writeFormatterTracer(PrintWriter out, String tracer,
+            String formatter, int ordering) {
+        out.println("SetTracerClassMapping: " + tracer + " "
+                + BLAME_POINT_TRACER);
+        out.println("SetTracerParameter: " + tracer + " nameformatter "
+                + formatter);
+        out.println("SetTracerParameter: " + tracer + " reentrancy instance");
+        out.println("SetTracerOrdering: " + tracer + " " + ordering);
+    }
+
+    /**
+     * Lists the scanned types of the hierarchy of a class in the same order
+     * as {@link com.basaki.agent.util.AnnotationResolver#getTypeHierarchy(Class)}.
+     */
+    private List<ClassAnnotations> getTypeHierarchy(ClassAnnotations type) {
+        List<ClassAnnotations> types = new ArrayList<ClassAnnotations>();
+        List<String> names = new ArrayList<String>();
+        for (String name = type.getName(); name != null; ) {
+            names.add(name);
+            ClassAnnotations superType = classes.get(name);
+            name = superType != null ? superType.getSuperName() : null;
+        }
+
+        for (int i = 0; i < names.size(); i++) {
+            ClassAnnotations superType = classes.get(names.get(i));
+            if (superType == null) {
+                continue;
+            }
+            types.add(superType);
+            for (String itf : superType.getInterfaceNames()) {
+                if (!names.contains(itf)) {
+                    names.add(itf);
+                }
+            }
+        }
+
+        return types;
+    }
+
+    /**
+     * Retrieves the standard JAX-RS HTTP method annotations and the scanned
+     * annotations carrying {@code javax.ws.rs.HttpMethod}.
+     *
+     * @return HTTP methods keyed by annotation class name
+     */
+    private Map<String, String> getHttpMethods() {
+        Map<String, String> httpMethods = new LinkedHashMap<String, String>();
+        for (String httpMethod : HTTP_METHODS) {
+            httpMethods.put("javax.ws.rs." + httpMethod, httpMethod);
+        }
+
+        for (ClassAnnotations type : classes.values()) {
+            RestAnnotation anno = ClassFileAnnotationReader.findAnnotation(
+                    type.getAnnotations(), HTTP_METHOD_ANNOTATION);
+            String value = RestPathUtil.getValue(anno, "value");
+            if (type.isInterface() && value != null) {
+                httpMethods.put(type.getName(), value);
+            }
+        }
+
+        return httpMethods;
+    }
+
+    private RestAnnotation findSpringClassAnnotation(
+            List<ClassAnnotations> hierarchy) {
+        RestAnnotation anno = null;
+        for (String annotation : SPRING_CLASS_ANNOTATIONS) {
+            RestAnnotation found = ClassFileAnnotationReader
+                    .findClassAnnotation(hierarchy, annotation);
+            if (found == null) {
+                continue;
+            }
+
+            if (anno == null || RestPathUtil.getPathValue(found) != null) {
+                anno = found;
+            }
+            if (RestPathUtil.getPathValue(found) != null) {
+                break;
+            }
+        }
+
+        return anno;
+    }
+
+    private Route getSpringRoute(ClassAnnotations type,
+            List<ClassAnnotations> hierarchy, RestAnnotation classAnno,
+            MethodAnnotations method) {
+        RestAnnotation methodAnno = ClassFileAnnotationReader
+                .findMethodAnnotation(hierarchy, method.getName(),
+                        method.getDescriptor(), REQUEST_MAPPING_ANNOTATION);
+        if (methodAnno == null) {
+            return null;
+        }
+
+        String op = RestPathUtil.getValue(methodAnno, "method");
+        return new Route(type.getName(), method.getName(),
+                method.getDescriptor(), render(SPRING_TEMPLATE, type, method,
+                getPath(classAnno, methodAnno), op != null ? op : "noop"),
+                TRACER, SPRING_TRACER, SPRING_TEMPLATE);
+    }
+
+    private Route getJaxrsRoute(ClassAnnotations type,
+            List<ClassAnnotations> hierarchy, RestAnnotation classAnno,
+            MethodAnnotations method, Map<String, String> httpMethods) {
+        for (Map.Entry<String, String> httpMethod : httpMethods.entrySet()) {
+            if (ClassFileAnnotationReader.findMethodAnnotation(hierarchy,
+                    method.getName(), method.getDescriptor(),
+                    httpMethod.getKey()) == null) {
+                continue;
+            }
+
+            RestAnnotation methodAnno = ClassFileAnnotationReader
+                    .findMethodAnnotation(hierarchy, method.getName(),
+                            method.getDescriptor(), PATH_ANNOTATION);
+            return new Route(type.getName(), method.getName(),
+                    method.getDescriptor(), render(JAXRS_TEMPLATE, type,
+                    method, getPath(classAnno, methodAnno),
+                    httpMethod.getValue()), TRACER, JAXRS_TRACER,
+                    JAXRS_TEMPLATE.replace("{op}", httpMethod.getValue()));
+        }
+
+        return null;
+    }
+
+    private String render(String template, ClassAnnotations type,
+            MethodAnnotations method, String path, String op) {
+        String className = type.getName();
+        Map<String, String> values = new HashMap<String, String>(8);
+        values.put("{path}", path);
+        values.put("{op}", op);
+        values.put("{classname}",
+                className.substring(className.lastIndexOf('.') + 1));
+        values.put("{method}", method.getName());
+
+        return MetricNameTemplate.compile(template).render(values);
+    }
+
+    /**
+     * Creates a path the same way as the name formatters, from the front
+     * end application name and the class and method annotations.
+     */
+    private String getPath(RestAnnotation classAnno,
+            RestAnnotation methodAnno) {
+        String path = RestPathUtil.joinPath(classAnno, methodAnno);
+        if (path == null) {
+            return "nopath";
+        }
+
+        return appName != null ? appName + "|" + path : path;
+    }
+
+    private void addArchive(InputStream in) throws IOException {
+        ZipInputStream zip = new ZipInputStream(in);
+        ZipEntry entry;
+        while ((entry = zip.getNextEntry()) != null) {
+            String name = entry.getName();
+            if (entry.isDirectory()) {
+                continue;
+            }
+            if (isClassFile(name)) {
+                add(read(zip));
+            } else if (name.endsWith(".jar")) {
+                addArchive(zip);
+            }
+        }
+    }
+
+    private static boolean isClassFile(String name) {
+        return name.endsWith(".class") && !name.endsWith("module-info.class")
+                && !name.endsWith("package-info.class");
+    }
+
+    /**
+     * Reads a stream to its end without closing it.
+     */
+    private static byte[] read(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(8192);
+        byte[] buffer = new byte[8192];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            out.write(buffer, 0, read);
+        }
+
+        return out.toByteArray();
+    }
+
+    /**
+     * A traced handler method and its metric name. The metric name is
+     * literal, or a template resolved at runtime by a name formatter for an
+     * inherited handler method.
+     */
+    public static class Route {
+
+        private final String className;
+
+        private final String methodName;
+
+        private final String methodDesc;
+
+        private final String metricName;
+
+        private final String tracer;
+
+        private final String runtimeTracer;
+
+        private final String runtimeTemplate;
+
+        Route(String className, String methodName, String methodDesc,
+                String metricName, String tracer, String runtimeTracer,
+                String runtimeTemplate) {
+            this.className = className;
+            this.methodName = methodName;
+            this.methodDesc = methodDesc;
+            this.metricName = metricName;
+            this.tracer = tracer;
+            this.runtimeTracer = runtimeTracer;
+            this.runtimeTemplate = runtimeTemplate;
+        }
+
+        /**
+         * Creates the route of the same method traced in its declaring
+         * class and named at runtime.
+         *
+         * @param declaringClass class which declares the method
+         * @return runtime named route
+         */
+        Route resolvedAtRuntime(String declaringClass) {
+            return new Route(declaringClass, methodName, methodDesc,
+                    runtimeTemplate, runtimeTracer, runtimeTracer,
+                    runtimeTemplate);
+        }
+
+        public String getClassName() {
+            return className;
+        }
+
+        public String getMethodName() {
+            return methodName;
+        }
+
+        public String getMethodDesc() {
+            return methodDesc;
+        }
+
+        public String getMetricName() {
+            return metricName;
+        }
+
+        public String getTracer() {
+            return tracer;
+        }
+
+        String getMethodKey() {
+            return className + '.' + methodName + methodDesc;
+        }
+
+        /**
+         * Retrieves the {@code TraceOneMethodOfClass} directive of the
+         * route. The method descriptor keeps overloaded methods apart.
+         *
+         * @return PBD directive
+         */
+        public String getDirective() {
+            return "TraceOneMethodOfClass: " + className + " " + methodName
+                    + methodDesc + " " + tracer + " \"" + metricName + "\"";
+        }
+
+        @Override
+        public String toString() {
+            return getDirective();
+        }
+    }
+}
@@ -0,0 +1,309 @@
+/*
+ * Copyright [2017] [Indra Basak]
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.basaki.agent.url;
+
+import com.basaki.agent.util.Config;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@code UrlNormalizer} turns the URL of a REST client call into a low
+ * cardinality name. The query string, fragment, matrix parameters and user
+ * info are dropped, and variable path segments are replaced by
+ * placeholders:
+ * <ul>
+ * <li>{@value #NUMBER} for a number, e.g., {@code 1234}</li>
+ * <li>{@value #UUID} for a UUID</li>
+ * <li>{@value #HEX} for a hex string of at least {@value #MIN_HEX_LENGTH}
+ * characters with a digit in it, e.g., a hash</li>
+ * <li>{@value #OPAQUE} for a mix of letters and digits of at least {@value
+ * #MIN_OPAQUE_LENGTH} characters, or any segment longer than {@value
+ * #MAX_SEGMENT_LENGTH}, e.g., a token</li>
+ * </ul>
+ * For example, {@code http://books:8080/books/1234/pages?lang=en} becomes
+ * {@code http://books:8080/books/{number}/pages}. Template variables of a
+ * {@code RestTemplate} URL, e.g., {@code /books/{id}}, are kept as they are.
+ * <p/>
+ * Unless {@code url.learn} is false, the normalized URL is then passed to
+ * a {@link UrlTemplateLearner}, which replaces the path segments that vary
+ * too much with a wildcard.
+ * <p/>
+ * The URL is tokenized by hand in a single pass. Normalized forms are
+ * cached against the raw URL, up to {@code cache.maxUrls} (default 10000)
+ * URLs. A full cache is cleared, so the URLs in use are cached again. The
+ * cache is also cleared whenever the learner collapses a position.
+ *
+ * @author Indra Basak
+ * @since 10/18/26
+ */
+public class UrlNormalizer {
+
+    public static final String NUMBER = "{number}";
+
+    public static final String UUID = "{uuid}";
+
+    public static final String HEX = "{hex}";
+
+    public static final String OPAQUE = "{opaque}";
+
+    public static final int DEFAULT_MAX_URLS =
+            Config.getInt("cache.maxUrls", 10000);
+
+    static final int MIN_HEX_LENGTH = 8;
+
+    static final int MIN_OPAQUE_LENGTH = 16;
+
+    static final int MAX_SEGMENT_LENGTH = 40;
+
+    private static final int UUID_LENGTH = 36;
+
+    private final ConcurrentMap<String, String> urls =
+            new ConcurrentHashMap<String, String>();
+
+    private final int maxSize;
+
+    private final UrlTemplateLearner learner;
+
+    private volatile long collapses;
+
+    private final AtomicInteger size = new AtomicInteger();
+
+    private final AtomicLong evictions = new AtomicLong();
+
+    public UrlNormalizer() {
+        this(DEFAULT_MAX_URLS, Config.getBoolean("url.learn", true) ?
+                new UrlTemplateLearner() : null);
+    }
+
+    public UrlNormalizer(int maxSize) {
+        this(maxSize, null);
+    }
+
+    /**
+     * Constructs a {@code UrlNormalizer} with an URL template learner.
+     *
+     * @param maxSize maximum number of cached URLs
+     * @param learner URL template learner, null to apply the fixed rules
+     *                only
+     */
+    public UrlNormalizer(int maxSize, UrlTemplateLearner learner) {
+        this.maxSize = maxSize;
+        this.learner = learner;
+    }
+
+    /**
+     * Retrieves the normalized form of a URL.
+     *
+     * @param url raw URL, absolute or relative
+     * @return normalized URL
+     */
+    public String normalize(String url) {
+        long learned = learner != null ? learner.getCollapseCount() : 0;
+        if (learned != collapses) {
+            collapses = learned;
+            urls.clear();
+            size.set(0);
+        }
+
+        String normalized = urls.get(url);
+        if (normalized != null) {
+            return normalized;
+        }
+
+        normalized = tokenize(url);
+        if (learner != null) {
+            normalized = learner.learn(normalized);
+        }
+        if (size.incrementAndGet() > maxSize) {
+            urls.clear();
+            size.set(1);
+            evictions.incrementAndGet();
+        }
+        if (urls.putIfAbsent(url, normalized) != null) {
+            size.decrementAndGet();
+        } else if (learner != null && learner.getCollapseCount() != learned
+                && urls.remove(url, normalized)) {
+            size.decrementAndGet();
+        }
+
+        return normalized;
+    }
+
+    public int size() {
+        return size.get();
+    }
+
+    public UrlTemplateLearner getLearner() {
+        return learner;
+    }
+
+    /**
+     * Retrieves the number of times the cache was full and cleared.
+     *
+     * @return eviction count
+     */
+    public long getEvictionCount() {
+        return evictions.get();
+    }
+
+    /**
+     * Normalizes a URL without caching it.
+     *
+     * @param url raw URL
+     * @return normalized URL
+     */
+    static String tokenize(String url) {
+        int length = url.length();
+        int end = length;
+        for (int i = 0; i < length; i++) {
+            char c = url.charAt(i);
+            if (c == '?' || c == '#') {
+                end = i;
+                break;
+            }
+        }
+
+        StringBuilder builder = new StringBuilder(end);
+        int pos = appendAuthority(url, end, builder);
+        while (pos < end) {
+            int next = url.indexOf('/', pos);
+            if (next < 0 || next > end) {
+                next = end;
+            }
+
+            int segmentEnd = url.indexOf(';', pos);
+            if (segmentEnd < 0 || segmentEnd > next) {
+                segmentEnd = next;
+            }
+
+            appendSegment(url, pos, segmentEnd, builder);
+            if (next < end) {
+                builder.append('/');
+            }
+            pos = next + 1;
+        }
+
+        return builder.toString();
+    }
+
+    /**
+     * Copies the scheme and authority of an absolute URL, leaving out the
+     * user info.
+     *
+     * @param url     raw URL
+     * @param end     end of the URL without query and fragment
+     * @param builder normalized URL
+     * @return start of the path
+     */
+    private static int appendAuthority(String url, int end,
+            StringBuilder builder) {
+        int scheme = url.indexOf("://");
+        if (scheme <= 0 || scheme >= end) {
+            if (end > 0 && url.charAt(0) == '/') {
+                builder.append('/');
+                return 1;
+            }
+            return 0;
+        }
+
+        int host = scheme + 3;
+        int path = url.indexOf('/', host);
+        if (path < 0 || path > end) {
+            path = end;
+        }
+
+        int at = url.lastIndexOf('@', path - 1);
+        if (at >= host) {
+            host = at + 1;
+        }
+
+        builder.append(url, 0, scheme + 3).append(url, host, path);
+        if (path < end) {
+            builder.append('/');
+            return path + 1;
+        }
+
+        return end;
+    }
+
+    /**
+     * Appends a path segment, or the placeholder replacing it.
+     */
+    private static void appendSegment(String url, int start, int end,
+            StringBuilder builder) {
+        int length = end - start;
+        if (length == 0) {
+            return;
+        }
+
+        boolean digits = true;
+        boolean hex = true;
+        boolean letters = false;
+        boolean hasDigit = false;
+        boolean uuid = length == UUID_LENGTH;
+        for (int i = start; i < end; i++) {
+            char c = url.charAt(i);
+            if (uuid && isUuidDash(i - start) != (c == '-')) {
+                uuid = false;
+            }
+
+            if (c >= '0' && c <= '9') {
+                hasDigit = true;
+                continue;
+            }
+
+            digits = false;
+            if (c == '{') {
+                builder.append(url, start, end);
+                return;
+            } else if (c == '-') {
+                hex = false;
+            } else if (!isHexLetter(c)) {
+                hex = false;
+                uuid = false;
+            }
+
+            letters |= isLetter(c);
+        }
+
+        if (digits) {
+            builder.append(NUMBER);
+        } else if (uuid) {
+            builder.append(UUID);
+        } else if (hex && hasDigit && length >= MIN_HEX_LENGTH) {
+            builder.append(HEX);
+        } else if (length > MAX_SEGMENT_LENGTH
+                || (letters && hasDigit && length >= MIN_OPAQUE_LENGTH)) {
+            builder.append(OPAQUE);
+        } else {
+            builder.append(url, start, end);
+        }
+    }
+
+    private static boolean isUuidDash(int offset) {
+        return offset == 8 || offset == 13 || offset == 18 || offset == 23;
+    }
+
+    private static boolean isHexLetter(char c) {
+        return (c >= 'a' && c <= 'f') || (c >= 'A' && c <= 'F');
+    }
+
+    private static boolean isLetter(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+}
@@ -0,0 +1,236 @@
+/*
+ * Copyright [2017] [Indra Basak]
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.basaki.agent.url;
+
+import com.basaki.agent.util.Config;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@code UrlTemplateLearner} learns the templates of the URLs called by an
+ * application. It keeps a trie of path segments per host. Once more than
+ * {@code url.maxValues} (default 25) distinct values are seen at a position
+ * of the trie, the position is collapsed into the {@value #VARIABLE}
+ * wildcard, e.g., {@code /v2/accounts/ACME-CORP/reports} becomes {@code
+ * /v2/accounts/{var}/reports} once enough accounts have been called, while
+ * {@code /v2/accounts} stays as it is.
+ * <p/>
+ * The trie holds at most {@code url.maxNodes} (default 10000) nodes. A
+ * collapsed position gives its nodes back. Once the budget is used up,
+ * segments which weren't seen before are reported as {@value #VARIABLE}.
+ * <p/>
+ * Learning a URL which is already known only reads concurrent maps and
+ * volatile fields. Adding or collapsing a position locks its parent node.
+ *
+ * @author Indra Basak
+ * @since 10/18/26
+ */
+public class UrlTemplateLearner {
+
+    public static final String VARIABLE = "{var}";
+
+    public static final int DEFAULT_MAX_VALUES =
+            Config.getInt("url.maxValues", 25);
+
+    public static final int DEFAULT_MAX_NODES =
+            Config.getInt("url.maxNodes", 10000);
+
+    private final ConcurrentMap<String, Node> hosts =
+            new ConcurrentHashMap<String, Node>();
+
+    private final int maxValues;
+
+    private final int maxNodes;
+
+    private final AtomicInteger nodeCount = new AtomicInteger();
+
+    private final AtomicLong collapses = new AtomicLong();
+
+    public UrlTemplateLearner() {
+        this(DEFAULT_MAX_VALUES, DEFAULT_MAX_NODES);
+    }
+
+    public UrlTemplateLearner(int maxValues, int maxNodes) {
+        this.maxValues = maxValues;
+        this.maxNodes = maxNodes;
+    }
+
+    /**
+     * Records a URL and retrieves its template as learned so far.
+     *
+     * @param url URL without query string, e.g., normalized by {@link
+     *            UrlNormalizer}
+     * @return URL template
+     */
+    public String learn(String url) {
+        int length = url.length();
+        int pos = 0;
+        int scheme = url.indexOf("://");
+        if (scheme > 0) {
+            pos = url.indexOf('/', scheme + 3);
+            if (pos < 0) {
+                return url;
+            }
+        }
+        pos = pos < length && url.charAt(pos) == '/' ? pos + 1 : pos;
+
+        StringBuilder builder = new StringBuilder(length);
+        builder.append(url, 0, pos);
+        Node node = getHost(url.substring(0, pos));
+        while (pos < length) {
+            int next = url.indexOf('/', pos);
+            if (next < 0) {
+                next = length;
+            }
+
+            String segment = url.substring(pos, next);
+            Node child = node != null ? node.getChild(segment) : null;
+            if (child == null && node != null) {
+                child = addChild(node, segment);
+            }
+
+            if (child == null || child == node.wildcard) {
+                builder.append(VARIABLE);
+            } else {
+                builder.append(segment);
+            }
+            if (next < length) {
+                builder.append('/');
+            }
+
+            node = child;
+            pos = next + 1;
+        }
+
+        return builder.toString();
+    }
+
+    /**
+     * Retrieves the number of nodes in use, including nodes of collapsed
+     * positions which were still being added to while collapsing.
+     *
+     * @return node count
+     */
+    public int getNodeCount() {
+        return nodeCount.get();
+    }
+
+    public int getHostCount() {
+        return hosts.size();
+    }
+
+    /**
+     * Retrieves the number of positions collapsed into a wildcard. Names
+     * learned before a collapse may be out of date.
+     *
+     * @return collapse count
+     */
+    public long getCollapseCount() {
+        return collapses.get();
+    }
+
+    private Node getHost(String host) {
+        Node node = hosts.get(host);
+        if (node != null || !reserve()) {
+            return node;
+        }
+
+        Node newNode = new Node();
+        node = hosts.putIfAbsent(host, newNode);
+        if (node != null) {
+            nodeCount.decrementAndGet();
+            return node;
+        }
+
+        return newNode;
+    }
+
+    private Node addChild(Node node, String segment) {
+        synchronized (node) {
+            Node child = node.getChild(segment);
+            if (child != null) {
+                return child;
+            }
+
+            if (node.children.size() < maxValues) {
+                if (!reserve()) {
+                    return null;
+                }
+                child = new Node();
+                node.children.put(segment, child);
+                return child;
+            }
+
+            int released = 0;
+            for (Node discarded : node.children.values()) {
+                released += discarded.size();
+            }
+            child = new Node();
+            node.wildcard = child;
+            node.children.clear();
+            nodeCount.addAndGet(1 - released);
+            collapses.incrementAndGet();
+
+            return child;
+        }
+    }
+
+    private boolean reserve() {
+        if (nodeCount.incrementAndGet() > maxNodes) {
+            nodeCount.decrementAndGet();
+            return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * Position in the trie of a host.
+     */
+    private static class Node {
+
+        private final ConcurrentMap<String, Node> children =
+                new ConcurrentHashMap<String, Node>(4, 0.75f, 1);
+
+        /**
+         * Set once the position is collapsed. Replaces all children.
+         */
+        private volatile Node wildcard;
+
+        Node getChild(String segment) {
+            Node node = wildcard;
+            return node != null ? node : children.get(segment);
+        }
+
+        /**
+         * Counts the nodes of the sub tree, including this node.
+         */
+        int size() {
+            int size = 1;
+            Node node = wildcard;
+            if (node != null) {
+                size += node.size();
+            }
+            for (Node child : children.values()) {
+                size += child.size();
+            }
+
+            return size;
+        }
+    }
+}
@@ -0,0 +1,418 @@
+/*
+ * Copyright [2017] [Indra Basak]
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.basaki.agent.util;
+
+import com.basaki.agent.cache.WeakClassCache;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Array;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@code AnnotationResolver} converts {@code javax.ws.rs.Path}, Spring
+ * {@code RequestMapping} and Spring stereotype annotations into a {@link
+ * RestAnnotation} by reading their {@code value()}, {@code path()} and
+ * {@code method()} attributes directly. Unlike {@link ParserHelper}, it does
+ * not depend on the JDK specific {@code Annotation.toString()} format.
+ * <p/>
+ * Annotations are searched through the whole type hierarchy of a class:
+ * the class itself, its superclasses and then all of their interfaces. This
+ * covers CGLIB and JDK proxies as well as annotations declared on a base
+ * controller or on a JAX-RS API interface.
+ * <p/>
+ * The attributes declared by an annotation type are looked up once per
+ * type. Only their names are cached, never the accessor methods, so that an
+ * annotation type loaded by a web application class loader never stays
+ * pinned by the cache.
+ *
+ * @author Indra Basak
+ * @since 10/18/26
+ */
+public final class AnnotationResolver {
+
+    private static final String[] ATTRIBUTES = {"value", "path", "method"};
+
+    private static final String[] NO_ATTRIBUTES = new String[0];
+
+    private static final WeakClassCache<String[]> DECLARED_ATTRIBUTES =
+            new WeakClassCache<String[]>(
+                    Config.getInt("cache.maxAnnotationTypes", 1000));
+
+    private AnnotationResolver() {
+
+    }
+
+    /**
+     * Retrieves the annotation of a class, or of the closest type in its
+     * hierarchy, and converts it into a {@link RestAnnotation}.
+     *
+     * @param clazz     class which has the annotation
+     * @param annoClazz annotation class name, with or without a leading '@'
+     * @return annotation object if found, null otherwise
+     */
+    public static RestAnnotation findClassAnnotation(Class<?> clazz,
+            String annoClazz) {
+        for (Class<?> type : getTypeHierarchy(clazz)) {
+            Annotation anno = findAnnotation(type.getDeclaredAnnotations(),
+                    annoClazz);
+            if (anno != null) {
+                return toRestAnnotation(anno);
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Retrieves the annotation of a method and converts it into a {@link
+     * RestAnnotation}. If the method found in the class isn't annotated, the
+     * method it overrides or implements is searched up the type hierarchy.
+     * Bridge methods are resolved to the method they bridge.
+     *
+     * @param clazz      class which contains the method
+     * @param methodName name of the method which has the annotation
+     * @param methodDesc method descriptor
+     * @param annoClazz  annotation class name, with or without a leading '@'
+     * @return annotation object if found, null otherwise
+     */
+    public static RestAnnotation findMethodAnnotation(Class<?> clazz,
+            String methodName, String methodDesc, String annoClazz) {
+        Method method = null;
+        for (Class<?> type : getTypeHierarchy(clazz)) {
+            Method candidate =
+                    MethodUtil.findMethod(type, methodName, methodDesc);
+            if (candidate == null && method != null) {
+                candidate = findOverridden(type, method);
+            }
+            if (candidate == null) {
+                continue;
+            }
+
+            if (candidate.isBridge()) {
+                Method bridged = findBridged(type, candidate);
+                if (bridged != null) {
+                    candidate = bridged;
+                }
+            }
+
+            Annotation annotation =
+                    findAnnotation(candidate.getAnnotations(), annoClazz);
+            if (annotation != null) {
+                return toRestAnnotation(annotation);
+            }
+
+            if (method == null) {
+                method = candidate;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Resolves the annotations of every method of a class in one pass, with
+     * one {@code getDeclaredMethods()} call per type of the class hierarchy.
+     * An unannotated method inherits the annotation of the method it
+     * overrides or implements, and a bridge method the annotation of the
+     * method it bridges.
+     *
+     * @param clazz     class which contains the methods
+     * @param annoClazz annotation class name, with or without a leading '@'
+     * @return annotations of the annotated methods keyed by method name
+     * followed by method descriptor
+     */
+    public static Map<String, RestAnnotation> findMethodAnnotations(
+            Class<?> clazz, String annoClazz) {
+        Map<String, RestAnnotation> annotations =
+                new HashMap<String, RestAnnotation>();
+        List<Method> unresolved = new ArrayList<Method>();
+
+        for (Class<?> type : getTypeHierarchy(clazz)) {
+            Method[] methods = type.getDeclaredMethods();
+            List<Method> bridges = null;
+            for (Method method : methods) {
+                if (Modifier.isStatic(method.getModifiers())) {
+                    continue;
+                }
+                if (method.isBridge()) {
+                    if (bridges == null) {
+                        bridges = new ArrayList<Method>();
+                    }
+                    bridges.add(method);
+                    continue;
+                }
+
+                String key = method.getName()
+                        + MethodUtil.getMethodDescriptor(method);
+                Annotation annotation =
+                        findAnnotation(method.getAnnotations(), annoClazz);
+                if (annotation == null) {
+                    if (!annotations.containsKey(key)) {
+                        unresolved.add(method);
+                    }
+                    continue;
+                }
+
+                RestAnnotation anno = toRestAnnotation(annotation);
+                if (!annotations.containsKey(key)) {
+                    annotations.put(key, anno);
+                }
+
+                Iterator<Method> itr = unresolved.iterator();
+                while (itr.hasNext()) {
+                    Method overriding = itr.next();
+                    if (overriding.getName().equals(method.getName())
+                            && isAssignable(method.getParameterTypes(),
+                            overriding.getParameterTypes())) {
+                        String overridingKey = overriding.getName()
+                                + MethodUtil.getMethodDescriptor(overriding);
+                        if (!annotations.containsKey(overridingKey)) {
+                            annotations.put(overridingKey, anno);
+                        }
+                        itr.remove();
+                    }
+                }
+            }
+
+            if (bridges != null) {
+                for (Method bridge : bridges) {
+                    Method bridged = findBridged(type, bridge);
+                    if (bridged == null) {
+                        continue;
+                    }
+
+                    RestAnnotation anno = annotations.get(bridged.getName()
+                            + MethodUtil.getMethodDescriptor(bridged));
+                    String key = bridge.getName()
+                            + MethodUtil.getMethodDescriptor(bridge);
+                    if (anno != null && !annotations.containsKey(key)) {
+                        annotations.put(key, anno);
+                    }
+                }
+            }
+        }
+
+        return annotations;
+    }
+
+    /**
+     * Lists the type hierarchy of a class in lookup order: the class, its
+     * superclasses up to {@code Object} (excluded) and then every interface
+     * implemented along the way, breadth first.
+     *
+     * @param clazz concrete class
+     * @return class hierarchy
+     */
+    public static List<Class<?>> getTypeHierarchy(Class<?> clazz) {
+        List<Class<?>> types = new ArrayList<Class<?>>();
+        for (Class<?> type = clazz; type != null && type != Object.class;
+                type = type.getSuperclass()) {
+            types.add(type);
+        }
+
+        for (int i = 0; i < types.size(); i++) {
+            for (Class<?> itf : types.get(i).getInterfaces()) {
+                if (!types.contains(itf)) {
+                    types.add(itf);
+                }
+            }
+        }
+
+        return types;
+    }
+
+    /**
+     * Finds an annotation by its type name.
+     *
+     * @param annotations annotations to search
+     * @param annoClazz   annotation class name, with or without a leading '@'
+     * @return matching annotation, null if not found
+     */
+    public static Annotation findAnnotation(Annotation[] annotations,
+            String annoClazz) {
+        int offset = annoClazz.startsWith("@") ? 1 : 0;
+        int length = annoClazz.length() - offset;
+        for (Annotation anno : annotations) {
+            String name = anno.annotationType().getName();
+            if (name.length() == length
+                    && name.regionMatches(0, annoClazz, offset, length)) {
+                return anno;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Converts an annotation into a {@link RestAnnotation}. Only the
+     * non-empty {@code value}, {@code path} and {@code method} attributes
+     * are retained, which mirrors {@link ParserHelper#parseAnnotation(String)}
+     * for these attributes.
+     *
+     * @param annotation annotation instance
+     * @return annotation object
+     */
+    public static RestAnnotation toRestAnnotation(Annotation annotation) {
+        Class<? extends Annotation> type = annotation.annotationType();
+        RestAnnotation anno = new RestAnnotation();
+        anno.setAnnotationClass(type.getName());
+
+        for (String attribute : getDeclaredAttributes(type)) {
+            Object value;
+            try {
+                Method accessor = type.getMethod(attribute);
+                if (!accessor.isAccessible()) {
+                    accessor.setAccessible(true);
+                }
+                value = accessor.invoke(annotation);
+            } catch (Exception e) {
+                continue;
+            }
+
+            addParamValue(anno, attribute, value);
+        }
+
+        return anno;
+    }
+
+    /**
+     * Finds the method declared by a supertype which a method overrides or
+     * implements when the descriptors differ, e.g., a generic interface
+     * method whose parameters are erased to {@code Object}.
+     *
+     * @param type   supertype
+     * @param method overriding method
+     * @return overridden method, null if not found
+     */
+    private static Method findOverridden(Class<?> type, Method method) {
+        Class<?>[] params = method.getParameterTypes();
+        for (Method candidate : type.getDeclaredMethods()) {
+            int modifiers = candidate.getModifiers();
+            if (!candidate.getName().equals(method.getName())
+                    || candidate.isBridge()
+                    || Modifier.isStatic(modifiers)
+                    || Modifier.isPrivate(modifiers)
+                    || !candidate.getReturnType().isAssignableFrom(
+                    method.getReturnType())) {
+                continue;
+            }
+
+            if (isAssignable(candidate.getParameterTypes(), params)) {
+                return candidate;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Finds the method a compiler generated bridge method delegates to.
+     *
+     * @param type   class declaring the bridge method
+     * @param bridge bridge method
+     * @return bridged method, null if not found
+     */
+    private static Method findBridged(Class<?> type, Method bridge) {
+        Class<?>[] params = bridge.getParameterTypes();
+        for (Method candidate : type.getDeclaredMethods()) {
+            if (candidate.getName().equals(bridge.getName())
+                    && !candidate.isBridge()
+                    && bridge.getReturnType().isAssignableFrom(
+                    candidate.getReturnType())
+                    && isAssignable(params, candidate.getParameterTypes())) {
+                return candidate;
+            }
+        }
+
+        return null;
+    }
+
+    private static boolean isAssignable(Class<?>[] to, Class<?>[] from) {
+        if (to.length != from.length) {
+            return false;
+        }
+
+        for (int i = 0; i < to.length; i++) {
+            if (!to[i].isAssignableFrom(from[i])) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private static void addParamValue(RestAnnotation anno, String key,
+            Object value) {
+        if (value == null) {
+            return;
+        }
+
+        if (value.getClass().isArray()) {
+            int length = Array.getLength(value);
+            for (int i = 0; i < length; i++) {
+                addParamValue(anno, key, Array.get(value, i));
+            }
+        } else {
+            String str = String.valueOf(value).trim();
+            if (!str.isEmpty()) {
+                RestAnnotationParam param = new RestAnnotationParam();
+                param.setValue(str);
+                anno.addParam(key, param);
+            }
+        }
+    }
+
+    private static String[] getDeclaredAttributes(
+            Class<? extends Annotation> type) {
+        String[] attributes = DECLARED_ATTRIBUTES.get(type);
+        if (attributes == null) {
+            attributes = DECLARED_ATTRIBUTES.putIfAbsent(type,
+                    lookupDeclaredAttributes(type));
+        }
+
+        return attributes;
+    }
+
+    private static String[] lookupDeclaredAttributes(
+            Class<? extends Annotation> type) {
+        String[] found = new String[ATTRIBUTES.length];
+        int count = 0;
+        for (String attribute : ATTRIBUTES) {
+            try {
+                type.getMethod(attribute);
+                found[count++] = attribute;
+            } catch (NoSuchMethodException e) {
+                // annotation type doesn't declare the attribute
+            } catch (SecurityException e) {
+                // leave the attribute out
+            }
+        }
+
+        if (count == 0) {
+            return NO_ATTRIBUTES;
+        }
+
+        String[] attributes = new String[count];
+        System.arraycopy(found, 0, attributes, 0, count);
+
+        return attributes;
+    }
+}
@@ -0,0 +1,349 @@
+/*
+ * Copyright [2017] [Indra Basak]
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.basaki.agent.util;
+
+import java.util.Arrays;
+
+/**
+ * {@code AnnotationStringParser} parses the string representation of an
+ * annotation, e.g., {@code @org.springframework.web.bind.annotation
+ * .RequestMapping(value=[/x], method=[GET])}, without copying it. A parse only
+ * records the index ranges of the annotation name, parameter keys and values
+ * in per-thread scratch arrays. A value is sliced into a {@code String} the
+ * first time it is asked for.
+ * <p/>
+ * The parser follows the same rules as the original character based parser
+ * of {@link ParserHelper#parseAnnotation(String)}: '(' and '[' are dropped,
+ * tokens are trimmed and empty values are ignored.
+ * <p/>
+ * An instance is bound to the calling thread and its results stay valid only
+ * until the next {@link #parse(CharSequence)} on the same thread.
+ * <pre>
+ *     AnnotationStringParser parser = AnnotationStringParser.get();
+ *     if (parser.parse(annoStr)) {
+ *         String value = parser.getValue("value");
+ *     }
+ * </pre>
+ *
+ * @author Indra Basak
+ * @since 10/18/26
+ */
+public final class AnnotationStringParser {
+
+    private static final ThreadLocal<AnnotationStringParser> PARSERS =
+            new ThreadLocal<AnnotationStringParser>() {
+                @Override
+                protected AnnotationStringParser initialValue() {
+                    return new AnnotationStringParser();
+                }
+            };
+
+    private static final int INITIAL_CAPACITY = 8;
+
+    private CharSequence seq;
+
+    private int nameStart;
+
+    private int nameEnd;
+
+    private String name;
+
+    private int count;
+
+    private int[] keyStarts = new int[INITIAL_CAPACITY];
+
+    private int[] keyEnds = new int[INITIAL_CAPACITY];
+
+    private int[] valueStarts = new int[INITIAL_CAPACITY];
+
+    private int[] valueEnds = new int[INITIAL_CAPACITY];
+
+    private String[] values = new String[INITIAL_CAPACITY];
+
+    private AnnotationStringParser() {
+
+    }
+
+    /**
+     * Retrieves the parser bound to the calling thread.
+     *
+     * @return thread's parser
+     */
+    public static AnnotationStringParser get() {
+        return PARSERS.get();
+    }
+
+    /**
+     * Parses an annotation string representation.
+     *
+     * @param annoStr string representation of an annotation
+     * @return true if the string is an annotation, false otherwise
+     */
+    public boolean parse(CharSequence annoStr) {
+        reset();
+
+        if (annoStr == null || annoStr.length() == 0
+                || annoStr.charAt(0) != '@') {
+            return false;
+        }
+
+        int length = annoStr.length();
+        int paren = -1;
+        for (int i = 1; i < length; i++) {
+            if (annoStr.charAt(i) == '(') {
+                paren = i;
+                break;
+            }
+        }
+
+        if (paren <= 1) {
+            return false;
+        }
+
+        seq = annoStr;
+        nameStart = 1;
+        nameEnd = paren;
+        parseParams(paren, length);
+
+        return true;
+    }
+
+    /**
+     * Retrieves the annotation class name of the last parse.
+     *
+     * @return annotation class name
+     */
+    public String getAnnotationClass() {
+        if (name == null && seq != null) {
+            name = seq.subSequence(nameStart, nameEnd).toString();
+        }
+
+        return name;
+    }
+
+    /**
+     * Checks the annotation class name of the last parse without slicing it.
+     *
+     * @param annotationClass annotation class name
+     * @return true if the names match
+     */
+    public boolean isAnnotationClass(String annotationClass) {
+        return seq != null && regionEquals(nameStart, nameEnd,
+                annotationClass);
+    }
+
+    public int getParamCount() {
+        return count;
+    }
+
+    /**
+     * Retrieves the number of values of a parameter.
+     *
+     * @param key parameter name
+     * @return number of non-empty values
+     */
+    public int getValueCount(String key) {
+        int found = 0;
+        for (int i = 0; i < count; i++) {
+            if (regionEquals(keyStarts[i], keyEnds[i], key)) {
+                found++;
+            }
+        }
+
+        return found;
+    }
+
+    /**
+     * Retrieves the value of a single valued parameter.
+     *
+     * @param key parameter name
+     * @return parameter value if the parameter has exactly one value, null
+     * otherwise
+     */
+    public String getValue(String key) {
+        int index = -1;
+        for (int i = 0; i < count; i++) {
+            if (regionEquals(keyStarts[i], keyEnds[i], key)) {
+                if (index != -1) {
+                    return null;
+                }
+                index = i;
+            }
+        }
+
+        return index != -1 ? getValue(index) : null;
+    }
+
+    /**
+     * Converts the last parse into a {@link RestAnnotation}.
+     *
+     * @return annotation object, null if the last parse failed
+     */
+    public RestAnnotation toRestAnnotation() {
+        if (seq == null) {
+            return null;
+        }
+
+        RestAnnotation anno = new RestAnnotation();
+        anno.setAnnotationClass(getAnnotationClass());
+        for (int i = 0; i < count; i++) {
+            RestAnnotationParam param = new RestAnnotationParam();
+            param.setValue(getValue(i));
+            anno.addParam(slice(keyStarts[i], keyEnds[i]), param);
+        }
+
+        return anno;
+    }
+
+    private void parseParams(int beginIndex, int length) {
+        int tokenStart = beginIndex;
+        int keyStart = -1;
+        int keyEnd = -1;
+        for (int i = beginIndex; i < length; i++) {
+            switch (seq.charAt(i)) {
+                case '=':
+                    keyStart = trimStart(tokenStart, i);
+                    keyEnd = trimEnd(keyStart, i);
+                    tokenStart = i + 1;
+                    break;
+                case ']':
+                    addParamValue(keyStart, keyEnd, tokenStart, i);
+                    keyStart = -1;
+                    tokenStart = i + 1;
+                    break;
+                case ',':
+                    addParamValue(keyStart, keyEnd, tokenStart, i);
+                    tokenStart = i + 1;
+                    break;
+                case ')':
+                    addParamValue(keyStart, keyEnd, tokenStart, i);
+                    return;
+                default:
+                    break;
+            }
+        }
+    }
+
+    private void addParamValue(int keyStart, int keyEnd, int tokenStart,
+            int tokenEnd) {
+        if (keyStart == -1) {
+            return;
+        }
+
+        int valueStart = trimStart(tokenStart, tokenEnd);
+        int valueEnd = trimEnd(valueStart, tokenEnd);
+        if (valueStart == valueEnd) {
+            return;
+        }
+
+        if (count == keyStarts.length) {
+            grow();
+        }
+
+        keyStarts[count] = keyStart;
+        keyEnds[count] = keyEnd;
+        valueStarts[count] = valueStart;
+        valueEnds[count] = valueEnd;
+        count++;
+    }
+
+    private String getValue(int index) {
+        String value = values[index];
+        if (value == null) {
+            value = slice(valueStarts[index], valueEnds[index]);
+            values[index] = value;
+        }
+
+        return value;
+    }
+
+    private String slice(int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (isDropped(seq.charAt(i))) {
+                StringBuilder bldr = new StringBuilder(end - start);
+                for (int j = start; j < end; j++) {
+                    char ch = seq.charAt(j);
+                    if (!isDropped(ch)) {
+                        bldr.append(ch);
+                    }
+                }
+                return bldr.toString();
+            }
+        }
+
+        return seq.subSequence(start, end).toString();
+    }
+
+    private boolean regionEquals(int start, int end, String str) {
+        int j = 0;
+        int length = str.length();
+        for (int i = start; i < end; i++) {
+            char ch = seq.charAt(i);
+            if (isDropped(ch)) {
+                continue;
+            }
+            if (j == length || ch != str.charAt(j++)) {
+                return false;
+            }
+        }
+
+        return j == length;
+    }
+
+    private int trimStart(int start, int end) {
+        int i = start;
+        while (i < end && isTrimmed(seq.charAt(i))) {
+            i++;
+        }
+
+        return i;
+    }
+
+    private int trimEnd(int start, int end) {
+        int i = end;
+        while (i > start && isTrimmed(seq.charAt(i - 1))) {
+            i--;
+        }
+
+        return i;
+    }
+
+    private static boolean isDropped(char ch) {
+        return ch == '(' || ch == '[';
+    }
+
+    private static boolean isTrimmed(char ch) {
+        return ch <= ' ' || isDropped(ch);
+    }
+
+    private void grow() {
+        int capacity = keyStarts.length * 2;
+        keyStarts = Arrays.copyOf(keyStarts, capacity);
+        keyEnds = Arrays.copyOf(keyEnds, capacity);
+        valueStarts = Arrays.copyOf(valueStarts, capacity);
+        valueEnds = Arrays.copyOf(valueEnds, capacity);
+        values = Arrays.copyOf(values, capacity);
+    }
+
+    private void reset() {
+        if (count > 0) {
+            Arrays.fill(values, 0, count, null);
+        }
+        seq = null;
+        name = null;
+        count = 0;
+    }
+}
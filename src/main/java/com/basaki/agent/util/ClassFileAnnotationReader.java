@@ -0,0 +1,950 @@
+/*
+ * Copyright [2017] [Indra Basak]
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.basaki.agent.util;
+
+import com.basaki.agent.cache.WeakClassCache;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.ref.SoftReference;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@code ClassFileAnnotationReader} reads {@code javax.ws.rs.Path}, Spring
+ * {@code RequestMapping} and Spring stereotype annotations straight from the
+ * bytes of a class file, i.e., from its constant pool and its {@code
+ * RuntimeVisibleAnnotations} attributes. It is an alternative to {@link
+ * AnnotationResolver} which neither creates annotation proxies nor inflates
+ * the reflection data of a class, and it doesn't depend on ASM.
+ * <p/>
+ * A class file is read through the class loader of its class. Only the
+ * {@code value}, {@code path} and {@code method} attributes are retained,
+ * the same as {@link AnnotationResolver}. Attributes left at their default
+ * value aren't stored in a class file, which makes no difference for the
+ * supported annotations since their defaults are empty.
+ * <p/>
+ * The type hierarchy is searched in the same order as {@link
+ * AnnotationResolver}. Types without a class file, e.g., runtime generated
+ * proxies, are skipped. An overridden method is matched by its descriptor,
+ * or else by its name and number of parameters, since the parameter types
+ * of a supertype method can't be compared without loading them.
+ * <p/>
+ * Parsed class files are held softly, up to {@code cache.maxClassFiles}
+ * classes. Class files which aren't loaded, e.g., those of an application
+ * jar scanned offline, can be parsed with {@link #parse(byte[], boolean)}
+ * and searched with the methods taking a type hierarchy.
+ *
+ * @author Indra Basak
+ * @since 10/18/26
+ */
+public final class ClassFileAnnotationReader {
+
+    private static final int MAGIC = 0xCAFEBABE;
+
+    private static final int ACC_STATIC = 0x0008;
+
+    private static final int ACC_BRIDGE = 0x0040;
+
+    private static final int ACC_INTERFACE = 0x0200;
+
+    private static final int ACC_ABSTRACT = 0x0400;
+
+    private static final int ACC_SYNTHETIC = 0x1000;
+
+    private static final String ANNOTATIONS_ATTRIBUTE =
+            "RuntimeVisibleAnnotations";
+
+    private static final String[] ATTRIBUTES = {"value", "path", "method"};
+
+    private static final ClassAnnotations UNREADABLE = new ClassAnnotations(
+            null, null, new String[0], 0,
+            Collections.<RestAnnotation>emptyList(),
+            Collections.<MethodAnnotations>emptyList());
+
+    private static final WeakClassCache<SoftReference<ClassAnnotations>>
+            CLASS_FILES =
+            new WeakClassCache<SoftReference<ClassAnnotations>>(
+                    Config.getInt("cache.maxClassFiles", 1000));
+
+    private ClassFileAnnotationReader() {
+
+    }
+
+    /**
+     * Retrieves the annotation of a class, or of the closest type in its
+     * hierarchy, from the class files.
+     *
+     * @param clazz     class which has the annotation
+     * @param annoClazz annotation class name, with or without a leading '@'
+     * @return annotation object if found, null otherwise
+     */
+    public static RestAnnotation findClassAnnotation(Class<?> clazz,
+            String annoClazz) {
+        return findClassAnnotation(getHierarchy(clazz), annoClazz);
+    }
+
+    /**
+     * Retrieves the annotation of the first type of a type hierarchy which
+     * has it.
+     *
+     * @param hierarchy class files of a type hierarchy in lookup order, see
+     *                  {@link AnnotationResolver#getTypeHierarchy(Class)}
+     * @param annoClazz annotation class name, with or without a leading '@'
+     * @return annotation object if found, null otherwise
+     */
+    public static RestAnnotation findClassAnnotation(
+            List<ClassAnnotations> hierarchy, String annoClazz) {
+        for (ClassAnnotations type : hierarchy) {
+            RestAnnotation anno =
+                    findAnnotation(type.getAnnotations(), annoClazz);
+            if (anno != null) {
+                return anno;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Retrieves the annotation of a method from the class files. If the
+     * method isn't annotated, the method it overrides or implements is
+     * searched up the type hierarchy. Bridge methods are resolved to the
+     * method they bridge.
+     *
+     * @param clazz      class which contains the method
+     * @param methodName name of the method which has the annotation
+     * @param methodDesc method descriptor
+     * @param annoClazz  annotation class name, with or without a leading '@'
+     * @return annotation object if found, null otherwise
+     */
+    public static RestAnnotation findMethodAnnotation(Class<?> clazz,
+            String methodName, String methodDesc, String annoClazz) {
+        return findMethodAnnotation(getHierarchy(clazz), methodName,
+                methodDesc, annoClazz);
+    }
+
+    /**
+     * Retrieves the annotation of a method from the class files of a type
+     * hierarchy, see {@link #findMethodAnnotation(Class, String, String,
+     * String)}.
+     *
+     * @param hierarchy  class files of a type hierarchy in lookup order, see
+     *                   {@link AnnotationResolver#getTypeHierarchy(Class)}
+     * @param methodName name of the method which has the annotation
+     * @param methodDesc method descriptor
+     * @param annoClazz  annotation class name, with or without a leading '@'
+     * @return annotation object if found, null otherwise
+     */
+    public static RestAnnotation findMethodAnnotation(
+            List<ClassAnnotations> hierarchy, String methodName,
+            String methodDesc, String annoClazz) {
+        int paramCount = -1;
+        boolean first = true;
+        for (ClassAnnotations classFile : hierarchy) {
+            MethodAnnotations method =
+                    classFile.getMethod(methodName, methodDesc);
+            RestAnnotation anno = null;
+            if (method != null) {
+                anno = findAnnotation(method.getAnnotations(), annoClazz);
+                if (anno == null && method.getBridged() != null) {
+                    anno = findAnnotation(classFile.getMethod(methodName,
+                            method.getBridged()), annoClazz);
+                }
+            } else if (!first) {
+                if (paramCount < 0) {
+                    paramCount = getParameterCount(methodDesc);
+                }
+                anno = findAnnotation(
+                        classFile.getOverridden(methodName, paramCount),
+                        annoClazz);
+            }
+
+            if (anno != null) {
+                return anno;
+            }
+            first = false;
+        }
+
+        return null;
+    }
+
+    /**
+     * Retrieves the annotations of every method of a class from the class
+     * files of its type hierarchy. A method inherits the annotation of a
+     * supertype method with the same descriptor, and a bridge method the
+     * annotation of the method it bridges. Methods overriding a supertype
+     * method with a different descriptor are left to {@link
+     * #findMethodAnnotation(Class, String, String, String)}.
+     *
+     * @param clazz     class which contains the methods
+     * @param annoClazz annotation class name, with or without a leading '@'
+     * @return annotations of the annotated methods keyed by method name
+     * followed by method descriptor
+     */
+    public static Map<String, RestAnnotation> findMethodAnnotations(
+            Class<?> clazz, String annoClazz) {
+        Map<String, RestAnnotation> annotations =
+                new HashMap<String, RestAnnotation>();
+        for (Class<?> type : AnnotationResolver.getTypeHierarchy(clazz)) {
+            List<MethodAnnotations> methods = read(type).getMethods();
+            for (MethodAnnotations method : methods) {
+                RestAnnotation anno =
+                        findAnnotation(method.getAnnotations(), annoClazz);
+                String key = method.getName() + method.getDescriptor();
+                if (anno != null && !annotations.containsKey(key)) {
+                    annotations.put(key, anno);
+                }
+            }
+
+            for (MethodAnnotations method : methods) {
+                String key = method.getName() + method.getDescriptor();
+                if (method.getBridged() != null
+                        && !annotations.containsKey(key)) {
+                    RestAnnotation anno = annotations.get(
+                            method.getName() + method.getBridged());
+                    if (anno != null) {
+                        annotations.put(key, anno);
+                    }
+                }
+            }
+        }
+
+        return annotations;
+    }
+
+    /**
+     * Finds an annotation by its type name.
+     *
+     * @param annotations annotations to search
+     * @param annoClazz   annotation class name, with or without a leading '@'
+     * @return matching annotation, null if not found
+     */
+    public static RestAnnotation findAnnotation(
+            List<RestAnnotation> annotations, String annoClazz) {
+        int offset = annoClazz.startsWith("@") ? 1 : 0;
+        int length = annoClazz.length() - offset;
+        for (RestAnnotation anno : annotations) {
+            String name = anno.getAnnotationClass();
+            if (name.length() == length
+                    && name.regionMatches(0, annoClazz, offset, length)) {
+                return anno;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Reads the annotations of a class from its class file. A class without
+     * a readable class file has no annotations.
+     *
+     * @param clazz class
+     * @return annotations of the class and of its methods
+     */
+    static ClassAnnotations read(Class<?> clazz) {
+        SoftReference<ClassAnnotations> ref = CLASS_FILES.get(clazz);
+        ClassAnnotations classFile = ref != null ? ref.get() : null;
+        if (classFile == null) {
+            try {
+                byte[] bytes = readClassFile(clazz);
+                classFile = bytes != null ? parse(bytes, false) : UNREADABLE;
+            } catch (IOException e) {
+                classFile = UNREADABLE;
+            } catch (RuntimeException e) {
+                classFile = UNREADABLE;
+            }
+            CLASS_FILES.remove(clazz);
+            CLASS_FILES.putIfAbsent(clazz,
+                    new SoftReference<ClassAnnotations>(classFile));
+        }
+
+        return classFile;
+    }
+
+    /**
+     * Parses the runtime visible annotations of a class and of its non-static
+     * methods.
+     *
+     * @param classFile  class file bytes
+     * @param allMethods true to keep every non-static method, false to only
+     *                   keep the annotated methods and the bridge methods
+     * @return annotations of the class and of its methods
+     * @throws IOException if the bytes aren't a valid class file
+     */
+    public static ClassAnnotations parse(byte[] classFile, boolean allMethods)
+            throws IOException {
+        ClassFile in = new ClassFile(classFile);
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Not a class file");
+        }
+        in.skip(4);
+        in.readConstantPool();
+
+        int classAccess = in.readUnsignedShort();
+        String className = in.readClassName(in.readUnsignedShort());
+        int superIndex = in.readUnsignedShort();
+        String superName =
+                superIndex != 0 ? in.readClassName(superIndex) : null;
+        String[] interfaceNames = new String[in.readUnsignedShort()];
+        for (int i = 0; i < interfaceNames.length; i++) {
+            interfaceNames[i] = in.readClassName(in.readUnsignedShort());
+        }
+
+        int fieldCount = in.readUnsignedShort();
+        for (int i = 0; i < fieldCount; i++) {
+            in.skip(6);
+            skipAttributes(in);
+        }
+
+        int methodCount = in.readUnsignedShort();
+        List<MethodAnnotations> methods = new ArrayList<MethodAnnotations>();
+        List<MethodAnnotations> bridgeTargets =
+                new ArrayList<MethodAnnotations>();
+        for (int i = 0; i < methodCount; i++) {
+            int access = in.readUnsignedShort();
+            String name = in.readUtf8(in.readUnsignedShort());
+            String desc = in.readUtf8(in.readUnsignedShort());
+            List<RestAnnotation> annotations = readAnnotations(in);
+            if ((access & ACC_STATIC) != 0) {
+                continue;
+            }
+
+            MethodAnnotations method =
+                    new MethodAnnotations(name, desc, access, annotations);
+            if (!method.isBridge()) {
+                bridgeTargets.add(method);
+            }
+            if (allMethods || method.isBridge() || !annotations.isEmpty()) {
+                methods.add(method);
+            }
+        }
+
+        for (MethodAnnotations method : methods) {
+            if (method.isBridge()) {
+                MethodAnnotations bridged = findUnique(bridgeTargets,
+                        method.getName(),
+                        getParameterCount(method.getDescriptor()));
+                method.setBridged(
+                        bridged != null ? bridged.getDescriptor() : null);
+            }
+        }
+
+        return new ClassAnnotations(className, superName, interfaceNames,
+                classAccess, readAnnotations(in), methods);
+    }
+
+    /**
+     * Counts the parameters of a method descriptor.
+     *
+     * @param methodDesc method descriptor, e.g., {@code (I[JLjava/lang/String;)V}
+     * @return number of parameters
+     */
+    static int getParameterCount(String methodDesc) {
+        int count = 0;
+        int i = 1;
+        while (i < methodDesc.length() && methodDesc.charAt(i) != ')') {
+            char c = methodDesc.charAt(i);
+            if (c == 'L') {
+                i = methodDesc.indexOf(';', i);
+                if (i < 0) {
+                    break;
+                }
+            }
+            if (c != '[') {
+                count++;
+            }
+            i++;
+        }
+
+        return count;
+    }
+
+    private static RestAnnotation findAnnotation(MethodAnnotations method,
+            String annoClazz) {
+        return method != null ?
+                findAnnotation(method.getAnnotations(), annoClazz) : null;
+    }
+
+    private static MethodAnnotations findUnique(
+            List<MethodAnnotations> methods, String name, int paramCount) {
+        MethodAnnotations found = null;
+        for (MethodAnnotations method : methods) {
+            if (method.isBridge() || !method.getName().equals(name)
+                    || getParameterCount(method.getDescriptor())
+                    != paramCount) {
+                continue;
+            }
+            if (found != null) {
+                return null;
+            }
+            found = method;
+        }
+
+        return found;
+    }
+
+    /**
+     * Reads the attributes of a class, field or method and parses its
+     * {@code RuntimeVisibleAnnotations} attribute.
+     *
+     * @param in class file positioned at the attribute count
+     * @return runtime visible annotations
+     * @throws IOException if the class file is truncated or malformed
+     */
+    private static List<RestAnnotation> readAnnotations(ClassFile in)
+            throws IOException {
+        List<RestAnnotation> annotations = Collections.emptyList();
+        int attributeCount = in.readUnsignedShort();
+        for (int i = 0; i < attributeCount; i++) {
+            boolean visible = in.isUtf8(in.readUnsignedShort(),
+                    ANNOTATIONS_ATTRIBUTE);
+            int length = in.readInt();
+            if (!visible) {
+                in.skip(length);
+                continue;
+            }
+
+            int count = in.readUnsignedShort();
+            annotations = new ArrayList<RestAnnotation>(count);
+            for (int j = 0; j < count; j++) {
+                annotations.add(readAnnotation(in));
+            }
+        }
+
+        return annotations;
+    }
+
+    private static void skipAttributes(ClassFile in) throws IOException {
+        int attributeCount = in.readUnsignedShort();
+        for (int i = 0; i < attributeCount; i++) {
+            in.skip(2);
+            in.skip(in.readInt());
+        }
+    }
+
+    private static RestAnnotation readAnnotation(ClassFile in)
+            throws IOException {
+        RestAnnotation anno = new RestAnnotation();
+        anno.setAnnotationClass(toClassName(in.readUtf8(
+                in.readUnsignedShort())));
+
+        int pairCount = in.readUnsignedShort();
+        for (int i = 0; i < pairCount; i++) {
+            String name = in.readUtf8(in.readUnsignedShort());
+            readElementValue(in, anno, isRetained(name) ? name : null);
+        }
+
+        return anno;
+    }
+
+    /**
+     * Reads an annotation element value and adds it to an annotation if the
+     * value is retained. Class and nested annotation values are skipped.
+     *
+     * @param in   class file positioned at the element value
+     * @param anno annotation
+     * @param key  attribute name, null if the value is skipped
+     * @throws IOException if the class file is truncated or malformed
+     */
+    private static void readElementValue(ClassFile in, RestAnnotation anno,
+            String key) throws IOException {
+        int tag = in.readUnsignedByte();
+        switch (tag) {
+            case 's':
+                int value = in.readUnsignedShort();
+                if (key != null) {
+                    addParamValue(anno, key, in.readUtf8(value));
+                }
+                break;
+            case 'e':
+                in.skip(2);
+                int constant = in.readUnsignedShort();
+                if (key != null) {
+                    addParamValue(anno, key, in.readUtf8(constant));
+                }
+                break;
+            case 'B':
+            case 'C':
+            case 'D':
+            case 'F':
+            case 'I':
+            case 'J':
+            case 'S':
+            case 'Z':
+                int index = in.readUnsignedShort();
+                if (key != null) {
+                    addParamValue(anno, key, in.readConstant(index, (char) tag));
+                }
+                break;
+            case 'c':
+                in.skip(2);
+                break;
+            case '@':
+                readAnnotation(in);
+                break;
+            case '[':
+                int count = in.readUnsignedShort();
+                for (int i = 0; i < count; i++) {
+                    readElementValue(in, anno, key);
+                }
+                break;
+            default:
+                throw new IOException("Unknown element value tag " + tag);
+        }
+    }
+
+    private static boolean isRetained(String name) {
+        for (String attribute : ATTRIBUTES) {
+            if (attribute.equals(name)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private static void addParamValue(RestAnnotation anno, String key,
+            String value) {
+        String str = value.trim();
+        if (!str.isEmpty()) {
+            RestAnnotationParam param = new RestAnnotationParam();
+            param.setValue(str);
+            anno.addParam(key, param);
+        }
+    }
+
+    /**
+     * Converts a field descriptor, e.g., {@code Ljavax/ws/rs/Path;}, into a
+     * class name.
+     */
+    private static String toClassName(String descriptor) {
+        int start = descriptor.startsWith("L") ? 1 : 0;
+        int end = descriptor.endsWith(";") ? descriptor.length() - 1 :
+                descriptor.length();
+
+        return descriptor.substring(start, end).replace('/', '.');
+    }
+
+    private static List<ClassAnnotations> getHierarchy(Class<?> clazz) {
+        List<Class<?>> types = AnnotationResolver.getTypeHierarchy(clazz);
+        List<ClassAnnotations> hierarchy =
+                new ArrayList<ClassAnnotations>(types.size());
+        for (Class<?> type : types) {
+            hierarchy.add(read(type));
+        }
+
+        return hierarchy;
+    }
+
+    private static byte[] readClassFile(Class<?> clazz) throws IOException {
+        if (clazz.isArray() || clazz.isPrimitive()) {
+            return null;
+        }
+
+        String resource = clazz.getName().replace('.', '/') + ".class";
+        ClassLoader loader = clazz.getClassLoader();
+        InputStream in = loader != null ? loader.getResourceAsStream(resource)
+                : ClassLoader.getSystemResourceAsStream(resource);
+        if (in == null) {
+            return null;
+        }
+
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream(4096);
+            byte[] buffer = new byte[4096];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+
+            return out.toByteArray();
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * Annotations read from the class file of a class.
+     */
+    public static final class ClassAnnotations {
+
+        private final String name;
+
+        private final String superName;
+
+        private final String[] interfaceNames;
+
+        private final int access;
+
+        private final List<RestAnnotation> annotations;
+
+        private final List<MethodAnnotations> methods;
+
+        ClassAnnotations(String name, String superName,
+                String[] interfaceNames, int access,
+                List<RestAnnotation> annotations,
+                List<MethodAnnotations> methods) {
+            this.name = name;
+            this.superName = superName;
+            this.interfaceNames = interfaceNames;
+            this.access = access;
+            this.annotations = annotations;
+            this.methods = methods;
+        }
+
+        /**
+         * Retrieves the class name, e.g., {@code com.acme.BookService}.
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * Retrieves the name of the superclass, null for {@code Object}.
+         */
+        public String getSuperName() {
+            return superName;
+        }
+
+        public String[] getInterfaceNames() {
+            return interfaceNames.clone();
+        }
+
+        public boolean isInterface() {
+            return (access & ACC_INTERFACE) != 0;
+        }
+
+        public boolean isAbstract() {
+            return (access & ACC_ABSTRACT) != 0;
+        }
+
+        public List<RestAnnotation> getAnnotations() {
+            return annotations;
+        }
+
+        /**
+         * Retrieves the non-static methods kept by {@link #parse(byte[],
+         * boolean)}.
+         */
+        public List<MethodAnnotations> getMethods() {
+            return methods;
+        }
+
+        public MethodAnnotations getMethod(String name, String desc) {
+            for (MethodAnnotations method : methods) {
+                if (method.getName().equals(name)
+                        && method.getDescriptor().equals(desc)) {
+                    return method;
+                }
+            }
+
+            return null;
+        }
+
+        /**
+         * Retrieves the only annotated method with a name and a number of
+         * parameters.
+         */
+        MethodAnnotations getOverridden(String name, int paramCount) {
+            MethodAnnotations found = null;
+            for (MethodAnnotations method : methods) {
+                if (method.isBridge() || method.getAnnotations().isEmpty()
+                        || !method.getName().equals(name)
+                        || getParameterCount(method.getDescriptor())
+                        != paramCount) {
+                    continue;
+                }
+                if (found != null) {
+                    return null;
+                }
+                found = method;
+            }
+
+            return found;
+        }
+    }
+
+    /**
+     * Annotations read from the class file of a method.
+     */
+    public static final class MethodAnnotations {
+
+        private final String name;
+
+        private final String descriptor;
+
+        private final int access;
+
+        private final List<RestAnnotation> annotations;
+
+        private String bridged;
+
+        MethodAnnotations(String name, String descriptor, int access,
+                List<RestAnnotation> annotations) {
+            this.name = name;
+            this.descriptor = descriptor;
+            this.access = access;
+            this.annotations = annotations;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getDescriptor() {
+            return descriptor;
+        }
+
+        public boolean isBridge() {
+            return (access & ACC_BRIDGE) != 0;
+        }
+
+        public boolean isAbstract() {
+            return (access & ACC_ABSTRACT) != 0;
+        }
+
+        public boolean isSynthetic() {
+            return (access & ACC_SYNTHETIC) != 0;
+        }
+
+        public List<RestAnnotation> getAnnotations() {
+            return annotations;
+        }
+
+        /**
+         * Retrieves the descriptor of the method a bridge method delegates
+         * to.
+         */
+        public String getBridged() {
+            return bridged;
+        }
+
+        void setBridged(String bridged) {
+            this.bridged = bridged;
+        }
+    }
+
+    /**
+     * Sequential reader of class file bytes. The constant pool is indexed on
+     * the first pass and its entries are only decoded when read.
+     */
+    private static class ClassFile {
+
+        private static final int CONSTANT_UTF8 = 1;
+
+        private static final int CONSTANT_CLASS = 7;
+
+        private final byte[] bytes;
+
+        private int position;
+
+        private int[] offsets;
+
+        ClassFile(byte[] bytes) {
+            this.bytes = bytes;
+        }
+
+        void readConstantPool() throws IOException {
+            int count = readUnsignedShort();
+            offsets = new int[count];
+            for (int i = 1; i < count; i++) {
+                offsets[i] = position;
+                int tag = readUnsignedByte();
+                switch (tag) {
+                    case CONSTANT_UTF8:
+                        skip(readUnsignedShort());
+                        break;
+                    case 3:
+                    case 4:
+                    case 9:
+                    case 10:
+                    case 11:
+                    case 12:
+                    case 17:
+                    case 18:
+                        skip(4);
+                        break;
+                    case 5:
+                    case 6:
+                        skip(8);
+                        i++;
+                        break;
+                    case 7:
+                    case 8:
+                    case 16:
+                    case 19:
+                    case 20:
+                        skip(2);
+                        break;
+                    case 15:
+                        skip(3);
+                        break;
+                    default:
+                        throw new IOException("Unknown constant tag " + tag);
+                }
+            }
+        }
+
+        int readUnsignedByte() throws IOException {
+            check(position + 1);
+            return bytes[position++] & 0xFF;
+        }
+
+        int readUnsignedShort() throws IOException {
+            check(position + 2);
+            int value = ((bytes[position] & 0xFF) << 8)
+                    | (bytes[position + 1] & 0xFF);
+            position += 2;
+
+            return value;
+        }
+
+        int readInt() throws IOException {
+            check(position + 4);
+            int value = getInt(position);
+            position += 4;
+
+            return value;
+        }
+
+        void skip(int length) throws IOException {
+            if (length < 0) {
+                throw new IOException("Bad length " + length);
+            }
+            check(position + length);
+            position += length;
+        }
+
+        /**
+         * Checks whether a constant pool entry is a UTF-8 string equal to an
+         * ASCII string, without decoding it.
+         */
+        boolean isUtf8(int index, String ascii) throws IOException {
+            int offset = getOffset(index, CONSTANT_UTF8);
+            int length = getUnsignedShort(offset + 1);
+            if (length != ascii.length()) {
+                return false;
+            }
+
+            for (int i = 0; i < length; i++) {
+                if (bytes[offset + 3 + i] != ascii.charAt(i)) {
+                    return false;
+                }
+            }
+
+            return true;
+        }
+
+        /**
+         * Decodes a constant pool UTF-8 string, which is in the modified
+         * UTF-8 format of {@link java.io.DataInput#readUTF()}.
+         */
+        String readUtf8(int index) throws IOException {
+            int offset = getOffset(index, CONSTANT_UTF8);
+            int length = getUnsignedShort(offset + 1);
+            int start = offset + 3;
+            check(start + length);
+
+            char[] chars = new char[length];
+            int count = 0;
+            int i = start;
+            while (i < start + length) {
+                int b = bytes[i++] & 0xFF;
+                if (b < 0x80) {
+                    chars[count++] = (char) b;
+                } else if ((b & 0xE0) == 0xC0) {
+                    chars[count++] = (char) (((b & 0x1F) << 6)
+                            | (bytes[i++] & 0x3F));
+                } else {
+                    chars[count++] = (char) (((b & 0x0F) << 12)
+                            | ((bytes[i++] & 0x3F) << 6)
+                            | (bytes[i++] & 0x3F));
+                }
+            }
+
+            return new String(chars, 0, count);
+        }
+
+        /**
+         * Decodes the class name of a constant pool class entry, e.g.,
+         * {@code java.lang.String} for {@code java/lang/String}.
+         */
+        String readClassName(int index) throws IOException {
+            return readUtf8(getUnsignedShort(getOffset(index, CONSTANT_CLASS)
+                    + 1)).replace('/', '.');
+        }
+
+        /**
+         * Decodes a numeric constant of a primitive annotation element.
+         */
+        String readConstant(int index, char type) throws IOException {
+            int offset = getOffset(index, -1);
+            switch (type) {
+                case 'D':
+                    return String.valueOf(Double.longBitsToDouble(
+                            getLong(offset + 1)));
+                case 'F':
+                    return String.valueOf(Float.intBitsToFloat(
+                            getInt(offset + 1)));
+                case 'J':
+                    return String.valueOf(getLong(offset + 1));
+                case 'C':
+                    return String.valueOf((char) getInt(offset + 1));
+                case 'Z':
+                    return String.valueOf(getInt(offset + 1) != 0);
+                default:
+                    return String.valueOf(getInt(offset + 1));
+            }
+        }
+
+        private int getOffset(int index, int tag) throws IOException {
+            if (index <= 0 || index >= offsets.length || offsets[index] == 0
+                    || (tag >= 0 && bytes[offsets[index]] != tag)) {
+                throw new IOException("Bad constant pool index " + index);
+            }
+
+            return offsets[index];
+        }
+
+        private int getUnsignedShort(int offset) throws IOException {
+            check(offset + 2);
+            return ((bytes[offset] & 0xFF) << 8) | (bytes[offset + 1] & 0xFF);
+        }
+
+        private int getInt(int offset) throws IOException {
+            check(offset + 4);
+            return ((bytes[offset] & 0xFF) << 24)
+                    | ((bytes[offset + 1] & 0xFF) << 16)
+                    | ((bytes[offset + 2] & 0xFF) << 8)
+                    | (bytes[offset + 3] & 0xFF);
+        }
+
+        private long getLong(int offset) throws IOException {
+            return ((long) getInt(offset) << 32)
+                    | (getInt(offset + 4) & 0xFFFFFFFFL);
+        }
+
+        private void check(int end) throws IOException {
+            if (end > bytes.length) {
+                throw new IOException("Truncated class file");
+            }
+        }
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright [2017] [Indra Basak]
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.basaki.agent.util;
+
+/**
+ * {@code Config} reads the extension's tuning knobs from system properties
+ * prefixed with {@code com.basaki.agent.}, e.g.
+ * {@code -Dcom.basaki.agent.cache.maxClasses=5000}. A missing or malformed
+ * property falls back to the supplied default.
+ *
+ * @author Indra Basak
+ * @since 10/18/26
+ */
+public final class Config {
+
+    public static final String PREFIX = "com.basaki.agent.";
+
+    private Config() {
+
+    }
+
+    public static String getString(String name, String defaultValue) {
+        String value = null;
+        try {
+            value = System.getProperty(PREFIX + name);
+        } catch (SecurityException e) {
+            // fall back to default
+        }
+
+        return value != null && !value.trim().isEmpty() ? value.trim() :
+                defaultValue;
+    }
+
+    public static int getInt(String name, int defaultValue) {
+        String value = getString(name, null);
+        if (value != null) {
+            try {
+                return Integer.parseInt(value);
+            } catch (NumberFormatException e) {
+                // fall back to default
+            }
+        }
+
+        return defaultValue;
+    }
+
+    public static long getLong(String name, long defaultValue) {
+        String value = getString(name, null);
+        if (value != null) {
+            try {
+                return Long.parseLong(value);
+            } catch (NumberFormatException e) {
+                // fall back to default
+            }
+        }
+
+        return defaultValue;
+    }
+
+    public static boolean getBoolean(String name, boolean defaultValue) {
+        String value = getString(name, null);
+        return value != null ? Boolean.parseBoolean(value) : defaultValue;
+    }
+}
@@ -0,0 +1,272 @@
+/*
+ * Copyright [2017] [Indra Basak]
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.basaki.agent.util;
+
+import com.wily.util.feedback.IModuleFeedbackChannel;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@code Diagnostics} is a thin, cheap logging layer on top of the agent's
+ * {@link IModuleFeedbackChannel}. A message is only built after its level is
+ * known to be enabled and its key is within the rate limit. Every message
+ * key is allowed {@code diagnostics.maxMessages} messages per {@code
+ * diagnostics.intervalMillis}; the rest are counted as suppressed.
+ * <pre>
+ *     diagnostics.debug("app-name", "INameFormatter_format app name: ",
+ *             appName);
+ * </pre>
+ *
+ * @author Indra Basak
+ * @since 10/18/26
+ */
+public class Diagnostics {
+
+    private static final String RESOLUTION_KEY = "resolution";
+
+    private final IModuleFeedbackChannel feedback;
+
+    private final int maxMessages;
+
+    private final long intervalMillis;
+
+    private final int maxResolutions;
+
+    private final ConcurrentMap<String, Window> windows =
+            new ConcurrentHashMap<String, Window>();
+
+    private final ConcurrentMap<ResolutionKey, Boolean> resolutions =
+            new ConcurrentHashMap<ResolutionKey, Boolean>();
+
+    private final AtomicLong suppressed = new AtomicLong();
+
+    /**
+     * Constructs a <code>Diagnostics</code> configured from system
+     * properties.
+     *
+     * @param feedback agent feedback channel
+     */
+    public Diagnostics(IModuleFeedbackChannel feedback) {
+        this(feedback, Config.getInt("diagnostics.maxMessages", 10),
+                Config.getLong("diagnostics.intervalMillis", 60000L),
+                Config.getInt("diagnostics.maxResolutions", 10000));
+    }
+
+    /**
+     * Constructs a <code>Diagnostics</code>.
+     *
+     * @param feedback       agent feedback channel
+     * @param maxMessages    messages allowed per key and interval
+     * @param intervalMillis rate limit interval in milliseconds
+     * @param maxResolutions distinct resolutions remembered for
+     *                       {@link #resolution(String, String, String,
+     *                       String)}
+     */
+    public Diagnostics(IModuleFeedbackChannel feedback, int maxMessages,
+            long intervalMillis, int maxResolutions) {
+        this.feedback = feedback;
+        this.maxMessages = maxMessages;
+        this.intervalMillis = intervalMillis;
+        this.maxResolutions = maxResolutions;
+    }
+
+    public IModuleFeedbackChannel getFeedback() {
+        return feedback;
+    }
+
+    public boolean isDebugEnabled() {
+        return feedback.isDebugEnabled();
+    }
+
+    /**
+     * Logs a debug message made of a prefix and an argument.
+     *
+     * @param key    message key used for rate limiting
+     * @param prefix message prefix
+     * @param arg    message argument, appended to the prefix
+     */
+    public void debug(String key, String prefix, Object arg) {
+        if (feedback.isDebugEnabled() && allow(key)) {
+            feedback.debug(prefix + arg);
+        }
+    }
+
+    /**
+     * Logs an info message made of a prefix and an argument.
+     *
+     * @param key    message key used for rate limiting
+     * @param prefix message prefix
+     * @param arg    message argument, appended to the prefix
+     */
+    public void info(String key, String prefix, Object arg) {
+        if (feedback.isInfoEnabled() && allow(key)) {
+            feedback.info(prefix + arg);
+        }
+    }
+
+    /**
+     * Logs a warning message made of a prefix and an argument.
+     *
+     * @param key    message key used for rate limiting
+     * @param prefix message prefix
+     * @param arg    message argument, appended to the prefix
+     */
+    public void warn(String key, String prefix, Object arg) {
+        if (feedback.isWarningEnabled() && allow(key)) {
+            feedback.warn(prefix + arg);
+        }
+    }
+
+    /**
+     * Logs the resolved name of a class method at info level, once per
+     * distinct class and method. Nothing is built unless info is enabled.
+     *
+     * @param className  class name
+     * @param methodName method name
+     * @param methodDesc method descriptor
+     * @param name       resolved metric name
+     */
+    public void resolution(String className, String methodName,
+            String methodDesc, String name) {
+        if (!feedback.isInfoEnabled()) {
+            return;
+        }
+
+        if (resolutions.size() >= maxResolutions) {
+            suppressed.incrementAndGet();
+            return;
+        }
+
+        if (resolutions.putIfAbsent(
+                new ResolutionKey(className, methodName, methodDesc),
+                Boolean.TRUE) == null && allow(RESOLUTION_KEY)) {
+            feedback.info("Resolved " + className + '.' + methodName
+                    + methodDesc + " to " + name);
+        }
+    }
+
+    /**
+     * Retrieves the number of messages dropped by the rate limit.
+     *
+     * @return number of suppressed messages
+     */
+    public long getSuppressedCount() {
+        return suppressed.get();
+    }
+
+    /**
+     * Checks a message key against the rate limit.
+     *
+     * @param key message key
+     * @return true if the message may be logged
+     */
+    boolean allow(String key) {
+        Window window = windows.get(key);
+        if (window == null) {
+            Window newWindow = new Window();
+            window = windows.putIfAbsent(key, newWindow);
+            if (window == null) {
+                window = newWindow;
+            }
+        }
+
+        long now = System.currentTimeMillis();
+        long start = window.start;
+        if (now - start >= intervalMillis) {
+            synchronized (window) {
+                if (window.start == start) {
+                    int dropped = window.suppressed.getAndSet(0);
+                    window.count.set(0);
+                    window.start = now;
+                    if (dropped > 0 && feedback.isInfoEnabled()) {
+                        feedback.info("Suppressed " + dropped
+                                + " diagnostic messages of '" + key + "'");
+                    }
+                }
+            }
+        }
+
+        if (window.count.incrementAndGet() <= maxMessages) {
+            return true;
+        }
+
+        window.suppressed.incrementAndGet();
+        suppressed.incrementAndGet();
+
+        return false;
+    }
+
+    /**
+     * Class method whose resolution has been logged.
+     */
+    private static final class ResolutionKey {
+
+        private final String className;
+
+        private final String methodName;
+
+        private final String methodDesc;
+
+        private final int hash;
+
+        ResolutionKey(String className, String methodName,
+                String methodDesc) {
+            this.className = className;
+            this.methodName = methodName;
+            this.methodDesc = methodDesc;
+
+            int h = className.hashCode();
+            h = 31 * h + methodName.hashCode();
+            h = 31 * h + (methodDesc != null ? methodDesc.hashCode() : 0);
+            hash = h;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof ResolutionKey)) {
+                return false;
+            }
+
+            ResolutionKey key = (ResolutionKey) o;
+            return hash == key.hash && className.equals(key.className)
+                    && methodName.equals(key.methodName)
+                    && (methodDesc != null ? methodDesc.equals(key.methodDesc) :
+                    key.methodDesc == null);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    /**
+     * Rate limit window of a message key.
+     */
+    private static final class Window {
+
+        private volatile long start = System.currentTimeMillis();
+
+        private final AtomicInteger count = new AtomicInteger();
+
+        private final AtomicInteger suppressed = new AtomicInteger();
+    }
+}
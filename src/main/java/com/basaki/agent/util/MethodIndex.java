@@ -0,0 +1,237 @@
+/*
+ * Copyright [2017] [Indra Basak]
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.basaki.agent.util;
+
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Method;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * {@code MethodIndex} is an immutable index of the methods declared by a
+ * class, answering lookups by method name and descriptor in constant time.
+ * <p/>
+ * The index keeps method names, descriptors and positions in the class's
+ * declared methods, and holds the resolved {@link Method} array only
+ * weakly, so a cached index doesn't keep the class and its class loader
+ * reachable. A lookup takes the method at the indexed position of that
+ * array. The array is fetched again with {@link Class#getDeclaredMethods()}
+ * only after a collection cleared it, and a fetched method is checked,
+ * falling back to a scan if the methods are handed out in a different
+ * order.
+ * <p/>
+ * Descriptors are only built for overloaded method names. A uniquely named
+ * method is matched by walking the requested descriptor against the
+ * method's parameter and return types, without building a string.
+ *
+ * @author Indra Basak
+ * @since 10/18/26
+ */
+public class MethodIndex {
+
+    /**
+     * Method name to either the position of the method (unique name) or a
+     * map of descriptor to position (overloaded name).
+     */
+    private final Map<String, Object> methods;
+
+    /**
+     * Declared methods of the indexed class, in the indexed order.
+     */
+    private volatile WeakReference<Method[]> declaredMethods;
+
+    /**
+     * Constructs a <code>MethodIndex</code> of the methods declared by a
+     * class.
+     *
+     * @param clazz class to be indexed
+     */
+    @SuppressWarnings("unchecked")
+    public MethodIndex(Class<?> clazz) {
+        Method[] declared = clazz.getDeclaredMethods();
+        declaredMethods = new WeakReference<Method[]>(declared);
+        methods = new HashMap<String, Object>(declared.length * 2);
+
+        for (int i = 0; i < declared.length; i++) {
+            Method method = declared[i];
+            String name = method.getName();
+            Object existing = methods.get(name);
+            if (existing == null) {
+                methods.put(name, i);
+            } else {
+                Map<String, Integer> overloads;
+                if (existing instanceof Integer) {
+                    Integer first = (Integer) existing;
+                    overloads = new HashMap<String, Integer>(4);
+                    overloads.put(MethodUtil.getMethodDescriptor(
+                            declared[first]), first);
+                    methods.put(name, overloads);
+                } else {
+                    overloads = (Map<String, Integer>) existing;
+                }
+
+                String desc = MethodUtil.getMethodDescriptor(method);
+                if (!overloads.containsKey(desc)) {
+                    overloads.put(desc, i);
+                }
+            }
+        }
+    }
+
+    /**
+     * Finds a method of the indexed class by name and descriptor.
+     *
+     * @param clazz      indexed class
+     * @param methodName method name
+     * @param methodDesc method descriptor
+     * @return {@link Method} object if the method is found, null otherwise
+     */
+    @SuppressWarnings("unchecked")
+    public Method find(Class<?> clazz, String methodName, String methodDesc) {
+        if (methodDesc == null) {
+            return null;
+        }
+
+        Object entry = methods.get(methodName);
+        Integer position = null;
+        if (entry instanceof Integer) {
+            position = (Integer) entry;
+        } else if (entry != null) {
+            position = ((Map<String, Integer>) entry).get(methodDesc);
+        }
+        if (position == null) {
+            return null;
+        }
+
+        Method[] declared = getDeclaredMethods(clazz);
+        if (position < declared.length && isMethod(declared[position],
+                methodName, methodDesc)) {
+            return declared[position];
+        }
+
+        for (Method method : declared) {
+            if (isMethod(method, methodName, methodDesc)) {
+                return method;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Retrieves the declared methods of the indexed class, fetching them
+     * again only if they have been collected.
+     *
+     * @param clazz indexed class
+     * @return declared methods
+     */
+    private Method[] getDeclaredMethods(Class<?> clazz) {
+        Method[] declared = declaredMethods.get();
+        if (declared == null) {
+            declared = clazz.getDeclaredMethods();
+            declaredMethods = new WeakReference<Method[]>(declared);
+        }
+
+        return declared;
+    }
+
+    private static boolean isMethod(Method method, String methodName,
+            String methodDesc) {
+        return method.getName().equals(methodName)
+                && matches(method, methodDesc);
+    }
+
+    /**
+     * Checks a method against a method descriptor without building the
+     * method's descriptor.
+     *
+     * @param method     class method
+     * @param methodDesc method descriptor
+     * @return true if the descriptor describes the method
+     */
+    public static boolean matches(Method method, String methodDesc) {
+        if (methodDesc.isEmpty() || methodDesc.charAt(0) != '(') {
+            return false;
+        }
+
+        int pos = 1;
+        for (Class<?> type : method.getParameterTypes()) {
+            pos = match(type, methodDesc, pos);
+            if (pos == -1) {
+                return false;
+            }
+        }
+
+        if (pos >= methodDesc.length() || methodDesc.charAt(pos) != ')') {
+            return false;
+        }
+
+        pos = match(method.getReturnType(), methodDesc, pos + 1);
+
+        return pos == methodDesc.length();
+    }
+
+    /**
+     * Matches a single type at a position of a descriptor.
+     *
+     * @param type class to be matched
+     * @param desc method descriptor
+     * @param pos  position of the type in the descriptor
+     * @return position after the type if it matches, -1 otherwise
+     */
+    private static int match(Class<?> type, String desc, int pos) {
+        Class<?> d = type;
+        int i = pos;
+        int length = desc.length();
+        while (d.isArray()) {
+            if (i >= length || desc.charAt(i) != '[') {
+                return -1;
+            }
+            i++;
+            d = d.getComponentType();
+        }
+
+        if (i >= length) {
+            return -1;
+        }
+
+        if (d.isPrimitive()) {
+            return desc.charAt(i) == MethodUtil.getPrimitiveType(d) ? i + 1 :
+                    -1;
+        }
+
+        if (desc.charAt(i++) != 'L') {
+            return -1;
+        }
+
+        String name = d.getName();
+        int nameLength = name.length();
+        if (i + nameLength >= length) {
+            return -1;
+        }
+
+        for (int j = 0; j < nameLength; j++) {
+            char ch = name.charAt(j);
+            if (desc.charAt(i + j) != (ch == '.' ? '/' : ch)) {
+                return -1;
+            }
+        }
+
+        i += nameLength;
+
+        return desc.charAt(i) == ';' ? i + 1 : -1;
+    }
+}
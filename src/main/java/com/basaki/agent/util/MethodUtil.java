@@ -15,6 +15,7 @@
 
 package com.basaki.agent.util;
 
+import com.basaki.agent.cache.WeakClassCache;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Method;
 
@@ -29,9 +30,18 @@ import java.lang.reflect.Method;
 @SuppressWarnings("squid:CommentedOutCodeLine")
 public class MethodUtil {
 
+    /**
+     * Method indexes hold no reference to their class, so an index goes
+     * away with its class.
+     */
+    private static final WeakClassCache<MethodIndex> INDEXES =
+            new WeakClassCache<MethodIndex>(
+                    Config.getInt("cache.maxMethodIndexes", 10000));
+
     /**
      * Finds a {@link Method} object based on class, method name, and a
-     * method descriptor.
+     * method descriptor. The declared methods of a class are indexed on the
+     * first lookup.
      *
      * @param clazz      class of the method to be retrieved
      * @param methodName method name
@@ -40,17 +50,22 @@ public class MethodUtil {
      */
     public static Method findMethod(Class<?> clazz, String methodName,
             String methodDesc) {
-        for (Method method : clazz.getDeclaredMethods()) {
-            if (method.getName().equals(methodName)) {
-                String desc = getMethodDescriptor(method.getReturnType(),
-                        method.getParameterTypes());
+        return getMethodIndex(clazz).find(clazz, methodName, methodDesc);
+    }
 
-                if (desc.equals(methodDesc)) {
-                    return method;
-                }
-            }
+    /**
+     * Retrieves the method index of a class, building it if necessary.
+     *
+     * @param clazz indexed class
+     * @return method index of the class
+     */
+    public static MethodIndex getMethodIndex(Class<?> clazz) {
+        MethodIndex index = INDEXES.get(clazz);
+        if (index == null) {
+            index = INDEXES.putIfAbsent(clazz, new MethodIndex(clazz));
         }
-        return null;
+
+        return index;
     }
 
     /**
@@ -73,6 +88,18 @@ public class MethodUtil {
         return null;
     }
 
+    /**
+     * Creates the descriptor of a method, e.g.,
+     * {@code (Ljava/lang/String;)Ljava/lang/String;}.
+     *
+     * @param method class method
+     * @return method descriptor
+     */
+    public static String getMethodDescriptor(Method method) {
+        return getMethodDescriptor(method.getReturnType(),
+                method.getParameterTypes());
+    }
+
     /**
      * Creates a method descriptor based on method return type and parameter
      * types.
@@ -124,7 +151,7 @@ public class MethodUtil {
         }
     }
 
-    private static char getPrimitiveType(Class<?> d) {
+    static char getPrimitiveType(Class<?> d) {
         char ch;
         if (d == Integer.TYPE) {
             ch = 'I';
@@ -0,0 +1,190 @@
+/*
+ * Copyright [2017] [Indra Basak]
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.basaki.agent.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * {@code MetricNameTemplate} is a metric name template from a PBD, e.g.,
+ * {@code REST|Spring|{path}|{op}|{classname}|{method}}, compiled into
+ * literal and placeholder segments. A template is compiled once and
+ * rendered in a single pass into a pre-sized buffer, whatever the number of
+ * placeholders.
+ * <p/>
+ * Placeholders without a value, e.g., {@code {classname}} and {@code
+ * {method}} which are filled in by the agent, are rendered as is.
+ * <pre>
+ *     Map&lt;String, String&gt; values = new HashMap&lt;String, String&gt;();
+ *     values.put("{path}", path);
+ *     String name = MetricNameTemplate.compile(template).render(values);
+ * </pre>
+ *
+ * @author Indra Basak
+ * @since 10/18/26
+ */
+public class MetricNameTemplate {
+
+    private static final int MAX_TEMPLATES =
+            Config.getInt("cache.maxTemplates", 1000);
+
+    private static final ConcurrentMap<String, MetricNameTemplate> TEMPLATES =
+            new ConcurrentHashMap<String, MetricNameTemplate>();
+
+    private final String template;
+
+    /**
+     * Template segments. A segment is either a literal or, if the matching
+     * {@link #placeholders} element is true, a placeholder including its
+     * braces.
+     */
+    private final String[] segments;
+
+    private final boolean[] placeholders;
+
+    private final int literalLength;
+
+    MetricNameTemplate(String template) {
+        this.template = template;
+
+        List<String> parts = new ArrayList<String>();
+        List<Boolean> kinds = new ArrayList<Boolean>();
+        int length = template.length();
+        int start = 0;
+        int pos = 0;
+        while (pos < length) {
+            int open = template.indexOf('{', pos);
+            int close = open >= 0 ? template.indexOf('}', open + 1) : -1;
+            if (open < 0 || close < 0) {
+                break;
+            }
+
+            int nested = template.indexOf('{', open + 1);
+            if (nested >= 0 && nested < close) {
+                pos = nested;
+                continue;
+            }
+
+            if (open > start) {
+                parts.add(template.substring(start, open));
+                kinds.add(Boolean.FALSE);
+            }
+            parts.add(template.substring(open, close + 1));
+            kinds.add(Boolean.TRUE);
+            start = close + 1;
+            pos = start;
+        }
+
+        if (start < length) {
+            parts.add(template.substring(start));
+            kinds.add(Boolean.FALSE);
+        }
+
+        segments = parts.toArray(new String[parts.size()]);
+        placeholders = new boolean[segments.length];
+        int literals = 0;
+        for (int i = 0; i < segments.length; i++) {
+            placeholders[i] = kinds.get(i);
+            if (!placeholders[i]) {
+                literals += segments[i].length();
+            }
+        }
+        literalLength = literals;
+    }
+
+    /**
+     * Retrieves the compiled form of a template. Compiled templates are
+     * cached up to {@code cache.maxTemplates} distinct templates.
+     *
+     * @param template metric name template
+     * @return compiled template
+     */
+    public static MetricNameTemplate compile(String template) {
+        MetricNameTemplate compiled = TEMPLATES.get(template);
+        if (compiled == null) {
+            compiled = new MetricNameTemplate(template);
+            if (TEMPLATES.size() < MAX_TEMPLATES) {
+                MetricNameTemplate existing =
+                        TEMPLATES.putIfAbsent(template, compiled);
+                if (existing != null) {
+                    compiled = existing;
+                }
+            }
+        }
+
+        return compiled;
+    }
+
+    public String getTemplate() {
+        return template;
+    }
+
+    /**
+     * Retrieves the placeholders of the template in order of appearance.
+     *
+     * @return placeholder names including their braces
+     */
+    public List<String> getPlaceholders() {
+        List<String> names = new ArrayList<String>();
+        for (int i = 0; i < segments.length; i++) {
+            if (placeholders[i]) {
+                names.add(segments[i]);
+            }
+        }
+
+        return names;
+    }
+
+    /**
+     * Renders the template.
+     *
+     * @param values placeholder values keyed by placeholder including its
+     *               braces, e.g., {@code {path}}
+     * @return rendered metric name
+     */
+    public String render(Map<String, String> values) {
+        if (segments.length == 1 && !placeholders[0]) {
+            return template;
+        }
+
+        String[] resolved = new String[segments.length];
+        int length = literalLength;
+        for (int i = 0; i < segments.length; i++) {
+            if (placeholders[i]) {
+                String value = values.get(segments[i]);
+                resolved[i] = value != null ? value : segments[i];
+                length += resolved[i].length();
+            } else {
+                resolved[i] = segments[i];
+            }
+        }
+
+        StringBuilder builder = new StringBuilder(length);
+        for (String segment : resolved) {
+            builder.append(segment);
+        }
+
+        return builder.toString();
+    }
+
+    @Override
+    public String toString() {
+        return template;
+    }
+}
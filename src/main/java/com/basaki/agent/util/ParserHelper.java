@@ -17,6 +17,8 @@ package com.basaki.agent.util;
 
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Method;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * {@code RequestMappingParser} parses a
@@ -30,6 +32,20 @@ import java.lang.reflect.Method;
 @SuppressWarnings({"squid:S106"})
 public class ParserHelper {
 
+    private static final String FRONTEND_APPS_PREFIX = "Frontends|Apps|";
+
+    private static final int MAX_FRONT_BOUNDARIES =
+            Config.getInt("cache.maxFrontBoundaries", 256);
+
+    /**
+     * Marks a front boundary without an application name, since a concurrent
+     * map can't hold null values.
+     */
+    private static final String NO_APP = new String("");
+
+    private static final ConcurrentMap<String, String> APP_NAMES =
+            new ConcurrentHashMap<String, String>();
+
     private ParserHelper() {
 
     }
@@ -83,22 +99,66 @@ public class ParserHelper {
     }
 
     /**
-     * Retrieves front end application name from the front end boundary
+     * Retrieves front end application name from the front end boundary,
+     * e.g., {@code myapp} from {@code Frontends|Apps|myapp|hello}. A JVM only
+     * sees a handful of distinct front boundaries, so the names are cached
+     * up to {@code cache.maxFrontBoundaries} front boundaries. A cached
+     * lookup only reads shared state, so threads serving different front
+     * boundaries don't contend.
      *
      * @param frontBoundary front end boundary path
      * @return front end application name
      */
     public static String getFrontendAppName(String frontBoundary) {
-        String app = null;
+        if (frontBoundary == null) {
+            return null;
+        }
 
-        if (frontBoundary != null
-                && frontBoundary.startsWith("Frontends|Apps|")) {
-            String[] tokens = frontBoundary.split("\\|");
-            if (tokens.length > 2) {
-                app = tokens[2];
+        String app = APP_NAMES.get(frontBoundary);
+        if (app == null) {
+            app = parseFrontendAppName(frontBoundary);
+            if (app == null) {
+                app = NO_APP;
+            }
+            if (APP_NAMES.size() < MAX_FRONT_BOUNDARIES) {
+                APP_NAMES.putIfAbsent(frontBoundary, app);
             }
         }
-        return app;
+
+        return app != NO_APP ? app : null;
+    }
+
+    /**
+     * Extracts the front end application name, i.e., the third '|'
+     * separated token, of a front end boundary in a single pass. An empty
+     * name is only returned if a non-empty token follows it, same as {@link
+     * String#split(String)}.
+     *
+     * @param frontBoundary front end boundary path
+     * @return front end application name, null if absent
+     */
+    static String parseFrontendAppName(String frontBoundary) {
+        if (!frontBoundary.startsWith(FRONTEND_APPS_PREFIX)) {
+            return null;
+        }
+
+        int start = FRONTEND_APPS_PREFIX.length();
+        int end = frontBoundary.indexOf('|', start);
+        if (end < 0) {
+            end = frontBoundary.length();
+        }
+
+        if (end > start) {
+            return frontBoundary.substring(start, end);
+        }
+
+        for (int i = end; i < frontBoundary.length(); i++) {
+            if (frontBoundary.charAt(i) != '|') {
+                return "";
+            }
+        }
+
+        return null;
     }
 
     /**
@@ -127,100 +187,22 @@ public class ParserHelper {
         return params;
     }
 
+    /**
+     * Parses an annotation string representation and converts it into a
+     * <code>RestAnnotation</code> object.
+     *
+     * @param annoStr string representation of an annotation
+     * @return object representation of the annotation, null if the string
+     * isn't an annotation
+     * @see AnnotationStringParser
+     */
     public static RestAnnotation parseAnnotation(String annoStr) {
-        RestAnnotation anno = null;
-
-        if (annoStr != null && annoStr.startsWith("@")) {
-            anno = new RestAnnotation();
-
-            char[] chars = annoStr.toCharArray();
-            int startIndex = 1;
-            int currentIndex = parseAnnotationName(chars, 1, anno);
-            if (startIndex == currentIndex) {
-                return null;
-            }
-            parseParams(chars, currentIndex, anno);
-        }
-
-        return anno;
-    }
-
-    private static int parseAnnotationName(char[] chars, int beginIndex,
-            RestAnnotation anno) {
-        int returnIndex = beginIndex;
-        StringBuilder bldr = new StringBuilder();
-        for (int i = beginIndex; i < chars.length; i++) {
-            if (chars[i] != '(') {
-                bldr.append(chars[i]);
-            } else {
-                String annotionClass = bldr.toString();
-                anno.setAnnotationClass(annotionClass);
-                returnIndex = i;
-                break;
-            }
+        AnnotationStringParser parser = AnnotationStringParser.get();
+        if (!parser.parse(annoStr)) {
+            return null;
         }
 
-        return returnIndex;
-    }
-
-    private static int parseParams(char[] chars, int beginIndex,
-            RestAnnotation anno) {
-        int returnIndex = beginIndex;
-        StringBuilder bldr = new StringBuilder();
-        String key = null;
-        String value;
-        boolean done = false;
-        for (int i = beginIndex; i < chars.length; i++) {
-            returnIndex = i;
-            if (done) {
-                break;
-            }
-
-            switch (chars[i]) {
-                case '(':
-                case '[':
-                    //do nothing
-                    break;
-                case '=':
-                    key = bldr.toString().trim();
-                    bldr.setLength(0);
-                    break;
-                case ']':
-                    value = bldr.toString().trim();
-                    addParamValue(key, value, anno);
-                    key = null;
-                    bldr.setLength(0);
-                    break;
-                case ',':
-                    value = bldr.toString().trim();
-                    if (!value.isEmpty() && key != null) {
-                        RestAnnotationParam param = new RestAnnotationParam();
-                        param.setValue(value);
-                        anno.addParam(key, param);
-                    }
-                    bldr.setLength(0);
-                    break;
-                case ')':
-                    value = bldr.toString().trim();
-                    addParamValue(key, value, anno);
-                    done = true;
-                    break;
-                default:
-                    bldr.append(chars[i]);
-                    break;
-            }
-        }
-
-        return returnIndex;
-    }
-
-    private static void addParamValue(String key, String value,
-            RestAnnotation anno) {
-        if (key != null && !value.isEmpty()) {
-            RestAnnotationParam param = new RestAnnotationParam();
-            param.setValue(value);
-            anno.addParam(key, param);
-        }
+        return parser.toRestAnnotation();
     }
 
     /**
@@ -236,19 +218,15 @@ public class ParserHelper {
         int start = reqMapping.indexOf(paramPrefix);
         if (start > -1) {
             start += paramPrefix.length();
-            String param = reqMapping.substring(start);
 
-            int end = param.indexOf(']');
+            int end = reqMapping.indexOf(']', start);
             if (end == -1) {
-                end = param.indexOf(')');
+                end = reqMapping.indexOf(')', start);
             }
 
-            param = param.substring(0, end);
-            if (param.isEmpty()) {
-                param = null;
+            if (end > start) {
+                returnVal = reqMapping.substring(start, end);
             }
-
-            returnVal = param;
         }
 
         return returnVal;
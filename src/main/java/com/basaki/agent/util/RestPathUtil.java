@@ -0,0 +1,85 @@
+/*
+ * Copyright [2017] [Indra Basak]
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.basaki.agent.util;
+
+import java.util.List;
+
+/**
+ * {@code RestPathUtil} contains utility methods for reading the path and
+ * other single valued attributes of a parsed REST annotation. The name
+ * formatters and the {@link com.basaki.agent.tool.PbdGenerator} build their
+ * paths with them, so both name an endpoint the same way.
+ * <p/>
+ *
+ * @author Indra Basak
+ * @since 10/18/26
+ */
+public class RestPathUtil {
+
+    private RestPathUtil() {
+
+    }
+
+    /**
+     * Joins the paths of a class level and a method level annotation. A
+     * method path without a leading '/' gets one.
+     *
+     * @param classAnno  class level annotation, may be null
+     * @param methodAnno method level annotation, may be null
+     * @return joined path, null if neither annotation has a path
+     */
+    public static String joinPath(RestAnnotation classAnno,
+            RestAnnotation methodAnno) {
+        String path = getPathValue(classAnno);
+        String value = getPathValue(methodAnno);
+        if (value != null) {
+            String suffix = value.startsWith("/") ? value : "/" + value;
+            path = path != null ? path + suffix : suffix;
+        }
+
+        return path;
+    }
+
+    /**
+     * Retrieves the path of an annotation. Spring's {@code path} attribute is
+     * an alias of {@code value} and is used when {@code value} is empty.
+     *
+     * @param anno rest annotation, may be null
+     * @return path value if present, null otherwise
+     */
+    public static String getPathValue(RestAnnotation anno) {
+        String value = getValue(anno, "value");
+        return value != null ? value : getValue(anno, "path");
+    }
+
+    /**
+     * Retrieves the value of a single valued annotation attribute.
+     *
+     * @param anno      rest annotation, may be null
+     * @param paramName attribute name
+     * @return attribute value if present and single valued, null otherwise
+     */
+    public static String getValue(RestAnnotation anno, String paramName) {
+        String paramValue = null;
+        if (anno != null) {
+            List<IAnnotation> params = anno.getParam(paramName);
+            if (params != null && params.size() == 1) {
+                paramValue = ((RestAnnotationParam) params.get(0)).getValue();
+            }
+        }
+
+        return paramValue;
+    }
+}
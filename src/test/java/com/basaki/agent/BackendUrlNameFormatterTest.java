@@ -0,0 +1,97 @@
+/*
+ * Copyright [2017] [Indra Basak]
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.basaki.agent;
+
+import com.basaki.agent.cache.CardinalityLimiter;
+import com.wily.introscope.agent.IAgent;
+import com.wily.introscope.agent.trace.InvocationData;
+import java.net.URI;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * {@code BackendUrlNameFormatterTest} is an unit test for {@link
+ * BackendUrlNameFormatter}.
+ * <p/>
+ *
+ * @author Indra Basak
+ * @since 10/18/26
+ */
+public class BackendUrlNameFormatterTest {
+
+    private InvocationData data;
+
+    private BackendUrlNameFormatter formatter;
+
+    @Before
+    public void setUp() {
+        data = mock(InvocationData.class);
+        formatter = new BackendUrlNameFormatter(mock(IAgent.class));
+    }
+
+    @Test
+    public void testINameFormatter_format() {
+        when(data.getInvocationParameters()).thenReturn(
+                new Object[]{"http://books:8080/books/1234?lang=en",
+                        String.class});
+        assertEquals("REST GET call at http://books:8080/books/{number}",
+                formatter.INameFormatter_format("REST GET call at {0}",
+                        data));
+    }
+
+    @Test
+    public void testUriINameFormatter_format() {
+        when(data.getInvocationParameters()).thenReturn(
+                new Object[]{URI.create("http://books/books/42")});
+        assertEquals("REST call at http://books/books/{number}",
+                formatter.INameFormatter_format("REST call at {0}", data));
+    }
+
+    @Test
+    public void testOverflowINameFormatter_format() {
+        formatter = new BackendUrlNameFormatter(mock(IAgent.class),
+                new CardinalityLimiter(1, 10));
+        when(data.getInvocationParameters()).thenReturn(
+                new Object[]{"http://books/books/42"},
+                new Object[]{"http://books/authors/7"},
+                new Object[]{"http://books/books/43"});
+        assertEquals("REST call at http://books/books/{number}",
+                formatter.INameFormatter_format("REST call at {0}", data));
+        assertEquals("REST call at " + CardinalityLimiter.OVERFLOW_PATH,
+                formatter.INameFormatter_format("REST call at {0}", data));
+        assertEquals("REST call at http://books/books/{number}",
+                formatter.INameFormatter_format("REST call at {0}", data));
+        assertEquals(1, formatter.getCardinalityLimiter().getFoldedCount());
+    }
+
+    @Test
+    public void testSharedLimiter() {
+        assertSame(CardinalityLimiter.getDefault(),
+                formatter.getCardinalityLimiter());
+    }
+
+    @Test
+    public void testNoUrlINameFormatter_format() {
+        when(data.getInvocationParameters()).thenReturn(new Object[0]);
+        assertEquals("REST call at unknown",
+                formatter.INameFormatter_format("REST call at {0}", data));
+    }
+}
@@ -15,6 +15,7 @@
 
 package com.basaki.agent;
 
+import com.basaki.agent.jaxrs.HelloWorldJaxrsResource;
 import com.basaki.agent.jaxrs.HelloWorldJaxrsService;
 import com.wily.introscope.agent.IAgent;
 import com.wily.introscope.agent.blame.ComponentTracer;
@@ -35,6 +36,7 @@ import com.wily.util.properties.AttributeListing;
 import com.wily.util.text.IStringLocalizer;
 import com.wily.util.text.StringLocalizerHandle;
 import com.wily.util.thread.DefaultThreadFactory;
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 
@@ -83,6 +85,11 @@ public class JaxrsNameFormatterTest {
         formatter = new JaxrsNameFormatter(agent);
     }
 
+    @After
+    public void tearDown() {
+        formatter.close();
+    }
+
     @Test
     public void testINameFormatter_format() {
         String metricPath =
@@ -91,15 +98,33 @@ public class JaxrsNameFormatterTest {
         assertEquals("REST|JAXRS|/hello/{param}|GET", metricPath);
     }
 
-    private InvocationData getInvocationData() {
-        ComponentTracer tracer =
-                new ComponentTracer(agent, BlameStackSnapshotPolicy.kFullBlame);
+    @Test
+    public void testInterfaceINameFormatter_format() {
+        ProbeIdentification probe =
+                new ProbeIdentification("HelloWorldJaxrsResource", "getMessage",
+                        "(Ljava/lang/String;)Ljavax/ws/rs/core/Response;",
+                        "com.basaki.agent.jaxrs.HelloWorldJaxrsResource");
+        String metricPath =
+                formatter.INameFormatter_format("REST|JAXRS|{path}|GET",
+                        getInvocationData(probe,
+                                new HelloWorldJaxrsResource()));
+        assertEquals("REST|JAXRS|/api/{id}|GET", metricPath);
+    }
 
+    private InvocationData getInvocationData() {
         ProbeIdentification probe =
                 new ProbeIdentification("HelloWorldJaxrsService", "getMessage",
                         "(Ljava/lang/String;)Ljavax/ws/rs/core/Response;",
                         "com.basaki.agent.jaxrs.HelloWorldJaxrsService");
 
+        return getInvocationData(probe, new HelloWorldJaxrsService());
+    }
+
+    private InvocationData getInvocationData(ProbeIdentification probe,
+            Object obj) {
+        ComponentTracer tracer =
+                new ComponentTracer(agent, BlameStackSnapshotPolicy.kFullBlame);
+
         FrontendTracer frontendTracer =
                 new FrontendTracer(agent, new AttributeListing(), probe,
                         new HelloWorldJaxrsService());
@@ -110,8 +135,7 @@ public class JaxrsNameFormatterTest {
                 new ProbeInformation(agent, probe, tracerFactory);
 
         InvocationData data =
-                InvocationData.debug_createInvocationData(agent, info,
-                        new HelloWorldJaxrsService());
+                InvocationData.debug_createInvocationData(agent, info, obj);
         data.IMethodTracer_startTrace();
         data.IMethodTracer_finishTrace();
 
@@ -0,0 +1,402 @@
+/*
+ * Copyright [2017] [Indra Basak]
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.basaki.agent;
+
+import com.basaki.agent.jaxrs.HelloWorldJaxrsService;
+import com.basaki.agent.spring.HelloWorldNoopSpringService;
+import com.basaki.agent.spring.HelloWorldRestSpringService;
+import com.basaki.agent.spring.HelloWorldSpringService;
+import com.basaki.agent.util.Config;
+import com.wily.introscope.agent.IAgent;
+import com.wily.introscope.agent.enterprise.EnterpriseAgent;
+import com.wily.introscope.agent.extension.IExtensionLocatorPolicy;
+import com.wily.introscope.agent.trace.FrontendTracer;
+import com.wily.introscope.agent.trace.ITracerFactory;
+import com.wily.introscope.agent.trace.InvocationData;
+import com.wily.introscope.agent.trace.ProbeIdentification;
+import com.wily.introscope.agent.trace.ProbeInformation;
+import com.wily.util.extension.IExtensionLocator;
+import com.wily.util.feedback.ApplicationFeedback;
+import com.wily.util.feedback.IModuleFeedbackChannel;
+import com.wily.util.heartbeat.IntervalHeartbeat;
+import com.wily.util.io.ExtendedFile;
+import com.wily.util.properties.AttributeListing;
+import com.wily.util.text.IStringLocalizer;
+import com.wily.util.text.StringLocalizerHandle;
+import com.wily.util.thread.DefaultThreadFactory;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * {@code NameFormatterPerformanceTests} is a stress test which drives the
+ * Spring and JAX-RS name formatters from many threads at once, the way the
+ * agent does from the request threads of an app server.
+ * <p/>
+ * The fixture controllers are redefined in child class loaders, so every
+ * loader contributes a distinct set of controller classes. Each thread
+ * count starts with fresh formatters, so cold resolutions race as well.
+ * Every name is checked against a single threaded reference, and equal
+ * names have to be the same instance. The throughput of each thread count
+ * is reported.
+ * <p/>
+ * The overhead guard, JMX and the metrics are switched off while the test
+ * runs, so the formatters created for each thread count neither register
+ * MBeans and accumulators nor leave out any resolutions.
+ * <p/>
+ * Runs with failsafe, i.e., {@code mvn verify}. The thread counts double up
+ * to {@code stress.maxThreads} (default 256) and the class loaders are set
+ * with {@code stress.loaders} (default 64).
+ *
+ * @author Indra Basak
+ * @since 10/18/26
+ */
+public class NameFormatterPerformanceTests {
+
+    private static final String SPRING_TEMPLATE =
+            "REST|Spring|{path}|{op}|{classname}|{method}";
+
+    private static final String JAXRS_TEMPLATE =
+            "REST|JAXRS|{path}|GET|{classname}|{method}";
+
+    private static final String SPRING_DESC =
+            "(Ljava/lang/String;)Ljava/lang/String;";
+
+    private static final String JAXRS_DESC =
+            "(Ljava/lang/String;)Ljavax/ws/rs/core/Response;";
+
+    private static final Class<?>[] SPRING_FIXTURES =
+            {HelloWorldSpringService.class, HelloWorldRestSpringService.class,
+                    HelloWorldNoopSpringService.class};
+
+    private static final Class<?>[] JAXRS_FIXTURES =
+            {HelloWorldJaxrsService.class};
+
+    private static final int MAX_THREADS =
+            Integer.getInteger("stress.maxThreads", 256);
+
+    private static final int LOADERS = Integer.getInteger("stress.loaders", 64);
+
+    private static final int OPERATIONS = 2000000;
+
+    private static final String[] DISABLED =
+            {"overhead.enabled", "jmx.enabled", "metrics.enabled"};
+
+    private final Map<String, String> properties =
+            new HashMap<String, String>();
+
+    private IAgent agent;
+
+    private final List<Invocation> invocations = new ArrayList<Invocation>();
+
+    @Before
+    public void setUp() throws Exception {
+        for (String name : DISABLED) {
+            properties.put(name, System.setProperty(Config.PREFIX + name,
+                    "false"));
+        }
+
+        ApplicationFeedback feedback =
+                new ApplicationFeedback("testApplication", "testModule");
+        IExtensionLocatorPolicy extensionLocatorPolicy =
+                new IExtensionLocatorPolicy() {
+
+                    @Override
+                    public IExtensionLocator createExtensionLocator(
+                            IModuleFeedbackChannel iModuleFeedbackChannel,
+                            IStringLocalizer iStringLocalizer,
+                            ExtendedFile extendedFile) {
+                        return null;
+                    }
+                };
+
+        IntervalHeartbeat heartbeat = new IntervalHeartbeat("test-heartbeat",
+                new DefaultThreadFactory(false), feedback,
+                StringLocalizerHandle.getStringLocalizer(), 20000);
+
+        agent = new EnterpriseAgent(feedback,
+                "com.basaki.agent.NameFormatterPerformanceTests",
+                extensionLocatorPolicy,
+                StringLocalizerHandle.getStringLocalizer(), heartbeat);
+
+        Map<String, byte[]> classes = new HashMap<String, byte[]>();
+        for (Class<?> fixture : SPRING_FIXTURES) {
+            classes.put(fixture.getName(), getBytes(fixture));
+        }
+        for (Class<?> fixture : JAXRS_FIXTURES) {
+            classes.put(fixture.getName(), getBytes(fixture));
+        }
+
+        SpringRestNameFormatter springReference =
+                new SpringRestNameFormatter(agent);
+        JaxrsNameFormatter jaxrsReference = new JaxrsNameFormatter(agent);
+        for (int i = 0; i < LOADERS; i++) {
+            ClassLoader loader =
+                    new FixtureClassLoader(getClass().getClassLoader(),
+                            classes);
+            for (Class<?> fixture : SPRING_FIXTURES) {
+                Object obj = loader.loadClass(fixture.getName()).newInstance();
+                InvocationData data =
+                        createInvocationData(obj, "getMessage", SPRING_DESC);
+                invocations.add(new Invocation(true, SPRING_TEMPLATE, data,
+                        springReference.INameFormatter_format(
+                                SPRING_TEMPLATE, data)));
+            }
+            for (Class<?> fixture : JAXRS_FIXTURES) {
+                Object obj = loader.loadClass(fixture.getName()).newInstance();
+                InvocationData data =
+                        createInvocationData(obj, "getMessage", JAXRS_DESC);
+                invocations.add(new Invocation(false, JAXRS_TEMPLATE, data,
+                        jaxrsReference.INameFormatter_format(JAXRS_TEMPLATE,
+                                data)));
+            }
+        }
+
+        assertEquals(
+                "REST|Spring|/hello/{msg}|GET|{classname}|{method}",
+                invocations.get(0).expected);
+        assertEquals("REST|JAXRS|/hello/{param}|GET|{classname}|{method}",
+                invocations.get(SPRING_FIXTURES.length).expected);
+    }
+
+    @After
+    public void tearDown() {
+        for (Map.Entry<String, String> entry : properties.entrySet()) {
+            if (entry.getValue() == null) {
+                System.clearProperty(Config.PREFIX + entry.getKey());
+            } else {
+                System.setProperty(Config.PREFIX + entry.getKey(),
+                        entry.getValue());
+            }
+        }
+    }
+
+    @Test
+    public void testScaling() throws Exception {
+        // warm up, so the single threaded run isn't measured interpreted
+        run(1);
+
+        double single = 0;
+        for (int threads = 1; threads <= MAX_THREADS; threads *= 2) {
+            double throughput = run(threads);
+            if (threads == 1) {
+                single = throughput;
+            }
+
+            System.out.println(String.format(
+                    "%4d threads: %10.0f ops/ms, %5.2fx of 1 thread",
+                    threads, throughput, throughput / single));
+        }
+    }
+
+    /**
+     * Runs a fixed number of formatter calls spread over a number of
+     * threads with fresh formatters.
+     *
+     * @param threads thread count
+     * @return throughput in operations per millisecond
+     */
+    private double run(int threads) throws Exception {
+        final SpringRestNameFormatter spring =
+                new SpringRestNameFormatter(agent);
+        final JaxrsNameFormatter jaxrs = new JaxrsNameFormatter(agent);
+        final AtomicInteger mismatches = new AtomicInteger();
+        final AtomicReference<String> firstMismatch =
+                new AtomicReference<String>();
+        final Map<String, AtomicReference<String>> instances =
+                new HashMap<String, AtomicReference<String>>();
+        for (Invocation invocation : invocations) {
+            instances.put(invocation.expected, new AtomicReference<String>());
+        }
+
+        final int operations = OPERATIONS / threads;
+        final CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<Void>> futures = new ArrayList<Future<Void>>();
+        for (int t = 0; t < threads; t++) {
+            final int offset = t * 7;
+            futures.add(executor.submit(new Callable<Void>() {
+                @Override
+                public Void call() throws Exception {
+                    start.await();
+                    int size = invocations.size();
+                    for (int i = 0; i < operations; i++) {
+                        Invocation invocation =
+                                invocations.get((offset + i) % size);
+                        BaseRestNameFormatter formatter =
+                                invocation.spring ? spring : jaxrs;
+                        String name = formatter.INameFormatter_format(
+                                invocation.template, invocation.data);
+
+                        AtomicReference<String> instance =
+                                instances.get(invocation.expected);
+                        instance.compareAndSet(null, name);
+                        if (!invocation.expected.equals(name)
+                                || instance.get() != name) {
+                            mismatches.incrementAndGet();
+                            firstMismatch.compareAndSet(null, name + " != "
+                                    + invocation.expected);
+                        }
+                    }
+                    return null;
+                }
+            }));
+        }
+
+        long begin = System.nanoTime();
+        start.countDown();
+        for (Future<Void> future : futures) {
+            future.get();
+        }
+        long elapsed = System.nanoTime() - begin;
+        executor.shutdown();
+        spring.close();
+        jaxrs.close();
+
+        assertNull(firstMismatch.get(), firstMismatch.get());
+        assertEquals(0, mismatches.get());
+        assertEquals(LOADERS * SPRING_FIXTURES.length,
+                spring.getNameCache().size());
+        assertEquals(LOADERS * JAXRS_FIXTURES.length,
+                jaxrs.getNameCache().size());
+        assertTrue(spring.getNameCache().getMissCount()
+                <= spring.getNameCache().getHitCount());
+
+        return (double) operations * threads / (elapsed / 1000000.0);
+    }
+
+    private InvocationData createInvocationData(Object obj, String methodName,
+            String methodDesc) {
+        Class<?> clazz = obj.getClass();
+        ProbeIdentification probe =
+                new ProbeIdentification(clazz.getSimpleName(), methodName,
+                        methodDesc, clazz.getName());
+
+        FrontendTracer frontendTracer =
+                new FrontendTracer(agent, new AttributeListing(), probe,
+                        new HelloWorldJaxrsService()) {
+                    protected boolean hasFrontend() {
+                        return false;
+                    }
+
+                    protected String getFrontendNameForComponent(
+                            String rootName) {
+                        return "Frontends|Apps|Indra";
+                    }
+                };
+        ITracerFactory[] tracerFactory = new ITracerFactory[1];
+        tracerFactory[0] = frontendTracer;
+
+        ProbeInformation info =
+                new ProbeInformation(agent, probe, tracerFactory);
+
+        InvocationData data =
+                InvocationData.debug_createInvocationData(agent, info, obj);
+        data.IMethodTracer_startTrace();
+        data.IMethodTracer_finishTrace();
+
+        return data;
+    }
+
+    private static byte[] getBytes(Class<?> clazz) throws IOException {
+        InputStream in = clazz.getResourceAsStream(
+                clazz.getSimpleName() + ".class");
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+            return out.toByteArray();
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * A formatter call and its expected metric name.
+     */
+    private static class Invocation {
+
+        private final boolean spring;
+
+        private final String template;
+
+        private final InvocationData data;
+
+        private final String expected;
+
+        Invocation(boolean spring, String template, InvocationData data,
+                String expected) {
+            this.spring = spring;
+            this.template = template;
+            this.data = data;
+            this.expected = expected;
+        }
+    }
+
+    /**
+     * Child first class loader which defines its own copy of the fixture
+     * controllers.
+     */
+    private static class FixtureClassLoader extends ClassLoader {
+
+        private final Map<String, byte[]> classes;
+
+        FixtureClassLoader(ClassLoader parent, Map<String, byte[]> classes) {
+            super(parent);
+            this.classes = classes;
+        }
+
+        @Override
+        protected synchronized Class<?> loadClass(String name,
+                boolean resolve) throws ClassNotFoundException {
+            byte[] bytes = classes.get(name);
+            if (bytes == null) {
+                return super.loadClass(name, resolve);
+            }
+
+            Class<?> clazz = findLoadedClass(name);
+            if (clazz == null) {
+                clazz = defineClass(name, bytes, 0, bytes.length);
+            }
+            if (resolve) {
+                resolveClass(clazz);
+            }
+
+            return clazz;
+        }
+    }
+}
@@ -15,10 +15,14 @@
 
 package com.basaki.agent;
 
+import com.basaki.agent.cache.CardinalityLimiter;
 import com.basaki.agent.jaxrs.HelloWorldJaxrsService;
+import com.basaki.agent.jmx.RestFormatter;
+import com.basaki.agent.spring.HelloWorldHandler;
 import com.basaki.agent.spring.HelloWorldNoopSpringService;
 import com.basaki.agent.spring.HelloWorldRestSpringService;
 import com.basaki.agent.spring.HelloWorldSpringService;
+import com.basaki.agent.spring.HelloWorldSpringServiceProxy;
 import com.wily.introscope.agent.IAgent;
 import com.wily.introscope.agent.blame.ComponentTracer;
 import com.wily.introscope.agent.enterprise.EnterpriseAgent;
@@ -38,10 +42,20 @@ import com.wily.util.properties.AttributeListing;
 import com.wily.util.text.IStringLocalizer;
 import com.wily.util.text.StringLocalizerHandle;
 import com.wily.util.thread.DefaultThreadFactory;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import javax.management.ObjectName;
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 
 /**
  * {@code SpringRestNameFormatterTest} is an unit test for {@link
@@ -88,6 +102,11 @@ public class SpringRestNameFormatterTest {
         formatter = new SpringRestNameFormatter(agent);
     }
 
+    @After
+    public void tearDown() {
+        formatter.close();
+    }
+
     @Test
     public void testINameFormatter_format() {
         ProbeIdentification probe =
@@ -101,6 +120,136 @@ public class SpringRestNameFormatterTest {
         assertEquals("REST|Spring|/hello/{msg}|GET", metricPath);
     }
 
+    @Test
+    public void testProxyINameFormatter_format() {
+        ProbeIdentification probe =
+                new ProbeIdentification("HelloWorldBaseSpringService",
+                        "handle",
+                        "(Ljava/lang/String;)Ljava/lang/String;",
+                        "com.basaki.agent.spring.HelloWorldBaseSpringService");
+        String metricPath =
+                formatter.INameFormatter_format("REST|Spring|{path}|{op}",
+                        getInvocationData(probe,
+                                new HelloWorldSpringServiceProxy()));
+        assertEquals("REST|Spring|/base/{msg}|POST", metricPath);
+    }
+
+    @Test
+    public void testCachedINameFormatter_format() {
+        ProbeIdentification probe =
+                new ProbeIdentification("HelloWorldSpringService", "getMessage",
+                        "(Ljava/lang/String;)Ljava/lang/String;",
+                        "com.basaki.agent.spring.HelloWorldSpringService");
+        String first =
+                formatter.INameFormatter_format("REST|Spring|{path}|{op}",
+                        getInvocationData(probe,
+                                new HelloWorldSpringService()));
+        String second =
+                formatter.INameFormatter_format("REST|Spring|{path}|{op}",
+                        getInvocationData(probe,
+                                new HelloWorldSpringService()));
+        assertEquals("REST|Spring|/hello/{msg}|GET", second);
+        assertSame(first, second);
+        assertEquals(1, formatter.getNameCache().getMissCount());
+        assertEquals(1, formatter.getNameCache().getHitCount());
+    }
+
+    @Test
+    public void testSharedCardinalityLimiter() {
+        assertSame(CardinalityLimiter.getDefault(),
+                formatter.getCardinalityLimiter());
+        assertSame(formatter.getCardinalityLimiter(),
+                new JaxrsNameFormatter(agent).getCardinalityLimiter());
+    }
+
+    @Test
+    public void testMBean() throws Exception {
+        assertNull(formatter.getObjectName());
+
+        ProbeIdentification probe =
+                new ProbeIdentification("HelloWorldSpringService", "getMessage",
+                        "(Ljava/lang/String;)Ljava/lang/String;",
+                        "com.basaki.agent.spring.HelloWorldSpringService");
+        formatter.INameFormatter_format("REST|Spring|{path}|{op}",
+                getInvocationData(probe, new HelloWorldSpringService()));
+        ObjectName objectName = formatter.getObjectName();
+        assertEquals(new ObjectName(
+                        "com.basaki.agent:type=RestFormatter,name=SpringRestNameFormatter"),
+                objectName);
+        assertTrue(ManagementFactory.getPlatformMBeanServer().isRegistered(
+                objectName));
+
+        RestFormatter bean = new RestFormatter(formatter);
+        assertEquals(1, bean.getNameCacheSize());
+        assertEquals(1, bean.getCachedClassCount());
+        assertEquals(1, bean.getColdResolutionCount());
+
+        bean.setBatchResolveEnabled(false);
+        assertEquals(false, formatter.isBatchResolveEnabled());
+
+        bean.flushNameCache();
+        assertEquals(0, bean.getNameCacheSize());
+        assertEquals(1, bean.getCachedClassCount());
+
+        int paths = bean.getAgentPathCount();
+        assertTrue(paths > 0);
+        bean.flushAll();
+        assertEquals(0, bean.getCachedClassCount());
+        assertEquals(0, bean.getNameStoreSize());
+        assertEquals(paths, bean.getAgentPathCount());
+
+        formatter.close();
+        assertNull(formatter.getObjectName());
+        assertFalse(ManagementFactory.getPlatformMBeanServer().isRegistered(
+                objectName));
+    }
+
+    @Test
+    public void testDegradedINameFormatter_format() {
+        ProbeIdentification probe =
+                new ProbeIdentification("HelloWorldSpringService", "getMessage",
+                        "(Ljava/lang/String;)Ljava/lang/String;",
+                        "com.basaki.agent.spring.HelloWorldSpringService");
+        formatter.setOverheadGuardEnabled(true);
+        assertTrue(formatter.getOverheadGuard().record(60000000000L));
+        int paths = formatter.getCardinalityLimiter().getPathCount();
+
+        String metricPath =
+                formatter.INameFormatter_format("REST|Spring|{path}|{op}",
+                        getInvocationData(probe,
+                                new HelloWorldSpringService()));
+        assertEquals(
+                "REST|Spring|com.basaki.agent.spring.HelloWorldSpringService|getMessage|noop",
+                metricPath);
+        assertEquals(0, formatter.getNameCache().size());
+        assertEquals(1, formatter.getOverheadGuard().getCheapNameCount());
+        assertEquals(paths, formatter.getCardinalityLimiter().getPathCount());
+        assertSame(metricPath,
+                formatter.INameFormatter_format("REST|Spring|{path}|{op}",
+                        getInvocationData(probe,
+                                new HelloWorldSpringService())));
+
+        Object proxy = Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{HelloWorldHandler.class},
+                new InvocationHandler() {
+                    @Override
+                    public Object invoke(Object obj, Method method,
+                            Object[] args) {
+                        return null;
+                    }
+                });
+        metricPath = formatter.INameFormatter_format("REST|Spring|{path}|{op}",
+                getInvocationData(probe, proxy));
+        assertEquals(
+                "REST|Spring|com.basaki.agent.spring.HelloWorldHandler|getMessage|noop",
+                metricPath);
+
+        formatter.getOverheadGuard().reset();
+        metricPath = formatter.INameFormatter_format("REST|Spring|{path}|{op}",
+                getInvocationData(probe, new HelloWorldSpringService()));
+        assertEquals("REST|Spring|/hello/{msg}|GET", metricPath);
+    }
+
     @Test
     public void testRestControllerINameFormatter_format() {
         ProbeIdentification probe =
@@ -0,0 +1,83 @@
+/*
+ * Copyright [2017] [Indra Basak]
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.basaki.agent.cache;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * {@code CardinalityLimiterTest} is an unit test for {@link
+ * CardinalityLimiter}.
+ * <p/>
+ *
+ * @author Indra Basak
+ * @since 10/18/26
+ */
+public class CardinalityLimiterTest {
+
+    @Test
+    public void testPerAppBudget() {
+        CardinalityLimiter limiter = new CardinalityLimiter(10, 2);
+        assertTrue(limiter.admit("Indra", "/orders/1"));
+        assertTrue(limiter.admit("Indra", "/orders/2"));
+        assertTrue(limiter.admit("Indra", "/orders/1"));
+        assertFalse(limiter.admit("Indra", "/orders/3"));
+        assertFalse(limiter.admit("Indra", "/orders/4"));
+
+        assertTrue(limiter.admit("Basak", "/orders/3"));
+        assertTrue(limiter.admit(null, "/orders/3"));
+
+        assertEquals(2, limiter.getPathCount("Indra"));
+        assertEquals(1, limiter.getPathCount(null));
+        assertEquals(4, limiter.getPathCount());
+        assertEquals(2, limiter.getFoldedCount("Indra"));
+        assertEquals(0, limiter.getFoldedCount("Basak"));
+        assertEquals(2, limiter.getFoldedCount());
+
+        assertEquals("Indra|_overflow_", limiter.getOverflowPath("Indra"));
+        assertEquals("_overflow_", limiter.getOverflowPath(null));
+    }
+
+    @Test
+    public void testGlobalBudget() {
+        CardinalityLimiter limiter = new CardinalityLimiter(2, 10);
+        assertTrue(limiter.admit("Indra", "/a"));
+        assertTrue(limiter.admit("Basak", "/a"));
+        assertFalse(limiter.admit("Indra", "/b"));
+        assertTrue(limiter.admit("Basak", "/a"));
+
+        assertEquals(2, limiter.getPathCount());
+        assertEquals(1, limiter.getPathCount("Indra"));
+        assertEquals(1, limiter.getFoldedCount());
+    }
+
+    @Test
+    public void testReset() {
+        CardinalityLimiter limiter = new CardinalityLimiter(1, 10);
+        assertTrue(limiter.admit("Indra", "/a"));
+        assertFalse(limiter.admit("Indra", "/b"));
+
+        limiter.reset();
+        assertEquals(0, limiter.getPathCount());
+        assertEquals(0, limiter.getPathCount("Indra"));
+        assertEquals(0, limiter.getFoldedCount());
+        assertTrue(limiter.admit("Indra", "/b"));
+        assertFalse(limiter.admit("Indra", "/a"));
+    }
+}
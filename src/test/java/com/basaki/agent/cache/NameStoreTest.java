@@ -0,0 +1,66 @@
+/*
+ * Copyright [2017] [Indra Basak]
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.basaki.agent.cache;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+/**
+ * {@code NameStoreTest} is an unit test for {@link NameStore}.
+ * <p/>
+ *
+ * @author Indra Basak
+ * @since 10/18/26
+ */
+public class NameStoreTest {
+
+    @Test
+    public void testCanonicalize() {
+        NameStore store = new NameStore(10);
+        String first = new String("Indra|/orders/{id}");
+        String second = new String("Indra|/orders/{id}");
+        assertNotSame(first, second);
+
+        assertSame(first, store.canonicalize(first));
+        assertSame(first, store.canonicalize(second));
+        assertNull(store.canonicalize(null));
+        assertEquals(1, store.size());
+        assertEquals(NameStore.ENTRY_OVERHEAD + 2 * first.length(),
+                store.getApproximateBytes());
+    }
+
+    @Test
+    public void testBounded() {
+        NameStore store = new NameStore(2);
+        store.canonicalize("a");
+        store.canonicalize("b");
+
+        String third = new String("c");
+        assertSame(third, store.canonicalize(third));
+        assertNotSame(third, store.canonicalize(new String("c")));
+        assertEquals(2, store.size());
+        assertEquals(2, store.getRejectionCount());
+
+        store.clear();
+        assertEquals(0, store.size());
+        assertEquals(0, store.getApproximateBytes());
+        assertSame(third, store.canonicalize(third));
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright [2017] [Indra Basak]
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.basaki.agent.cache;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * {@code ResolvedNameCacheTest} is an unit test for {@link
+ * ResolvedNameCache}.
+ * <p/>
+ *
+ * @author Indra Basak
+ * @since 10/18/26
+ */
+public class ResolvedNameCacheTest {
+
+    @Test
+    public void testGetAndPut() {
+        ResolvedNameCache cache = new ResolvedNameCache();
+        assertNull(cache.get(String.class, "substring",
+                "(II)Ljava/lang/String;", null, "REST|{path}"));
+        assertEquals(0, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+
+        cache.put(String.class, "substring", "(II)Ljava/lang/String;", null,
+                "REST|{path}", "REST|/hello");
+        assertEquals("REST|/hello", cache.get(String.class, "substring",
+                "(II)Ljava/lang/String;", null, "REST|{path}"));
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void testKeyIncludesFrontBoundaryAndTemplate() {
+        ResolvedNameCache cache = new ResolvedNameCache();
+        cache.put(String.class, "trim", "()Ljava/lang/String;", null,
+                "REST|{path}", "REST|/hello");
+
+        assertNull(cache.get(String.class, "trim", "()Ljava/lang/String;",
+                "Frontends|Apps|myapp", "REST|{path}"));
+        assertNull(cache.get(String.class, "trim", "()Ljava/lang/String;",
+                null, "REST|{path}|{op}"));
+        assertNull(cache.get(Integer.class, "trim", "()Ljava/lang/String;",
+                null, "REST|{path}"));
+
+        cache.clear();
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testCheapNamesKeptApart() {
+        ResolvedNameCache cache = new ResolvedNameCache();
+        ClassMetadata metadata = cache.getMetadataCache().getMetadata(
+                String.class);
+        metadata.putCheapName("trim", "()Ljava/lang/String;", null,
+                "REST|{path}", "REST|java.lang.String|trim");
+
+        assertNull(cache.get(String.class, "trim", "()Ljava/lang/String;",
+                null, "REST|{path}"));
+        assertEquals(0, cache.size());
+        assertEquals("REST|java.lang.String|trim", metadata.getCheapName(
+                "trim", "()Ljava/lang/String;", null, "REST|{path}"));
+
+        cache.clear();
+        assertNull(metadata.getCheapName("trim", "()Ljava/lang/String;",
+                null, "REST|{path}"));
+    }
+}
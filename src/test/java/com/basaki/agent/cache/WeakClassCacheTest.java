@@ -0,0 +1,124 @@
+/*
+ * Copyright [2017] [Indra Basak]
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.basaki.agent.cache;
+
+import java.net.URL;
+import java.net.URLClassLoader;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * {@code WeakClassCacheTest} is an unit test for {@link WeakClassCache}.
+ * <p/>
+ *
+ * @author Indra Basak
+ * @since 10/18/26
+ */
+public class WeakClassCacheTest {
+
+    @Test
+    public void testPutIfAbsent() {
+        WeakClassCache<String> cache = new WeakClassCache<String>(10);
+        assertNull(cache.get(String.class));
+        assertEquals("first", cache.putIfAbsent(String.class, "first"));
+        assertEquals("first", cache.putIfAbsent(String.class, "second"));
+        assertEquals("first", cache.get(String.class));
+        assertEquals(1, cache.size());
+
+        assertEquals("first", cache.remove(String.class));
+        assertNull(cache.get(String.class));
+    }
+
+    @Test
+    public void testEvictBySize() {
+        WeakClassCache<String> cache = new WeakClassCache<String>(2);
+        cache.putIfAbsent(String.class, "string");
+        cache.putIfAbsent(Integer.class, "integer");
+        cache.putIfAbsent(Long.class, "long");
+
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.getEvictionCount());
+    }
+
+    @Test
+    public void testEvictOlderEntry() {
+        WeakClassCache<String> cache = new WeakClassCache<String>(2);
+        Class<?>[] classes = {String.class, Integer.class, Long.class,
+                Short.class, Byte.class, Double.class, Float.class};
+        for (Class<?> clazz : classes) {
+            cache.putIfAbsent(clazz, clazz.getSimpleName());
+            assertEquals(clazz.getSimpleName(), cache.get(clazz));
+            assertTrue(cache.size() <= 2);
+        }
+        assertEquals(classes.length - 2, cache.getEvictionCount());
+    }
+
+    @Test
+    public void testSecondChance() {
+        WeakClassCache<String> cache = new WeakClassCache<String>(2);
+        cache.putIfAbsent(String.class, "string");
+        cache.putIfAbsent(Integer.class, "integer");
+        cache.putIfAbsent(Long.class, "long");
+        Class<?> kept = cache.get(String.class) != null ? String.class :
+                Integer.class;
+
+        cache.get(kept);
+        cache.putIfAbsent(Short.class, "short");
+        assertNotNull(cache.get(kept));
+        assertNotNull(cache.get(Short.class));
+        assertNull(cache.get(Long.class));
+    }
+
+    @Test
+    public void testCollectedClass() throws Exception {
+        URL classes = WeakClassCacheTest.class.getProtectionDomain()
+                .getCodeSource().getLocation();
+        ClassLoader loader = new URLClassLoader(new URL[]{classes}, null);
+        WeakClassCache<String> cache = new WeakClassCache<String>(10);
+        cache.putIfAbsent(loader.loadClass(
+                WeakClassCacheTest.class.getName()), "test");
+        assertEquals(1, cache.size());
+
+        loader = null;
+        for (int i = 0; i < 50 && cache.size() > 0; i++) {
+            System.gc();
+            Thread.sleep(20);
+        }
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testMetadata() {
+        ClassMetadataCache cache = new ClassMetadataCache(10);
+        ClassMetadata metadata = cache.getMetadata(String.class);
+        assertSame(metadata, cache.getMetadata(String.class));
+
+        metadata.setClassAnnotation(null);
+        assertEquals(true, metadata.isClassAnnotationResolved());
+        assertNull(metadata.getClassAnnotation());
+
+        metadata.setMethodAnnotation("trim", "()Ljava/lang/String;", null);
+        assertEquals(true, metadata.isMethodAnnotationResolved("trim",
+                "()Ljava/lang/String;"));
+        assertNull(metadata.getMethodAnnotation("trim",
+                "()Ljava/lang/String;"));
+    }
+}
@@ -0,0 +1,37 @@
+/*
+ * Copyright [2017] [Indra Basak]
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.basaki.agent.jaxrs;
+
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.PathParam;
+import javax.ws.rs.core.Response;
+
+/**
+ * {@code HelloWorldJaxrsApi} is an example JAX-RS API interface. The
+ * annotations are declared on the interface only.
+ * <p/>
+ *
+ * @author Indra Basak
+ * @since 10/18/26
+ */
+@Path("/api")
+public interface HelloWorldJaxrsApi {
+
+    @GET
+    @Path("/{id}")
+    Response getMessage(@PathParam("id") String id);
+}
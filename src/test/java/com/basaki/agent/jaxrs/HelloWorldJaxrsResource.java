@@ -0,0 +1,34 @@
+/*
+ * Copyright [2017] [Indra Basak]
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.basaki.agent.jaxrs;
+
+import javax.ws.rs.core.Response;
+
+/**
+ * {@code HelloWorldJaxrsResource} is an example JAX-RS resource class which
+ * implements an annotated API interface.
+ * <p/>
+ *
+ * @author Indra Basak
+ * @since 10/18/26
+ */
+public class HelloWorldJaxrsResource implements HelloWorldJaxrsApi {
+
+    @Override
+    public Response getMessage(String id) {
+        return Response.status(200).entity("Jersey say : " + id).build();
+    }
+}
@@ -0,0 +1,180 @@
+/*
+ * Copyright [2017] [Indra Basak]
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.basaki.agent.metrics;
+
+import com.basaki.agent.util.Diagnostics;
+import com.wily.introscope.agent.IAgent;
+import com.wily.introscope.agent.stat.IDataAccumulatorFactory;
+import com.wily.introscope.agent.stat.ILongFluctuatingAggregatingDataAccumulator;
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * {@code FormatterMetricsTest} is an unit test for {@link FormatterMetrics}
+ * and {@link AccumulatorBridge}, publishing to a fake agent.
+ * <p/>
+ *
+ * @author Indra Basak
+ * @since 10/18/26
+ */
+public class FormatterMetricsTest {
+
+    private static final String NODE = "REST Extension|Formatter|Test";
+
+    private Diagnostics diagnostics;
+
+    @Before
+    public void setUp() {
+        diagnostics = mock(Diagnostics.class);
+    }
+
+    @Test
+    public void testPublish() {
+        FakeAgent agent = new FakeAgent();
+        AccumulatorBridge bridge =
+                new AccumulatorBridge(agent.agent, diagnostics);
+        assertTrue(bridge.isAvailable());
+
+        FormatterMetrics metrics = new FormatterMetrics(NODE);
+        metrics.record(100, true, "a");
+        metrics.record(100, false, "a");
+        metrics.record(100, false, "a");
+        metrics.record(3000, false, "b");
+        assertEquals(4, metrics.getInvocationCount());
+        assertEquals(1, metrics.getColdResolutionCount());
+        assertEquals(1, LatencyHistogram.getCount(
+                metrics.getResolutionLatencySnapshot()));
+
+        metrics.publish(bridge);
+        Map<String, Long> values = agent.values;
+        assertEquals(Long.valueOf(4),
+                values.get(NODE + FormatterMetrics.INVOCATIONS));
+        assertEquals(Long.valueOf(1),
+                values.get(NODE + FormatterMetrics.COLD_RESOLUTIONS));
+        assertEquals(Long.valueOf(75),
+                values.get(NODE + FormatterMetrics.HIT_RATIO));
+        assertEquals(Long.valueOf(825),
+                values.get(NODE + FormatterMetrics.AVERAGE_TIME));
+        assertEquals(Long.valueOf(127),
+                values.get(NODE + FormatterMetrics.PERCENTILE_NAMES[0]));
+        assertEquals(Long.valueOf(4095),
+                values.get(NODE + FormatterMetrics.PERCENTILE_NAMES[2]));
+
+        metrics.record(100, false, "a");
+        metrics.publish(bridge);
+        assertEquals(Long.valueOf(1),
+                values.get(NODE + FormatterMetrics.INVOCATIONS));
+        assertEquals(Long.valueOf(100),
+                values.get(NODE + FormatterMetrics.HIT_RATIO));
+        verify(diagnostics, never()).warn(anyString(), anyString(),
+                any());
+    }
+
+    @Test
+    public void testUnavailable() {
+        AccumulatorBridge bridge =
+                new AccumulatorBridge(mock(IAgent.class), diagnostics);
+        assertFalse(bridge.isAvailable());
+        assertFalse(bridge.publish(NODE + ":Test", 1));
+        assertFalse(MetricsReporter.register(new FormatterMetrics(NODE),
+                bridge));
+        verify(diagnostics, times(1)).warn(anyString(), anyString(),
+                any());
+    }
+
+    @Test
+    public void testOlderAgent() {
+        IAgent agent = mock(IAgent.class);
+        when(agent.IAgent_getDataAccumulatorFactory()).thenThrow(
+                new NoSuchMethodError("IAgent_getDataAccumulatorFactory"));
+        AccumulatorBridge bridge = new AccumulatorBridge(agent, diagnostics);
+        assertFalse(bridge.isAvailable());
+        verify(diagnostics, times(1)).warn(anyString(), anyString(),
+                any());
+    }
+
+    @Test
+    public void testFailingAccumulator() {
+        FakeAgent agent = new FakeAgent();
+        agent.failing = true;
+        AccumulatorBridge bridge =
+                new AccumulatorBridge(agent.agent, diagnostics);
+        assertTrue(bridge.isAvailable());
+        assertFalse(bridge.publish(NODE + ":Test", 1));
+        assertFalse(bridge.isAvailable());
+    }
+
+    /**
+     * Agent whose accumulators record the last value of every metric.
+     */
+    private static class FakeAgent {
+
+        private final IAgent agent = mock(IAgent.class);
+
+        private final Map<String, Long> values = new HashMap<String, Long>();
+
+        private boolean failing;
+
+        FakeAgent() {
+            IDataAccumulatorFactory factory =
+                    mock(IDataAccumulatorFactory.class);
+            when(agent.IAgent_getDataAccumulatorFactory()).thenReturn(factory);
+            when(factory.safeGetLongFluctuatingAggregatingDataAccumulator(
+                    anyString())).thenAnswer(
+                    new Answer<ILongFluctuatingAggregatingDataAccumulator>() {
+                        @Override
+                        public ILongFluctuatingAggregatingDataAccumulator
+                        answer(InvocationOnMock invocation) {
+                            return failing ? null : createAccumulator(
+                                    (String) invocation.getArguments()[0]);
+                        }
+                    });
+        }
+
+        private ILongFluctuatingAggregatingDataAccumulator createAccumulator(
+                final String name) {
+            ILongFluctuatingAggregatingDataAccumulator accumulator =
+                    mock(ILongFluctuatingAggregatingDataAccumulator.class);
+            doAnswer(new Answer<Void>() {
+                @Override
+                public Void answer(InvocationOnMock invocation) {
+                    values.put(name, (Long) invocation.getArguments()[0]);
+                    return null;
+                }
+            }).when(accumulator).ILongAggregatingDataAccumulator_recordDataPoint(
+                    anyLong());
+
+            return accumulator;
+        }
+    }
+}
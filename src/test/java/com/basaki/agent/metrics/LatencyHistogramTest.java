@@ -0,0 +1,69 @@
+/*
+ * Copyright [2017] [Indra Basak]
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.basaki.agent.metrics;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * {@code LatencyHistogramTest} is an unit test for {@link LatencyHistogram}.
+ * <p/>
+ *
+ * @author Indra Basak
+ * @since 10/18/26
+ */
+public class LatencyHistogramTest {
+
+    @Test
+    public void testGetBucket() {
+        assertEquals(0, LatencyHistogram.getBucket(-5));
+        assertEquals(0, LatencyHistogram.getBucket(0));
+        assertEquals(1, LatencyHistogram.getBucket(1));
+        assertEquals(2, LatencyHistogram.getBucket(2));
+        assertEquals(2, LatencyHistogram.getBucket(3));
+        assertEquals(10, LatencyHistogram.getBucket(1023));
+        assertEquals(11, LatencyHistogram.getBucket(1024));
+        assertEquals(LatencyHistogram.BUCKETS - 1,
+                LatencyHistogram.getBucket(Long.MAX_VALUE));
+    }
+
+    @Test
+    public void testSnapshot() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 0; i < 98; i++) {
+            histogram.record(100);
+        }
+        histogram.record(5000);
+        histogram.record(100000);
+
+        long[] snapshot = histogram.snapshot();
+        assertEquals(100, LatencyHistogram.getCount(snapshot));
+        assertEquals(98 * 100 + 5000 + 100000,
+                snapshot[LatencyHistogram.BUCKETS]);
+        assertEquals(127, LatencyHistogram.getPercentile(snapshot, 50));
+        assertEquals(8191, LatencyHistogram.getPercentile(snapshot, 99));
+        assertEquals(131071, LatencyHistogram.getPercentile(snapshot, 100));
+
+        histogram.record(100);
+        long[] delta =
+                LatencyHistogram.subtract(histogram.snapshot(), snapshot);
+        assertEquals(1, LatencyHistogram.getCount(delta));
+        assertEquals(100, delta[LatencyHistogram.BUCKETS]);
+        assertEquals(0, LatencyHistogram.getPercentile(new long[
+                LatencyHistogram.BUCKETS + 1], 50));
+    }
+}
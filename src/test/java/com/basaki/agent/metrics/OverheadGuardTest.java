@@ -0,0 +1,72 @@
+/*
+ * Copyright [2017] [Indra Basak]
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.basaki.agent.metrics;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * {@code OverheadGuardTest} is an unit test for {@link OverheadGuard}.
+ * <p/>
+ *
+ * @author Indra Basak
+ * @since 10/18/26
+ */
+public class OverheadGuardTest {
+
+    private static final long SECOND = 1000000000L;
+
+    @Test
+    public void testResolutionTime() {
+        OverheadGuard guard = new OverheadGuard(1000, 100, SECOND);
+        long now = 0;
+        assertFalse(guard.record(600, now));
+        assertFalse(guard.record(400, now));
+        assertFalse(guard.isDegraded(now));
+
+        assertTrue(guard.record(1, now));
+        assertTrue(guard.isDegraded(now + 1));
+        assertFalse(guard.record(5000, now + 2));
+        assertEquals(1, guard.getDegradationCount());
+        assertEquals(1, guard.getCheapNameCount());
+
+        assertFalse(guard.isDegraded(now + SECOND));
+        assertTrue(guard.record(5000, now + SECOND));
+        assertEquals(2, guard.getDegradationCount());
+
+        guard.reset();
+        assertFalse(guard.isDegraded());
+    }
+
+    @Test
+    public void testResolutionRate() {
+        OverheadGuard guard = new OverheadGuard(SECOND, 3, SECOND);
+        long now = System.nanoTime();
+        for (int i = 0; i < 3; i++) {
+            assertFalse(guard.record(0, now));
+        }
+        assertTrue(guard.record(0, now));
+        assertTrue(guard.isDegraded(now));
+
+        guard.reset();
+        assertFalse(guard.record(0, now + SECOND));
+        assertFalse(guard.isDegraded(now + SECOND));
+        assertEquals(1, guard.getDegradationCount());
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright [2017] [Indra Basak]
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.basaki.agent.metrics;
+
+import java.util.List;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * {@code RouteStatisticsTest} is an unit test for {@link RouteStatistics}.
+ * <p/>
+ *
+ * @author Indra Basak
+ * @since 10/18/26
+ */
+public class RouteStatisticsTest {
+
+    @Test
+    public void testTopRoutes() {
+        RouteStatistics statistics = new RouteStatistics(10);
+        for (int i = 0; i < RouteStatistics.SAMPLE_INTERVAL * 30; i++) {
+            statistics.record("/books");
+        }
+        for (int i = 0; i < RouteStatistics.SAMPLE_INTERVAL * 10; i++) {
+            statistics.record("/orders");
+        }
+
+        List<String> routes = statistics.getTopRoutes(5);
+        assertEquals(2, routes.size());
+        assertTrue(routes.get(0), routes.get(0).endsWith(" /books"));
+        assertTrue(routes.get(1), routes.get(1).endsWith(" /orders"));
+        assertEquals(1, statistics.getTopRoutes(1).size());
+
+        statistics.clear();
+        assertEquals(0, statistics.size());
+    }
+
+    @Test
+    public void testBounded() {
+        RouteStatistics statistics = new RouteStatistics(2);
+        for (int i = 0; i < RouteStatistics.SAMPLE_INTERVAL * 10; i++) {
+            statistics.record("/route/" + (i / RouteStatistics.SAMPLE_INTERVAL));
+        }
+
+        assertEquals(2, statistics.size());
+    }
+
+    @Test
+    public void testRecordFromThreads() throws InterruptedException {
+        final RouteStatistics statistics = new RouteStatistics(10);
+        for (int i = 0; i < 4; i++) {
+            Thread thread = new Thread() {
+                @Override
+                public void run() {
+                    for (int j = 0; j < RouteStatistics.SAMPLE_INTERVAL; j++) {
+                        statistics.record("/books");
+                    }
+                }
+            };
+            thread.start();
+            thread.join();
+        }
+
+        assertEquals("~" + 4 * RouteStatistics.SAMPLE_INTERVAL + " /books",
+                statistics.getTopRoutes(1).get(0));
+    }
+}
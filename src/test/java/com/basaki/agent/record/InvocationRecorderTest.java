@@ -0,0 +1,131 @@
+/*
+ * Copyright [2017] [Indra Basak]
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.basaki.agent.record;
+
+import com.basaki.agent.JaxrsNameFormatter;
+import com.basaki.agent.SpringRestNameFormatter;
+import com.basaki.agent.jaxrs.HelloWorldJaxrsService;
+import com.basaki.agent.spring.HelloWorldSpringService;
+import com.basaki.agent.util.Diagnostics;
+import java.io.File;
+import java.util.List;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+/**
+ * {@code InvocationRecorderTest} is an unit test for {@link
+ * InvocationRecorder} and {@link InvocationRecording}.
+ * <p/>
+ *
+ * @author Indra Basak
+ * @since 10/18/26
+ */
+public class InvocationRecorderTest {
+
+    private static final String SPRING_DESC =
+            "(Ljava/lang/String;)Ljava/lang/String;";
+
+    private static final String JAXRS_DESC =
+            "(Ljava/lang/String;)Ljavax/ws/rs/core/Response;";
+
+    @Test
+    public void testRecord() throws Exception {
+        File file = File.createTempFile("recording", ".tsv");
+        file.deleteOnExit();
+
+        InvocationRecorder recorder = new InvocationRecorder(file, 2, 3, 16);
+        for (int i = 0; i < 4; i++) {
+            recorder.record(SpringRestNameFormatter.class,
+                    HelloWorldSpringService.class, "getMessage", SPRING_DESC,
+                    "Frontends|Apps|Indra", "REST|Spring|{path}|{op}");
+            recorder.record(JaxrsNameFormatter.class,
+                    HelloWorldJaxrsService.class, "getMessage", JAXRS_DESC,
+                    null, "REST|JAXRS|{path}|GET");
+        }
+        recorder.close();
+        assertEquals(3, recorder.getRecordedCount());
+        assertEquals(0, recorder.getDroppedCount());
+
+        InvocationRecording recording = new InvocationRecording(file);
+        List<InvocationRecording.Invocation> invocations =
+                recording.getInvocations();
+        assertEquals(1, invocations.size());
+
+        InvocationRecording.Invocation jaxrs = invocations.get(0);
+        assertEquals(JaxrsNameFormatter.class.getName(), jaxrs.getFormatter());
+        assertEquals(HelloWorldJaxrsService.class.getName(),
+                jaxrs.getClassName());
+        assertEquals("getMessage", jaxrs.getMethodName());
+        assertEquals(JAXRS_DESC, jaxrs.getMethodDesc());
+        assertNull(jaxrs.getFrontBoundary());
+        assertEquals("REST|JAXRS|{path}|GET", jaxrs.getTemplate());
+
+        assertEquals(3, recording.getSamples().size());
+        for (InvocationRecording.Invocation sample : recording.getSamples()) {
+            assertSame(jaxrs, sample);
+        }
+    }
+
+    @Test
+    public void testDefault() {
+        assertNull(InvocationRecorder.getDefault(mock(Diagnostics.class)));
+    }
+
+    @Test
+    public void testUnwritableFile() throws Exception {
+        File dir = File.createTempFile("recording", "");
+        assertTrue(dir.delete());
+        assertTrue(dir.mkdir());
+        dir.deleteOnExit();
+
+        Diagnostics diagnostics = mock(Diagnostics.class);
+        assertNull(InvocationRecorder.create(dir, diagnostics));
+        verify(diagnostics).warn(eq("recorder"), anyString(), any());
+    }
+
+    @Test
+    public void testSamplePerThread() throws Exception {
+        File file = File.createTempFile("recording", ".tsv");
+        file.deleteOnExit();
+
+        final InvocationRecorder recorder =
+                new InvocationRecorder(file, 2, 10, 16);
+        for (int i = 0; i < 3; i++) {
+            Thread thread = new Thread() {
+                @Override
+                public void run() {
+                    recorder.record(SpringRestNameFormatter.class,
+                            HelloWorldSpringService.class, "getMessage",
+                            SPRING_DESC, null, "REST|Spring|{path}|{op}");
+                }
+            };
+            thread.start();
+            thread.join();
+        }
+        recorder.close();
+
+        assertEquals(0, recorder.getRecordedCount());
+    }
+}
@@ -0,0 +1,253 @@
+/*
+ * Copyright [2017] [Indra Basak]
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.basaki.agent.route;
+
+import com.basaki.agent.jaxrs.HelloWorldJaxrsService;
+import com.basaki.agent.spring.HelloWorldSpringService;
+import com.basaki.agent.util.Diagnostics;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+
+/**
+ * {@code ClasspathScannerTest} is an unit test for {@link ClasspathScanner}.
+ * <p/>
+ *
+ * @author Indra Basak
+ * @since 10/18/26
+ */
+public class ClasspathScannerTest {
+
+    private static final String[] SPRING = {RouteIndex.CONTROLLER_ANNOTATION,
+            RouteIndex.REST_CONTROLLER_ANNOTATION};
+
+    private static final String[] JAXRS = {RouteIndex.PATH_ANNOTATION};
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private ClassLoader loader;
+
+    @Before
+    public void setUp() throws Exception {
+        URL classes = HelloWorldSpringService.class.getProtectionDomain()
+                .getCodeSource().getLocation();
+        loader = new URLClassLoader(new URL[]{classes},
+                getClass().getClassLoader());
+    }
+
+    @Test
+    public void testScan() {
+        ClasspathScanner scanner = new ClasspathScanner(
+                ClasspathScanner.MARKERS, 2, mock(Diagnostics.class));
+        Set<Class<?>> spring = addListener(scanner, SPRING);
+        Set<Class<?>> jaxrs = addListener(scanner, JAXRS);
+
+        ClasspathScanner.Result result = scanner.scan(loader);
+
+        assertTrue(spring.contains(HelloWorldSpringService.class));
+        assertFalse(spring.contains(HelloWorldJaxrsService.class));
+        assertTrue(jaxrs.contains(HelloWorldJaxrsService.class));
+        assertFalse(jaxrs.contains(HelloWorldSpringService.class));
+        assertEquals(spring.size() + jaxrs.size(), result.getRouteCount());
+        assertTrue(result.getClassCount() > result.getCandidateCount());
+        assertEquals(0, result.getFailureCount());
+    }
+
+    @Test
+    public void testRemoveListener() {
+        ClasspathScanner scanner = new ClasspathScanner(
+                ClasspathScanner.MARKERS, 2, mock(Diagnostics.class));
+        final Set<Class<?>> found =
+                Collections.synchronizedSet(new HashSet<Class<?>>());
+        ClasspathScanner.Listener listener = new ClasspathScanner.Listener() {
+            @Override
+            public int found(Class<?> clazz) {
+                found.add(clazz);
+                return 1;
+            }
+        };
+        scanner.addListener(SPRING, listener);
+        scanner.removeListener(listener);
+
+        scanner.scan(loader);
+        assertTrue(found.isEmpty());
+    }
+
+    @Test
+    public void testLateListener() throws InterruptedException {
+        ClasspathScanner scanner = new ClasspathScanner(
+                ClasspathScanner.MARKERS, 1, mock(Diagnostics.class));
+        addListener(scanner, SPRING);
+        scanner.scan(loader);
+
+        Set<Class<?>> jaxrs = addListener(scanner, JAXRS);
+        for (int i = 0; i < 100 && !jaxrs.contains(
+                HelloWorldJaxrsService.class); i++) {
+            Thread.sleep(50);
+        }
+        assertTrue(jaxrs.contains(HelloWorldJaxrsService.class));
+        assertFalse(jaxrs.contains(HelloWorldSpringService.class));
+    }
+
+    @Test
+    public void testScanFatJar() throws Exception {
+        File lib = folder.newFile("lib.jar");
+        writeJar(lib, null, null, HelloWorldJaxrsService.class);
+        File app = folder.newFile("app.jar");
+        writeJar(app, "BOOT-INF/classes/", lib,
+                HelloWorldSpringService.class);
+
+        String base = "jar:" + app.toURI() + "!/BOOT-INF/";
+        ClassLoader fatJarLoader = new URLClassLoader(new URL[]{
+                new URL(base + "classes!/"), new URL(base + "lib/lib.jar!/")},
+                getClass().getClassLoader());
+        ClasspathScanner scanner = new ClasspathScanner(
+                ClasspathScanner.MARKERS, 2, mock(Diagnostics.class));
+        Set<Class<?>> spring = addListener(scanner, SPRING);
+        Set<Class<?>> jaxrs = addListener(scanner, JAXRS);
+
+        ClasspathScanner.Result result = scanner.scan(fatJarLoader);
+        assertEquals(2, result.getClassCount());
+        assertEquals(0, result.getFailureCount());
+        assertTrue(spring.contains(HelloWorldSpringService.class));
+        assertTrue(jaxrs.contains(HelloWorldJaxrsService.class));
+
+        ClassLoader jarLoader = new URLClassLoader(
+                new URL[]{app.toURI().toURL()}, getClass().getClassLoader());
+        assertEquals(0, scanner.scan(jarLoader).getClassCount());
+    }
+
+    @Test
+    public void testGetRoots() {
+        assertEquals(1, ClasspathScanner.getRoots(loader).size());
+        assertEquals(0, ClasspathScanner.getRoots(null).size());
+        assertTrue(ClasspathScanner.getRoots(loader).get(0).getFile()
+                .isDirectory());
+
+        assertFalse(ClasspathScanner.getRoots(
+                ClassLoader.getSystemClassLoader()).isEmpty());
+    }
+
+    @Test
+    public void testToRoot() throws IOException {
+        File app = folder.newFile("app.jar");
+        String base = "jar:" + app.toURI() + "!/";
+
+        ClasspathScanner.Root root =
+                ClasspathScanner.toRoot(new URL(base + "BOOT-INF/classes!/"));
+        assertEquals(app, root.getFile());
+        assertEquals("BOOT-INF/classes/", root.getEntry());
+
+        root = ClasspathScanner.toRoot(
+                new URL(base + "WEB-INF/lib/lib.jar!/"));
+        assertEquals("WEB-INF/lib/lib.jar", root.getEntry());
+
+        root = ClasspathScanner.toRoot(new URL(base));
+        assertNull(root.getEntry());
+        assertNull(ClasspathScanner.toRoot(new URL("http://host/a.jar")));
+    }
+
+    @Test
+    public void testSubmitOnce() {
+        ClasspathScanner scanner = new ClasspathScanner(JAXRS, 1,
+                mock(Diagnostics.class));
+
+        assertTrue(scanner.submit(loader));
+        assertFalse(scanner.submit(loader));
+        assertFalse(scanner.submit(null));
+    }
+
+    @Test
+    public void testMatch() {
+        ClasspathScanner scanner = new ClasspathScanner(
+                ClasspathScanner.MARKERS, 1, mock(Diagnostics.class));
+        assertTrue(scanner.isCandidate(
+                "..Ljavax/ws/rs/Path;..".getBytes()));
+        assertTrue(scanner.isCandidate("Ljavax/ws/rs/Path;".getBytes()));
+        assertFalse(scanner.isCandidate("Ljavax/ws/rs/Path".getBytes()));
+        assertFalse(scanner.isCandidate(new byte[0]));
+
+        assertEquals(scanner.getMask(JAXRS),
+                scanner.match("Ljavax/ws/rs/Path;".getBytes()));
+        assertEquals(0, scanner.getMask(JAXRS) & scanner.getMask(SPRING));
+    }
+
+    private static Set<Class<?>> addListener(ClasspathScanner scanner,
+            String[] annotations) {
+        final Set<Class<?>> found =
+                Collections.synchronizedSet(new HashSet<Class<?>>());
+        scanner.addListener(annotations, new ClasspathScanner.Listener() {
+            @Override
+            public int found(Class<?> clazz) {
+                found.add(clazz);
+                return 1;
+            }
+        });
+
+        return found;
+    }
+
+    private static void writeJar(File file, String prefix, File nested,
+            Class<?> clazz) throws IOException, URISyntaxException {
+        ZipOutputStream out = new ZipOutputStream(new FileOutputStream(file));
+        try {
+            String name = clazz.getName().replace('.', '/') + ".class";
+            out.putNextEntry(new ZipEntry(
+                    (prefix != null ? prefix : "") + name));
+            copy(clazz.getClassLoader().getResourceAsStream(name), out);
+            if (nested != null) {
+                out.putNextEntry(new ZipEntry("BOOT-INF/lib/"
+                        + nested.getName()));
+                copy(nested.toURI().toURL().openStream(), out);
+            }
+        } finally {
+            out.close();
+        }
+    }
+
+    private static void copy(InputStream in, OutputStream out)
+            throws IOException {
+        try {
+            byte[] buffer = new byte[4096];
+            int count;
+            while ((count = in.read(buffer)) > 0) {
+                out.write(buffer, 0, count);
+            }
+        } finally {
+            in.close();
+        }
+    }
+}
@@ -0,0 +1,147 @@
+/*
+ * Copyright [2017] [Indra Basak]
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.basaki.agent.route;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.StandardLocation;
+import javax.tools.ToolProvider;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * {@code RouteIndexProcessorTest} is an unit test for {@link
+ * RouteIndexProcessor}. Compiles a Spring controller and a JAX-RS resource
+ * with the processor and checks the generated route index.
+ * <p/>
+ *
+ * @author Indra Basak
+ * @since 10/18/26
+ */
+public class RouteIndexProcessorTest {
+
+    private static final String SPRING_SOURCE = "package acme;\n"
+            + "import org.springframework.web.bind.annotation.*;\n"
+            + "@RestController\n"
+            + "@RequestMapping(\"/books\")\n"
+            + "public class BookController {\n"
+            + "  @RequestMapping(value = \"/{id}\", method = RequestMethod.GET)\n"
+            + "  public String read(String id) { return id; }\n"
+            + "  @RequestMapping(method = {RequestMethod.PUT, RequestMethod.POST})\n"
+            + "  public <T extends Number> void save(T[] books, int count) { }\n"
+            + "  public void helper() { }\n"
+            + "  public static class Nested {\n"
+            + "    @RequestMapping(\"/nested\")\n"
+            + "    public java.util.List<String> list() { return null; }\n"
+            + "  }\n"
+            + "}\n";
+
+    private static final String JAXRS_SOURCE = "package acme;\n"
+            + "import javax.ws.rs.*;\n"
+            + "@Path(\"/users\")\n"
+            + "public class UserResource {\n"
+            + "  @GET @Path(\"{id}\")\n"
+            + "  public String read(@PathParam(\"id\") long id) { return null; }\n"
+            + "  @DELETE\n"
+            + "  public void delete() { }\n"
+            + "}\n";
+
+    @Test
+    public void testProcess() throws Exception {
+        File dir = File.createTempFile("processor", "");
+        assertTrue(dir.delete());
+        assertTrue(dir.mkdirs());
+
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        StandardJavaFileManager fileManager =
+                compiler.getStandardFileManager(null, null, null);
+        fileManager.setLocation(StandardLocation.CLASS_OUTPUT,
+                Arrays.asList(dir));
+        fileManager.setLocation(StandardLocation.CLASS_PATH, getClassPath());
+
+        List<JavaFileObject> sources = Arrays.asList(
+                source("acme/BookController", SPRING_SOURCE),
+                source("acme/UserResource", JAXRS_SOURCE));
+        JavaCompiler.CompilationTask task = compiler.getTask(null,
+                fileManager, null, Arrays.asList("-proc:only"), null, sources);
+        task.setProcessors(Arrays.asList(new RouteIndexProcessor()));
+        assertTrue(task.call());
+        fileManager.close();
+
+        File file = new File(dir, RouteIndex.INDEX_RESOURCE);
+        assertTrue(file.exists());
+
+        List<String> lines = new ArrayList<String>();
+        BufferedReader reader = new BufferedReader(new FileReader(file));
+        try {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lines.add(line);
+            }
+        } finally {
+            reader.close();
+        }
+
+        assertEquals(Arrays.asList(RouteIndex.HEADER,
+                "J\tacme.UserResource\tdelete\t()V\t/users\t\tDELETE",
+                "J\tacme.UserResource\tread\t(J)Ljava/lang/String;\t/users\t{id}\tGET",
+                "S\tacme.BookController\tread\t(Ljava/lang/String;)Ljava/lang/String;\t/books\t/{id}\tGET",
+                "S\tacme.BookController\tsave\t([Ljava/lang/Number;I)V\t/books\t\t",
+                "S\tacme.BookController$Nested\tlist\t()Ljava/util/List;\t\t/nested\t"),
+                lines);
+    }
+
+    private static JavaFileObject source(String name, final String code) {
+        return new SimpleJavaFileObject(URI.create("string:///" + name
+                + JavaFileObject.Kind.SOURCE.extension),
+                JavaFileObject.Kind.SOURCE) {
+            @Override
+            public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+                return code;
+            }
+        };
+    }
+
+    private static List<File> getClassPath() throws IOException {
+        List<File> files = new ArrayList<File>();
+        for (Class<?> clazz : new Class<?>[]{javax.ws.rs.Path.class,
+                org.springframework.web.bind.annotation.RequestMapping.class,
+                org.springframework.stereotype.Controller.class,
+                org.springframework.core.annotation.AliasFor.class}) {
+            try {
+                files.add(new File(clazz.getProtectionDomain().getCodeSource()
+                        .getLocation().toURI()));
+            } catch (URISyntaxException e) {
+                throw new IOException(e.getMessage());
+            }
+        }
+
+        return files;
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright [2017] [Indra Basak]
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.basaki.agent.route;
+
+import com.basaki.agent.util.RestAnnotation;
+import com.basaki.agent.util.RestAnnotationParam;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URL;
+import java.net.URLClassLoader;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * {@code RouteIndexTest} is an unit test for {@link RouteIndex}.
+ * <p/>
+ *
+ * @author Indra Basak
+ * @since 10/18/26
+ */
+public class RouteIndexTest {
+
+    private static final String DESC = "(Ljava/lang/String;)Ljava/lang/String;";
+
+    @Test
+    public void testAdd() {
+        RouteIndex index = new RouteIndex();
+        assertFalse(index.add(RouteIndex.HEADER));
+        assertFalse(index.add("S\tcom.acme.Broken"));
+        assertTrue(index.add("S\tcom.acme.Books\tread\t" + DESC
+                + "\t/books\t/{id}\tGET"));
+        assertTrue(index.add("S\tcom.acme.Books\tlist\t()V\t/books\t\t"));
+        assertTrue(index.add("J\tcom.acme.Users\tread\t" + DESC
+                + "\t\t/{id}\tGET"));
+        assertEquals(3, index.size());
+
+        assertTrue(index.containsClass("com.acme.Books",
+                RouteIndex.REQUEST_MAPPING_ANNOTATION));
+        assertFalse(index.containsClass("com.acme.Books",
+                RouteIndex.PATH_ANNOTATION));
+
+        RestAnnotation cntrl = index.findClassAnnotation("com.acme.Books",
+                RouteIndex.REQUEST_MAPPING_ANNOTATION);
+        assertEquals("/books", value(cntrl, "value"));
+        assertNull(index.findClassAnnotation("com.acme.Users",
+                RouteIndex.PATH_ANNOTATION));
+
+        RestAnnotation method = index.findMethodAnnotation("com.acme.Books",
+                "read", DESC, RouteIndex.REQUEST_MAPPING_ANNOTATION);
+        assertEquals(RouteIndex.REQUEST_MAPPING_ANNOTATION,
+                method.getAnnotationClass());
+        assertEquals("/{id}", value(method, "value"));
+        assertEquals("GET", value(method, "method"));
+
+        method = index.findMethodAnnotation("com.acme.Books", "list", "()V",
+                RouteIndex.REQUEST_MAPPING_ANNOTATION);
+        assertNotNull(method);
+        assertNull(method.getParam("value"));
+        assertNull(method.getParam("method"));
+
+        assertNull(index.findMethodAnnotation("com.acme.Books", "read",
+                "()V", RouteIndex.REQUEST_MAPPING_ANNOTATION));
+        assertNull(index.findMethodAnnotation("com.acme.Users", "read",
+                DESC, RouteIndex.REQUEST_MAPPING_ANNOTATION));
+    }
+
+    @Test
+    public void testGet() throws IOException {
+        File dir = File.createTempFile("routes", "");
+        assertTrue(dir.delete());
+        File file = new File(dir, RouteIndex.INDEX_RESOURCE);
+        assertTrue(file.getParentFile().mkdirs());
+
+        OutputStream out = new FileOutputStream(file);
+        try {
+            out.write((RouteIndex.HEADER + "\nJ\tcom.acme.Users\tread\t"
+                    + DESC + "\t/users\t/{id}\tGET\n").getBytes("UTF-8"));
+        } finally {
+            out.close();
+        }
+
+        URLClassLoader loader =
+                new URLClassLoader(new URL[]{dir.toURI().toURL()}, null);
+        RouteIndex index = RouteIndex.get(loader);
+        assertEquals(1, index.size());
+        assertSame(index, RouteIndex.get(loader));
+        assertEquals("/users", value(index.findClassAnnotation(
+                "com.acme.Users", RouteIndex.PATH_ANNOTATION), "value"));
+
+        assertEquals(0, RouteIndex.get(null).size());
+        assertEquals(0, RouteIndex.get(
+                new URLClassLoader(new URL[0], null)).size());
+
+        RouteIndex.clear();
+        assertEquals(1, RouteIndex.get(loader).size());
+    }
+
+    @Test
+    public void testGetFramework() {
+        assertEquals(RouteIndex.JAXRS,
+                RouteIndex.getFramework(RouteIndex.PATH_ANNOTATION));
+        assertEquals(RouteIndex.SPRING, RouteIndex.getFramework(
+                RouteIndex.REST_CONTROLLER_ANNOTATION));
+        assertEquals(0, RouteIndex.getFramework("java.lang.Deprecated"));
+    }
+
+    private static String value(RestAnnotation anno, String key) {
+        return ((RestAnnotationParam) anno.getParam(key).get(0)).getValue();
+    }
+}
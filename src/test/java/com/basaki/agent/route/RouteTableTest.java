@@ -0,0 +1,235 @@
+/*
+ * Copyright [2017] [Indra Basak]
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.basaki.agent.route;
+
+import com.basaki.agent.util.Config;
+import com.basaki.agent.util.RestAnnotation;
+import com.basaki.agent.util.RestAnnotationParam;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * {@code RouteTableTest} is an unit test for {@link RouteTable}.
+ * <p/>
+ *
+ * @author Indra Basak
+ * @since 10/18/26
+ */
+public class RouteTableTest {
+
+    private static final String DESC = "(Ljava/lang/String;)Ljava/lang/String;";
+
+    private File file;
+
+    @Before
+    public void setUp() throws IOException {
+        file = File.createTempFile("routes", RouteTable.SUFFIX);
+        assertTrue(file.delete());
+    }
+
+    @After
+    public void tearDown() {
+        file.delete();
+    }
+
+    @Test
+    public void testSaveAndLoad() throws IOException {
+        RouteTable table = new RouteTable(file, 10);
+        assertNull(table.get(RouteTableTest.class));
+
+        RouteTable.ClassRoutes routes = table.put(RouteTableTest.class);
+        assertNotNull(routes);
+        assertSame(routes, table.put(RouteTableTest.class));
+        routes.setClassAnnotation(RouteIndex.toAnnotation(
+                RouteIndex.REQUEST_MAPPING_ANNOTATION, "/books", null));
+        routes.setMethodAnnotation("read", DESC, RouteIndex.toAnnotation(
+                RouteIndex.REQUEST_MAPPING_ANNOTATION, "/{id}", "GET"));
+        routes.setMethodAnnotation("toString", "()Ljava/lang/String;", null);
+        table.save();
+
+        RouteTable loaded = new RouteTable(file, 10);
+        routes = loaded.get(RouteTableTest.class);
+        assertNotNull(routes);
+        assertEquals(1, loaded.size());
+
+        RestAnnotation anno = routes.getClassAnnotation();
+        assertEquals(RouteIndex.REQUEST_MAPPING_ANNOTATION,
+                anno.getAnnotationClass());
+        assertEquals("/books", getValue(anno, "value"));
+        assertNull(anno.getParam("method"));
+
+        anno = routes.getMethodAnnotation("read", DESC);
+        assertEquals("/{id}", getValue(anno, "value"));
+        assertEquals("GET", getValue(anno, "method"));
+
+        assertTrue(routes.isMethodAnnotationResolved("toString",
+                "()Ljava/lang/String;"));
+        assertNull(routes.getMethodAnnotation("toString",
+                "()Ljava/lang/String;"));
+        assertFalse(routes.isMethodAnnotationResolved("update", DESC));
+    }
+
+    @Test
+    public void testChangedClass() throws IOException {
+        DataOutputStream out =
+                new DataOutputStream(new FileOutputStream(file));
+        out.writeInt(RouteTable.MAGIC);
+        out.writeInt(RouteTable.VERSION);
+        out.writeInt(1);
+        out.writeUTF(RouteTableTest.class.getName());
+        out.writeLong(1);
+        out.writeLong(2);
+        out.writeInt(0);
+        out.writeBoolean(false);
+        out.writeInt(0);
+        out.close();
+
+        RouteTable table = new RouteTable(file, 10);
+        assertNull(table.get(RouteTableTest.class));
+        assertEquals(1, table.size());
+    }
+
+    @Test
+    public void testChangedSupertype() throws IOException {
+        long[] stamp = RouteTable.getStamp(Route.class);
+        long[] baseStamp = RouteTable.getStamp(BaseRoute.class);
+        writeTable(Route.class, stamp, baseStamp[0], baseStamp[1]);
+        assertNotNull(new RouteTable(file, 10).get(Route.class));
+
+        writeTable(Route.class, stamp, baseStamp[0], baseStamp[1] + 1);
+        assertNull(new RouteTable(file, 10).get(Route.class));
+    }
+
+    @Test
+    public void testClear() throws IOException {
+        RouteTable table = new RouteTable(file, 10);
+        table.put(Route.class).setClassAnnotation(null);
+        table.save();
+
+        table = new RouteTable(file, 10);
+        table.clear();
+        assertEquals(0, table.size());
+        assertNull(table.get(Route.class));
+        table.save();
+        assertEquals(0, new RouteTable(file, 10).size());
+    }
+
+    @Test
+    public void testCorruptFile() throws IOException {
+        DataOutputStream out =
+                new DataOutputStream(new FileOutputStream(file));
+        out.writeInt(RouteTable.MAGIC);
+        out.writeInt(RouteTable.VERSION);
+        out.writeInt(3);
+        out.writeUTF(RouteTableTest.class.getName());
+        out.close();
+
+        RouteTable table = new RouteTable(file, 10);
+        assertNull(table.get(RouteTableTest.class));
+        assertEquals(0, table.size());
+    }
+
+    @Test
+    public void testCreateShared() {
+        String name = file.getName().replace(RouteTable.SUFFIX, "");
+        assertNull(RouteTable.create(name));
+
+        System.setProperty(Config.PREFIX + "warmstart.dir",
+                file.getParent());
+        try {
+            RouteTable table = RouteTable.create(name);
+            assertNotNull(table);
+            assertEquals(file.getAbsoluteFile(), table.getFile());
+            assertSame(table, RouteTable.create(name));
+            // saved by the shutdown hook
+            file.deleteOnExit();
+        } finally {
+            System.clearProperty(Config.PREFIX + "warmstart.dir");
+        }
+    }
+
+    @Test
+    public void testBounded() {
+        RouteTable table = new RouteTable(file, 1);
+        assertNotNull(table.put(RouteTableTest.class));
+        assertNull(table.put(RouteIndexTest.class));
+        assertNull(table.put(String.class));
+    }
+
+    @Test
+    public void testGetStamp() {
+        long[] stamp = RouteTable.getStamp(Test.class);
+        assertNotNull(stamp);
+        assertTrue(stamp[0] > 0);
+        assertNotNull(RouteTable.getStamp(RouteTableTest.class));
+
+        Object proxy = Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{Runnable.class}, new InvocationHandler() {
+                    @Override
+                    public Object invoke(Object proxy, Method method,
+                            Object[] args) {
+                        return null;
+                    }
+                });
+        assertNull(RouteTable.getStamp(proxy.getClass()));
+    }
+
+    private void writeTable(Class<?> clazz, long[] stamp, long baseSize,
+            long baseTime) throws IOException {
+        DataOutputStream out =
+                new DataOutputStream(new FileOutputStream(file));
+        out.writeInt(RouteTable.MAGIC);
+        out.writeInt(RouteTable.VERSION);
+        out.writeInt(1);
+        out.writeUTF(clazz.getName());
+        out.writeLong(stamp[0]);
+        out.writeLong(stamp[1]);
+        out.writeInt(1);
+        out.writeUTF(clazz.getSuperclass().getName());
+        out.writeLong(baseSize);
+        out.writeLong(baseTime);
+        out.writeBoolean(false);
+        out.writeInt(0);
+        out.close();
+    }
+
+    private static String getValue(RestAnnotation anno, String key) {
+        return ((RestAnnotationParam) anno.getParam(key).get(0)).getValue();
+    }
+
+    static class BaseRoute {
+
+    }
+
+    static class Route extends BaseRoute {
+
+    }
+}
@@ -0,0 +1,244 @@
+/*
+ * Copyright [2017] [Indra Basak]
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.basaki.agent.tool;
+
+import com.basaki.agent.jaxrs.HelloWorldJaxrsApi;
+import com.basaki.agent.jaxrs.HelloWorldJaxrsResource;
+import com.basaki.agent.spring.HelloWorldAbstractSpringService;
+import com.basaki.agent.spring.HelloWorldBaseSpringService;
+import com.basaki.agent.spring.HelloWorldGreetingSpringService;
+import com.basaki.agent.spring.HelloWorldSpringService;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringWriter;
+import java.net.URISyntaxException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * {@code PbdGeneratorTest} is an unit test for {@link PbdGenerator}.
+ * <p/>
+ *
+ * @author Indra Basak
+ * @since 10/18/26
+ */
+public class PbdGeneratorTest {
+
+    private static final String MESSAGE_DESC =
+            "(Ljava/lang/String;)Ljava/lang/String;";
+
+    private static final String RESPONSE_DESC =
+            "(Ljava/lang/String;)Ljavax/ws/rs/core/Response;";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File classes;
+
+    @Before
+    public void setUp() throws URISyntaxException {
+        classes = new File(HelloWorldSpringService.class.getProtectionDomain()
+                .getCodeSource().getLocation().toURI());
+    }
+
+    @Test
+    public void testGetRoutes() throws IOException {
+        PbdGenerator generator = new PbdGenerator(null);
+        generator.add(classes);
+        Map<String, String> names = getMetricNames(generator.getRoutes());
+
+        assertEquals("REST|Spring|/hello/{msg}|GET|HelloWorldSpringService"
+                        + "|getMessage",
+                names.get("com.basaki.agent.spring.HelloWorldSpringService"
+                        + ".getMessage" + MESSAGE_DESC));
+        assertEquals("REST|Spring|/bonjour/{msg}|GET"
+                        + "|HelloWorldRestSpringService|getMessage",
+                names.get("com.basaki.agent.spring.HelloWorldRestSpringService"
+                        + ".getMessage" + MESSAGE_DESC));
+        assertEquals("REST|Spring|/hi/{msg}|noop"
+                        + "|HelloWorldNoopSpringService|getMessage",
+                names.get("com.basaki.agent.spring.HelloWorldNoopSpringService"
+                        + ".getMessage" + MESSAGE_DESC));
+        assertEquals("REST|Spring|/base/{msg}|POST"
+                        + "|HelloWorldSpringServiceProxy|handle",
+                names.get("com.basaki.agent.spring.HelloWorldSpringServiceProxy"
+                        + ".handle" + MESSAGE_DESC));
+        assertEquals("REST|JAXRS|/hello/{param}|GET"
+                        + "|HelloWorldJaxrsService|getMessage",
+                names.get("com.basaki.agent.jaxrs.HelloWorldJaxrsService"
+                        + ".getMessage" + RESPONSE_DESC));
+        assertEquals("REST|JAXRS|/api/{id}|GET|HelloWorldJaxrsResource"
+                        + "|getMessage",
+                names.get(HelloWorldJaxrsResource.class.getName()
+                        + ".getMessage" + RESPONSE_DESC));
+
+        assertNull(names.get(HelloWorldBaseSpringService.class.getName()
+                + ".handle(Ljava/lang/Object;)Ljava/lang/Object;"));
+        assertNull(names.get(HelloWorldJaxrsApi.class.getName()
+                + ".getMessage" + RESPONSE_DESC));
+        assertEquals(0, generator.getFailureCount());
+    }
+
+    @Test
+    public void testAppName() throws IOException {
+        PbdGenerator generator = new PbdGenerator("Indra");
+        generator.add(classes);
+        Map<String, String> names = getMetricNames(generator.getRoutes());
+
+        assertEquals("REST|Spring|Indra|/hello/{msg}|GET"
+                        + "|HelloWorldSpringService|getMessage",
+                names.get("com.basaki.agent.spring.HelloWorldSpringService"
+                        + ".getMessage" + MESSAGE_DESC));
+    }
+
+    @Test
+    public void testNestedJar() throws IOException {
+        File lib = folder.newFile("api.jar");
+        writeJar(lib, HelloWorldJaxrsApi.class, null);
+        File war = folder.newFile("app.war");
+        writeJar(war, HelloWorldJaxrsResource.class, lib);
+
+        PbdGenerator generator = new PbdGenerator(null);
+        generator.add(war);
+        assertEquals(2, generator.getClassCount());
+
+        List<PbdGenerator.Route> routes = generator.getRoutes();
+        assertEquals(1, routes.size());
+        assertEquals("TraceOneMethodOfClass: "
+                        + HelloWorldJaxrsResource.class.getName()
+                        + " getMessage" + RESPONSE_DESC + " "
+                        + PbdGenerator.TRACER
+                        + " \"REST|JAXRS|/api/{id}|GET"
+                        + "|HelloWorldJaxrsResource|getMessage\"",
+                routes.get(0).getDirective());
+    }
+
+    @Test
+    public void testInheritedHandlerMethod() throws IOException {
+        PbdGenerator generator = new PbdGenerator("Indra");
+        generator.add(classes);
+        List<PbdGenerator.Route> routes = generator.getRoutes();
+        Map<String, String> names = getMetricNames(routes);
+
+        assertEquals("REST|Spring|{path}|{op}|{classname}|{method}",
+                names.get(HelloWorldAbstractSpringService.class.getName()
+                        + ".greet" + MESSAGE_DESC));
+        assertNull(names.get(HelloWorldGreetingSpringService.class.getName()
+                + ".greet" + MESSAGE_DESC));
+        for (PbdGenerator.Route route : routes) {
+            if (route.getClassName().equals(
+                    HelloWorldAbstractSpringService.class.getName())) {
+                assertEquals(PbdGenerator.SPRING_TRACER, route.getTracer());
+            } else {
+                assertEquals(PbdGenerator.TRACER, route.getTracer());
+            }
+        }
+    }
+
+    @Test
+    public void testWrite() throws IOException {
+        PbdGenerator generator = new PbdGenerator(null);
+        generator.add(classes);
+        List<PbdGenerator.Route> routes = generator.getRoutes();
+
+        StringWriter writer = new StringWriter();
+        generator.write(writer, routes);
+        String pbd = writer.toString();
+
+        assertTrue(pbd.contains("SetTracerClassMapping: "
+                + PbdGenerator.TRACER + " "));
+        assertTrue(pbd.contains("\n# "
+                + HelloWorldSpringService.class.getName() + "\n"));
+        for (PbdGenerator.Route route : routes) {
+            assertTrue(pbd.contains("\n" + route.getDirective() + "\n"));
+        }
+        assertTrue(pbd.contains("SetTracerParameter: "
+                + PbdGenerator.SPRING_TRACER
+                + " nameformatter com.basaki.agent.SpringRestNameFormatter\n"));
+        assertFalse(pbd.contains(PbdGenerator.JAXRS_TRACER));
+        assertFalse(pbd.contains("IdentifyAnnotatedClassAs"));
+    }
+
+    @Test
+    public void testInvalidClassFile() {
+        PbdGenerator generator = new PbdGenerator(null);
+        generator.add(new byte[]{1, 2, 3});
+        assertEquals(1, generator.getFailureCount());
+        assertEquals(0, generator.getClassCount());
+    }
+
+    private static Map<String, String> getMetricNames(
+            List<PbdGenerator.Route> routes) {
+        Map<String, String> names = new HashMap<String, String>();
+        for (PbdGenerator.Route route : routes) {
+            names.put(route.getClassName() + "." + route.getMethodName()
+                    + route.getMethodDesc(), route.getMetricName());
+        }
+
+        return names;
+    }
+
+    private static void writeJar(File file, Class<?> clazz, File nested)
+            throws IOException {
+        ZipOutputStream out = new ZipOutputStream(new FileOutputStream(file));
+        try {
+            out.putNextEntry(new ZipEntry(
+                    clazz.getName().replace('.', '/') + ".class"));
+            out.write(read(clazz.getResourceAsStream(
+                    clazz.getSimpleName() + ".class")));
+            out.closeEntry();
+
+            if (nested != null) {
+                out.putNextEntry(new ZipEntry("WEB-INF/lib/"
+                        + nested.getName()));
+                out.write(read(new FileInputStream(nested)));
+                out.closeEntry();
+            }
+        } finally {
+            out.close();
+        }
+    }
+
+    private static byte[] read(InputStream in) throws IOException {
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+            return out.toByteArray();
+        } finally {
+            in.close();
+        }
+    }
+}
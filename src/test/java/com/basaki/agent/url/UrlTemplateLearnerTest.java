@@ -0,0 +1,87 @@
+/*
+ * Copyright [2017] [Indra Basak]
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.basaki.agent.url;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * {@code UrlTemplateLearnerTest} is an unit test for {@link
+ * UrlTemplateLearner}.
+ * <p/>
+ *
+ * @author Indra Basak
+ * @since 10/18/26
+ */
+public class UrlTemplateLearnerTest {
+
+    @Test
+    public void testLearn() {
+        UrlTemplateLearner learner = new UrlTemplateLearner(3, 100);
+        assertEquals("http://books/v2/accounts/ACME-CORP/reports",
+                learner.learn("http://books/v2/accounts/ACME-CORP/reports"));
+        learner.learn("http://books/v2/accounts/BETA/reports");
+        learner.learn("http://books/v2/accounts/GAMMA/reports");
+        assertEquals(0, learner.getCollapseCount());
+
+        assertEquals("http://books/v2/accounts/{var}/reports",
+                learner.learn("http://books/v2/accounts/DELTA/reports"));
+        assertEquals("http://books/v2/accounts/{var}/reports",
+                learner.learn("http://books/v2/accounts/ACME-CORP/reports"));
+        assertEquals("http://books/v2/accounts",
+                learner.learn("http://books/v2/accounts"));
+        assertEquals(1, learner.getCollapseCount());
+
+        assertEquals("http://orders/v2/accounts/DELTA/reports",
+                learner.learn("http://orders/v2/accounts/DELTA/reports"));
+        assertEquals(2, learner.getHostCount());
+    }
+
+    @Test
+    public void testRelative() {
+        UrlTemplateLearner learner = new UrlTemplateLearner(1, 100);
+        assertEquals("/books/a", learner.learn("/books/a"));
+        assertEquals("/books/{var}", learner.learn("/books/b"));
+        assertEquals("books/", learner.learn("books/"));
+        assertEquals("http://books", learner.learn("http://books"));
+    }
+
+    @Test
+    public void testBounded() {
+        UrlTemplateLearner learner = new UrlTemplateLearner(1000, 10);
+        for (int i = 0; i < 100; i++) {
+            learner.learn("http://books/books/" + i + "/pages");
+        }
+        assertTrue(learner.getNodeCount() <= 10);
+        assertEquals("http://books/books/{var}/{var}",
+                learner.learn("http://books/books/x/pages"));
+        assertEquals("http://books/books/1/pages",
+                learner.learn("http://books/books/1/pages"));
+    }
+
+    @Test
+    public void testCollapseReleasesNodes() {
+        UrlTemplateLearner learner = new UrlTemplateLearner(2, 100);
+        learner.learn("/a/x/1");
+        learner.learn("/b/y/2");
+        assertEquals(7, learner.getNodeCount());
+
+        assertEquals("/{var}/z/3", learner.learn("/c/z/3"));
+        assertEquals(4, learner.getNodeCount());
+    }
+}
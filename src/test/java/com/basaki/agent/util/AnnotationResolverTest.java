@@ -0,0 +1,234 @@
+/*
+ * Copyright [2017] [Indra Basak]
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.basaki.agent.util;
+
+import com.basaki.agent.jaxrs.HelloWorldJaxrsApi;
+import com.basaki.agent.jaxrs.HelloWorldJaxrsResource;
+import com.basaki.agent.jaxrs.HelloWorldJaxrsService;
+import com.basaki.agent.spring.HelloWorldBaseSpringService;
+import com.basaki.agent.spring.HelloWorldNoopSpringService;
+import com.basaki.agent.spring.HelloWorldSpringService;
+import com.basaki.agent.spring.HelloWorldSpringServiceProxy;
+import java.lang.ref.WeakReference;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.List;
+import java.util.Map;
+import org.junit.Test;
+import org.springframework.web.bind.annotation.RequestMapping;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+/**
+ * {@code AnnotationResolverTest} is an unit test for {@link
+ * AnnotationResolver}.
+ * <p/>
+ *
+ * @author Indra Basak
+ * @since 10/18/26
+ */
+public class AnnotationResolverTest {
+
+    private static final String REQUEST_MAPPING =
+            "org.springframework.web.bind.annotation.RequestMapping";
+
+    @Test
+    public void testFindClassAnnotation() {
+        RestAnnotation anno = AnnotationResolver.findClassAnnotation(
+                HelloWorldSpringService.class,
+                "org.springframework.stereotype.Controller");
+        assertNotNull(anno);
+        assertEquals("org.springframework.stereotype.Controller",
+                anno.getAnnotationClass());
+        assertEquals("/hello", getValue(anno, "value"));
+    }
+
+    @Test
+    public void testFindMethodAnnotation() {
+        RestAnnotation anno = AnnotationResolver.findMethodAnnotation(
+                HelloWorldSpringService.class, "getMessage",
+                "(Ljava/lang/String;)Ljava/lang/String;", REQUEST_MAPPING);
+        assertNotNull(anno);
+        assertEquals(REQUEST_MAPPING, anno.getAnnotationClass());
+        assertEquals("/{msg}", getValue(anno, "value"));
+        assertEquals("GET", getValue(anno, "method"));
+        assertNull(anno.getParam("path"));
+    }
+
+    @Test
+    public void testAnnotationWithoutMethod() {
+        RestAnnotation anno = AnnotationResolver.findMethodAnnotation(
+                HelloWorldNoopSpringService.class, "getMessage",
+                "(Ljava/lang/String;)Ljava/lang/String;", "@" + REQUEST_MAPPING);
+        assertNotNull(anno);
+        assertEquals(REQUEST_MAPPING, anno.getAnnotationClass());
+        assertEquals("/{msg}", getValue(anno, "value"));
+        assertNull(anno.getParam("method"));
+        assertNull(anno.getParam("path"));
+    }
+
+    @Test
+    public void testJaxrsPath() {
+        RestAnnotation anno = AnnotationResolver.findMethodAnnotation(
+                HelloWorldJaxrsService.class, "getMessage",
+                "(Ljava/lang/String;)Ljavax/ws/rs/core/Response;",
+                "javax.ws.rs.Path");
+        assertNotNull(anno);
+        assertEquals("/{param}", getValue(anno, "value"));
+    }
+
+    @Test
+    public void testInterfaceAnnotations() {
+        RestAnnotation anno = AnnotationResolver.findClassAnnotation(
+                HelloWorldJaxrsResource.class, "javax.ws.rs.Path");
+        assertNotNull(anno);
+        assertEquals("/api", getValue(anno, "value"));
+
+        anno = AnnotationResolver.findMethodAnnotation(
+                HelloWorldJaxrsResource.class, "getMessage",
+                "(Ljava/lang/String;)Ljavax/ws/rs/core/Response;",
+                "javax.ws.rs.Path");
+        assertNotNull(anno);
+        assertEquals("/{id}", getValue(anno, "value"));
+    }
+
+    @Test
+    public void testJdkProxyAnnotations() {
+        Object proxy = Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{HelloWorldJaxrsApi.class},
+                new InvocationHandler() {
+                    @Override
+                    public Object invoke(Object obj, Method method,
+                            Object[] args) {
+                        return null;
+                    }
+                });
+
+        RestAnnotation anno = AnnotationResolver.findClassAnnotation(
+                proxy.getClass(), "javax.ws.rs.Path");
+        assertNotNull(anno);
+        assertEquals("/api", getValue(anno, "value"));
+
+        anno = AnnotationResolver.findMethodAnnotation(proxy.getClass(),
+                "getMessage",
+                "(Ljava/lang/String;)Ljavax/ws/rs/core/Response;",
+                "javax.ws.rs.Path");
+        assertNotNull(anno);
+        assertEquals("/{id}", getValue(anno, "value"));
+    }
+
+    @Test
+    public void testSubclassProxyAnnotations() {
+        RestAnnotation anno = AnnotationResolver.findClassAnnotation(
+                HelloWorldSpringServiceProxy.class, REQUEST_MAPPING);
+        assertNotNull(anno);
+        assertEquals("/base", getValue(anno, "value"));
+
+        anno = AnnotationResolver.findMethodAnnotation(
+                HelloWorldSpringServiceProxy.class, "handle",
+                "(Ljava/lang/String;)Ljava/lang/String;", REQUEST_MAPPING);
+        assertNotNull(anno);
+        assertNull(anno.getParam("value"));
+        assertEquals("/{msg}", getValue(anno, "path"));
+        assertEquals("POST", getValue(anno, "method"));
+    }
+
+    @Test
+    public void testBridgeMethodAnnotations() {
+        RestAnnotation anno = AnnotationResolver.findMethodAnnotation(
+                HelloWorldBaseSpringService.class, "handle",
+                "(Ljava/lang/Object;)Ljava/lang/Object;", REQUEST_MAPPING);
+        assertNotNull(anno);
+        assertEquals("/{msg}", getValue(anno, "path"));
+    }
+
+    @Test
+    public void testFindMethodAnnotations() {
+        Map<String, RestAnnotation> annotations =
+                AnnotationResolver.findMethodAnnotations(
+                        HelloWorldSpringServiceProxy.class, REQUEST_MAPPING);
+        assertEquals(2, annotations.size());
+
+        RestAnnotation anno = annotations.get(
+                "handle(Ljava/lang/String;)Ljava/lang/String;");
+        assertNotNull(anno);
+        assertEquals("/{msg}", getValue(anno, "path"));
+        assertEquals(anno, annotations.get(
+                "handle(Ljava/lang/Object;)Ljava/lang/Object;"));
+
+        annotations = AnnotationResolver.findMethodAnnotations(
+                HelloWorldJaxrsResource.class, "javax.ws.rs.Path");
+        anno = annotations.get(
+                "getMessage(Ljava/lang/String;)Ljavax/ws/rs/core/Response;");
+        assertNotNull(anno);
+        assertEquals("/{id}", getValue(anno, "value"));
+    }
+
+    @Test
+    public void testTypeHierarchy() {
+        List<Class<?>> types = AnnotationResolver.getTypeHierarchy(
+                HelloWorldSpringServiceProxy.class);
+        assertEquals(3, types.size());
+        assertEquals(HelloWorldSpringServiceProxy.class, types.get(0));
+        assertEquals(HelloWorldBaseSpringService.class, types.get(1));
+    }
+
+    @Test
+    public void testAnnotationNotFound() {
+        assertNull(AnnotationResolver.findClassAnnotation(String.class,
+                "javax.ws.rs.Path"));
+        assertNull(AnnotationResolver.findMethodAnnotation(String.class,
+                "trim", "()Ljava/lang/String;", "javax.ws.rs.Path"));
+    }
+
+    @Test
+    public void testAnnotationTypeNotPinned() throws Exception {
+        URL classes = AnnotationResolverTest.class.getProtectionDomain()
+                .getCodeSource().getLocation();
+        URL spring = RequestMapping.class.getProtectionDomain()
+                .getCodeSource().getLocation();
+        ClassLoader loader =
+                new URLClassLoader(new URL[]{classes, spring}, null);
+        Class<?> clazz =
+                loader.loadClass(HelloWorldSpringService.class.getName());
+        RestAnnotation anno = AnnotationResolver.findMethodAnnotation(clazz,
+                "getMessage", "(Ljava/lang/String;)Ljava/lang/String;",
+                REQUEST_MAPPING);
+        assertNotNull(anno);
+
+        WeakReference<ClassLoader> ref =
+                new WeakReference<ClassLoader>(loader);
+        clazz = null;
+        loader = null;
+        for (int i = 0; i < 50 && ref.get() != null; i++) {
+            System.gc();
+            Thread.sleep(20);
+        }
+        assertNull(ref.get());
+    }
+
+    private static String getValue(RestAnnotation anno, String key) {
+        List<IAnnotation> params = anno.getParam(key);
+        assertNotNull(params);
+        assertEquals(1, params.size());
+        return ((RestAnnotationParam) params.get(0)).getValue();
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright [2017] [Indra Basak]
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.basaki.agent.util;
+
+import java.util.List;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * {@code AnnotationStringParserTest} is an unit test for {@link
+ * AnnotationStringParser}.
+ * <p/>
+ *
+ * @author Indra Basak
+ * @since 10/18/26
+ */
+public class AnnotationStringParserTest {
+
+    private static final String REQUEST_MAPPING =
+            "@org.springframework.web.bind.annotation.RequestMapping("
+                    + "headers=[], path=[], method=[GET], "
+                    + "produces=[application/xml, application/json], name=, "
+                    + "params=[], value=[/{msg}], consumes=[])";
+
+    @Test
+    public void testParse() {
+        AnnotationStringParser parser = AnnotationStringParser.get();
+        assertTrue(parser.parse(REQUEST_MAPPING));
+        assertTrue(parser.isAnnotationClass(
+                "org.springframework.web.bind.annotation.RequestMapping"));
+        assertEquals("org.springframework.web.bind.annotation.RequestMapping",
+                parser.getAnnotationClass());
+        assertEquals(4, parser.getParamCount());
+        assertEquals("GET", parser.getValue("method"));
+        assertEquals("/{msg}", parser.getValue("value"));
+        assertSame(parser.getValue("value"), parser.getValue("value"));
+        assertEquals(2, parser.getValueCount("produces"));
+        assertNull(parser.getValue("produces"));
+        assertNull(parser.getValue("path"));
+    }
+
+    @Test
+    public void testToRestAnnotation() {
+        AnnotationStringParser parser = AnnotationStringParser.get();
+        assertTrue(parser.parse(REQUEST_MAPPING));
+        RestAnnotation anno = parser.toRestAnnotation();
+        assertEquals(3, anno.getParamKeys().length);
+        List<IAnnotation> params = anno.getParam("produces");
+        assertEquals(2, params.size());
+        assertEquals("application/json",
+                ((RestAnnotationParam) params.get(1)).getValue());
+    }
+
+    @Test
+    public void testUnbracketedValue() {
+        AnnotationStringParser parser = AnnotationStringParser.get();
+        assertTrue(parser.parse(
+                new StringBuilder("@javax.ws.rs.Path(value=/hello)")));
+        assertEquals("javax.ws.rs.Path", parser.getAnnotationClass());
+        assertEquals("/hello", parser.getValue("value"));
+    }
+
+    @Test
+    public void testInvalid() {
+        AnnotationStringParser parser = AnnotationStringParser.get();
+        assertFalse(parser.parse(null));
+        assertFalse(parser.parse(""));
+        assertFalse(parser.parse("javax.ws.rs.Path(value=/hello)"));
+        assertFalse(parser.parse("@javax.ws.rs.Path"));
+        assertNull(parser.toRestAnnotation());
+        assertNull(parser.getValue("value"));
+    }
+}
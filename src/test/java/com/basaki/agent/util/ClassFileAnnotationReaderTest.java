@@ -0,0 +1,287 @@
+/*
+ * Copyright [2017] [Indra Basak]
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.basaki.agent.util;
+
+import com.basaki.agent.jaxrs.HelloWorldJaxrsApi;
+import com.basaki.agent.jaxrs.HelloWorldJaxrsResource;
+import com.basaki.agent.jaxrs.HelloWorldJaxrsService;
+import com.basaki.agent.spring.HelloWorldBaseSpringService;
+import com.basaki.agent.spring.HelloWorldNoopSpringService;
+import com.basaki.agent.spring.HelloWorldRestSpringService;
+import com.basaki.agent.spring.HelloWorldSpringService;
+import com.basaki.agent.spring.HelloWorldSpringServiceProxy;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.List;
+import java.util.Map;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * {@code ClassFileAnnotationReaderTest} is an unit test for {@link
+ * ClassFileAnnotationReader}.
+ * <p/>
+ *
+ * @author Indra Basak
+ * @since 10/18/26
+ */
+public class ClassFileAnnotationReaderTest {
+
+    private static final String REQUEST_MAPPING =
+            "org.springframework.web.bind.annotation.RequestMapping";
+
+    private static final String MESSAGE_DESC =
+            "(Ljava/lang/String;)Ljava/lang/String;";
+
+    private static final String RESPONSE_DESC =
+            "(Ljava/lang/String;)Ljavax/ws/rs/core/Response;";
+
+    @Test
+    public void testFindClassAnnotation() {
+        RestAnnotation anno = ClassFileAnnotationReader.findClassAnnotation(
+                HelloWorldSpringService.class,
+                "org.springframework.stereotype.Controller");
+        assertNotNull(anno);
+        assertEquals("org.springframework.stereotype.Controller",
+                anno.getAnnotationClass());
+        assertEquals("/hello", getValue(anno, "value"));
+    }
+
+    @Test
+    public void testFindMethodAnnotation() {
+        RestAnnotation anno = ClassFileAnnotationReader.findMethodAnnotation(
+                HelloWorldSpringService.class, "getMessage", MESSAGE_DESC,
+                "@" + REQUEST_MAPPING);
+        assertNotNull(anno);
+        assertEquals(REQUEST_MAPPING, anno.getAnnotationClass());
+        assertEquals("/{msg}", getValue(anno, "value"));
+        assertEquals("GET", getValue(anno, "method"));
+        assertNull(anno.getParam("path"));
+        assertNull(anno.getParam("produces"));
+    }
+
+    @Test
+    public void testMatchesAnnotationResolver() {
+        Class<?>[] classes = {HelloWorldSpringService.class,
+                HelloWorldRestSpringService.class,
+                HelloWorldNoopSpringService.class,
+                HelloWorldSpringServiceProxy.class};
+        for (Class<?> clazz : classes) {
+            for (String annotation : new String[]{REQUEST_MAPPING,
+                    "org.springframework.stereotype.Controller",
+                    "org.springframework.web.bind.annotation.RestController"}) {
+                assertEquals(String.valueOf(
+                        AnnotationResolver.findClassAnnotation(clazz,
+                                annotation)), String.valueOf(
+                        ClassFileAnnotationReader.findClassAnnotation(clazz,
+                                annotation)));
+            }
+
+            assertEquals(String.valueOf(
+                    AnnotationResolver.findMethodAnnotations(clazz,
+                            REQUEST_MAPPING)), String.valueOf(
+                    ClassFileAnnotationReader.findMethodAnnotations(clazz,
+                            REQUEST_MAPPING)));
+        }
+    }
+
+    @Test
+    public void testJaxrsPath() {
+        RestAnnotation anno = ClassFileAnnotationReader.findMethodAnnotation(
+                HelloWorldJaxrsService.class, "getMessage", RESPONSE_DESC,
+                "javax.ws.rs.Path");
+        assertNotNull(anno);
+        assertEquals("/{param}", getValue(anno, "value"));
+    }
+
+    @Test
+    public void testInterfaceAnnotations() {
+        RestAnnotation anno = ClassFileAnnotationReader.findClassAnnotation(
+                HelloWorldJaxrsResource.class, "javax.ws.rs.Path");
+        assertNotNull(anno);
+        assertEquals("/api", getValue(anno, "value"));
+
+        anno = ClassFileAnnotationReader.findMethodAnnotation(
+                HelloWorldJaxrsResource.class, "getMessage", RESPONSE_DESC,
+                "javax.ws.rs.Path");
+        assertNotNull(anno);
+        assertEquals("/{id}", getValue(anno, "value"));
+    }
+
+    @Test
+    public void testJdkProxyAnnotations() {
+        Object proxy = Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{HelloWorldJaxrsApi.class},
+                new InvocationHandler() {
+                    @Override
+                    public Object invoke(Object obj, Method method,
+                            Object[] args) {
+                        return null;
+                    }
+                });
+
+        RestAnnotation anno = ClassFileAnnotationReader.findClassAnnotation(
+                proxy.getClass(), "javax.ws.rs.Path");
+        assertNotNull(anno);
+        assertEquals("/api", getValue(anno, "value"));
+
+        anno = ClassFileAnnotationReader.findMethodAnnotation(
+                proxy.getClass(), "getMessage", RESPONSE_DESC,
+                "javax.ws.rs.Path");
+        assertNotNull(anno);
+        assertEquals("/{id}", getValue(anno, "value"));
+    }
+
+    @Test
+    public void testSubclassProxyAnnotations() {
+        RestAnnotation anno = ClassFileAnnotationReader.findClassAnnotation(
+                HelloWorldSpringServiceProxy.class, REQUEST_MAPPING);
+        assertNotNull(anno);
+        assertEquals("/base", getValue(anno, "value"));
+
+        anno = ClassFileAnnotationReader.findMethodAnnotation(
+                HelloWorldSpringServiceProxy.class, "handle", MESSAGE_DESC,
+                REQUEST_MAPPING);
+        assertNotNull(anno);
+        assertNull(anno.getParam("value"));
+        assertEquals("/{msg}", getValue(anno, "path"));
+        assertEquals("POST", getValue(anno, "method"));
+    }
+
+    @Test
+    public void testBridgeMethodAnnotations() {
+        RestAnnotation anno = ClassFileAnnotationReader.findMethodAnnotation(
+                HelloWorldBaseSpringService.class, "handle",
+                "(Ljava/lang/Object;)Ljava/lang/Object;", REQUEST_MAPPING);
+        assertNotNull(anno);
+        assertEquals("/{msg}", getValue(anno, "path"));
+    }
+
+    @Test
+    public void testFindMethodAnnotations() {
+        Map<String, RestAnnotation> annotations =
+                ClassFileAnnotationReader.findMethodAnnotations(
+                        HelloWorldSpringServiceProxy.class, REQUEST_MAPPING);
+        assertEquals(2, annotations.size());
+
+        RestAnnotation anno = annotations.get("handle" + MESSAGE_DESC);
+        assertNotNull(anno);
+        assertEquals("/{msg}", getValue(anno, "path"));
+        assertEquals(String.valueOf(anno), String.valueOf(annotations.get(
+                "handle(Ljava/lang/Object;)Ljava/lang/Object;")));
+
+        annotations = ClassFileAnnotationReader.findMethodAnnotations(
+                HelloWorldJaxrsResource.class, "javax.ws.rs.Path");
+        anno = annotations.get("getMessage" + RESPONSE_DESC);
+        assertNotNull(anno);
+        assertEquals("/{id}", getValue(anno, "value"));
+    }
+
+    @Test
+    public void testAnnotationNotFound() {
+        assertNull(ClassFileAnnotationReader.findClassAnnotation(String.class,
+                "javax.ws.rs.Path"));
+        assertNull(ClassFileAnnotationReader.findMethodAnnotation(
+                String.class, "trim", "()Ljava/lang/String;",
+                "javax.ws.rs.Path"));
+        assertTrue(ClassFileAnnotationReader.findMethodAnnotations(
+                int[].class, REQUEST_MAPPING).isEmpty());
+    }
+
+    @Test(expected = IOException.class)
+    public void testParseInvalidClassFile() throws IOException {
+        ClassFileAnnotationReader.parse(new byte[]{(byte) 0xCA, (byte) 0xFE,
+                (byte) 0xBA, (byte) 0xBE, 0, 0, 0, 50, 0, 9}, false);
+    }
+
+    @Test
+    public void testParseAllMethods() throws IOException {
+        ClassFileAnnotationReader.ClassAnnotations classFile =
+                ClassFileAnnotationReader.parse(
+                        readClassFile(HelloWorldBaseSpringService.class),
+                        true);
+        assertEquals(HelloWorldBaseSpringService.class.getName(),
+                classFile.getName());
+        assertEquals("java.lang.Object", classFile.getSuperName());
+        assertEquals(1, classFile.getInterfaceNames().length);
+        assertEquals("com.basaki.agent.spring.HelloWorldHandler",
+                classFile.getInterfaceNames()[0]);
+        assertFalse(classFile.isInterface());
+        assertFalse(classFile.isAbstract());
+        assertEquals(2, classFile.getAnnotations().size());
+
+        ClassFileAnnotationReader.MethodAnnotations constructor =
+                classFile.getMethod("<init>", "()V");
+        assertNotNull(constructor);
+        assertTrue(constructor.getAnnotations().isEmpty());
+
+        ClassFileAnnotationReader.MethodAnnotations bridge =
+                classFile.getMethod("handle",
+                        "(Ljava/lang/Object;)Ljava/lang/Object;");
+        assertTrue(bridge.isBridge());
+        assertTrue(bridge.isSynthetic());
+        assertEquals(MESSAGE_DESC, bridge.getBridged());
+
+        classFile = ClassFileAnnotationReader.parse(
+                readClassFile(HelloWorldJaxrsApi.class), false);
+        assertTrue(classFile.isInterface());
+        assertTrue(classFile.isAbstract());
+        assertNull(classFile.getMethod("<init>", "()V"));
+        assertTrue(classFile.getMethod("getMessage", RESPONSE_DESC)
+                .isAbstract());
+    }
+
+    @Test
+    public void testGetParameterCount() {
+        assertEquals(0, ClassFileAnnotationReader.getParameterCount("()V"));
+        assertEquals(1,
+                ClassFileAnnotationReader.getParameterCount(MESSAGE_DESC));
+        assertEquals(4, ClassFileAnnotationReader.getParameterCount(
+                "(I[JLjava/lang/String;[[Ljava/util/List;)V"));
+    }
+
+    private static byte[] readClassFile(Class<?> clazz) throws IOException {
+        InputStream in = clazz.getResourceAsStream(
+                clazz.getSimpleName() + ".class");
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+            return out.toByteArray();
+        } finally {
+            in.close();
+        }
+    }
+
+    private static String getValue(RestAnnotation anno, String key) {
+        List<IAnnotation> params = anno.getParam(key);
+        assertNotNull(params);
+        assertEquals(1, params.size());
+        return ((RestAnnotationParam) params.get(0)).getValue();
+    }
+}
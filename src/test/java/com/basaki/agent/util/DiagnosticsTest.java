@@ -0,0 +1,114 @@
+/*
+ * Copyright [2017] [Indra Basak]
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.basaki.agent.util;
+
+import com.wily.util.feedback.IModuleFeedbackChannel;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * {@code DiagnosticsTest} is an unit test for {@link Diagnostics}.
+ * <p/>
+ *
+ * @author Indra Basak
+ * @since 10/18/26
+ */
+public class DiagnosticsTest {
+
+    private IModuleFeedbackChannel feedback;
+
+    private Diagnostics diagnostics;
+
+    @Before
+    public void setUp() {
+        feedback = mock(IModuleFeedbackChannel.class);
+        when(feedback.isInfoEnabled()).thenReturn(true);
+        when(feedback.isWarningEnabled()).thenReturn(true);
+        diagnostics = new Diagnostics(feedback, 2, 60000L, 10);
+    }
+
+    @Test
+    public void testDebugDisabled() {
+        when(feedback.isDebugEnabled()).thenReturn(false);
+        diagnostics.debug("key", "message ", "arg");
+        verify(feedback, never()).debug(anyString());
+        assertEquals(0, diagnostics.getSuppressedCount());
+    }
+
+    @Test
+    public void testDebugEnabled() {
+        when(feedback.isDebugEnabled()).thenReturn(true);
+        diagnostics.debug("key", "message ", "arg");
+        verify(feedback).debug("message arg");
+    }
+
+    @Test
+    public void testInfoAndWarnDisabled() {
+        when(feedback.isInfoEnabled()).thenReturn(false);
+        when(feedback.isWarningEnabled()).thenReturn(false);
+        diagnostics.info("key", "message ", "arg");
+        diagnostics.warn("key", "message ", "arg");
+        verify(feedback, never()).info(anyString());
+        verify(feedback, never()).warn(anyString());
+        assertEquals(0, diagnostics.getSuppressedCount());
+    }
+
+    @Test
+    public void testWarnEnabled() {
+        diagnostics.warn("key", "message ", "arg");
+        verify(feedback).warn("message arg");
+    }
+
+    @Test
+    public void testRateLimit() {
+        for (int i = 0; i < 5; i++) {
+            diagnostics.info("key", "message ", i);
+        }
+        diagnostics.info("other", "other ", 0);
+
+        verify(feedback).info("message 0");
+        verify(feedback).info("message 1");
+        verify(feedback, never()).info("message 2");
+        verify(feedback).info("other 0");
+        assertEquals(3, diagnostics.getSuppressedCount());
+    }
+
+    @Test
+    public void testResolutionLoggedOnce() {
+        diagnostics.resolution("Foo", "bar", "()V", "REST|/foo");
+        diagnostics.resolution("Foo", "bar", "()V", "REST|/foo");
+        verify(feedback, times(1)).info("Resolved Foo.bar()V to REST|/foo");
+    }
+
+    @Test
+    public void testResolutionDisabled() {
+        when(feedback.isInfoEnabled()).thenReturn(false);
+        diagnostics.resolution("Foo", "bar", "()V", "REST|/foo");
+        verify(feedback, never()).info(anyString());
+
+        when(feedback.isInfoEnabled()).thenReturn(true);
+        diagnostics.resolution("Foo", "bar", "()V", "REST|/foo");
+        verify(feedback).info("Resolved Foo.bar()V to REST|/foo");
+    }
+}
@@ -17,11 +17,18 @@ package com.basaki.agent.util;
 
 
 import com.basaki.agent.util.MethodUtil;
+import java.lang.ref.WeakReference;
 import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLClassLoader;
 import org.junit.Test;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 
 /**
  * {@code MethodUtilTest} is an unit test for {@link MethodUtil} class.
@@ -46,6 +53,64 @@ public class MethodUtilTest {
         assertNull(method);
     }
 
+    @Test
+    public void testFindUniqueMethod() {
+        Method method = MethodUtil.findMethod(String.class, "regionMatches",
+                "(ZILjava/lang/String;II)Z");
+        assertNotNull(method);
+        assertNotNull(MethodUtil.findMethod(String.class, "toCharArray",
+                "()[C"));
+        assertNull(MethodUtil.findMethod(String.class, "toCharArray",
+                "()[B"));
+        assertNull(MethodUtil.findMethod(String.class, "toCharArray", null));
+        assertNull(MethodUtil.findMethod(String.class, "noSuchMethod",
+                "()V"));
+    }
+
+    @Test
+    public void testMethodIndex() throws Exception {
+        MethodIndex index = MethodUtil.getMethodIndex(AnnotationTestClass.class);
+        assertSame(index, MethodUtil.getMethodIndex(AnnotationTestClass.class));
+
+        Method method = AnnotationTestClass.class.getDeclaredMethod("copy",
+                String[].class, int.class);
+        assertEquals("([Ljava/lang/String;I)[[Ljava/lang/Object;",
+                MethodUtil.getMethodDescriptor(method));
+        assertTrue(MethodIndex.matches(method,
+                "([Ljava/lang/String;I)[[Ljava/lang/Object;"));
+        assertFalse(MethodIndex.matches(method,
+                "([Ljava/lang/String;J)[[Ljava/lang/Object;"));
+        assertFalse(MethodIndex.matches(method,
+                "([Ljava/lang/String;I)[Ljava/lang/Object;"));
+        assertFalse(MethodIndex.matches(method,
+                "([Ljava/lang/Strin;I)[[Ljava/lang/Object;"));
+        Method found = index.find(AnnotationTestClass.class, "copy",
+                "([Ljava/lang/String;I)[[Ljava/lang/Object;");
+        assertEquals(method, found);
+        // resolved once, not copied again on every lookup
+        assertSame(found, index.find(AnnotationTestClass.class, "copy",
+                "([Ljava/lang/String;I)[[Ljava/lang/Object;"));
+    }
+
+    @Test
+    public void testIndexDoesNotPinClass() throws Exception {
+        URL classes = MethodUtilTest.class.getProtectionDomain()
+                .getCodeSource().getLocation();
+        ClassLoader loader = new URLClassLoader(new URL[]{classes}, null);
+        Class<?> clazz = loader.loadClass(
+                AnnotationTestClass.class.getName());
+        assertNotNull(MethodUtil.findMethod(clazz, "doSomething", "()V"));
+
+        WeakReference<Class<?>> ref = new WeakReference<Class<?>>(clazz);
+        clazz = null;
+        loader = null;
+        for (int i = 0; i < 50 && ref.get() != null; i++) {
+            System.gc();
+            Thread.sleep(20);
+        }
+        assertNull(ref.get());
+    }
+
     @Test
     public void testGetAnnotation() {
         Method method =
@@ -63,5 +128,9 @@ public class MethodUtilTest {
         public void doSomething() {
 
         }
+
+        public Object[][] copy(String[] values, int count) {
+            return null;
+        }
     }
 }
@@ -0,0 +1,74 @@
+/*
+ * Copyright [2017] [Indra Basak]
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.basaki.agent.util;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+/**
+ * {@code MetricNameTemplateTest} is an unit test for {@link
+ * MetricNameTemplate}.
+ * <p/>
+ *
+ * @author Indra Basak
+ * @since 10/18/26
+ */
+public class MetricNameTemplateTest {
+
+    private static final String TEMPLATE =
+            "REST|Spring|{path}|{op}|{classname}|{method}";
+
+    @Test
+    public void testRender() {
+        MetricNameTemplate template = MetricNameTemplate.compile(TEMPLATE);
+        assertSame(template, MetricNameTemplate.compile(TEMPLATE));
+        assertEquals(Arrays.asList("{path}", "{op}", "{classname}",
+                "{method}"), template.getPlaceholders());
+
+        Map<String, String> values = new HashMap<String, String>();
+        values.put("{path}", "Indra|/hello/{msg}");
+        values.put("{op}", "GET");
+        assertEquals("REST|Spring|Indra|/hello/{msg}|GET|{classname}|{method}",
+                template.render(values));
+    }
+
+    @Test
+    public void testRenderRepeated() {
+        MetricNameTemplate template =
+                new MetricNameTemplate("{path}:{path}-{op}");
+        assertEquals("/a:/a-{op}", template.render(
+                Collections.singletonMap("{path}", "/a")));
+    }
+
+    @Test
+    public void testRenderLiteral() {
+        Map<String, String> values = Collections.singletonMap("{path}", "/a");
+        assertEquals("REST|JAXRS", new MetricNameTemplate("REST|JAXRS")
+                .render(values));
+        assertEquals("", new MetricNameTemplate("").render(values));
+        assertEquals("a{b{path}}c}", new MetricNameTemplate("a{b{path}}c}")
+                .render(Collections.singletonMap("{path}", "{path}")));
+        assertEquals("a{b/a}c}", new MetricNameTemplate("a{b{path}}c}")
+                .render(values));
+        assertEquals("{path", new MetricNameTemplate("{path").render(values));
+    }
+}
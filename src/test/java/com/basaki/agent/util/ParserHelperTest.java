@@ -58,6 +58,31 @@ public class ParserHelperTest {
         assertEquals("myapp", appName);
     }
 
+    @Test
+    public void testGetCachedFrontendAppName() {
+        String frontBoundary = "Frontends|Apps|cached|hello";
+        assertEquals("cached", ParserHelper.getFrontendAppName(frontBoundary));
+        assertEquals("cached", ParserHelper.getFrontendAppName(
+                new String(frontBoundary)));
+        assertEquals("cached", ParserHelper.getFrontendAppName(frontBoundary));
+        assertNull(ParserHelper.getFrontendAppName("Backends|Apps|x"));
+        assertNull(ParserHelper.getFrontendAppName("Backends|Apps|x"));
+        assertNull(ParserHelper.getFrontendAppName(null));
+    }
+
+    @Test
+    public void testParseFrontendAppName() {
+        String[] boundaries = {"Frontends|Apps|myapp|hello",
+                "Frontends|Apps|myapp", "Frontends|Apps|", "Frontends|Apps||",
+                "Frontends|Apps||x", "Frontends|Apps|a|b|c", "Frontends|App"};
+        for (String boundary : boundaries) {
+            String[] tokens = boundary.split("\\|");
+            String expected = tokens.length > 2 ? tokens[2] : null;
+            assertEquals(boundary, expected,
+                    ParserHelper.parseFrontendAppName(boundary));
+        }
+    }
+
     @Test
     public void testValue() {
         RequestMappingParams params = ParserHelper
@@ -0,0 +1,66 @@
+/*
+ * Copyright [2017] [Indra Basak]
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.basaki.agent.util;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * {@code RestPathUtilTest} is an unit test for {@link RestPathUtil}.
+ * <p/>
+ *
+ * @author Indra Basak
+ * @since 10/18/26
+ */
+public class RestPathUtilTest {
+
+    @Test
+    public void testJoinPath() {
+        RestAnnotation classAnno = create("value", "/hello");
+        assertEquals("/hello/{msg}", RestPathUtil.joinPath(classAnno,
+                create("path", "{msg}")));
+        assertEquals("/hello", RestPathUtil.joinPath(classAnno, null));
+        assertEquals("/{msg}", RestPathUtil.joinPath(null,
+                create("value", "/{msg}")));
+        assertNull(RestPathUtil.joinPath(null, create("method", "GET")));
+    }
+
+    @Test
+    public void testGetValue() {
+        RestAnnotation anno = create("method", "GET");
+        assertEquals("GET", RestPathUtil.getValue(anno, "method"));
+        assertNull(RestPathUtil.getValue(anno, "value"));
+        assertNull(RestPathUtil.getValue(null, "method"));
+
+        anno.addParam("method", param("POST"));
+        assertNull(RestPathUtil.getValue(anno, "method"));
+    }
+
+    private static RestAnnotation create(String name, String value) {
+        RestAnnotation anno = new RestAnnotation();
+        anno.addParam(name, param(value));
+
+        return anno;
+    }
+
+    private static RestAnnotationParam param(String value) {
+        RestAnnotationParam param = new RestAnnotationParam();
+        param.setValue(value);
+
+        return param;
+    }
+}